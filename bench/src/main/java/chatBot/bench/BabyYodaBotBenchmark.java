@@ -0,0 +1,128 @@
+package chatBot.bench;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chatBot.bots.BabyYodaBot;
+import chatBot.bots.YodishMode;
+
+/**
+ * The <code>BabyYodaBotBenchmark</code> class measures the baby yoda bot's replies against a local {@link YodaApiStub stub} of the Yoda API:
+ * <ul>
+ * <li><b>getReplyFromCache</b> - a reply to a message that was translated before</li>
+ * <li><b>getReplyFromStub</b> - a reply to a new message, which is a request to the stub</li>
+ * <li><b>getReplyOffline</b> - a reply translated locally, without the stub</li>
+ * <li><b>getRepliesFromStub</b> - a batch of {@link #BATCH_SIZE} new messages, whose requests are pipelined</li>
+ * </ul>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BabyYodaBotBenchmark
+{
+	/** The number of messages in a batch sent to the Yoda API stub. */
+	public static final int BATCH_SIZE = 64;
+	
+	/** The local Yoda API, answering right away. */
+	private YodaApiStub stub;
+	
+	/** The bot asking the stub. */
+	private BabyYodaBot remoteBot;
+	
+	/** The bot translating locally. */
+	private BabyYodaBot offlineBot;
+	
+	/** The message that {@link #remoteBot} has translated before. */
+	private String cachedMessage;
+	
+	/** The message that {@link #offlineBot} translates. */
+	private String message;
+	
+	/** The number of the next new message, so that every new message is a request. */
+	private long next = 0;
+	
+	/** Starts the stub, and creates the bots. */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException
+	{
+		stub = new YodaApiStub(0, 0);
+		remoteBot = BenchmarkData.newBabyYoda(stub, YodishMode.Remote);
+		offlineBot = BenchmarkData.newBabyYoda(stub, YodishMode.Offline);
+		message = BenchmarkData.sentence(10);
+		cachedMessage = message;
+		remoteBot.getReply(cachedMessage);
+	}
+	
+	/** Stops the stub. */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException
+	{
+		stub.close();
+	}
+	
+	/**
+	 * Sends a message that was translated before.
+	 * @return the bot's reply
+	 */
+	@Benchmark
+	public String getReplyFromCache()
+	{
+		return remoteBot.getReply(cachedMessage);
+	}
+	
+	/**
+	 * Sends a new message, which the bot asks the stub to translate.
+	 * @return the bot's reply
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public String getReplyFromStub()
+	{
+		return remoteBot.getReply("message number " + next++);
+	}
+	
+	/**
+	 * Sends a message that the bot translates locally.
+	 * @return the bot's reply
+	 */
+	@Benchmark
+	public String getReplyOffline()
+	{
+		return offlineBot.getReply(message);
+	}
+	
+	/**
+	 * Sends a batch of new messages, which the bot asks the stub to translate at once.
+	 * @return the bot's replies
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public List<String> getRepliesFromStub()
+	{
+		List<String> batch = new ArrayList<>(BATCH_SIZE);
+		for(int i = 0; i < BATCH_SIZE; i++)
+		{
+			batch.add("message number " + next++);
+		}
+		return remoteBot.getReplies(batch);
+	}
+}
\ No newline at end of file
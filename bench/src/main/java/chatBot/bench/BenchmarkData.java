@@ -0,0 +1,87 @@
+package chatBot.bench;
+import java.time.Duration;
+
+import chatBot.bots.BabyYodaBot;
+import chatBot.bots.ParrotBot;
+import chatBot.bots.RandomSources;
+import chatBot.bots.YodishMode;
+import chatBot.cache.TranslationCache;
+import chatBot.memory.EvictionPolicy;
+import chatBot.memory.IndexedPhraseMemory;
+
+/**
+ * The <code>BenchmarkData</code> class creates the chat bots and messages that the JMH benchmarks share, so that every suite measures the same inputs.
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+final class BenchmarkData
+{
+	/** The words that {@link #sentence(int)} builds sentences from. */
+	private static final String[] VOCABULARY = { "the", "force", "is", "strong", "with", "this", "one", "young", "padawan", "learns" };
+	
+	/** This class only contains static methods. */
+	private BenchmarkData()
+	{
+	}
+	
+	/**
+	 * Creates a parrot that knows the specified number of phrases, replying with a seeded random generator.
+	 * @param size the number of phrases
+	 * @return the parrot
+	 */
+	static ParrotBot newParrot(int size)
+	{
+		ParrotBot parrot = new ParrotBot(new IndexedPhraseMemory(size, EvictionPolicy.lru()), RandomSources.seeded(42));
+		for(String phrase : phrases(size))
+		{
+			parrot.getReply(phrase);
+		}
+		return parrot;
+	}
+	
+	/**
+	 * Creates a baby yoda bot that asks the Yoda API stub, with a cache of its own.
+	 * @param stub the Yoda API stub
+	 * @param mode the way of translating messages
+	 * @return the baby yoda bot
+	 */
+	static BabyYodaBot newBabyYoda(YodaApiStub stub, YodishMode mode)
+	{
+		TranslationCache cache = new TranslationCache(TranslationCache.DEFAULT_MEMORY_CAPACITY, TranslationCache.DEFAULT_MEMORY_TIME_TO_LIVE_MILLIS);
+		return new BabyYodaBot(cache, stub.getEndpoint(), Duration.ofSeconds(5), Duration.ofSeconds(10), BabyYodaBot.DEFAULT_MAX_IN_FLIGHT, mode);
+	}
+	
+	/**
+	 * Creates the specified number of distinct phrases.
+	 * @param count the number of phrases
+	 * @return the phrases
+	 */
+	static String[] phrases(int count)
+	{
+		String[] phrases = new String[count];
+		for(int i = 0; i < count; i++)
+		{
+			phrases[i] = "the user said phrase number " + i + " to the parrot";
+		}
+		return phrases;
+	}
+	
+	/**
+	 * Creates a sentence of the specified number of words.
+	 * @param words the number of words
+	 * @return the sentence
+	 */
+	static String sentence(int words)
+	{
+		StringBuilder sentence = new StringBuilder();
+		for(int i = 0; i < words; i++)
+		{
+			if(i > 0)
+			{
+				sentence.append(' ');
+			}
+			sentence.append(VOCABULARY[i % VOCABULARY.length]);
+		}
+		return sentence.toString();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package chatBot.bench;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import chatBot.gui.ChatMessage;
+import chatBot.gui.ChatMessagePosition;
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+
+/**
+ * The <code>ChatMessageBenchmark</code> class measures creating a chat message node, with an {@link chatBot.gui.IconCache avatar}
+ * and with a full-size icon that the message scales down and clips.
+ * 
+ * <p>
+ * Nodes are created on the JavaFX thread, as the chat box does. Since handing work to that thread costs more than creating a node,
+ * every invocation creates {@link #MESSAGES_PER_INVOCATION} messages in one go, and the score is per message.
+ * The JavaFX toolkit is started without showing any window, and the benchmark fails if it cannot start, such as without a display.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChatMessageBenchmark
+{
+	/** The number of messages created per hand-off to the JavaFX thread. */
+	public static final int MESSAGES_PER_INVOCATION = 1_000;
+	
+	/** The width and height, in pixels, of a full-size icon, which chat messages scale down and clip rather than showing as is. */
+	public static final int FULL_SIZE_ICON = 256;
+	
+	/** The icon of the messages, <code>avatar</code> for one already {@link ChatMessage#ICON_SIZE} pixels, or <code>fullSize</code>. */
+	@Param({ "avatar", "fullSize" })
+	public String icon;
+	
+	/** The icon image. */
+	private Image iconImage;
+	
+	/** The message text. */
+	private String message;
+	
+	/** Starts the JavaFX toolkit, and creates the icon and the message. */
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		Platform.setImplicitExit(false);
+		Platform.startup(() -> {});
+		
+		int size = icon.equals("avatar") ? ChatMessage.ICON_SIZE : FULL_SIZE_ICON;
+		iconImage = new WritableImage(size, size);
+		message = BenchmarkData.sentence(10);
+	}
+	
+	/** Stops the JavaFX toolkit. */
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		Platform.exit();
+	}
+	
+	/**
+	 * Creates {@link #MESSAGES_PER_INVOCATION} chat messages on the JavaFX thread.
+	 * @param blackhole keeps the messages from being optimized away
+	 */
+	@Benchmark
+	@OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+	public void newChatMessage(Blackhole blackhole) throws Exception
+	{
+		FutureTask<Void> creation = new FutureTask<>(() ->
+		{
+			for(int i = 0; i < MESSAGES_PER_INVOCATION; i++)
+			{
+				blackhole.consume(new ChatMessage(ChatMessagePosition.Left, message, iconImage));
+			}
+			return null;
+		});
+		Platform.runLater(creation);
+		creation.get();
+	}
+}
\ No newline at end of file
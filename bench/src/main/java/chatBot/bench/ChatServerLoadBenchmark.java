@@ -0,0 +1,359 @@
+package chatBot.bench;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import chatBot.json.JsonFieldExtractor;
+import chatBot.server.ChatServer;
+
+/**
+ * The <code>ChatServerLoadBenchmark</code> class measures the {@link ChatServer} with many users chatting at once.
+ * 
+ * <p>
+ * Every user starts a session, waits until all other users have started theirs, so that all sessions are active at once,
+ * then sends a few messages, long polling for each reply, and finally ends the session.
+ * Users talk to the parrot, echo and random chat bots in turn, and run on virtual threads of their own,
+ * each over one kept-alive connection.
+ * It reports how many sessions are started per second, and the latency from sending a message to receiving its reply,
+ * both with the typing delay and without it, which shows what the server itself adds.
+ * </p>
+ * 
+ * <p>
+ * The server runs in a separate JVM, since a single JVM cannot hold both ends of that many connections
+ * without raising the limit of open files.
+ * </p>
+ * 
+ * <p>
+ * Usage: <code>ChatServerLoadBenchmark [sessions] [messagesPerSession]</code>, defaulting to 10,000 sessions sending 5 messages each.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class ChatServerLoadBenchmark
+{
+	/** The chat bots that the users talk to, in turn. */
+	public static final String[] CHAT_BOTS = { "ParrotBot", "EchoBot", "RandomBot" };
+	
+	/** The time, in milliseconds, that each poll for replies waits. */
+	public static final long POLL_TIMEOUT_MILLIS = 10_000;
+	
+	/** The body of a poll that timed out without any replies. */
+	private static final byte[] EMPTY_REPLIES = "{\"replies\":[]}".getBytes(StandardCharsets.UTF_8);
+	
+	/** Extracts the session's identifier from the response that started it. */
+	private static final JsonFieldExtractor SESSION_FIELD = new JsonFieldExtractor("session");
+	
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		// The server's JVM
+		if(args.length > 0 && args[0].equals("--serve"))
+		{
+			serve(Boolean.parseBoolean(args[1]), Path.of(args[2]));
+			return;
+		}
+		
+		int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		int messagesPerSession = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		
+		System.out.printf("%,d sessions, %d messages each%n", sessions, messagesPerSession);
+		run("typing delay", true, sessions, messagesPerSession);
+		run("no typing delay", false, sessions, messagesPerSession);
+	}
+	
+	/**
+	 * Runs the server until this JVM is stopped, and prints its port for the benchmark's JVM to read.
+	 * @param isTypingDelayed whether or not chat bots wait for a typing delay before replying
+	 * @param sessionDirectory the directory to hibernate sessions in
+	 */
+	private static void serve(boolean isTypingDelayed, Path sessionDirectory) throws Exception
+	{
+		ChatServer server = new ChatServer(new InetSocketAddress("127.0.0.1", 0), sessionDirectory, ChatServer.DEFAULT_HIBERNATE_AFTER_MILLIS, isTypingDelayed);
+		server.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+		
+		System.out.println(server.getPort());
+		Thread.sleep(Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Starts a server in a separate JVM, runs all users against it, and prints the results.
+	 * @param label the label of the run
+	 * @param isTypingDelayed whether or not chat bots wait for a typing delay before replying
+	 * @param sessions the number of users
+	 * @param messagesPerSession the number of messages that each user sends
+	 */
+	private static void run(String label, boolean isTypingDelayed, int sessions, int messagesPerSession) throws Exception
+	{
+		// Start the server's JVM, with the same class path
+		Path sessionDirectory = Files.createTempDirectory("chat-server-benchmark");
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		Process serverProcess = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+				ChatServerLoadBenchmark.class.getName(), "--serve", String.valueOf(isTypingDelayed), sessionDirectory.toString())
+				.redirectError(ProcessBuilder.Redirect.INHERIT)
+				.start();
+		
+		try
+		{
+			BufferedReader serverOutput = new BufferedReader(new InputStreamReader(serverProcess.getInputStream()));
+			String line = serverOutput.readLine();
+			while(!line.matches("\\d+"))
+			{
+				// Skip anything the JVM itself printed, such as with a profiler attached
+				line = serverOutput.readLine();
+			}
+			int port = Integer.parseInt(line);
+			
+			long[] latencies = new long[sessions * messagesPerSession];
+			AtomicInteger errors = new AtomicInteger();
+			CountDownLatch started = new CountDownLatch(sessions);
+			
+			long startTime = System.nanoTime();
+			try(ExecutorService users = Executors.newVirtualThreadPerTaskExecutor())
+			{
+				for(int i = 0; i < sessions; i++)
+				{
+					int user = i;
+					users.submit(() ->
+					{
+						chat(port, user, messagesPerSession, started, latencies, errors);
+						return null;
+					});
+				}
+				
+				// Wait until all sessions are active at once
+				started.await();
+				long startedTime = System.nanoTime();
+				System.out.printf("%-16s started %,d sessions in %.2f s: %,.0f sessions/s%n", label, sessions,
+						(startedTime - startTime) / 1e9, sessions / ((startedTime - startTime) / 1e9));
+			}
+			long endTime = System.nanoTime();
+			
+			// Unanswered messages were left at zero
+			Arrays.sort(latencies);
+			int answered = (int) Arrays.stream(latencies).filter(latency -> latency > 0).count();
+			long[] measured = Arrays.copyOfRange(latencies, latencies.length - answered, latencies.length);
+			System.out.printf("%-16s %,d replies in %.2f s: %,.0f replies/s, p50 %d ms, p99 %d ms, max %d ms, %d errors%n", label,
+					answered, (endTime - startTime) / 1e9, answered / ((endTime - startTime) / 1e9),
+					percentile(measured, 0.50), percentile(measured, 0.99), percentile(measured, 1.0), errors.get());
+		}
+		finally
+		{
+			serverProcess.destroy();
+			serverProcess.waitFor(30, TimeUnit.SECONDS);
+			
+			// The server hibernates its sessions when stopped
+			try(Stream<Path> files = Files.list(sessionDirectory))
+			{
+				for(Path file : (Iterable<Path>) files::iterator)
+				{
+					Files.delete(file);
+				}
+			}
+			Files.delete(sessionDirectory);
+		}
+	}
+	
+	/**
+	 * Plays one user: starts a session, waits for all others, sends messages while polling for each reply, then ends the session.
+	 * @param port the server's port
+	 * @param user the index of the user
+	 * @param messages the number of messages to send
+	 * @param started counted down once the session has started
+	 * @param latencies the latencies, in nanoseconds, of all replies; this user fills its own slots
+	 * @param errors the number of failed requests
+	 */
+	private static void chat(int port, int user, int messages, CountDownLatch started, long[] latencies, AtomicInteger errors) throws Exception
+	{
+		Connection connection;
+		try
+		{
+			connection = new Connection(port);
+		}
+		catch (IOException e)
+		{
+			started.countDown();
+			errors.incrementAndGet();
+			return;
+		}
+		
+		try(connection)
+		{
+			// Start the session, then wait until all other users have started theirs
+			String session = null;
+			try
+			{
+				if(connection.request("POST", "/sessions?bot=" + CHAT_BOTS[user % CHAT_BOTS.length], "") == 201)
+				{
+					session = SESSION_FIELD.extract(connection.body)[0];
+				}
+			}
+			finally
+			{
+				started.countDown();
+			}
+			if(session == null)
+			{
+				errors.incrementAndGet();
+				return;
+			}
+			started.await();
+			
+			for(int i = 0; i < messages; i++)
+			{
+				// Send the message
+				long sentTime = System.nanoTime();
+				if(connection.request("POST", "/sessions/" + session + "/messages", "hello there, this is user " + user + " saying message " + i) != 202)
+				{
+					errors.incrementAndGet();
+					continue;
+				}
+				
+				// Long poll for its reply
+				if(connection.request("GET", "/sessions/" + session + "/replies?wait=" + POLL_TIMEOUT_MILLIS, "") != 200
+						|| connection.body.length == EMPTY_REPLIES.length)
+				{
+					errors.incrementAndGet();
+					continue;
+				}
+				latencies[user * messages + i] = System.nanoTime() - sentTime;
+			}
+			
+			connection.request("DELETE", "/sessions/" + session, "");
+		}
+		catch (Exception e)
+		{
+			errors.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * The <code>Connection</code> class is a minimal HTTP/1.1 client over one kept-alive connection,
+	 * so that the client's own overhead does not drown out the server's on a machine that runs both.
+	 */
+	private static class Connection implements AutoCloseable
+	{
+		/** The connection to the server. */
+		private final Socket socket;
+		
+		/** The server's responses. */
+		private final DataInputStream in;
+		
+		/** The client's requests. */
+		private final OutputStream out;
+		
+		/** The body of the last response. */
+		private byte[] body;
+		
+		/**
+		 * Connects to the server.
+		 * @param port the server's port
+		 */
+		Connection(int port) throws IOException
+		{
+			socket = new Socket("127.0.0.1", port);
+			socket.setTcpNoDelay(true);
+			in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out = new BufferedOutputStream(socket.getOutputStream());
+		}
+		
+		/**
+		 * Sends a request and reads its response, whose body is kept in {@link #body}.
+		 * @param method the HTTP method
+		 * @param path the path and query
+		 * @param content the request body
+		 * @return the response's status code
+		 */
+		int request(String method, String path, String content) throws IOException
+		{
+			byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+			out.write((method + " " + path + " HTTP/1.1\r\nHost: 127.0.0.1\r\nContent-Length: " + bytes.length + "\r\n\r\n")
+					.getBytes(StandardCharsets.US_ASCII));
+			out.write(bytes);
+			out.flush();
+			
+			// The status line, such as 'HTTP/1.1 200 OK', then the headers up to an empty line
+			String statusLine = readLine();
+			int status = Integer.parseInt(statusLine.substring(9, 12));
+			int length = 0;
+			for(String header = readLine(); !header.isEmpty(); header = readLine())
+			{
+				if(header.regionMatches(true, 0, "Content-Length:", 0, 15))
+				{
+					length = Integer.parseInt(header.substring(15).trim());
+				}
+			}
+			
+			body = new byte[length];
+			in.readFully(body);
+			return status;
+		}
+		
+		/**
+		 * Reads a line of the response, without its line terminator.
+		 * @return the line
+		 */
+		private String readLine() throws IOException
+		{
+			StringBuilder line = new StringBuilder();
+			for(int c = in.read(); c != '\n'; c = in.read())
+			{
+				if(c < 0)
+				{
+					throw new EOFException("The server closed the connection.");
+				}
+				if(c != '\r')
+				{
+					line.append((char) c);
+				}
+			}
+			return line.toString();
+		}
+		
+		/**
+		 * Closes the connection.
+		 */
+		@Override
+		public void close() throws IOException
+		{
+			socket.close();
+		}
+	}
+	
+	/**
+	 * Returns the specified percentile of sorted latencies, in milliseconds.
+	 * @param sorted the sorted latencies in nanoseconds
+	 * @param percentile the percentile, between 0 and 1
+	 * @return the latency in milliseconds
+	 */
+	private static long percentile(long[] sorted, double percentile)
+	{
+		if(sorted.length == 0)
+		{
+			return 0;
+		}
+		int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(index, 0)]);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package chatBot.bench;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chatBot.bots.ChatBot;
+import chatBot.bots.EchoBot;
+import chatBot.metrics.InstrumentedChatBot;
+
+/**
+ * The <code>EchoBotBenchmark</code> class measures the echo bot's replies, the floor of any chat bot, bare and wrapped in an
+ * {@link InstrumentedChatBot} to show what recording metrics costs.
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EchoBotBenchmark
+{
+	/** The bare echo bot. */
+	private ChatBot bot;
+	
+	/** An echo bot whose replies are recorded. */
+	private ChatBot instrumentedBot;
+	
+	/** The message sent to the bots. */
+	private String message;
+	
+	/** Creates the bots and the message. */
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		bot = new EchoBot();
+		instrumentedBot = new InstrumentedChatBot(new EchoBot());
+		message = BenchmarkData.sentence(10);
+	}
+	
+	/**
+	 * Sends the message to the bare echo bot.
+	 * @return the bot's reply
+	 */
+	@Benchmark
+	public String getReply()
+	{
+		return bot.getReply(message);
+	}
+	
+	/**
+	 * Sends the message to the echo bot whose replies are recorded.
+	 * @return the bot's reply
+	 */
+	@Benchmark
+	public String getReplyInstrumented()
+	{
+		return instrumentedBot.getReply(message);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,177 @@
+package chatBot.bench;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import chatBot.bots.ChatBot;
+import javafx.application.Platform;
+import javafx.scene.control.Label;
+
+/**
+ * The <code>FxThreadStallBenchmark</code> class measures how long the JavaFX application thread stalls while a deliberately slow chat bot replies.
+ * 
+ * <p>
+ * Two reply paths are compared:
+ * <ul>
+ * <li><b>synchronous</b> - {@link ChatBot#getReply(String)} is called inside <code>Platform.runLater</code>, which is how replies used to be computed</li>
+ * <li><b>asynchronous</b> - {@link ChatBot#getReplyAsync(String, java.util.concurrent.Executor)} computes the reply on a worker thread, and only the finished label is added on the JavaFX thread</li>
+ * </ul>
+ * While the replies are computed, a probe is posted to the JavaFX thread every {@link #PROBE_INTERVAL_MS} milliseconds.
+ * The time between posting a probe and it running is the stall that the user would feel as a frozen window.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class FxThreadStallBenchmark
+{
+	/** The duration, in milliseconds, that the slow chat bot takes to reply. */
+	public static final int REPLY_DELAY_MS = 200;
+	
+	/** The number of replies requested from the slow chat bot per run. */
+	public static final int MESSAGES = 20;
+	
+	/** The duration, in milliseconds, between each probe posted to the JavaFX thread. */
+	public static final int PROBE_INTERVAL_MS = 5;
+	
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		// Start the JavaFX toolkit without showing any window
+		Platform.setImplicitExit(false);
+		Platform.startup(() -> {});
+		
+		ChatBot slowBot = new SlowBot();
+		ExecutorService replyExecutor = Executors.newCachedThreadPool();
+		
+		report("synchronous ", measure(slowBot, replyExecutor, false));
+		report("asynchronous", measure(slowBot, replyExecutor, true));
+		
+		replyExecutor.shutdownNow();
+		Platform.exit();
+	}
+	
+	/**
+	 * Requests {@link #MESSAGES} replies from the given chat bot while probing the JavaFX thread.
+	 * 
+	 * @param chatBot the chat bot to reply
+	 * @param replyExecutor the executor for the asynchronous path
+	 * @param async whether to use the asynchronous reply path
+	 * @return the sorted probe latencies, in nanoseconds
+	 */
+	private static List<Long> measure(ChatBot chatBot, ExecutorService replyExecutor, boolean async) throws InterruptedException
+	{
+		List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch repliesDone = new CountDownLatch(MESSAGES);
+		
+		// Continuously probe the JavaFX thread from a background thread
+		Thread prober = new Thread(() ->
+		{
+			while(!Thread.currentThread().isInterrupted())
+			{
+				long postedAt = System.nanoTime();
+				Platform.runLater(() -> latencies.add(System.nanoTime() - postedAt));
+				try
+				{
+					Thread.sleep(PROBE_INTERVAL_MS);
+				}
+				catch (InterruptedException e)
+				{
+					return;
+				}
+			}
+		});
+		prober.setDaemon(true);
+		prober.start();
+		
+		for(int i = 0; i < MESSAGES; i++)
+		{
+			String message = "message " + i;
+			if(async)
+			{
+				chatBot.getReplyAsync(message, replyExecutor).thenAccept(reply -> Platform.runLater(() ->
+				{
+					new Label(reply);
+					repliesDone.countDown();
+				}));
+			}
+			else
+			{
+				Platform.runLater(() ->
+				{
+					new Label(chatBot.getReply(message));
+					repliesDone.countDown();
+				});
+			}
+		}
+		
+		repliesDone.await();
+		prober.interrupt();
+		prober.join();
+		
+		List<Long> sorted = new ArrayList<>(latencies);
+		Collections.sort(sorted);
+		return sorted;
+	}
+	
+	/**
+	 * Prints a summary of the probe latencies.
+	 * @param name the name of the reply path
+	 * @param latencies the sorted probe latencies, in nanoseconds
+	 */
+	private static void report(String name, List<Long> latencies)
+	{
+		long total = 0;
+		for(long latency : latencies)
+		{
+			total += latency;
+		}
+		
+		long p99 = latencies.get((int) (latencies.size() * 0.99));
+		long max = latencies.get(latencies.size() - 1);
+		System.out.printf("%s  probes=%d  total stall=%d ms  p99=%.2f ms  max=%.2f ms%n",
+				name, latencies.size(), TimeUnit.NANOSECONDS.toMillis(total), p99 / 1e6, max / 1e6);
+	}
+	
+	/**
+	 * A chat bot that deliberately blocks for {@link FxThreadStallBenchmark#REPLY_DELAY_MS} before replying,
+	 * similar to a slow network round-trip.
+	 */
+	private static class SlowBot implements ChatBot
+	{
+		/** An auto-generated serial UID. */
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		public String getName()
+		{
+			return "Slow";
+		}
+		
+		@Override
+		public String getImagePath()
+		{
+			return "res/EchoIcon.png";
+		}
+		
+		@Override
+		public String getReply(String input)
+		{
+			try
+			{
+				Thread.sleep(REPLY_DELAY_MS);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			return input;
+		}
+	}
+}
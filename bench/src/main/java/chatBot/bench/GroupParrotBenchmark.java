@@ -0,0 +1,249 @@
+package chatBot.bench;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import chatBot.bots.ChatBot;
+import chatBot.bots.GroupParrotBot;
+import chatBot.bots.ParrotBot;
+import chatBot.memory.EvictionPolicy;
+import chatBot.persistence.ChatBotSnapshot;
+
+/**
+ * The <code>GroupParrotBenchmark</code> class measures how the replies of one parrot shared by many threads scale with the number of threads.
+ * 
+ * <p>
+ * Every thread talks to the same parrot, mostly repeating phrases the parrot already knows and now and then teaching it a new one.
+ * The score is the replies per second of all threads together, for:
+ * <ul>
+ * <li><b>locked</b> - a {@link ParrotBot} that every thread takes turns on, by synchronizing on it</li>
+ * <li><b>group</b> - a {@link GroupParrotBot}, which takes no lock</li>
+ * </ul>
+ * Before measuring, it checks that a group parrot is loaded back as a group parrot once saved.
+ * </p>
+ * 
+ * <p>
+ * Run on its own, it measures both parrots with each of {@link #THREAD_COUNTS} threads and prints their speedup over a single thread.
+ * Threads beyond the number of cores can only add contention, not throughput.
+ * Usage: <code>GroupParrotBenchmark [resultFile]</code>, writing the JMH results as JSON to <code>group-parrot.json</code> by default.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GroupParrotBenchmark
+{
+	/** The numbers of threads to measure when run on its own. */
+	public static final int[] THREAD_COUNTS = { 1, 2, 4, 8, 16, 32, 64 };
+	
+	/** The number of phrases that the parrot knows before the threads start, and that they repeat. */
+	public static final int KNOWN_PHRASES = 10_000;
+	
+	/** The capacity of the parrot's memory. */
+	public static final int MEMORY_CAPACITY = 100_000;
+	
+	/** The percentage of messages that teach the parrot a new phrase. */
+	public static final int NEW_PHRASE_PERCENT = 10;
+	
+	/** The parrot, <code>locked</code> or <code>group</code>. */
+	@Param({ "locked", "group" })
+	public String kind;
+	
+	/** The parrot shared by all threads. */
+	private ChatBot parrot;
+	
+	/** The number of threads that have started talking, used to number them. */
+	private final AtomicInteger threadCount = new AtomicInteger();
+	
+	/**
+	 * The <code>Talker</code> class holds what a single thread needs to talk to the parrot.
+	 */
+	@State(Scope.Thread)
+	public static class Talker
+	{
+		/** The number of the thread. */
+		private int thread;
+		
+		/** The thread's random number generator. */
+		private SplittableRandom random;
+		
+		/** The number of new phrases that the thread has taught the parrot. */
+		private long newPhrases = 0;
+		
+		/**
+		 * Numbers the thread.
+		 * @param benchmark the shared benchmark state
+		 */
+		@Setup(Level.Trial)
+		public void setUp(GroupParrotBenchmark benchmark)
+		{
+			thread = benchmark.threadCount.getAndIncrement();
+			random = new SplittableRandom(thread);
+		}
+		
+		/**
+		 * Returns the next message, mostly a known phrase and otherwise a new one.
+		 * @return the message
+		 */
+		private String nextMessage()
+		{
+			return random.nextInt(100) < NEW_PHRASE_PERCENT
+					? "thread " + thread + " teaches new phrase " + newPhrases++
+					: knownPhrase(random.nextInt(KNOWN_PHRASES));
+		}
+	}
+	
+	/**
+	 * Checks that a group parrot survives a save and load, and creates the shared parrot.
+	 * @throws IllegalStateException if a saved group parrot is loaded back differently
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException
+	{
+		checkSnapshotRoundTrip();
+		parrot = newParrot(kind.equals("group"));
+	}
+	
+	/**
+	 * Sends the next message of the thread to the shared parrot.
+	 * @param talker the thread's state
+	 * @return the parrot's reply
+	 */
+	@Benchmark
+	public String getReply(Talker talker)
+	{
+		String message = talker.nextMessage();
+		if(kind.equals("locked"))
+		{
+			synchronized(parrot)
+			{
+				return parrot.getReply(message);
+			}
+		}
+		return parrot.getReply(message);
+	}
+	
+	/**
+	 * Entry point of the benchmark, measuring both parrots with each of {@link #THREAD_COUNTS} threads.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		String resultFile = args.length > 0 ? args[0] : "group-parrot.json";
+		System.out.printf("%d cores%n", Runtime.getRuntime().availableProcessors());
+		
+		Collection<RunResult> results = new ArrayList<>();
+		double lockedBaseline = 0;
+		double groupBaseline = 0;
+		for(int threads : THREAD_COUNTS)
+		{
+			Options options = new OptionsBuilder()
+					.include(GroupParrotBenchmark.class.getName() + ".getReply")
+					.threads(threads)
+					.build();
+			
+			double locked = 0;
+			double group = 0;
+			for(RunResult result : new Runner(options).run())
+			{
+				results.add(result);
+				double score = result.getPrimaryResult().getScore();
+				if(result.getParams().getParam("kind").equals("locked"))
+				{
+					locked = score;
+				}
+				else
+				{
+					group = score;
+				}
+			}
+			
+			if(threads == 1)
+			{
+				lockedBaseline = locked;
+				groupBaseline = group;
+			}
+			System.out.printf("threads=%2d  locked=%,12.0f replies/s (%.2fx)  group=%,12.0f replies/s (%.2fx)%n",
+					threads, locked, locked / lockedBaseline, group, group / groupBaseline);
+		}
+		
+		ResultFormatFactory.getInstance(ResultFormatType.JSON, resultFile).writeOut(results);
+	}
+	
+	/**
+	 * Creates a parrot that already knows {@link #KNOWN_PHRASES} phrases.
+	 * @param isGroup whether to create a group parrot or a plain one
+	 * @return the parrot
+	 */
+	private static ChatBot newParrot(boolean isGroup)
+	{
+		ChatBot parrot = isGroup ? new GroupParrotBot(MEMORY_CAPACITY) : new ParrotBot(MEMORY_CAPACITY, EvictionPolicy.lru());
+		for(int i = 0; i < KNOWN_PHRASES; i++)
+		{
+			parrot.getReply(knownPhrase(i));
+		}
+		return parrot;
+	}
+	
+	/**
+	 * Saves a group parrot and loads it back, checking that it is still a thread-safe group parrot that remembers the same phrases.
+	 * @throws IllegalStateException if the loaded chat bot differs
+	 */
+	private static void checkSnapshotRoundTrip() throws IOException
+	{
+		ChatBot parrot = newParrot(true);
+		Path file = Files.createTempFile("group-parrot", ".chatbot");
+		try
+		{
+			ChatBotSnapshot.write(parrot, file);
+			ChatBot loaded = ChatBotSnapshot.read(file);
+			if(!(loaded instanceof GroupParrotBot) || !loaded.isThreadSafe() || !loaded.getGauges().equals(parrot.getGauges()))
+			{
+				throw new IllegalStateException("A saved group parrot was loaded back as " + loaded.getName() + " with " + loaded.getGauges() + ".");
+			}
+		}
+		finally
+		{
+			Files.deleteIfExists(file);
+		}
+	}
+	
+	/**
+	 * Returns the known phrase with the specified index.
+	 * @param index the index of the phrase
+	 * @return the phrase
+	 */
+	private static String knownPhrase(int index)
+	{
+		return "a phrase that everyone in the group keeps saying, number " + index;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package chatBot.bench;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import chatBot.bots.ParrotBot;
+import chatBot.memory.EvictionPolicy;
+import chatBot.persistence.ChatBotSnapshot;
+import chatBot.persistence.JournalSyncPolicy;
+import chatBot.persistence.PhraseJournal;
+
+/**
+ * The <code>JournalBenchmark</code> class compares the cost of persisting what a {@link ParrotBot} with a large memory just learned through:
+ * <ul>
+ * <li><b>snapshot</b> - writing a full {@link ChatBotSnapshot} after the new phrases</li>
+ * <li><b>journal</b> - appending the new phrases to a {@link PhraseJournal}, under each {@link JournalSyncPolicy}, then flushing it</li>
+ * </ul>
+ * It then measures how long recovering the parrot from its snapshot and journal takes.
+ * 
+ * <p>
+ * Usage: <code>JournalBenchmark [phrases] [newPhrases]</code>, defaulting to 1,000,000 phrases and 1,000 new phrases.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class JournalBenchmark
+{
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int phrases = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int newPhrases = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+		
+		Path directory = Files.createTempDirectory("journal-benchmark");
+		Path snapshot = directory.resolve("parrot.chatbot");
+		
+		ParrotBot parrot = new ParrotBot(phrases + 10 * newPhrases, EvictionPolicy.lru());
+		for(int i = 0; i < phrases; i++)
+		{
+			parrot.getReply("phrase number " + i);
+		}
+		int learned = phrases;
+		
+		// Persisting by rewriting the whole memory
+		long start = System.nanoTime();
+		for(int i = 0; i < newPhrases; i++)
+		{
+			parrot.getReply("phrase number " + learned++);
+		}
+		ChatBotSnapshot.write(parrot, snapshot);
+		System.out.printf("snapshot                phrases=%,d  new=%,d  persist=%.1f ms  file=%.1f MB%n",
+				phrases, newPhrases, (System.nanoTime() - start) / 1e6, Files.size(snapshot) / (1024.0 * 1024.0));
+		
+		// Persisting by journaling the new phrases only
+		for(JournalSyncPolicy policy : JournalSyncPolicy.values())
+		{
+			parrot.openJournal(snapshot, policy, Long.MAX_VALUE);
+			parrot.compactJournal();
+			
+			start = System.nanoTime();
+			for(int i = 0; i < newPhrases; i++)
+			{
+				parrot.getReply("phrase number " + learned++);
+			}
+			long appendNanos = System.nanoTime() - start;
+			parrot.closeJournal();
+			long persistNanos = System.nanoTime() - start;
+			
+			System.out.printf("journal %-15s phrases=%,d  new=%,d  persist=%.1f ms  (%.2f us/append)  journal=%.1f KB%n",
+					policy, phrases, newPhrases, persistNanos / 1e6, appendNanos / 1e3 / newPhrases,
+					Files.size(PhraseJournal.pathFor(snapshot)) / 1024.0);
+		}
+		
+		// Recovering from the snapshot and the journal
+		start = System.nanoTime();
+		ParrotBot recovered = ParrotBot.recover(snapshot, JournalSyncPolicy.Periodic, Long.MAX_VALUE);
+		System.out.printf("recover                 snapshot + %,d journaled phrases in %.0f ms%n", newPhrases, (System.nanoTime() - start) / 1e6);
+		recovered.closeJournal();
+		
+		Files.delete(PhraseJournal.pathFor(snapshot));
+		Files.delete(snapshot);
+		Files.delete(directory);
+	}
+}
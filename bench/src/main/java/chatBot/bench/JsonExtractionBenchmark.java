@@ -0,0 +1,112 @@
+package chatBot.bench;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chatBot.json.JsonFieldExtractor;
+
+/**
+ * The <code>JsonExtractionBenchmark</code> class compares pulling the translation out of a Yoda API response with:
+ * <ul>
+ * <li><b>jsonSimple</b> - decoding the body into a string and parsing it into a <code>JSONObject</code> with a new <code>JSONParser</code>,
+ * which is how {@link chatBot.bots.BabyYodaBot} used to do it</li>
+ * <li><b>jsonSimpleReused</b> - the same, with a single reused <code>JSONParser</code></li>
+ * <li><b>extractor</b> - a {@link JsonFieldExtractor} over the body's bytes</li>
+ * </ul>
+ * for a small response, and for a larger response with extra fields and nesting.
+ * 
+ * <p>
+ * The score is the parse throughput. Run it with JMH's <code>-prof gc</code> to also report the heap allocated per reply,
+ * as <code>gc.alloc.rate.norm</code>.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonExtractionBenchmark
+{
+	/** A typical response of the Yoda API. */
+	private static final String SMALL = "{\"yodish\":\"Learn the ways of the force, you must.\"}";
+	
+	/** A larger response, with the translation after other fields and nested values. */
+	private static final String LARGE = "{\"status\":\"ok\",\"requestId\":\"4f1c2a9e-77b0-4b8e-9d0e-2a6c1f3b5d7e\",\"elapsedMs\":12.5,"
+			+ "\"source\":{\"text\":\"You must learn the ways of the force, young padawan.\",\"language\":\"en\",\"tokens\":[\"You\",\"must\",\"learn\","
+			+ "\"the\",\"ways\",\"of\",\"the\",\"force\",\"young\",\"padawan\"]},\"alternatives\":[{\"yodish\":\"The ways of the force, learn you must.\","
+			+ "\"score\":0.71},{\"yodish\":\"Learn you must, the ways of the force.\",\"score\":0.64}],\"cached\":false,"
+			+ "\"yodish\":\"Learn the ways of the force, young padawan, you must.\",\"attribution\":\"Yoda API \\u00a9 richchurcher\"}";
+	
+	/** The response, <code>small</code> or <code>large</code>. */
+	@Param({ "small", "large" })
+	public String body;
+	
+	/** The response's bytes, as the HTTP client hands them over. */
+	private byte[] bytes;
+	
+	/** The parser reused by {@link #jsonSimpleReused()}. */
+	private JSONParser reusedParser;
+	
+	/** The extractor of the translation. */
+	private JsonFieldExtractor extractor;
+	
+	/** Encodes the response, and creates the parsers. */
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		bytes = (body.equals("small") ? SMALL : LARGE).getBytes(StandardCharsets.UTF_8);
+		reusedParser = new JSONParser();
+		extractor = new JsonFieldExtractor("yodish");
+	}
+	
+	/**
+	 * Parses the response with a new json-simple parser.
+	 * @return the translation
+	 */
+	@Benchmark
+	public String jsonSimple() throws ParseException
+	{
+		JSONObject obj = (JSONObject) new JSONParser().parse(new String(bytes, StandardCharsets.UTF_8));
+		return (String) obj.get("yodish");
+	}
+	
+	/**
+	 * Parses the response with a reused json-simple parser.
+	 * @return the translation
+	 */
+	@Benchmark
+	public String jsonSimpleReused() throws ParseException
+	{
+		JSONObject obj = (JSONObject) reusedParser.parse(new String(bytes, StandardCharsets.UTF_8));
+		return (String) obj.get("yodish");
+	}
+	
+	/**
+	 * Extracts the translation from the response's bytes.
+	 * @return the translation
+	 */
+	@Benchmark
+	public String extractor() throws IOException
+	{
+		return extractor.extract(bytes)[0];
+	}
+}
\ No newline at end of file
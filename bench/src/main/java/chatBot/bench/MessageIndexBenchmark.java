@@ -0,0 +1,128 @@
+package chatBot.bench;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import chatBot.search.MessageIndex;
+
+/**
+ * The <code>MessageIndexBenchmark</code> class measures a {@link MessageIndex} over a long chat history of generated messages:
+ * the time to add each message, the memory of its term dictionary and posting lists, and the time of a few kinds of queries,
+ * next to the time of scanning the text of every message for the same word, which is what searching without an index costs.
+ * 
+ * <p>
+ * Words are drawn from a vocabulary with a Zipf-like distribution, like the words of real messages, so that a few words are in most messages
+ * and most words in only a few.
+ * </p>
+ * 
+ * <p>
+ * Usage: <code>MessageIndexBenchmark [messages]</code>, defaulting to 1,000,000.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class MessageIndexBenchmark
+{
+	/** The number of distinct words the messages are made of. */
+	public static final int VOCABULARY_SIZE = 100_000;
+	
+	/** The number of times each query is repeated, of which the fastest is reported. */
+	public static final int REPETITIONS = 5;
+	
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args)
+	{
+		int messageCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		
+		// Generate the vocabulary and the messages
+		SplittableRandom random = new SplittableRandom(42);
+		String[] vocabulary = new String[VOCABULARY_SIZE];
+		for(int i = 0; i < VOCABULARY_SIZE; i++)
+		{
+			StringBuilder word = new StringBuilder();
+			int length = 2 + random.nextInt(8);
+			for(int c = 0; c < length; c++)
+			{
+				word.append((char) ('a' + random.nextInt(26)));
+			}
+			vocabulary[i] = word.toString();
+		}
+		String[] messages = new String[messageCount];
+		for(int i = 0; i < messageCount; i++)
+		{
+			StringBuilder message = new StringBuilder();
+			int length = 3 + random.nextInt(12);
+			for(int w = 0; w < length; w++)
+			{
+				message.append(w == 0 ? "" : " ").append(vocabulary[zipf(random)]);
+			}
+			messages[i] = message.append('.').toString();
+		}
+		
+		// Index every message, as the chat box does when they are added
+		MessageIndex index = new MessageIndex();
+		long start = System.nanoTime();
+		for(String message : messages)
+		{
+			index.add(message);
+		}
+		long addNanos = System.nanoTime() - start;
+		System.out.printf("messages=%,d  add=%.2f us/message  terms=%,d  dictionary=%.1f MB  postings=%.1f MB%n",
+				messageCount, addNanos / 1e3 / messageCount, index.getTermCount(),
+				index.getDictionaryBytes() / (1024.0 * 1024.0), index.getPostingBytes() / (1024.0 * 1024.0));
+		
+		// Queries over common and rare words, a prefix, several words, and a phrase
+		String common = vocabulary[0];
+		String rare = vocabulary[VOCABULARY_SIZE / 2];
+		String[] queries = {
+				common,
+				rare,
+				vocabulary[1].substring(0, 2) + "*",
+				common + " " + vocabulary[1],
+				"\"" + common + " " + vocabulary[1] + "\"",
+		};
+		for(String query : queries)
+		{
+			long best = Long.MAX_VALUE;
+			int matches = 0;
+			for(int i = 0; i < REPETITIONS; i++)
+			{
+				start = System.nanoTime();
+				matches = index.search(query).length;
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			System.out.printf("index  %-32s matches=%,9d  %8.3f ms%n", query, matches, best / 1e6);
+		}
+		
+		// Scanning the text of every message for a word, in any case
+		String upperCommon = common.toUpperCase(Locale.ROOT);
+		long best = Long.MAX_VALUE;
+		int matches = 0;
+		for(int i = 0; i < REPETITIONS; i++)
+		{
+			start = System.nanoTime();
+			matches = 0;
+			for(String message : messages)
+			{
+				if(message.contains(common) || message.contains(upperCommon))
+				{
+					matches++;
+				}
+			}
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		System.out.printf("scan   %-32s matches=%,9d  %8.3f ms  (substrings, not words)%n", common, matches, best / 1e6);
+	}
+	
+	/**
+	 * Draws a word from the vocabulary with a Zipf-like distribution, where the word at rank r is drawn about 1/r as often as the first.
+	 * @param random the source of randomness
+	 * @return the index of the word
+	 */
+	private static int zipf(SplittableRandom random)
+	{
+		return (int) Math.min(VOCABULARY_SIZE - 1, Math.exp(random.nextDouble() * Math.log(VOCABULARY_SIZE)) - 1);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+package chatBot.bench;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import chatBot.memory.EvictionPolicy;
+import chatBot.memory.IndexedPhraseMemory;
+import chatBot.memory.OffHeapPhraseMemory;
+
+/**
+ * The <code>OffHeapMemoryBenchmark</code> class compares the footprint and garbage collection cost of storing many phrases in:
+ * <ul>
+ * <li><b>set</b> - a <code>LinkedHashSet</code>, which is how {@link chatBot.bots.ParrotBot} used to remember phrases</li>
+ * <li><b>indexed</b> - an {@link IndexedPhraseMemory}</li>
+ * <li><b>off-heap</b> - an {@link OffHeapPhraseMemory}</li>
+ * </ul>
+ * 
+ * <p>
+ * For each store, it reports the heap and off-heap bytes per phrase, the time spent in garbage collection while filling it,
+ * and the average pause of a full garbage collection while it is alive, which grows with the number of live heap objects.
+ * </p>
+ * 
+ * <p>
+ * Usage: <code>OffHeapMemoryBenchmark [phrases]</code>, defaulting to 10,000,000 phrases, which needs a large heap such as <code>-Xmx4g</code>.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class OffHeapMemoryBenchmark
+{
+	/** The number of full garbage collections timed per store. */
+	public static final int FULL_GCS = 5;
+	
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args)
+	{
+		int phrases = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+		
+		Set<String> set = new LinkedHashSet<>();
+		run("set     ", phrases, set::add, () -> 0L);
+		set = null;
+		
+		IndexedPhraseMemory indexed = new IndexedPhraseMemory(phrases, EvictionPolicy.fifo());
+		run("indexed ", phrases, indexed::add, () -> 0L);
+		indexed = null;
+		
+		OffHeapPhraseMemory offHeap = new OffHeapPhraseMemory(phrases);
+		run("off-heap", phrases, offHeap::add, offHeap::getArenaSize);
+	}
+	
+	/**
+	 * Fills a store with phrases while it is alive, then prints its footprint and garbage collection cost.
+	 * @param name the name of the store
+	 * @param phrases the number of phrases
+	 * @param store adds a phrase to the store
+	 * @param offHeapBytes returns the off-heap bytes of the store
+	 */
+	private static void run(String name, int phrases, Consumer<String> store, LongSupplier offHeapBytes)
+	{
+		long heapBefore = usedHeap();
+		long gcTimeBefore = totalGcTime();
+		
+		long start = System.nanoTime();
+		for(int i = 0; i < phrases; i++)
+		{
+			store.accept("phrase number " + i);
+		}
+		long fillMillis = (System.nanoTime() - start) / 1_000_000;
+		long fillGcMillis = totalGcTime() - gcTimeBefore;
+		
+		long heap = usedHeap() - heapBefore;
+		
+		// Time full garbage collections while the store is alive
+		long pauseNanos = 0;
+		for(int i = 0; i < FULL_GCS; i++)
+		{
+			long gcStart = System.nanoTime();
+			System.gc();
+			pauseNanos += System.nanoTime() - gcStart;
+		}
+		
+		System.out.printf("%s  phrases=%,d  fill=%d ms  fill gc=%d ms  heap=%.1f B/phrase  off-heap=%.1f B/phrase  full gc pause=%.1f ms%n",
+				name, phrases, fillMillis, fillGcMillis, (double) heap / phrases,
+				(double) offHeapBytes.getAsLong() / phrases, pauseNanos / 1e6 / FULL_GCS);
+	}
+	
+	/**
+	 * Returns the total time spent in garbage collection so far.
+	 * @return garbage collection time, in milliseconds
+	 */
+	private static long totalGcTime()
+	{
+		long total = 0;
+		for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+		{
+			total += Math.max(0, gc.getCollectionTime());
+		}
+		return total;
+	}
+	
+	/**
+	 * Returns the heap in use, after asking for a garbage collection.
+	 * @return used heap, in bytes
+	 */
+	private static long usedHeap()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0; i < 3; i++)
+		{
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,69 @@
+package chatBot.bench;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chatBot.bots.ParrotBot;
+
+/**
+ * The <code>ParrotBotBenchmark</code> class measures the parrot's replies as its memory grows from 1k to 1M phrases.
+ * The messages repeat what the parrot already knows, so that its memory stays at the same size.
+ * 
+ * <p>
+ * The 1M phrase runs need a large heap, which the forked JVM is given.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class ParrotBotBenchmark
+{
+	/** The number of phrases in the parrot's memory. */
+	@Param({ "1000", "100000", "1000000" })
+	public int memorySize;
+	
+	/** The parrot. */
+	private ParrotBot parrot;
+	
+	/** The phrases that the parrot knows, which are sent to it in turn. */
+	private String[] messages;
+	
+	/** The index of the next message to send. */
+	private int next = 0;
+	
+	/** Teaches the parrot {@link #memorySize} phrases. */
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		parrot = BenchmarkData.newParrot(memorySize);
+		messages = BenchmarkData.phrases(memorySize);
+	}
+	
+	/**
+	 * Sends the parrot the next phrase that it knows.
+	 * @return the parrot's reply
+	 */
+	@Benchmark
+	public String getReply()
+	{
+		String message = messages[next];
+		next = next + 1 < messages.length ? next + 1 : 0;
+		return parrot.getReply(message);
+	}
+}
\ No newline at end of file
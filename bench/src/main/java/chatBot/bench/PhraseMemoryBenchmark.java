@@ -0,0 +1,169 @@
+package chatBot.bench;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import chatBot.memory.EvictionPolicy;
+import chatBot.memory.IndexedPhraseMemory;
+import chatBot.memory.PhraseMemory;
+
+/**
+ * The <code>PhraseMemoryBenchmark</code> class measures {@link IndexedPhraseMemory} at 1k, 1M and 10M stored phrases.
+ * 
+ * <p>
+ * For every size and eviction policy, it reports:
+ * <ul>
+ * <li><b>insert</b> - the average time to store a new phrase while filling the memory</li>
+ * <li><b>recall</b> - the average time to recall a uniformly random phrase</li>
+ * <li><b>churn</b> - the average time to store a new phrase into a full memory, which evicts another</li>
+ * <li><b>heap</b> - the heap in use per stored phrase</li>
+ * </ul>
+ * The random recall of the <code>LinkedHashSet</code> that {@link chatBot.bots.ParrotBot} used to walk is measured as a baseline, up to 1M phrases.
+ * </p>
+ * 
+ * <p>
+ * The 10M run needs a large heap, for example <code>-Xmx4g</code>. Usage: <code>PhraseMemoryBenchmark [sizes...]</code>.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class PhraseMemoryBenchmark
+{
+	/** The number of random recalls measured per run. */
+	public static final int RECALLS = 1_000_000;
+	
+	/** The largest size for which the linked hash set baseline is measured, as walking it is linear. */
+	public static final int BASELINE_MAX_SIZE = 1_000_000;
+	
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args)
+	{
+		int[] sizes = {1_000, 1_000_000, 10_000_000};
+		if(args.length > 0)
+		{
+			sizes = new int[args.length];
+			for(int i = 0; i < args.length; i++)
+			{
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+		
+		// Warm up the JIT compiler on a small memory
+		for(int i = 0; i < 5; i++)
+		{
+			run("warmup", 10_000, EvictionPolicy::lru, false);
+		}
+		
+		for(int size : sizes)
+		{
+			run("fifo", size, EvictionPolicy::fifo, true);
+			run("lru ", size, EvictionPolicy::lru, true);
+			run("lfu ", size, EvictionPolicy::lfu, true);
+			if(size <= BASELINE_MAX_SIZE)
+			{
+				runBaseline(size);
+			}
+		}
+	}
+	
+	/**
+	 * Fills, recalls from and churns a phrase memory of the given size.
+	 * @param name the name of the eviction policy
+	 * @param size the number of phrases to store
+	 * @param policy creates the eviction policy
+	 * @param print whether to print the results
+	 */
+	private static void run(String name, int size, Supplier<EvictionPolicy> policy, boolean print)
+	{
+		long heapBefore = usedHeap();
+		PhraseMemory memory = new IndexedPhraseMemory(size, policy.get());
+		
+		long start = System.nanoTime();
+		for(int i = 0; i < size; i++)
+		{
+			memory.add(phrase(i));
+		}
+		double insertNanos = (double) (System.nanoTime() - start) / size;
+		long heap = usedHeap() - heapBefore;
+		
+		SplittableRandom random = new SplittableRandom(42);
+		long checksum = 0;
+		start = System.nanoTime();
+		for(int i = 0; i < RECALLS; i++)
+		{
+			checksum += memory.recall(random.nextInt(memory.size())).length();
+		}
+		double recallNanos = (double) (System.nanoTime() - start) / RECALLS;
+		
+		int churns = Math.min(size, RECALLS);
+		start = System.nanoTime();
+		for(int i = 0; i < churns; i++)
+		{
+			memory.add(phrase(size + i));
+		}
+		double churnNanos = (double) (System.nanoTime() - start) / churns;
+		
+		if(print)
+		{
+			System.out.printf("%s  phrases=%,d  insert=%.1f ns  recall=%.1f ns  churn=%.1f ns  heap=%.0f B/phrase  (checksum %d)%n",
+					name, size, insertNanos, recallNanos, churnNanos, (double) heap / size, checksum);
+		}
+	}
+	
+	/**
+	 * Fills a linked hash set, then recalls random phrases by walking it like {@link chatBot.bots.ParrotBot} used to.
+	 * @param size the number of phrases to store
+	 */
+	private static void runBaseline(int size)
+	{
+		Set<String> conversations = new LinkedHashSet<>();
+		for(int i = 0; i < size; i++)
+		{
+			conversations.add(phrase(i));
+		}
+		
+		// Walking is linear, so fewer recalls are needed for a stable average
+		int recalls = Math.max(10, RECALLS / size);
+		SplittableRandom random = new SplittableRandom(42);
+		long checksum = 0;
+		long start = System.nanoTime();
+		for(int r = 0; r < recalls; r++)
+		{
+			int index = random.nextInt(conversations.size());
+			int i = 0;
+			for(String convo : conversations)
+			{
+				if(i++ == index)
+				{
+					checksum += convo.length();
+					break;
+				}
+			}
+		}
+		double recallNanos = (double) (System.nanoTime() - start) / recalls;
+		System.out.printf("set   phrases=%,d  recall=%.1f ns  (checksum %d)%n", size, recallNanos, checksum);
+	}
+	
+	private static String phrase(int index)
+	{
+		return "phrase number " + index;
+	}
+	
+	/**
+	 * Returns the heap in use, after asking for a garbage collection.
+	 * @return used heap, in bytes
+	 */
+	private static long usedHeap()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0; i < 3; i++)
+		{
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,60 @@
+package chatBot.bench;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chatBot.bots.RandomBot;
+import chatBot.bots.RandomSources;
+
+/**
+ * The <code>RandomBotBenchmark</code> class measures the random bot's replies for short and long messages, which is mostly string building.
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RandomBotBenchmark
+{
+	/** The number of words in the message. */
+	@Param({ "5", "50" })
+	public int words;
+	
+	/** The random bot, replying with a seeded random generator. */
+	private RandomBot bot;
+	
+	/** The message sent to the bot. */
+	private String message;
+	
+	/** Creates the bot and the message. */
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		bot = new RandomBot(RandomSources.seeded(42));
+		message = BenchmarkData.sentence(words);
+	}
+	
+	/**
+	 * Sends the message to the random bot.
+	 * @return the bot's reply
+	 */
+	@Benchmark
+	public String getReply()
+	{
+		return bot.getReply(message);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+package chatBot.bench;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+import chatBot.bots.ParrotBot;
+import chatBot.bots.RandomSources;
+import chatBot.memory.EvictionPolicy;
+import chatBot.memory.IndexedPhraseMemory;
+
+/**
+ * The <code>RandomSourceBenchmark</code> class measures where chat bots draw their randomness from, and checks that seeded bots replay exactly.
+ * 
+ * <p>
+ * From 1 to 8 threads draw random numbers, four per reply as {@link ParrotBot} does, from:
+ * <ul>
+ * <li><b>Math.random</b> - the single, atomically updated generator that every bot used to share</li>
+ * <li><b>ThreadLocalRandom</b> - what bots without a generator of their own now use</li>
+ * <li><b>per session</b> - a {@link RandomSources#seeded(long) seeded} generator per thread, as given to a bot per conversation</li>
+ * </ul>
+ * Then a seeded parrot's conversation is replayed with the same seed, and the replies are compared.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class RandomSourceBenchmark
+{
+	/** The number of simulated replies per thread. */
+	public static final int REPLIES_PER_THREAD = 5_000_000;
+	
+	/** The number of messages in the replayed conversation. */
+	public static final int CONVERSATION_LENGTH = 100_000;
+	
+	/** Prevents the JIT compiler from discarding the draws. */
+	private static volatile double sink = 0;
+	
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		System.out.println("available processors: " + Runtime.getRuntime().availableProcessors());
+		for(int round = 0; round < 2; round++)
+		{
+			boolean isMeasured = round == 1;
+			for(int threads : new int[] {1, 2, 4, 8})
+			{
+				measure("Math.random", threads, isMeasured, () -> Math::random);
+				measure("ThreadLocalRandom", threads, isMeasured, () -> () -> ThreadLocalRandom.current().nextDouble());
+				measure("per session", threads, isMeasured, () ->
+				{
+					RandomGenerator random = RandomSources.unseeded();
+					return random::nextDouble;
+				});
+			}
+		}
+		
+		// Record a conversation, then replay it with the same seed
+		List<String> recorded = converse(RandomSources.seeded(42));
+		long start = System.nanoTime();
+		List<String> replayed = converse(RandomSources.seeded(42));
+		long elapsed = System.nanoTime() - start;
+		System.out.printf("replay of %,d messages: identical=%b, different seed identical=%b, %.0f ms%n",
+				CONVERSATION_LENGTH, recorded.equals(replayed), recorded.equals(converse(RandomSources.seeded(43))), elapsed / 1e6);
+	}
+	
+	/**
+	 * Draws random numbers from several threads at once, and reports the throughput.
+	 * @param name the name of the source
+	 * @param threads the number of threads
+	 * @param isMeasured whether to report the measurement
+	 * @param sources creates the source used by each thread
+	 */
+	private static void measure(String name, int threads, boolean isMeasured, Supplier<DoubleSupplier> sources) throws Exception
+	{
+		CountDownLatch ready = new CountDownLatch(threads);
+		CountDownLatch go = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(threads);
+		for(int t = 0; t < threads; t++)
+		{
+			DoubleSupplier source = sources.get();
+			Thread thread = new Thread(() ->
+			{
+				ready.countDown();
+				try
+				{
+					go.await();
+				}
+				catch (InterruptedException e)
+				{
+					return;
+				}
+				
+				double sum = 0;
+				for(int i = 0; i < REPLIES_PER_THREAD; i++)
+				{
+					sum += source.getAsDouble() + source.getAsDouble() + source.getAsDouble() + source.getAsDouble();
+				}
+				sink += sum;
+				done.countDown();
+			});
+			thread.start();
+		}
+		
+		ready.await();
+		long start = System.nanoTime();
+		go.countDown();
+		done.await();
+		long elapsed = System.nanoTime() - start;
+		
+		if(isMeasured)
+		{
+			System.out.printf("%-18s threads=%d  %,6.1f M replies/s  %6.1f ns wall time per reply of each thread%n",
+					name, threads, (double) threads * REPLIES_PER_THREAD / (elapsed / 1e3), (double) elapsed / REPLIES_PER_THREAD);
+		}
+	}
+	
+	/**
+	 * Has a conversation with a new parrot that uses the given generator.
+	 * @param random the parrot's random generator
+	 * @return the parrot's replies
+	 */
+	private static List<String> converse(RandomGenerator random)
+	{
+		ParrotBot parrot = new ParrotBot(new IndexedPhraseMemory(ParrotBot.DEFAULT_MEMORY_CAPACITY, EvictionPolicy.lru()), random);
+		List<String> replies = new ArrayList<>(CONVERSATION_LENGTH);
+		for(int i = 0; i < CONVERSATION_LENGTH; i++)
+		{
+			replies.add(parrot.getReply("message " + (i % 1_000)));
+		}
+		return replies;
+	}
+}
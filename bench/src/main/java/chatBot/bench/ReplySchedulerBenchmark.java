@@ -0,0 +1,220 @@
+package chatBot.bench;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import chatBot.bots.ChatBots;
+import chatBot.scheduling.TimerWheel;
+
+/**
+ * The <code>ReplySchedulerBenchmark</code> class measures the cost of scheduling and cancelling many delayed replies,
+ * such as when many users send messages quickly, then switch chat bots.
+ * 
+ * <p>
+ * For each number of pending replies, every reply is scheduled after a typing delay drawn like the chat bots' own,
+ * then all of them are cancelled at once. It reports the time per scheduled reply and the time to cancel them all, of:
+ * <ul>
+ * <li><b>list</b> - a single-thread scheduled executor, keeping every future in a list pruned on each reply,
+ * and cancelling them one by one, which is how the JavaFX application used to work</li>
+ * <li><b>executor</b> - the same executor without the list, cancelling futures one by one</li>
+ * <li><b>wheel</b> - a {@link TimerWheel}, cancelling its group at once</li>
+ * </ul>
+ * The list is only measured up to {@link #MAX_LIST_REPLIES}, since pruning it on every reply makes it quadratic.
+ * </p>
+ * 
+ * <p>
+ * Usage: <code>ReplySchedulerBenchmark [maxPendingReplies]</code>, defaulting to 500,000.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class ReplySchedulerBenchmark
+{
+	/** The numbers of pending replies to measure. */
+	public static final int[] PENDING_REPLIES = { 1_000, 10_000, 100_000, 500_000 };
+	
+	/** The largest number of pending replies to measure the list with. */
+	public static final int MAX_LIST_REPLIES = 20_000;
+	
+	/** The number of times each measurement is repeated, of which the fastest is reported. */
+	public static final int REPETITIONS = 5;
+	
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args) throws InterruptedException
+	{
+		int maxPendingReplies = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+		
+		TimerWheel wheel = new TimerWheel();
+		LongAdder replies = new LongAdder();
+		Runnable reply = replies::increment;
+		
+		// Warm up the JIT compiler on all three
+		for(int i = 0; i < 3; i++)
+		{
+			runList(reply, 5_000);
+			runExecutor(reply, 50_000);
+			runWheel(wheel, reply, 50_000);
+		}
+		
+		for(int pendingReplies : PENDING_REPLIES)
+		{
+			if(pendingReplies > maxPendingReplies)
+			{
+				break;
+			}
+			
+			String list = "-";
+			if(pendingReplies <= MAX_LIST_REPLIES)
+			{
+				list = format(best(() -> runList(reply, pendingReplies)), pendingReplies);
+			}
+			String plain = format(best(() -> runExecutor(reply, pendingReplies)), pendingReplies);
+			String timerWheel = format(best(() -> runWheel(wheel, reply, pendingReplies)), pendingReplies);
+			
+			System.out.printf("pending=%,8d  list=%-30s  executor=%-30s  wheel=%-30s%n", pendingReplies, list, plain, timerWheel);
+		}
+		
+		wheel.stop();
+	}
+	
+	/**
+	 * Schedules replies on a new single-thread executor, keeping and pruning a list of their futures, then cancels them one by one.
+	 * @param reply the reply task
+	 * @param pendingReplies the number of replies
+	 * @return the nanoseconds taken to schedule and to cancel
+	 */
+	private static long[] runList(Runnable reply, int pendingReplies)
+	{
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		SplittableRandom random = new SplittableRandom(42);
+		List<ScheduledFuture<?>> futures = new ArrayList<>();
+		
+		long startTime = System.nanoTime();
+		for(int i = 0; i < pendingReplies; i++)
+		{
+			futures.add(executor.schedule(reply, ChatBots.nextReplyDelay(random), TimeUnit.MILLISECONDS));
+			futures.removeIf(future -> future.isDone());
+		}
+		long scheduleNanos = System.nanoTime() - startTime;
+		
+		startTime = System.nanoTime();
+		for(ScheduledFuture<?> future : futures)
+		{
+			future.cancel(true);
+		}
+		futures.clear();
+		long cancelNanos = System.nanoTime() - startTime;
+		
+		executor.shutdownNow();
+		return new long[] { scheduleNanos, cancelNanos };
+	}
+	
+	/**
+	 * Schedules replies on a new single-thread executor, then cancels them one by one.
+	 * @param reply the reply task
+	 * @param pendingReplies the number of replies
+	 * @return the nanoseconds taken to schedule and to cancel
+	 */
+	private static long[] runExecutor(Runnable reply, int pendingReplies)
+	{
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		SplittableRandom random = new SplittableRandom(42);
+		ScheduledFuture<?>[] futures = new ScheduledFuture<?>[pendingReplies];
+		
+		long startTime = System.nanoTime();
+		for(int i = 0; i < pendingReplies; i++)
+		{
+			futures[i] = executor.schedule(reply, ChatBots.nextReplyDelay(random), TimeUnit.MILLISECONDS);
+		}
+		long scheduleNanos = System.nanoTime() - startTime;
+		
+		startTime = System.nanoTime();
+		for(ScheduledFuture<?> future : futures)
+		{
+			future.cancel(true);
+		}
+		long cancelNanos = System.nanoTime() - startTime;
+		
+		executor.shutdownNow();
+		return new long[] { scheduleNanos, cancelNanos };
+	}
+	
+	/**
+	 * Schedules replies in a group of the timer wheel, then cancels the group, and waits for the wheel to drop them.
+	 * @param wheel the timer wheel
+	 * @param reply the reply task
+	 * @param pendingReplies the number of replies
+	 * @return the nanoseconds taken to schedule and to cancel
+	 */
+	private static long[] runWheel(TimerWheel wheel, Runnable reply, int pendingReplies) throws InterruptedException
+	{
+		SplittableRandom random = new SplittableRandom(42);
+		TimerWheel.Group group = wheel.newGroup();
+		
+		long startTime = System.nanoTime();
+		for(int i = 0; i < pendingReplies; i++)
+		{
+			group.schedule(reply, ChatBots.nextReplyDelay(random), TimeUnit.MILLISECONDS);
+		}
+		long scheduleNanos = System.nanoTime() - startTime;
+		
+		startTime = System.nanoTime();
+		group.cancelAll();
+		long cancelNanos = System.nanoTime() - startTime;
+		
+		// Let the wheel drop the cancelled replies before the next run
+		while(wheel.getPendingCount() > 0)
+		{
+			Thread.sleep(10);
+		}
+		return new long[] { scheduleNanos, cancelNanos };
+	}
+	
+	/**
+	 * Repeats a measurement {@link #REPETITIONS} times.
+	 * @param run the measurement
+	 * @return the fastest times to schedule and to cancel
+	 */
+	private static long[] best(Run run) throws InterruptedException
+	{
+		long[] best = { Long.MAX_VALUE, Long.MAX_VALUE };
+		for(int i = 0; i < REPETITIONS; i++)
+		{
+			long[] times = run.run();
+			best[0] = Math.min(best[0], times[0]);
+			best[1] = Math.min(best[1], times[1]);
+		}
+		return best;
+	}
+	
+	/**
+	 * Formats the time per scheduled reply and the time to cancel them all.
+	 * @param times the nanoseconds taken to schedule and to cancel
+	 * @param pendingReplies the number of replies
+	 * @return the formatted times
+	 */
+	private static String format(long[] times, int pendingReplies)
+	{
+		return String.format("%,.0f ns/reply, cancel %,.3f ms", (double) times[0] / pendingReplies, times[1] / 1e6);
+	}
+	
+	/**
+	 * The <code>Run</code> interface is a single measurement.
+	 */
+	private interface Run
+	{
+		/**
+		 * Runs the measurement.
+		 * @return the nanoseconds taken to schedule and to cancel
+		 */
+		long[] run() throws InterruptedException;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,204 @@
+package chatBot.bench;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chatBot.gui.ChatBotApp;
+import chatBot.gui.ChatBox;
+import chatBot.gui.ChatMessageData;
+import chatBot.gui.ChatMessagePosition;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.image.Image;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+/**
+ * The <code>ResizeStormBenchmark</code> class measures how a chat transcript copes with a storm of window resizes.
+ * 
+ * <p>
+ * Two transcripts are compared:
+ * <ul>
+ * <li><b>per-message listeners</b> - every message label listens to the scene's width on its own, which is how {@link chatBot.gui.ChatMessage} used to work</li>
+ * <li><b>shared width</b> - {@link ChatBox}, whose message labels all bind to a single maximum width that is updated at most once per pulse</li>
+ * </ul>
+ * The window is resized {@link #RESIZES_PER_SECOND} times per second for {@link #DURATION_SECONDS} seconds, while the
+ * number of width listeners, the number of maximum width updates and the time spent in layout passes are recorded.
+ * </p>
+ * 
+ * <p>
+ * Usage: <code>ResizeStormBenchmark [messages] [resizes per second]</code>, defaulting to 10,000 messages.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class ResizeStormBenchmark
+{
+	/** The default number of resize events per second. */
+	public static final int RESIZES_PER_SECOND = 60;
+	
+	/** The duration, in seconds, of the resize storm. */
+	public static final int DURATION_SECONDS = 5;
+	
+	/** The fraction of the window's width that a message label may take up. */
+	private static final double MAX_WIDTH_RATIO = 0.4;
+	
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int messages = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		int resizesPerSecond = args.length > 1 ? Integer.parseInt(args[1]) : RESIZES_PER_SECOND;
+		
+		// Start the JavaFX toolkit
+		Platform.setImplicitExit(false);
+		Platform.startup(() -> {});
+		
+		run("per-message listeners", messages, resizesPerSecond, false);
+		run("shared width         ", messages, resizesPerSecond, true);
+		
+		Platform.exit();
+	}
+	
+	/**
+	 * Shows a transcript and resizes its window repeatedly, then prints a summary.
+	 * @param name the name of the transcript
+	 * @param messages the number of messages
+	 * @param resizesPerSecond the number of resize events per second
+	 * @param shared whether to use {@link ChatBox}, or a label per message with its own listener
+	 */
+	private static void run(String name, int messages, int resizesPerSecond, boolean shared) throws InterruptedException
+	{
+		Stage[] stage = new Stage[1];
+		int[] listeners = new int[1];
+		AtomicLong widthUpdates = new AtomicLong();
+		List<Long> layoutTimes = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch shown = new CountDownLatch(1);
+		
+		Platform.runLater(() ->
+		{
+			Image icon = new Image(ChatBotApp.USER_IMAGE_PATH);
+			Parent root;
+			if(shared)
+			{
+				ChatBox chatBox = new ChatBox();
+				for(int i = 0; i < messages; i++)
+				{
+					ChatMessagePosition position = i % 2 == 0 ? ChatMessagePosition.Right : ChatMessagePosition.Left;
+					chatBox.addMessage(new ChatMessageData(position, "Message number " + i, icon, i % 2 == 0 ? "label_user" : "label_chatbot"));
+				}
+				chatBox.messageMaxWidthProperty().addListener((args, oldWidth, newWidth) -> widthUpdates.incrementAndGet());
+				root = chatBox;
+			}
+			else
+			{
+				VBox messagesVBox = new VBox(ChatBox.MESSAGES_VERTICAL_SPACING);
+				for(int i = 0; i < messages; i++)
+				{
+					Label label = new Label("Message number " + i);
+					label.setWrapText(true);
+					label.setId(i % 2 == 0 ? "label_user" : "label_chatbot");
+					label.sceneProperty().addListener((args, oldScene, newScene) ->
+					{
+						if(newScene != null)
+						{
+							newScene.widthProperty().addListener((args2, oldWidth, newWidth) ->
+							{
+								widthUpdates.incrementAndGet();
+								label.setMaxWidth(newWidth.doubleValue() * MAX_WIDTH_RATIO);
+							});
+						}
+					});
+					messagesVBox.getChildren().add(label);
+				}
+				ScrollPane scrollPane = new ScrollPane(messagesVBox);
+				scrollPane.setFitToWidth(true);
+				root = scrollPane;
+			}
+			
+			Scene scene = new Scene(root, 800, 600);
+			scene.getStylesheets().add(ChatBotApp.APP_STYLESHEET_PATH);
+			
+			// Time every layout pass
+			long[] layoutStart = new long[1];
+			scene.addPreLayoutPulseListener(() -> layoutStart[0] = System.nanoTime());
+			scene.addPostLayoutPulseListener(() -> layoutTimes.add(System.nanoTime() - layoutStart[0]));
+			
+			stage[0] = new Stage();
+			stage[0].setScene(scene);
+			stage[0].show();
+			
+			listeners[0] = shared ? 1 + countBoundLabels(root) : messages;
+			shown.countDown();
+		});
+		shown.await();
+		
+		// Ignore the initial layout passes and width updates
+		Thread.sleep(500);
+		layoutTimes.clear();
+		widthUpdates.set(0);
+		
+		// Resize the window back and forth from a background thread
+		int resizes = resizesPerSecond * DURATION_SECONDS;
+		long intervalNanos = 1_000_000_000L / resizesPerSecond;
+		long start = System.nanoTime();
+		for(int i = 0; i < resizes; i++)
+		{
+			double width = 700 + (i % 20) * 10;
+			Platform.runLater(() -> stage[0].setWidth(width));
+			
+			long wakeUp = start + (i + 1) * intervalNanos;
+			while(System.nanoTime() < wakeUp)
+			{
+				Thread.onSpinWait();
+			}
+		}
+		
+		// Let the last resize settle down
+		CountDownLatch settled = new CountDownLatch(1);
+		Platform.runLater(settled::countDown);
+		settled.await();
+		Thread.sleep(100);
+		Platform.runLater(() -> stage[0].close());
+		
+		List<Long> sorted = new ArrayList<>(layoutTimes);
+		Collections.sort(sorted);
+		long total = 0;
+		for(long time : sorted)
+		{
+			total += time;
+		}
+		System.out.printf("%s  messages=%d  resizes=%d  width listeners=%d  width updates=%d  layout passes=%d  layout total=%d ms  p99=%.2f ms%n",
+				name, messages, resizes, listeners[0], widthUpdates.get(), sorted.size(), total / 1_000_000,
+				sorted.isEmpty() ? 0 : sorted.get((int) (sorted.size() * 0.99)) / 1e6);
+	}
+	
+	/**
+	 * Counts the labels under the given node whose maximum width is bound, which are the live listeners of the shared width.
+	 * @param root the root node
+	 * @return number of bound labels
+	 */
+	private static int countBoundLabels(Parent root)
+	{
+		root.applyCss();
+		root.layout();
+		
+		int count = 0;
+		for(Node node : root.lookupAll(".label"))
+		{
+			if(((Label) node).maxWidthProperty().isBound())
+			{
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,188 @@
+package chatBot.bench;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import chatBot.json.JsonFieldExtractor;
+import chatBot.server.ChatServer;
+import chatBot.server.SessionStatistics;
+
+/**
+ * The <code>SessionHibernationBenchmark</code> class measures how hibernation lets the {@link ChatServer}'s memory follow its active sessions.
+ * 
+ * <p>
+ * Many users each teach their own parrot bot a number of phrases, then go idle until all sessions are hibernated.
+ * Then every user comes back, which loads every session back into memory. It reports the heap used:
+ * <ul>
+ * <li>while all sessions are hibernated to disk</li>
+ * <li>once all sessions are back in memory</li>
+ * </ul>
+ * and how long loading each session back takes, both as seen by the user and as measured by the server.
+ * </p>
+ * 
+ * <p>
+ * Usage: <code>SessionHibernationBenchmark [sessions] [phrasesPerSession]</code>, defaulting to 1,000 sessions of 100 phrases each.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class SessionHibernationBenchmark
+{
+	/** The time, in milliseconds, a session stays idle before it is hibernated. */
+	public static final long HIBERNATE_AFTER_MILLIS = 2000;
+	
+	/** The number of users sending messages at once. */
+	public static final int CONCURRENT_USERS = 16;
+	
+	/** The number of messages sent before polling for their replies, below the limit of unanswered messages. */
+	public static final int MESSAGES_PER_POLL = 25;
+	
+	/** Extracts the session's identifier from the response that started it. */
+	private static final JsonFieldExtractor SESSION_FIELD = new JsonFieldExtractor("session");
+	
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+		int phrasesPerSession = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		
+		Path directory = Files.createTempDirectory("session-hibernation-benchmark");
+		ChatServer server = new ChatServer(new InetSocketAddress("127.0.0.1", 0), directory, HIBERNATE_AFTER_MILLIS, false);
+		server.start();
+		URI base = URI.create("http://127.0.0.1:" + server.getPort());
+		HttpClient client = HttpClient.newBuilder().version(Version.HTTP_1_1).build();
+		
+		try(ExecutorService users = Executors.newFixedThreadPool(CONCURRENT_USERS))
+		{
+			// Every user starts a session and teaches its parrot bot
+			long startTime = System.nanoTime();
+			List<Future<String>> started = new ArrayList<>();
+			for(int i = 0; i < sessions; i++)
+			{
+				int user = i;
+				started.add(users.submit(() -> teach(client, base, user, phrasesPerSession)));
+			}
+			String[] ids = new String[sessions];
+			for(int i = 0; i < sessions; i++)
+			{
+				ids[i] = started.get(i).get();
+			}
+			System.out.printf("%,d sessions taught %,d phrases each in %.1f s%n", sessions, phrasesPerSession, (System.nanoTime() - startTime) / 1e9);
+			
+			// Everyone goes idle, until all sessions have been hibernated
+			while(server.getStatistics().getHibernatedCount() < sessions)
+			{
+				Thread.sleep(100);
+			}
+			long diskBytes;
+			try(Stream<Path> files = Files.list(directory))
+			{
+				diskBytes = files.mapToLong(file -> file.toFile().length()).sum();
+			}
+			System.out.printf("%-12s heap %6.1f MB, %s, disk %.1f MB%n", "hibernated", usedHeapMegabytes(), server.getStatistics(), diskBytes / 1e6);
+			
+			// Everyone comes back, which loads their session back into memory
+			List<Future<Long>> returned = new ArrayList<>();
+			for(String id : ids)
+			{
+				returned.add(users.submit(() ->
+				{
+					long pollTime = System.nanoTime();
+					client.send(HttpRequest.newBuilder().uri(base.resolve("/sessions/" + id + "/replies?wait=0")).GET().build(), BodyHandlers.discarding());
+					return System.nanoTime() - pollTime;
+				}));
+			}
+			long[] latencies = new long[sessions];
+			for(int i = 0; i < sessions; i++)
+			{
+				latencies[i] = returned.get(i).get();
+			}
+			Arrays.sort(latencies);
+			SessionStatistics statistics = server.getStatistics();
+			System.out.printf("%-12s heap %6.1f MB, %s%n", "resident", usedHeapMegabytes(), statistics);
+			System.out.printf("first poll after returning: p50 %.2f ms, p99 %.2f ms, max %.2f ms (server: average %.2f ms, max %.2f ms to load)%n",
+					latencies[sessions / 2] / 1e6, latencies[(int) Math.ceil(sessions * 0.99) - 1] / 1e6, latencies[sessions - 1] / 1e6,
+					statistics.getAverageRehydrationMillis(), statistics.getMaxRehydrationMillis());
+		}
+		finally
+		{
+			server.close();
+			
+			// The server hibernates its sessions when stopped
+			try(Stream<Path> files = Files.list(directory))
+			{
+				for(Path file : (Iterable<Path>) files::iterator)
+				{
+					Files.delete(file);
+				}
+			}
+			Files.delete(directory);
+		}
+	}
+	
+	/**
+	 * Starts a session with a parrot bot and teaches it distinct phrases, collecting all replies.
+	 * @param client the HTTP client
+	 * @param base the server's address
+	 * @param user the index of the user
+	 * @param phrases the number of phrases to teach
+	 * @return the session's identifier
+	 */
+	private static String teach(HttpClient client, URI base, int user, int phrases) throws Exception
+	{
+		HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder()
+				.uri(base.resolve("/sessions?bot=ParrotBot"))
+				.POST(BodyPublishers.noBody())
+				.build(), BodyHandlers.ofByteArray());
+		String id = SESSION_FIELD.extract(response.body())[0];
+		
+		URI messages = base.resolve("/sessions/" + id + "/messages");
+		URI replies = base.resolve("/sessions/" + id + "/replies?wait=10000");
+		for(int i = 0; i < phrases; i++)
+		{
+			client.send(HttpRequest.newBuilder()
+					.uri(messages)
+					.POST(BodyPublishers.ofString("user " + user + " teaches the parrot phrase number " + i + ", which it should remember"))
+					.build(), BodyHandlers.discarding());
+			
+			// Collect the replies now and then, so that the session stays below its limit of unanswered messages and can hibernate
+			if((i + 1) % MESSAGES_PER_POLL == 0 || i == phrases - 1)
+			{
+				client.send(HttpRequest.newBuilder().uri(replies).GET().build(), BodyHandlers.discarding());
+			}
+		}
+		return id;
+	}
+	
+	/**
+	 * Returns the heap used after a full garbage collection.
+	 * @return the used heap in megabytes
+	 */
+	private static double usedHeapMegabytes() throws InterruptedException
+	{
+		for(int i = 0; i < 3; i++)
+		{
+			System.gc();
+			Thread.sleep(100);
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1e6;
+	}
+}
\ No newline at end of file
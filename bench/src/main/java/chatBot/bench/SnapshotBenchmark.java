@@ -0,0 +1,140 @@
+package chatBot.bench;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chatBot.bots.ChatBot;
+import chatBot.bots.ParrotBot;
+import chatBot.persistence.ChatBotSnapshot;
+
+/**
+ * The <code>SnapshotBenchmark</code> class measures saving and loading a {@link ParrotBot} at 1k to 1M phrases, through:
+ * <ul>
+ * <li><b>writeSnapshot</b> and <b>readSnapshot</b> - the binary {@link ChatBotSnapshot} format, which {@link ChatBot#save(ChatBot, String)}
+ * and {@link ChatBot#load(String)} use</li>
+ * <li><b>writeSerialized</b> and <b>readSerialized</b> - Java serialization of the whole chat bot, which is how they used to work</li>
+ * </ul>
+ * The size of both files is printed once they are first written.
+ * 
+ * <p>
+ * The 1M phrase runs need a large heap, which the forked JVM is given.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class SnapshotBenchmark
+{
+	/** The number of phrases in the parrot's memory. */
+	@Param({ "1000", "100000", "1000000" })
+	public int memorySize;
+	
+	/** The saved parrot. */
+	private ParrotBot parrot;
+	
+	/** The directory of the saved files. */
+	private Path directory;
+	
+	/** The parrot saved as a snapshot. */
+	private Path snapshot;
+	
+	/** The parrot saved with Java serialization. */
+	private Path serialized;
+	
+	/** Teaches the parrot {@link #memorySize} phrases, and saves it in both formats for the loads to read. */
+	@Setup(Level.Trial)
+	public void setUp() throws Exception
+	{
+		parrot = BenchmarkData.newParrot(memorySize);
+		directory = Files.createTempDirectory("snapshot-benchmark");
+		snapshot = directory.resolve("snapshot.chatbot");
+		serialized = directory.resolve("serialized.chatbot");
+		
+		writeSnapshot();
+		writeSerialized();
+		System.out.printf("%nphrases=%,d  snapshot=%.1f MB (%.1f B/phrase)  serialized=%.1f MB (%.1f B/phrase)%n", memorySize,
+				Files.size(snapshot) / (1024.0 * 1024.0), (double) Files.size(snapshot) / memorySize,
+				Files.size(serialized) / (1024.0 * 1024.0), (double) Files.size(serialized) / memorySize);
+	}
+	
+	/** Deletes the saved files. */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException
+	{
+		Files.deleteIfExists(snapshot);
+		Files.deleteIfExists(serialized);
+		Files.deleteIfExists(directory);
+	}
+	
+	/**
+	 * Saves the parrot as a snapshot.
+	 * @return the written file
+	 */
+	@Benchmark
+	public Path writeSnapshot() throws IOException
+	{
+		ChatBotSnapshot.write(parrot, snapshot);
+		return snapshot;
+	}
+	
+	/**
+	 * Loads the parrot from its snapshot.
+	 * @return the loaded parrot
+	 */
+	@Benchmark
+	public ChatBot readSnapshot() throws IOException
+	{
+		return ChatBotSnapshot.read(snapshot);
+	}
+	
+	/**
+	 * Saves the parrot with Java serialization.
+	 * @return the written file
+	 */
+	@Benchmark
+	public Path writeSerialized() throws IOException
+	{
+		try(ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(serialized))))
+		{
+			out.writeObject(parrot);
+		}
+		return serialized;
+	}
+	
+	/**
+	 * Loads the parrot with Java serialization.
+	 * @return the loaded parrot
+	 */
+	@Benchmark
+	public ChatBot readSerialized() throws IOException, ClassNotFoundException
+	{
+		try(ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(serialized))))
+		{
+			return (ChatBot) in.readObject();
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,184 @@
+package chatBot.bench;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.UnaryOperator;
+
+import chatBot.bots.RandomBot;
+import chatBot.text.TokenSpans;
+import chatBot.text.Tokenizer;
+
+/**
+ * The <code>TokenizerBenchmark</code> class measures the word shuffling of {@link RandomBot} on inputs from 10 bytes to 10 MB.
+ * 
+ * <p>
+ * For every input size, it compares:
+ * <ul>
+ * <li><b>regex</b> - the previous implementation, splitting with a regular expression and concatenating the output with <code>+=</code></li>
+ * <li><b>spans</b> - {@link Tokenizer} spans, shuffled in place and joined into a single buffer</li>
+ * </ul>
+ * The previous implementation is quadratic in the number of words, so it is skipped above {@link #REGEX_MAX_SIZE} bytes.
+ * </p>
+ * 
+ * <p>
+ * Usage: <code>TokenizerBenchmark [sizes...]</code>, in bytes.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class TokenizerBenchmark
+{
+	/** The largest input measured with the previous implementation. */
+	public static final int REGEX_MAX_SIZE = 100_000;
+	
+	/** The total number of input bytes processed per measurement, so that small inputs are repeated many times. */
+	public static final long BYTES_PER_MEASUREMENT = 50_000_000;
+	
+	/** Prevents the JIT compiler from discarding the replies. */
+	private static long sink = 0;
+	
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args)
+	{
+		int[] sizes = {10, 1_000, 100_000, 10_000_000};
+		if(args.length > 0)
+		{
+			sizes = Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+		}
+		
+		// Both implementations must see the same words
+		for(String input : new String[] {"", " \t ", "word", "  leading and trailing  ", "tabs\tand\nnew\r\nlines", generateInput(10_000)})
+		{
+			if(!isEquivalent(input))
+			{
+				throw new IllegalStateException("The spans do not match the previous words for: " + input);
+			}
+		}
+		
+		RandomBot bot = new RandomBot();
+		for(int size : sizes)
+		{
+			String input = generateInput(size);
+			
+			// Warm up, then measure
+			for(int round = 0; round < 2; round++)
+			{
+				boolean isMeasured = round == 1;
+				if(size <= REGEX_MAX_SIZE)
+				{
+					measure("regex", input, isMeasured, TokenizerBenchmark::previousReply);
+				}
+				measure("spans", input, isMeasured, bot::getReply);
+			}
+		}
+		System.out.println(sink == 42 ? "" : "done");
+	}
+	
+	/**
+	 * Replies to the input repeatedly, and reports the throughput.
+	 * @param name the name of the implementation
+	 * @param input the input
+	 * @param isMeasured whether to report the measurement
+	 * @param reply the implementation
+	 */
+	private static void measure(String name, String input, boolean isMeasured, UnaryOperator<String> reply)
+	{
+		long repetitions = Math.max(1, BYTES_PER_MEASUREMENT / input.length());
+		if(name.equals("regex"))
+		{
+			// The quadratic concatenation would take minutes at the full byte budget
+			repetitions = Math.max(1, repetitions / Math.max(1, input.length() / 1_000));
+		}
+		
+		long start = System.nanoTime();
+		for(long i = 0; i < repetitions; i++)
+		{
+			sink += reply.apply(input).length();
+		}
+		long elapsed = System.nanoTime() - start;
+		
+		if(isMeasured)
+		{
+			System.out.printf("%-6s input=%,11d B  %,12.1f us/reply  %,9.1f MB/s%n",
+					name, input.length(), elapsed / 1e3 / repetitions, input.length() * (double) repetitions / (elapsed / 1e9) / 1e6);
+		}
+	}
+	
+	/**
+	 * The previous implementation of {@link RandomBot#getReply(String)}.
+	 * @param input the message that the user sent
+	 * @return the words of the message, shuffled
+	 */
+	private static String previousReply(String input)
+	{
+		List<String> words = Arrays.asList(input.trim().split("\\s+"));
+		Collections.shuffle(words, ThreadLocalRandom.current());
+		String output = "";
+		for(int i = 0; i < words.size(); i++)
+		{
+			output += words.get(i);
+			if(i != words.size() - 1)
+			{
+				output += " ";
+			}
+		}
+		return output;
+	}
+	
+	/**
+	 * Generates words of random lengths separated by random whitespace, up to the given size.
+	 * @param size the number of characters
+	 * @return the generated input
+	 */
+	private static String generateInput(int size)
+	{
+		SplittableRandom random = new SplittableRandom(size);
+		StringBuilder input = new StringBuilder(size);
+		while(input.length() < size)
+		{
+			int wordLength = 1 + random.nextInt(9);
+			for(int i = 0; i < wordLength && input.length() < size; i++)
+			{
+				input.append((char) ('a' + random.nextInt(26)));
+			}
+			if(input.length() < size)
+			{
+				input.append(random.nextInt(10) == 0 ? "  \t" : " ");
+			}
+		}
+		input.setLength(size);
+		return input.toString();
+	}
+	
+	/**
+	 * Checks that the spans produce the same words as the previous implementation.
+	 * @param input the input
+	 * @return true if both implementations see the same words
+	 */
+	private static boolean isEquivalent(String input)
+	{
+		TokenSpans spans = Tokenizer.splitWhitespace(input);
+		String[] words = input.trim().split("\\s+");
+		if(spans.size() == 0)
+		{
+			return words.length == 1 && words[0].isEmpty();
+		}
+		if(words.length != spans.size())
+		{
+			return false;
+		}
+		for(int i = 0; i < words.length; i++)
+		{
+			if(!words[i].equals(spans.get(i)))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,222 @@
+package chatBot.bench;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntConsumer;
+
+import chatBot.gui.ChatBotApp;
+import chatBot.gui.ChatBox;
+import chatBot.gui.ChatMessage;
+import chatBot.gui.ChatMessageData;
+import chatBot.gui.ChatMessagePosition;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.image.Image;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+/**
+ * The <code>TranscriptBenchmark</code> class measures frame time and heap use of a chat transcript holding many messages.
+ * 
+ * <p>
+ * Two transcripts are compared:
+ * <ul>
+ * <li><b>eager</b> - a {@link ChatMessage} node per message inside a scrolling vbox, which is how {@link ChatBox} used to work</li>
+ * <li><b>virtualized</b> - {@link ChatBox}, which only creates nodes for the visible rows and recycles them</li>
+ * </ul>
+ * Once filled, each transcript is scrolled to a random position every frame for {@link #FRAMES} frames.
+ * </p>
+ * 
+ * <p>
+ * Usage: <code>TranscriptBenchmark [messages] [eager messages]</code>, defaulting to 100,000 messages for both.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class TranscriptBenchmark
+{
+	/** The number of frames measured while scrolling. */
+	public static final int FRAMES = 300;
+	
+	/** The width, in pixels, of the benchmark window. */
+	public static final int WIDTH = 640;
+	
+	/** The height, in pixels, of the benchmark window. */
+	public static final int HEIGHT = 480;
+	
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int messages = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		int eagerMessages = args.length > 1 ? Integer.parseInt(args[1]) : messages;
+		
+		// Start the JavaFX toolkit
+		Platform.setImplicitExit(false);
+		Platform.startup(() -> {});
+		
+		if(eagerMessages > 0)
+		{
+			run("eager      ", eagerMessages, TranscriptBenchmark::createEagerTranscript);
+		}
+		run("virtualized", messages, TranscriptBenchmark::createVirtualizedTranscript);
+		
+		Platform.exit();
+	}
+	
+	/**
+	 * A factory of a transcript filled with messages, returning its root node and a way to scroll it to a message index.
+	 */
+	private interface TranscriptFactory
+	{
+		/**
+		 * Creates the transcript.
+		 * @param messages the number of messages to fill the transcript with
+		 * @param icon the icon of every message
+		 * @param scroller receives a callback that scrolls the transcript to a message index
+		 * @return the root node of the transcript
+		 */
+		Parent create(int messages, Image icon, List<IntConsumer> scroller);
+	}
+	
+	/**
+	 * Fills a transcript, then measures the frame time while scrolling and the heap in use.
+	 * @param name the name of the transcript
+	 * @param messages the number of messages
+	 * @param factory the transcript factory
+	 */
+	private static void run(String name, int messages, TranscriptFactory factory) throws InterruptedException
+	{
+		long heapBefore = usedHeap();
+		
+		List<IntConsumer> scroller = new ArrayList<>();
+		List<Long> frameTimes = new ArrayList<>();
+		long[] fillNanos = new long[1];
+		Stage[] stage = new Stage[1];
+		CountDownLatch done = new CountDownLatch(1);
+		
+		Platform.runLater(() ->
+		{
+			// Fill the transcript and show it
+			long start = System.nanoTime();
+			Image icon = new Image(ChatBotApp.USER_IMAGE_PATH);
+			Scene scene = new Scene(factory.create(messages, icon, scroller), WIDTH, HEIGHT);
+			scene.getStylesheets().add(ChatBotApp.APP_STYLESHEET_PATH);
+			stage[0] = new Stage();
+			stage[0].setScene(scene);
+			stage[0].show();
+			scene.getRoot().applyCss();
+			scene.getRoot().layout();
+			fillNanos[0] = System.nanoTime() - start;
+			
+			// Scroll to a random position every frame and record the time between frames
+			Random random = new Random(42);
+			new AnimationTimer()
+			{
+				private long previous = -1;
+				
+				@Override
+				public void handle(long now)
+				{
+					if(previous >= 0)
+					{
+						frameTimes.add(now - previous);
+					}
+					previous = now;
+					
+					if(frameTimes.size() >= FRAMES)
+					{
+						stop();
+						done.countDown();
+						return;
+					}
+					scroller.get(0).accept(random.nextInt(messages));
+				}
+			}.start();
+		});
+		done.await();
+		
+		long heapAfter = usedHeap();
+		Platform.runLater(() -> stage[0].close());
+		
+		Collections.sort(frameTimes);
+		System.out.printf("%s  messages=%d  fill+layout=%d ms  frame p50=%.2f ms  p99=%.2f ms  heap=%.1f MB%n",
+				name, messages, fillNanos[0] / 1_000_000,
+				frameTimes.get(frameTimes.size() / 2) / 1e6,
+				frameTimes.get((int) (frameTimes.size() * 0.99)) / 1e6,
+				(heapAfter - heapBefore) / (1024.0 * 1024.0));
+	}
+	
+	/**
+	 * Creates a scrolling vbox with a chat message node per message.
+	 */
+	private static Parent createEagerTranscript(int messages, Image icon, List<IntConsumer> scroller)
+	{
+		VBox messagesVBox = new VBox(ChatBox.MESSAGES_VERTICAL_SPACING);
+		for(int i = 0; i < messages; i++)
+		{
+			ChatMessage chatMessage = new ChatMessage(position(i), message(i), icon);
+			chatMessage.setLabelCSSId(labelCSSId(i));
+			messagesVBox.getChildren().add(chatMessage);
+		}
+		
+		ScrollPane scrollPane = new ScrollPane(messagesVBox);
+		scrollPane.setFitToWidth(true);
+		scroller.add(index -> scrollPane.setVvalue((double) index / messages));
+		return scrollPane;
+	}
+	
+	/**
+	 * Creates a chat box filled with messages.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Parent createVirtualizedTranscript(int messages, Image icon, List<IntConsumer> scroller)
+	{
+		ChatBox chatBox = new ChatBox();
+		for(int i = 0; i < messages; i++)
+		{
+			chatBox.addMessage(new ChatMessageData(position(i), message(i), icon, labelCSSId(i)));
+		}
+		
+		ListView<ChatMessageData> listView = (ListView<ChatMessageData>) chatBox.lookup(".list-view");
+		scroller.add(listView::scrollTo);
+		return chatBox;
+	}
+	
+	private static ChatMessagePosition position(int index)
+	{
+		return index % 2 == 0 ? ChatMessagePosition.Right : ChatMessagePosition.Left;
+	}
+	
+	private static String labelCSSId(int index)
+	{
+		return index % 2 == 0 ? "label_user" : "label_chatbot";
+	}
+	
+	private static String message(int index)
+	{
+		return "Message number " + index + (index % 7 == 0 ? ", which is a little longer than the others so that it wraps onto another line" : "");
+	}
+	
+	/**
+	 * Returns the heap in use, after asking for a garbage collection.
+	 * @return used heap, in bytes
+	 */
+	private static long usedHeap()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0; i < 3; i++)
+		{
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
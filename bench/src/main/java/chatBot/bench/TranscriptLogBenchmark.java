@@ -0,0 +1,95 @@
+package chatBot.bench;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import chatBot.persistence.TranscriptEntryKind;
+import chatBot.persistence.TranscriptLog;
+import chatBot.persistence.TranscriptPage;
+
+/**
+ * The <code>TranscriptLogBenchmark</code> class measures a {@link TranscriptLog} holding a single long conversation of increasing length:
+ * <ul>
+ * <li><b>append</b> - the time per queued message, and the time to close the log once they are queued, which writes them</li>
+ * <li><b>reopen</b> - the time to open the log again and read its last page, which is what the application does on start</li>
+ * <li><b>scroll</b> - the time per older page read, as the user scrolls up {@link #SCROLLED_PAGES} pages</li>
+ * <li><b>rebuild</b> - the time to open the log after its index was lost, which rebuilds it from the whole log</li>
+ * </ul>
+ * 
+ * <p>
+ * Usage: <code>TranscriptLogBenchmark [maxMessages]</code>, defaulting to 1,000,000.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class TranscriptLogBenchmark
+{
+	/** The numbers of messages in the conversation to measure. */
+	public static final int[] MESSAGES = { 10_000, 100_000, 1_000_000 };
+	
+	/** The number of older pages read, as if the user scrolled up. */
+	public static final int SCROLLED_PAGES = 10;
+	
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int maxMessages = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		
+		Path directory = Files.createTempDirectory("transcript-benchmark");
+		for(int messages : MESSAGES)
+		{
+			if(messages > maxMessages)
+			{
+				break;
+			}
+			
+			Path path = directory.resolve("transcript-" + messages + ".log");
+			Path index = path.resolveSibling(path.getFileName() + ".index");
+			
+			// Appending a conversation, alternating between the user and the chat bot
+			long start = System.nanoTime();
+			TranscriptLog log = new TranscriptLog(path);
+			log.startConversation("ParrotBot");
+			for(int i = 0; i < messages; i++)
+			{
+				log.append(i % 2 == 0 ? TranscriptEntryKind.User : TranscriptEntryKind.ChatBot, "message number " + i);
+			}
+			long appendNanos = System.nanoTime() - start;
+			log.close();
+			long closeNanos = System.nanoTime() - start - appendNanos;
+			
+			// Reopening the log and showing its last page
+			start = System.nanoTime();
+			log = new TranscriptLog(path);
+			TranscriptPage page = log.readLastPage();
+			long reopenNanos = System.nanoTime() - start;
+			
+			// Scrolling up through older pages
+			start = System.nanoTime();
+			for(int i = 0; i < SCROLLED_PAGES && page != null; i++)
+			{
+				page = log.readPageBefore(page);
+			}
+			long scrollNanos = System.nanoTime() - start;
+			log.close();
+			
+			// Reopening after losing the index
+			Files.delete(index);
+			start = System.nanoTime();
+			log = new TranscriptLog(path);
+			log.readLastPage();
+			long rebuildNanos = System.nanoTime() - start;
+			log.close();
+			
+			System.out.printf("messages=%,9d  append=%.2f us/message  close=%.1f ms  reopen=%.2f ms  scroll=%.3f ms/page  rebuild=%.0f ms  log=%.1f MB  index=%.1f KB%n",
+					messages, appendNanos / 1e3 / messages, closeNanos / 1e6, reopenNanos / 1e6, scrollNanos / 1e6 / SCROLLED_PAGES,
+					rebuildNanos / 1e6, Files.size(path) / (1024.0 * 1024.0), Files.size(index) / 1024.0);
+			
+			Files.delete(index);
+			Files.delete(path);
+		}
+		Files.delete(directory);
+	}
+}
\ No newline at end of file
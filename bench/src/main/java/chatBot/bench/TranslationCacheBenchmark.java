@@ -0,0 +1,188 @@
+package chatBot.bench;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import chatBot.cache.TranslationCache;
+
+/**
+ * The <code>TranslationCacheBenchmark</code> class measures the {@link TranslationCache} in front of a simulated Yoda API.
+ * 
+ * <p>
+ * It replays a workload where message popularity follows a Zipf distribution, and reports:
+ * <ul>
+ * <li><b>cold</b> - a new cache, filled by the workload itself</li>
+ * <li><b>restart</b> - a new cache over the file of the previous run, with an empty memory tier</li>
+ * <li><b>memory hit / disk hit</b> - the average lookup time of each tier</li>
+ * <li><b>remote calls</b> - the number of lookups that would reach the Yoda API, each costing {@link #REMOTE_LATENCY_MILLIS} milliseconds</li>
+ * </ul>
+ * </p>
+ * 
+ * <p>
+ * Usage: <code>TranslationCacheBenchmark [distinctMessages] [lookups]</code>, defaulting to 50,000 distinct messages and 1,000,000 lookups.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class TranslationCacheBenchmark
+{
+	/** The assumed round-trip time, in milliseconds, of a call to the Yoda API. */
+	public static final double REMOTE_LATENCY_MILLIS = 150;
+	
+	/** The Zipf exponent of the message popularity. */
+	public static final double ZIPF_EXPONENT = 1.0;
+	
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int distinctMessages = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+		int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+		
+		int[] workload = zipfWorkload(distinctMessages, lookups);
+		Path directory = Files.createTempDirectory("translation-cache-benchmark");
+		Path file = directory.resolve("yoda-cache.bin");
+		
+		run("cold", file, workload);
+		run("restart", file, workload);
+		
+		// Lookup time of each tier, for a single popular message
+		try(TranslationCache cache = open(file))
+		{
+			String key = TranslationCache.normalize(message(0));
+			cache.put(key, translate(key));
+			System.out.printf("memory hit  %.2f us%n", timeLookups(cache, key, 1_000_000, false) / 1e3);
+			System.out.printf("disk hit    %.2f us%n", timeLookups(cache, key, 100_000, true) / 1e3);
+		}
+		
+		Files.delete(file);
+		Files.delete(directory);
+	}
+	
+	/**
+	 * Replays the workload through a cache over the specified file, calling the simulated Yoda API on every miss.
+	 * @param name the name of the run
+	 * @param file the file of the disk tier
+	 * @param workload the indices of the messages looked up
+	 */
+	private static void run(String name, Path file, int[] workload) throws Exception
+	{
+		try(TranslationCache cache = open(file))
+		{
+			long remoteCalls = 0;
+			long start = System.nanoTime();
+			for(int index : workload)
+			{
+				String key = TranslationCache.normalize(message(index));
+				if(cache.get(key) == null)
+				{
+					cache.put(key, translate(key));
+					remoteCalls++;
+				}
+			}
+			double cacheMillis = (System.nanoTime() - start) / 1e6;
+			
+			System.out.printf("%-8s lookups=%,d  remote calls=%,d (%.1f%%)  time in cache=%.0f ms  est. time waiting on remote=%.0f s  %s%n",
+					name, workload.length, remoteCalls, 100.0 * remoteCalls / workload.length, cacheMillis,
+					remoteCalls * REMOTE_LATENCY_MILLIS / 1e3, cache.getStatistics());
+		}
+	}
+	
+	private static TranslationCache open(Path file) throws Exception
+	{
+		return new TranslationCache(TranslationCache.DEFAULT_MEMORY_CAPACITY, TranslationCache.DEFAULT_MEMORY_TIME_TO_LIVE_MILLIS,
+				file, TranslationCache.DEFAULT_DISK_CAPACITY_BYTES, TranslationCache.DEFAULT_DISK_TIME_TO_LIVE_MILLIS);
+	}
+	
+	/**
+	 * Returns the average time of repeatedly looking up the given key.
+	 * @param cache the cache
+	 * @param key the key to look up
+	 * @param count the number of lookups
+	 * @param isFromDisk whether every lookup should be answered by the disk tier, by reopening the cache's memory tier
+	 * @return the average lookup time, in nanoseconds
+	 */
+	private static double timeLookups(TranslationCache cache, String key, int count, boolean isFromDisk) throws Exception
+	{
+		if(!isFromDisk)
+		{
+			long start = System.nanoTime();
+			for(int i = 0; i < count; i++)
+			{
+				cache.get(key);
+			}
+			return (double) (System.nanoTime() - start) / count;
+		}
+		
+		// A cache whose memory tier holds a single entry, so alternating between two keys always goes to disk
+		Path file = Files.createTempFile("translation-cache-benchmark", ".bin");
+		try(TranslationCache diskBound = new TranslationCache(1, TranslationCache.DEFAULT_MEMORY_TIME_TO_LIVE_MILLIS,
+				file, TranslationCache.DEFAULT_DISK_CAPACITY_BYTES, TranslationCache.DEFAULT_DISK_TIME_TO_LIVE_MILLIS))
+		{
+			String other = TranslationCache.normalize(message(1));
+			diskBound.put(key, translate(key));
+			diskBound.put(other, translate(other));
+			diskBound.flush();
+			
+			long start = System.nanoTime();
+			for(int i = 0; i < count; i++)
+			{
+				diskBound.get((i & 1) == 0 ? key : other);
+			}
+			return (double) (System.nanoTime() - start) / count;
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+	
+	/**
+	 * Draws the indices of the looked up messages from a Zipf distribution, so a few messages are very popular.
+	 * @param distinctMessages the number of distinct messages
+	 * @param lookups the number of lookups
+	 * @return the message indices
+	 */
+	private static int[] zipfWorkload(int distinctMessages, int lookups)
+	{
+		double[] cumulative = new double[distinctMessages];
+		double sum = 0;
+		for(int i = 0; i < distinctMessages; i++)
+		{
+			sum += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+			cumulative[i] = sum;
+		}
+		
+		SplittableRandom random = new SplittableRandom(42);
+		int[] workload = new int[lookups];
+		for(int i = 0; i < lookups; i++)
+		{
+			int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+			workload[i] = Math.min(index >= 0 ? index : -index - 1, distinctMessages - 1);
+		}
+		return workload;
+	}
+	
+	/**
+	 * Returns a message, with irregular whitespace that the cache normalizes away.
+	 * @param index the index of the message
+	 * @return the message
+	 */
+	private static String message(int index)
+	{
+		return "  I am  message number " + index + ", translate me  ";
+	}
+	
+	/**
+	 * Stands in for the Yoda API.
+	 * @param text the text to translate
+	 * @return the translated text
+	 */
+	private static String translate(String text)
+	{
+		return "Translate me, " + text.toLowerCase() + " I am. Hmm.";
+	}
+}
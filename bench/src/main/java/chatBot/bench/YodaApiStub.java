@@ -0,0 +1,143 @@
+package chatBot.bench;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * The <code>YodaApiStub</code> class is a local stand-in for the Yoda API, used by the benchmarks of {@link chatBot.bots.BabyYodaBot}.
+ * 
+ * <p>
+ * It answers every request with the same translation after a fixed latency. Requests whose text contains "stall"
+ * are answered after a much longer stall instead, and it counts the requests it receives.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class YodaApiStub implements Closeable
+{
+	/** The translation of every request. */
+	private static final byte[] REPLY = "{\"yodish\":\"Learn the ways of the force, you must.\"}".getBytes(StandardCharsets.UTF_8);
+	
+	/** The time, in milliseconds, the stub takes to answer a request. */
+	private final long latencyMillis;
+	
+	/** The time, in milliseconds, the stub takes to answer a stalling request. */
+	private final long stallMillis;
+	
+	/** The HTTP server. */
+	private final HttpServer server;
+	
+	/** The threads handling requests. */
+	private final ExecutorService handlers = Executors.newCachedThreadPool();
+	
+	/** The number of requests received. */
+	private final AtomicInteger requests = new AtomicInteger();
+	
+	/** The number of requests being handled. */
+	private final AtomicInteger concurrent = new AtomicInteger();
+	
+	/** The highest number of requests handled at once. */
+	private final AtomicInteger maxConcurrent = new AtomicInteger();
+	
+	/**
+	 * Starts a stub on a free local port.
+	 * @param latencyMillis the time, in milliseconds, to answer a request
+	 * @param stallMillis the time, in milliseconds, to answer a stalling request
+	 */
+	public YodaApiStub(long latencyMillis, long stallMillis) throws IOException
+	{
+		this.latencyMillis = latencyMillis;
+		this.stallMillis = stallMillis;
+		
+		// Without this, Nagle's algorithm and delayed acknowledgements add about 40 ms to every response
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+		server.createContext("/api/v1/yodish", this::handle);
+		server.setExecutor(handlers);
+		server.start();
+	}
+	
+	/**
+	 * Returns the address of the stub, to be used as the endpoint of the Yoda API.
+	 * @return the stub's endpoint
+	 */
+	public URI getEndpoint()
+	{
+		return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/api/v1/yodish");
+	}
+	
+	/**
+	 * Resets the request counters.
+	 */
+	public void resetCounters()
+	{
+		requests.set(0);
+		maxConcurrent.set(0);
+	}
+	
+	/**
+	 * Returns the number of requests received since the counters were reset.
+	 * @return the number of requests
+	 */
+	public int getRequestCount()
+	{
+		return requests.get();
+	}
+	
+	/**
+	 * Returns the highest number of requests handled at once since the counters were reset.
+	 * @return the highest concurrency
+	 */
+	public int getMaxConcurrent()
+	{
+		return maxConcurrent.get();
+	}
+	
+	@Override
+	public void close()
+	{
+		server.stop(0);
+		handlers.shutdownNow();
+	}
+	
+	private void handle(HttpExchange exchange) throws IOException
+	{
+		requests.incrementAndGet();
+		maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+		try
+		{
+			String query = exchange.getRequestURI().getQuery();
+			long delay = query != null && query.contains("stall") ? stallMillis : latencyMillis;
+			if(delay > 0)
+			{
+				Thread.sleep(delay);
+			}
+			
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, REPLY.length);
+			try(OutputStream out = exchange.getResponseBody())
+			{
+				out.write(REPLY);
+			}
+		}
+		catch (InterruptedException | IOException e)
+		{
+			// The client gave up on this request, or the stub is closing
+		}
+		finally
+		{
+			concurrent.decrementAndGet();
+			exchange.close();
+		}
+	}
+}
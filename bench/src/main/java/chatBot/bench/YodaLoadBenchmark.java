@@ -0,0 +1,171 @@
+package chatBot.bench;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+import chatBot.bots.BabyYodaBot;
+import chatBot.bots.YodishMode;
+import chatBot.cache.TranslationCache;
+
+/**
+ * The <code>YodaLoadBenchmark</code> class measures {@link BabyYodaBot} under concurrent load, against a local {@link YodaApiStub stub} of the Yoda API.
+ * 
+ * <p>
+ * Many users send messages at once, mostly the same few popular messages. It compares:
+ * <ul>
+ * <li><b>blocking</b> - the previous implementation, a blocking request per message with no timeout</li>
+ * <li><b>async</b> - {@link BabyYodaBot}, with single-flight requests and a bounded number of requests in flight</li>
+ * </ul>
+ * The translation cache is made to expire after a millisecond, so that the network path is what gets measured.
+ * Some messages make the stub stall, to show the effect of the request timeout.
+ * </p>
+ * 
+ * <p>
+ * Usage: <code>YodaLoadBenchmark [users] [messagesPerUser]</code>, defaulting to 64 users sending 50 messages each.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class YodaLoadBenchmark
+{
+	/** The time, in milliseconds, the stub takes to answer a request. */
+	public static final long STUB_LATENCY_MILLIS = 50;
+	
+	/** The time, in milliseconds, the stub takes to answer a stalling request. */
+	public static final long STUB_STALL_MILLIS = 3000;
+	
+	/** The fraction of messages that make the stub stall. */
+	public static final double STALL_PROBABILITY = 0.005;
+	
+	/** The number of distinct popular messages. */
+	public static final int POPULAR_MESSAGES = 20;
+	
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int users = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+		int messagesPerUser = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		
+		YodaApiStub stub = new YodaApiStub(STUB_LATENCY_MILLIS, STUB_STALL_MILLIS);
+		URI endpoint = stub.getEndpoint();
+		String[][] workload = workload(users, messagesPerUser);
+		
+		// The previous implementation
+		HttpClient client = HttpClient.newBuilder().version(Version.HTTP_2).build();
+		run("blocking", stub, workload, message ->
+		{
+			try
+			{
+				HttpRequest request = HttpRequest.newBuilder()
+						.GET()
+						.uri(URI.create(endpoint + "?text=" + URLEncoder.encode(message, "UTF-8")))
+						.build();
+				HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+				JSONObject obj = (JSONObject) new JSONParser().parse(response.body());
+				return (String) obj.get("yodish");
+			}
+			catch(Exception e)
+			{
+				return "Baby yoda is sleeping. ZzzZzzZzz...";
+			}
+		});
+		
+		// The non-blocking, single-flight implementation
+		BabyYodaBot bot = new BabyYodaBot(new TranslationCache(TranslationCache.DEFAULT_MEMORY_CAPACITY, 1), endpoint,
+				BabyYodaBot.DEFAULT_CONNECT_TIMEOUT, Duration.ofMillis(500), BabyYodaBot.DEFAULT_MAX_IN_FLIGHT, YodishMode.Remote);
+		run("async", stub, workload, bot::getReply);
+		
+		stub.close();
+		System.exit(0);
+	}
+	
+	/**
+	 * Sends the workload from one thread per user, and reports the reply latencies and the load on the stub.
+	 * @param name the name of the run
+	 * @param stub the stub of the Yoda API
+	 * @param workload the messages of each user
+	 * @param getReply the implementation replying to a message
+	 */
+	private static void run(String name, YodaApiStub stub, String[][] workload, Function<String, String> getReply) throws Exception
+	{
+		stub.resetCounters();
+		
+		int users = workload.length;
+		int messagesPerUser = workload[0].length;
+		long[] latencies = new long[users * messagesPerUser];
+		ExecutorService threads = Executors.newFixedThreadPool(users);
+		CountDownLatch done = new CountDownLatch(users);
+		
+		long start = System.nanoTime();
+		for(int user = 0; user < users; user++)
+		{
+			int u = user;
+			threads.execute(() ->
+			{
+				for(int i = 0; i < messagesPerUser; i++)
+				{
+					long sent = System.nanoTime();
+					getReply.apply(workload[u][i]);
+					latencies[u * messagesPerUser + i] = System.nanoTime() - sent;
+				}
+				done.countDown();
+			});
+		}
+		done.await();
+		long elapsed = System.nanoTime() - start;
+		threads.shutdown();
+		
+		Arrays.sort(latencies);
+		System.out.printf("%-9s messages=%,d  wall=%.1f s  p50=%.0f ms  p99=%.0f ms  max=%.0f ms  outbound requests=%,d  max concurrent at server=%d%n",
+				name, latencies.length, elapsed / 1e9, percentile(latencies, 0.50), percentile(latencies, 0.99),
+				latencies[latencies.length - 1] / 1e6, stub.getRequestCount(), stub.getMaxConcurrent());
+	}
+	
+	private static double percentile(long[] sorted, double fraction)
+	{
+		return sorted[(int) Math.min(sorted.length - 1, fraction * sorted.length)] / 1e6;
+	}
+	
+	/**
+	 * Builds the messages of each user, mostly drawn from a few popular messages, with a few messages that make the stub stall.
+	 * @param users the number of users
+	 * @param messagesPerUser the number of messages per user
+	 * @return the messages of each user
+	 */
+	private static String[][] workload(int users, int messagesPerUser)
+	{
+		SplittableRandom random = new SplittableRandom(7);
+		String[][] workload = new String[users][messagesPerUser];
+		for(int user = 0; user < users; user++)
+		{
+			for(int i = 0; i < messagesPerUser; i++)
+			{
+				if(random.nextDouble() < STALL_PROBABILITY)
+				{
+					workload[user][i] = "stall " + random.nextInt(1_000_000);
+				}
+				else
+				{
+					workload[user][i] = "you must learn the ways of the force " + random.nextInt(POPULAR_MESSAGES);
+				}
+			}
+		}
+		return workload;
+	}
+}
\ No newline at end of file
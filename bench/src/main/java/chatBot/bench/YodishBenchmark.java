@@ -0,0 +1,111 @@
+package chatBot.bench;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.util.function.Function;
+
+import chatBot.bots.BabyYodaBot;
+import chatBot.bots.YodishMode;
+import chatBot.cache.TranslationCache;
+import chatBot.yodish.YodishEngine;
+
+/**
+ * The <code>YodishBenchmark</code> class compares the throughput of translating messages with the local {@link YodishEngine}
+ * against the HTTP path of {@link BabyYodaBot}, talking to a local {@link YodaApiStub stub} that answers right away.
+ * 
+ * <p>
+ * It reports:
+ * <ul>
+ * <li><b>offline</b> - a {@link BabyYodaBot} in {@link YodishMode#Offline} mode</li>
+ * <li><b>remote</b> - a {@link BabyYodaBot} in {@link YodishMode#Remote} mode, with every message distinct and its cache made to expire</li>
+ * <li><b>fallback</b> - a {@link BabyYodaBot} in {@link YodishMode#RemoteWithFallback} mode, whose remote service is down</li>
+ * </ul>
+ * The stub adds no latency, so the remote path is only the cost of a local HTTP round-trip, a lower bound for the real service.
+ * </p>
+ * 
+ * <p>
+ * Usage: <code>YodishBenchmark [messages]</code>, defaulting to 5,000 messages per run.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class YodishBenchmark
+{
+	/** Sample messages, made distinct by a counter. */
+	private static final String[] MESSAGES = {
+			"You must learn the ways of the force number %d.",
+			"Are you ready for lesson %d?",
+			"If you try hard at %d, you will succeed.",
+			"I sense fear in apprentice %d. The force is strong with you!",
+	};
+	
+	/**
+	 * Entry point of the benchmark.
+	 * @param args execution arguments
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int messages = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+		
+		try(YodaApiStub stub = new YodaApiStub(0, 0))
+		{
+			BabyYodaBot offline = new BabyYodaBot(newUncachedCache(), stub.getEndpoint(), BabyYodaBot.DEFAULT_CONNECT_TIMEOUT,
+					BabyYodaBot.DEFAULT_REQUEST_TIMEOUT, BabyYodaBot.DEFAULT_MAX_IN_FLIGHT, YodishMode.Offline);
+			BabyYodaBot remote = new BabyYodaBot(newUncachedCache(), stub.getEndpoint(), BabyYodaBot.DEFAULT_CONNECT_TIMEOUT,
+					BabyYodaBot.DEFAULT_REQUEST_TIMEOUT, BabyYodaBot.DEFAULT_MAX_IN_FLIGHT, YodishMode.Remote);
+			
+			// Port 9 (discard) is not listened on, so every request is refused
+			BabyYodaBot fallback = new BabyYodaBot(newUncachedCache(), URI.create("http://127.0.0.1:9/api/v1/yodish"), BabyYodaBot.DEFAULT_CONNECT_TIMEOUT,
+					BabyYodaBot.DEFAULT_REQUEST_TIMEOUT, BabyYodaBot.DEFAULT_MAX_IN_FLIGHT, YodishMode.RemoteWithFallback);
+			
+			// Warm up, then measure
+			for(int round = 0; round < 2; round++)
+			{
+				boolean isMeasured = round == 1;
+				run("offline", messages * 20, offline::getReply, isMeasured);
+				run("remote", messages, remote::getReply, isMeasured);
+				run("fallback", messages / 5, fallback::getReply, isMeasured);
+			}
+			System.out.println("sample: " + offline.getReply("If you try hard, you will succeed."));
+		}
+		System.exit(0);
+	}
+	
+	/**
+	 * Translates distinct messages one after the other, and reports the throughput and the average latency.
+	 * @param name the name of the run
+	 * @param messages the number of messages
+	 * @param getReply the implementation replying to a message
+	 * @param isMeasured whether to report the run
+	 */
+	private static void run(String name, int messages, Function<String, String> getReply, boolean isMeasured)
+	{
+		// Silence the reports of the failing remote service
+		PrintStream err = System.err;
+		System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+		
+		long checksum = 0;
+		long start = System.nanoTime();
+		for(int i = 0; i < messages; i++)
+		{
+			checksum += getReply.apply(String.format(MESSAGES[i % MESSAGES.length], i)).length();
+		}
+		long elapsed = System.nanoTime() - start;
+		System.setErr(err);
+		
+		if(isMeasured)
+		{
+			System.out.printf("%-9s messages=%,d  throughput=%,.0f replies/s  latency=%.1f us  (checksum %d)%n",
+					name, messages, messages / (elapsed / 1e9), elapsed / 1e3 / messages, checksum);
+		}
+	}
+	
+	/**
+	 * Creates a cache whose entries expire after a millisecond, so every message goes through the translation path being measured.
+	 * @return the cache
+	 */
+	private static TranslationCache newUncachedCache()
+	{
+		return new TranslationCache(TranslationCache.DEFAULT_MEMORY_CAPACITY, 1);
+	}
+}
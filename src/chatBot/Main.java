@@ -1,11 +1,24 @@
 package chatBot;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
+import chatBot.batch.BatchCli;
+import chatBot.bots.BabyYodaBot;
 import chatBot.gui.ChatBotApp;
+import chatBot.gui.StartupTimer;
+import chatBot.server.ChatServer;
 import javafx.application.Application;
 
 /**
  * The <code>Main</code> class is the entry point for {@link ChatBotApp} which contains {@link #main(String[])}.
  * 
+ * <p>
+ * Running with <code>--server [port]</code> starts the headless {@link ChatServer} instead, on port {@link ChatServer#DEFAULT_PORT} by default.
+ * Running with <code>--batch</code> runs a file of messages through a chat bot with the headless {@link BatchCli}.
+ * </p>
+ * 
  * @author Mohammad Alali (Sanavesa)
  */
 public class Main
@@ -14,8 +27,36 @@ public class Main
 	 * Entry point of the program.
 	 * @param args execution arguments
 	 */
-	public static void main(String[] args)
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length > 0 && args[0].equals("--server"))
+		{
+			startServer(args.length > 1 ? Integer.parseInt(args[1]) : ChatServer.DEFAULT_PORT);
+			return;
+		}
+		if(args.length > 0 && args[0].equals("--batch"))
+		{
+			int status = BatchCli.run(Arrays.copyOfRange(args, 1, args.length));
+			BabyYodaBot.closeSharedCache();
+			System.exit(status);
+		}
+		
+		// Time the application's startup from here, passing it the arguments such as --startup-report
+		StartupTimer.mark("Start the JVM");
+		Application.launch(ChatBotApp.class, args);
+	}
+	
+	/**
+	 * Starts the headless chat server, which runs until the program is stopped.
+	 * @param port the port to listen on
+	 */
+	private static void startServer(int port) throws IOException
 	{
-		Application.launch(ChatBotApp.class);
+		ChatServer server = new ChatServer(new InetSocketAddress(port));
+		server.start();
+		
+		// Stop the server gracefully once the program is stopped, such as with Ctrl+C
+		Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+		System.out.println("Chat server listening on port " + server.getPort() + ".");
 	}
 }
\ No newline at end of file
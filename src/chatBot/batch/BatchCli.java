@@ -0,0 +1,157 @@
+package chatBot.batch;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import chatBot.bots.ChatBot;
+import chatBot.bots.ChatBots;
+import chatBot.persistence.ChatBotSnapshot;
+
+/**
+ * The <code>BatchCli</code> class is the headless command line that runs a file of messages through a chat bot with a {@link BatchProcessor},
+ * such as to check a chat bot's replies against a previous run, or to teach a parrot a whole conversation before talking to it.
+ * 
+ * <p>
+ * Usage: <code>--batch &lt;bot&gt; &lt;input&gt; [output] [--threads n] [--save snapshot]</code>
+ * <ul>
+ * <li><code>bot</code> - the name of an available chat bot, such as <code>ParrotBot</code>, or a saved chat bot's snapshot file</li>
+ * <li><code>input</code> - the messages, one per line, or <code>-</code> for the standard input</li>
+ * <li><code>output</code> - where the replies are written, one per line, the standard output by default</li>
+ * <li><code>--threads</code> - the number of worker threads, the number of cores by default</li>
+ * <li><code>--save</code> - saves the chat bot afterwards, with everything it learned</li>
+ * </ul>
+ * Files are read and written as UTF-8. Once done, the number of lines per second is reported on the standard error.
+ * </p>
+ * 
+ * @see {@link BatchProcessor}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class BatchCli
+{
+	/** The name standing for the standard input or output. */
+	public static final String STANDARD_STREAM = "-";
+	
+	/** This class only contains static methods. */
+	private BatchCli()
+	{
+	}
+	
+	/**
+	 * Runs a file of messages through a chat bot, as described by the command line arguments that follow <code>--batch</code>.
+	 * @param args the command line arguments
+	 * @return the exit status; 0 if successful, 1 if the arguments are invalid, 2 if the batch failed
+	 */
+	public static int run(String[] args)
+	{
+		// Split the options from the positional arguments
+		List<String> positional = new ArrayList<>();
+		int threads = Runtime.getRuntime().availableProcessors();
+		Path savePath = null;
+		try
+		{
+			for(int i = 0; i < args.length; i++)
+			{
+				switch(args[i])
+				{
+					case "--threads":
+						threads = Integer.parseInt(args[++i]);
+						break;
+					case "--save":
+						savePath = Path.of(args[++i]);
+						break;
+					default:
+						positional.add(args[i]);
+						break;
+				}
+			}
+		}
+		catch (ArrayIndexOutOfBoundsException | NumberFormatException e)
+		{
+			return usage("Invalid option.");
+		}
+		if(positional.size() < 2 || positional.size() > 3 || threads < 1)
+		{
+			return usage("Expected a chat bot, an input and optionally an output.");
+		}
+		
+		ChatBot chatBot = createChatBot(positional.get(0));
+		if(chatBot == null)
+		{
+			return usage("Unknown chat bot '" + positional.get(0) + "'.");
+		}
+		
+		String inputName = positional.get(1);
+		String outputName = positional.size() > 2 ? positional.get(2) : STANDARD_STREAM;
+		BatchProcessor processor = new BatchProcessor(chatBot, threads, BatchProcessor.DEFAULT_CHUNK_SIZE);
+		try(BufferedReader input = inputName.equals(STANDARD_STREAM)
+				? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+				: Files.newBufferedReader(Path.of(inputName), StandardCharsets.UTF_8);
+			Writer output = outputName.equals(STANDARD_STREAM)
+				? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+				: Files.newBufferedWriter(Path.of(outputName), StandardCharsets.UTF_8))
+		{
+			long startTime = System.nanoTime();
+			long lines = processor.process(input, output);
+			double seconds = (System.nanoTime() - startTime) / 1e9;
+			int workers = processor.getWorkers();
+			System.err.printf("Answered %,d lines with %s in %.2f s on %d %s: %,.0f lines/s.%n",
+					lines, chatBot.getName(), seconds, workers, workers == 1 ? "thread" : "threads", lines / seconds);
+			
+			if(savePath != null)
+			{
+				ChatBotSnapshot.write(chatBot, savePath);
+			}
+			return 0;
+		}
+		catch (IOException e)
+		{
+			System.err.println("Batch failed. Reason: " + e.getMessage());
+			return 2;
+		}
+	}
+	
+	/**
+	 * Creates the available chat bot with the specified name, or loads the chat bot saved in the specified snapshot file.
+	 * @param nameOrPath the simple class name of an available chat bot, or a snapshot file
+	 * @return the chat bot, or <code>null</code> if there is no such chat bot
+	 */
+	private static ChatBot createChatBot(String nameOrPath)
+	{
+		try
+		{
+			Class<? extends ChatBot> clazz = ChatBots.find(nameOrPath);
+			if(clazz != null)
+			{
+				return ChatBots.create(clazz);
+			}
+			
+			Path path = Path.of(nameOrPath);
+			return Files.isRegularFile(path) ? ChatBotSnapshot.read(path) : null;
+		}
+		catch (ReflectiveOperationException | IOException e)
+		{
+			System.err.println("Failed to create chat bot. Reason: " + e.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * Reports invalid arguments along with the usage.
+	 * @param reason what is wrong with the arguments
+	 * @return the exit status for invalid arguments
+	 */
+	private static int usage(String reason)
+	{
+		System.err.println(reason);
+		System.err.println("Usage: --batch <bot> <input> [output] [--threads n] [--save snapshot]");
+		return 1;
+	}
+}
\ No newline at end of file
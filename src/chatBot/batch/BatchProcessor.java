@@ -0,0 +1,174 @@
+package chatBot.batch;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import chatBot.bots.ChatBot;
+
+/**
+ * The <code>BatchProcessor</code> class runs a stream of messages, one per line, through a chat bot and writes its replies, one per line and in the same order.
+ * 
+ * <p>
+ * Lines are read in chunks of {@link #DEFAULT_CHUNK_SIZE}, and each chunk is answered with a single {@link ChatBot#getReplies(List)} call on a pool of worker threads,
+ * while the next chunks are read and the previous ones are written. Only a few chunks per worker are held at once, so a file of any size streams through
+ * in a bounded amount of memory. Chunks are answered in parallel only if the chat bot {@link ChatBot#isThreadSafe() is thread-safe}, otherwise by one worker in turn.
+ * </p>
+ * 
+ * <p>
+ * A reply that spans several lines is written on one line, with its line breaks replaced by spaces, so that the <i>n</i>th line of the output answers the <i>n</i>th line of the input.
+ * </p>
+ * 
+ * @see {@link BatchCli}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class BatchProcessor
+{
+	/** The number of lines answered by one call to the chat bot by default. */
+	public static final int DEFAULT_CHUNK_SIZE = 256;
+	
+	/** The number of chunks per worker that are being answered or waiting to be written at once. */
+	public static final int CHUNKS_PER_WORKER = 4;
+	
+	/** The chat bot that answers the messages. */
+	private final ChatBot chatBot;
+	
+	/** The number of worker threads. */
+	private final int workers;
+	
+	/** The number of lines answered by one call to the chat bot. */
+	private final int chunkSize;
+	
+	/**
+	 * Initialize a batch processor.
+	 * @param chatBot the chat bot that answers the messages
+	 * @param threads the number of worker threads, reduced to one if the chat bot is not thread-safe
+	 * @param chunkSize the number of lines answered by one call to the chat bot
+	 */
+	public BatchProcessor(ChatBot chatBot, int threads, int chunkSize)
+	{
+		// Validity checks
+		Objects.requireNonNull(chatBot, "Parameter 'chatBot' cannot be null.");
+		if(threads < 1 || chunkSize < 1)
+		{
+			throw new IllegalArgumentException("Parameters 'threads' and 'chunkSize' must be at least 1.");
+		}
+		
+		this.chatBot = chatBot;
+		this.workers = chatBot.isThreadSafe() ? threads : 1;
+		this.chunkSize = chunkSize;
+	}
+	
+	/**
+	 * Returns the number of worker threads that answer chunks at once.
+	 * @return the number of workers
+	 */
+	public int getWorkers()
+	{
+		return workers;
+	}
+	
+	/**
+	 * Answers every line of the input, writing the replies to the output in the same order.
+	 * The output is flushed, but neither stream is closed.
+	 * @param input the messages, one per line
+	 * @param output where the replies are written, one per line
+	 * @return the number of lines answered
+	 * @throws IOException if reading or writing fails, or if the chat bot fails to answer a chunk
+	 */
+	public long process(BufferedReader input, Writer output) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(input, "Parameter 'input' cannot be null.");
+		Objects.requireNonNull(output, "Parameter 'output' cannot be null.");
+		
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try
+		{
+			// The chunks being answered, oldest first, which is the order they are written in
+			Queue<CompletableFuture<List<String>>> pending = new ArrayDeque<>();
+			long lineCount = 0;
+			
+			List<String> chunk = readChunk(input);
+			while(!chunk.isEmpty())
+			{
+				// Hold at most a few chunks per worker, writing the oldest before reading more
+				if(pending.size() >= workers * CHUNKS_PER_WORKER)
+				{
+					lineCount += write(pending.poll(), output);
+				}
+				
+				List<String> messages = chunk;
+				pending.add(CompletableFuture.supplyAsync(() -> chatBot.getReplies(messages), executor));
+				chunk = readChunk(input);
+			}
+			
+			// Write the remaining chunks
+			while(!pending.isEmpty())
+			{
+				lineCount += write(pending.poll(), output);
+			}
+			output.flush();
+			return lineCount;
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Reads up to {@link #chunkSize} lines.
+	 * @param input the messages, one per line
+	 * @return the lines read, which is empty at the end of the input
+	 */
+	private List<String> readChunk(BufferedReader input) throws IOException
+	{
+		List<String> chunk = new ArrayList<>(chunkSize);
+		String line;
+		while(chunk.size() < chunkSize && (line = input.readLine()) != null)
+		{
+			chunk.add(line);
+		}
+		return chunk;
+	}
+	
+	/**
+	 * Waits for a chunk to be answered, then writes its replies.
+	 * @param replies the chunk's pending replies
+	 * @param output where the replies are written, one per line
+	 * @return the number of replies written
+	 */
+	private int write(CompletableFuture<List<String>> replies, Writer output) throws IOException
+	{
+		List<String> lines;
+		try
+		{
+			lines = replies.join();
+		}
+		catch (CompletionException e)
+		{
+			throw new IOException("The chat bot failed to answer: " + e.getCause().getMessage(), e.getCause());
+		}
+		
+		for(String line : lines)
+		{
+			// Keep one reply per line
+			if(line.indexOf('\n') >= 0 || line.indexOf('\r') >= 0)
+			{
+				line = line.replace('\n', ' ').replace('\r', ' ');
+			}
+			output.write(line);
+			output.write('\n');
+		}
+		return lines.size();
+	}
+}
\ No newline at end of file
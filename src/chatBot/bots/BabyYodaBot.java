@@ -1,14 +1,36 @@
 package chatBot.bots;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpClient.Version;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
+import chatBot.cache.CacheStatistics;
+import chatBot.cache.TranslationCache;
+import chatBot.json.JsonFieldExtractor;
+import chatBot.persistence.SnapshotReader;
+import chatBot.persistence.SnapshotWriter;
+import chatBot.yodish.YodishEngine;
 
 /**
  * The <code>BabyYodaBot</code> class is an implementation of the {@link ChatBot} interface.
@@ -19,7 +41,24 @@ import org.json.simple.parser.JSONParser;
  * Credits to github user, <b>richchurcher</b>, for providing the Yoda API.
  * </p>
  * 
+ * <p>
+ * Previous translations are kept in a {@link TranslationCache}, shared by every baby yoda bot and backed by a file in the user's home directory,
+ * so repeated messages are answered without asking the Yoda API again, even after a restart.
+ * </p>
+ * 
+ * <p>
+ * Requests are sent without blocking, and bounded by connect and request timeouts. Concurrent requests for the same message
+ * share a single request (single-flight), and at most a fixed number of requests are in flight at once, the rest wait in a queue.
+ * </p>
+ * 
+ * <p>
+ * Depending on its {@link YodishMode}, the bot can also translate locally with the {@link YodishEngine}, either when the Yoda API
+ * cannot be reached or instead of it altogether.
+ * </p>
+ * 
  * @see {@link ChatBot}
+ * @see {@link TranslationCache}
+ * @see {@link YodishMode}
  * @author Mohammad Alali (Sanavesa)
  */
 public class BabyYodaBot implements ChatBot
@@ -27,17 +66,193 @@ public class BabyYodaBot implements ChatBot
 	/** An auto-generated serial UID. */
 	private static final long serialVersionUID = -3065724357709971088L;
 	
+	/** The address of the Yoda API. */
+	public static final URI DEFAULT_ENDPOINT = URI.create("http://yoda-api.appspot.com/api/v1/yodish");
+	
+	/** The default time to wait for a connection to the Yoda API. */
+	public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+	
+	/** The default time to wait for the Yoda API to answer a request. */
+	public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+	
+	/** The default maximum number of requests to the Yoda API in flight at once. */
+	public static final int DEFAULT_MAX_IN_FLIGHT = 8;
+	
+	/** The default way of translating messages. */
+	public static final YodishMode DEFAULT_MODE = YodishMode.RemoteWithFallback;
+	
+	/** The reply when the Yoda API cannot be reached. */
+	private static final String SLEEPING_REPLY = "Baby yoda is sleeping. ZzzZzzZzz...";
+	
+	/** Extracts the translation from the Yoda API's JSON response. */
+	private static final JsonFieldExtractor YODISH_FIELD = new JsonFieldExtractor("yodish");
+	
+	/** The file of the translation cache shared by every baby yoda bot. */
+	public static final Path SHARED_CACHE_PATH = Path.of(System.getProperty("user.home"), ".parrotai", "yoda-cache.bin");
+	
+	/** The translation cache shared by every baby yoda bot, created when first needed. */
+	private static TranslationCache sharedCache;
+	
 	/** An HTTP client used to ping the Yodafy API. */
-	private final HttpClient client;
+	private final transient HttpClient client;
+	
+	/** The cache of previous translations. */
+	private final transient TranslationCache cache;
+	
+	/** The address of the Yoda API. */
+	private final URI endpoint;
+	
+	/** The time to wait for the Yoda API to answer a request. */
+	private final Duration requestTimeout;
+	
+	/** The maximum number of requests in flight at once. */
+	private final int maxInFlight;
+	
+	/** The way of translating messages. */
+	private YodishMode mode;
+	
+	/** The pending translation of each message being translated, shared by every caller asking for the same message. */
+	private final transient ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+	
+	/** The requests waiting for one of the {@link #maxInFlight} slots. Guarded by itself. */
+	private final transient Queue<Runnable> waitingRequests = new ArrayDeque<>();
+	
+	/** The number of requests in flight. Guarded by {@link #waitingRequests}. */
+	private transient int inFlightCount = 0;
+	
+	/** Whether or not a thread is starting the {@link #waitingRequests}, so that no other thread, nor a request finishing on that thread, starts them too. Guarded by {@link #waitingRequests}. */
+	private transient boolean isStartingRequests = false;
 	
-	/** Initialize the baby yoda bot. */
+	/** The number of requests to the Yoda API that failed. */
+	private final transient AtomicLong failedRequestCount = new AtomicLong();
+	
+	/** The number of failed requests answered with a local translation instead. */
+	private final transient AtomicLong fallbackCount = new AtomicLong();
+	
+	/** Initialize the baby yoda bot with the shared translation cache, the default timeouts and the default mode. */
 	public BabyYodaBot()
 	{
+		this(DEFAULT_MODE);
+	}
+	
+	/**
+	 * Initialize the baby yoda bot with the shared translation cache, the default timeouts and the specified mode.
+	 * @param mode the way of translating messages
+	 */
+	public BabyYodaBot(YodishMode mode)
+	{
+		this(getSharedCache(), DEFAULT_ENDPOINT, DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, DEFAULT_MAX_IN_FLIGHT, mode);
+	}
+	
+	/**
+	 * Initialize the baby yoda bot with the specified translation cache, the default timeouts and the default mode.
+	 * @param cache the cache of previous translations
+	 */
+	public BabyYodaBot(TranslationCache cache)
+	{
+		this(cache, DEFAULT_ENDPOINT, DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, DEFAULT_MAX_IN_FLIGHT, DEFAULT_MODE);
+	}
+	
+	/**
+	 * Initialize the baby yoda bot.
+	 * @param cache the cache of previous translations
+	 * @param endpoint the address of the Yoda API
+	 * @param connectTimeout the time to wait for a connection to the Yoda API
+	 * @param requestTimeout the time to wait for the Yoda API to answer a request
+	 * @param maxInFlight the maximum number of requests in flight at once
+	 * @param mode the way of translating messages
+	 */
+	public BabyYodaBot(TranslationCache cache, URI endpoint, Duration connectTimeout, Duration requestTimeout, int maxInFlight, YodishMode mode)
+	{
+		// Validity checks
+		Objects.requireNonNull(cache, "Parameter 'cache' cannot be null.");
+		Objects.requireNonNull(endpoint, "Parameter 'endpoint' cannot be null.");
+		Objects.requireNonNull(connectTimeout, "Parameter 'connectTimeout' cannot be null.");
+		Objects.requireNonNull(requestTimeout, "Parameter 'requestTimeout' cannot be null.");
+		Objects.requireNonNull(mode, "Parameter 'mode' cannot be null.");
+		if(maxInFlight <= 0)
+		{
+			throw new IllegalArgumentException("Parameter 'maxInFlight' must be positive.");
+		}
+		
+		this.cache = cache;
+		this.endpoint = endpoint;
+		this.requestTimeout = requestTimeout;
+		this.maxInFlight = maxInFlight;
+		this.mode = mode;
 		client = HttpClient.newBuilder()
 				.version(Version.HTTP_2)
+				.connectTimeout(connectTimeout)
 				.build();
 	}
 	
+	/**
+	 * Returns the translation cache shared by every baby yoda bot, creating it on first use.
+	 * If its file cannot be opened, the error is reported and the cache is kept in memory only.
+	 * @return the shared translation cache
+	 */
+	private static synchronized TranslationCache getSharedCache()
+	{
+		if(sharedCache == null)
+		{
+			try
+			{
+				sharedCache = new TranslationCache(TranslationCache.DEFAULT_MEMORY_CAPACITY, TranslationCache.DEFAULT_MEMORY_TIME_TO_LIVE_MILLIS,
+						SHARED_CACHE_PATH, TranslationCache.DEFAULT_DISK_CAPACITY_BYTES, TranslationCache.DEFAULT_DISK_TIME_TO_LIVE_MILLIS);
+			}
+			catch (IOException e)
+			{
+				System.err.println("Failed to open the translation cache at " + SHARED_CACHE_PATH + ", keeping it in memory only: " + e.getMessage());
+				sharedCache = new TranslationCache(TranslationCache.DEFAULT_MEMORY_CAPACITY, TranslationCache.DEFAULT_MEMORY_TIME_TO_LIVE_MILLIS);
+			}
+		}
+		return sharedCache;
+	}
+	
+	/**
+	 * Writes the replies still waiting to be written to the shared translation cache's file, then closes it.
+	 * Called when the application or the chat server exits, since its writer is a daemon thread that would otherwise be cut short.
+	 * Does nothing if no baby yoda bot used the shared cache.
+	 */
+	public static synchronized void closeSharedCache()
+	{
+		if(sharedCache == null)
+		{
+			return;
+		}
+		
+		try
+		{
+			sharedCache.close();
+		}
+		catch (IOException e)
+		{
+			System.err.println("Failed to close the translation cache at " + SHARED_CACHE_PATH + ". Reason: " + e.getMessage());
+		}
+		sharedCache = null;
+	}
+	
+	/**
+	 * Returns the way the bot translates messages.
+	 * @return the bot's mode
+	 */
+	public YodishMode getMode()
+	{
+		return mode;
+	}
+	
+	/**
+	 * Changes the way the bot translates messages.
+	 * @param mode the new mode
+	 */
+	public void setMode(YodishMode mode)
+	{
+		// Validity checks
+		Objects.requireNonNull(mode, "Parameter 'mode' cannot be null.");
+		
+		this.mode = mode;
+	}
+	
 	@Override
 	public String getName()
 	{
@@ -51,39 +266,374 @@ public class BabyYodaBot implements ChatBot
 	}
 	
 	/**
-	 * Responds to a message that the user sent by using a Yodafy API through HTTP-GET requests.
+	 * Responds to a message that the user sent by using a Yodafy API through HTTP-GET requests, waiting for the reply.
 	 * 
 	 * @param input the message that the user sent
 	 * @return the bot's response to the user
+	 * @see #getReplyAsync(String, Executor)
 	 */
 	@Override
 	public String getReply(String input)
+	{
+		try
+		{
+			return reply(input).get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return SLEEPING_REPLY;
+		}
+		catch (ExecutionException e)
+		{
+			// Failed requests are answered in the future already, so this is only a safety net
+			return SLEEPING_REPLY;
+		}
+	}
+	
+	/**
+	 * Responds to a message that the user sent by using a Yodafy API through HTTP-GET requests, without blocking any thread while waiting.
+	 * 
+	 * <p>
+	 * Messages that were translated before are answered from the translation cache instead.
+	 * If the Yoda API cannot be reached, times out, or answers with an error, the reason is reported and, depending on the bot's
+	 * {@link YodishMode}, the message is translated locally or baby yoda is sleeping. In {@link YodishMode#Offline} mode,
+	 * the message is always translated locally.
+	 * </p>
+	 * 
+	 * <p>
+	 * The cache lookup, which may read its file, and the local translation run on the given executor, so the calling thread never blocks.
+	 * Only the wait on the Yoda API needs no thread at all.
+	 * </p>
+	 * 
+	 * @param input the message that the user sent
+	 * @param executor the executor to look up the cache and translate locally on
+	 * @return a future that completes with the bot's response to the user
+	 */
+	@Override
+	public CompletableFuture<String> getReplyAsync(String input, Executor executor)
 	{
 		// Validity checks
 		Objects.requireNonNull(input, "Parameter 'input' cannot be null.");
+		Objects.requireNonNull(executor, "Parameter 'executor' cannot be null.");
 		
-		// Try to ping the Yoda API using HTTP
-		try
+		return CompletableFuture.supplyAsync(() -> reply(input), executor).thenCompose(Function.identity());
+	}
+	
+	/**
+	 * Responds to a message on the calling thread, up to sending its request to the Yoda API if it is not cached.
+	 * @param input the message that the user sent
+	 * @return a future that completes with the bot's response to the user
+	 */
+	private CompletableFuture<String> reply(String input)
+	{
+		// Validity checks
+		Objects.requireNonNull(input, "Parameter 'input' cannot be null.");
+		
+		// Translate locally, which is cheaper than looking up the cache
+		if(mode == YodishMode.Offline)
 		{
-			// Create a HTTP request
-			HttpRequest request = HttpRequest.newBuilder()
-					.GET()
-					.uri(URI.create("http://yoda-api.appspot.com/api/v1/yodish?text=" + URLEncoder.encode(input, "UTF-8")))
-					.build();
-			
-			// Try to ping the server for a response
-			HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-			
-			// Parse the response which is in JSON format
-			JSONObject obj = (JSONObject) new JSONParser().parse(response.body());
+			return CompletableFuture.completedFuture(YodishEngine.translate(input));
+		}
+		
+		// Reply from the cache if this message was translated before
+		String key = TranslationCache.normalize(input);
+		String cached = cache.get(key);
+		if(cached != null)
+		{
+			return CompletableFuture.completedFuture(cached);
+		}
+		
+		// Join the request already in flight for the same message, if any, through a copy so that no caller can complete or cancel it for the others
+		CompletableFuture<String> translation = new CompletableFuture<>();
+		CompletableFuture<String> existing = inFlight.putIfAbsent(key, translation);
+		if(existing != null)
+		{
+			return existing.copy();
+		}
+		
+		submit(() ->
+		{
+			CompletableFuture<String> request;
+			try
+			{
+				request = translate(key);
+			}
+			catch (RuntimeException e)
+			{
+				request = CompletableFuture.completedFuture(onRequestFailed(key, e));
+			}
 			
-			// Reply with the yodafied message
-			return (String) obj.get("yodish");
+			request.whenComplete((yodish, error) ->
+			{
+				// Leave the single-flight map before completing, so later callers start over (and will most likely hit the cache)
+				inFlight.remove(key, translation);
+				
+				if(error != null)
+				{
+					translation.completeExceptionally(error);
+				}
+				else
+				{
+					translation.complete(yodish);
+				}
+				
+				// Only then hand the slot over, so that the callers are answered before the next request starts
+				onRequestDone();
+			});
+		});
+		return translation.copy();
+	}
+	
+	/**
+	 * Responds to many messages by sending all of their requests to the Yoda API at once, then waiting for every reply.
+	 * At most a fixed number of requests are in flight at once, and messages that repeat share a single request.
+	 * 
+	 * @param inputs the messages that the user sent
+	 * @return the bot's responses, one per message and in the same order
+	 */
+	@Override
+	public List<String> getReplies(List<String> inputs)
+	{
+		// Validity checks
+		Objects.requireNonNull(inputs, "Parameter 'inputs' cannot be null.");
+		
+		// Pipeline every request, rather than waiting on each reply before sending the next request
+		List<CompletableFuture<String>> pending = new ArrayList<>(inputs.size());
+		for(String input : inputs)
+		{
+			pending.add(reply(input));
+		}
+		
+		List<String> replies = new ArrayList<>(inputs.size());
+		for(CompletableFuture<String> reply : pending)
+		{
+			replies.add(reply.join());
+		}
+		return replies;
+	}
+	
+	/**
+	 * Returns true, since requests are sent without blocking and shared safely between callers.
+	 * @return true
+	 */
+	@Override
+	public boolean isThreadSafe()
+	{
+		return true;
+	}
+	
+	/**
+	 * Returns how the Yoda API and the translation cache are doing:
+	 * <ul>
+	 * <li><code>inFlightRequests</code> and <code>waitingRequests</code> - the requests being sent, and those waiting for a slot</li>
+	 * <li><code>failedRequests</code> and <code>fallbackReplies</code> - the requests that failed, and those answered locally instead</li>
+	 * <li><code>cacheMemoryHits</code>, <code>cacheDiskHits</code> and <code>cacheMisses</code> - how often the translation cache was of help</li>
+	 * </ul>
+	 * @return the gauges by name
+	 */
+	@Override
+	public Map<String, Long> getGauges()
+	{
+		Map<String, Long> gauges = new LinkedHashMap<>();
+		synchronized(waitingRequests)
+		{
+			gauges.put("inFlightRequests", (long) inFlightCount);
+			gauges.put("waitingRequests", (long) waitingRequests.size());
+		}
+		gauges.put("failedRequests", failedRequestCount.get());
+		gauges.put("fallbackReplies", fallbackCount.get());
+		
+		CacheStatistics cacheStatistics = cache.getStatistics();
+		gauges.put("cacheMemoryHits", cacheStatistics.getMemoryHitCount());
+		gauges.put("cacheDiskHits", cacheStatistics.getDiskHitCount());
+		gauges.put("cacheMisses", cacheStatistics.getMissCount());
+		return gauges;
+	}
+	
+	/**
+	 * Sends a request to the Yoda API for the given message, and caches the translation.
+	 * @param key the normalized message
+	 * @return a future that completes with the translation, or the sleeping reply if the Yoda API failed
+	 */
+	private CompletableFuture<String> translate(String key)
+	{
+		// Create a HTTP request
+		HttpRequest request = HttpRequest.newBuilder(URI.create(endpoint + "?text=" + URLEncoder.encode(key, StandardCharsets.UTF_8)))
+				.timeout(requestTimeout)
+				.GET()
+				.build();
+		
+		// Ping the server for a response, then pull the translation out of the response's JSON bytes
+		return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+				.thenApply(response ->
+				{
+					if(response.statusCode() != 200)
+					{
+						throw new CompletionException(new IOException("Yoda API answered with status " + response.statusCode() + "."));
+					}
+					
+					String yodish;
+					try
+					{
+						yodish = YODISH_FIELD.extract(response.body())[0];
+					}
+					catch (IOException e)
+					{
+						throw new CompletionException(new IOException("Yoda API answered with malformed JSON.", e));
+					}
+					if(yodish == null)
+					{
+						throw new CompletionException(new IOException("Yoda API answered without a translation."));
+					}
+					
+					// Remember the yodafied message
+					cache.put(key, yodish);
+					return yodish;
+				})
+				.exceptionally(error -> onRequestFailed(key, error));
+	}
+	
+	/**
+	 * Reports why a request to the Yoda API failed. Whatever the failure, the message is still answered, as it always was.
+	 * @param key the normalized message
+	 * @param error the failure
+	 * @return the local translation if the bot falls back to it, otherwise the reply that baby yoda is sleeping lol
+	 */
+	private String onRequestFailed(String key, Throwable error)
+	{
+		Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+		if(cause instanceof HttpTimeoutException)
+		{
+			System.err.println("Yoda API timed out: " + cause.getMessage());
+		}
+		else if(cause instanceof IOException)
+		{
+			System.err.println("Yoda API request failed: " + cause.getMessage());
+		}
+		else
+		{
+			System.err.println("Yoda API request failed unexpectedly: " + cause);
+		}
+		
+		failedRequestCount.incrementAndGet();
+		
+		// The local translation is not cached, since the Yoda API may translate it better once it is back
+		if(mode == YodishMode.RemoteWithFallback)
+		{
+			try
+			{
+				String yodish = YodishEngine.translate(key);
+				fallbackCount.incrementAndGet();
+				return yodish;
+			}
+			catch (RuntimeException e)
+			{
+				System.err.println("Failed to translate locally: " + e);
+			}
+		}
+		return SLEEPING_REPLY;
+	}
+	
+	/**
+	 * Writes the bot's mode.
+	 * @param writer the snapshot writer
+	 */
+	@Override
+	public void writeSnapshot(SnapshotWriter writer) throws IOException
+	{
+		writer.writeString(mode.name());
+	}
+	
+	/**
+	 * Reads back the bot's mode.
+	 * @param reader the snapshot reader
+	 */
+	@Override
+	public void readSnapshot(SnapshotReader reader) throws IOException
+	{
+		try
+		{
+			mode = YodishMode.valueOf(reader.readString());
 		}
-		// If any error occurs, reply that yoda is sleeping lol
-		catch(Exception e)
+		catch (IllegalArgumentException e)
 		{
-			return "Baby yoda is sleeping. ZzzZzzZzz...";
+			throw new IOException("Unknown baby yoda mode.", e);
+		}
+	}
+	
+	/**
+	 * Queues the given request, and starts it right away if fewer than {@link #maxInFlight} requests are in flight.
+	 * @param request the request to start
+	 */
+	private void submit(Runnable request)
+	{
+		synchronized(waitingRequests)
+		{
+			waitingRequests.add(request);
+		}
+		startWaitingRequests();
+	}
+	
+	/**
+	 * Frees the slot of a finished request, and hands it to the next queued request, if any.
+	 */
+	private void onRequestDone()
+	{
+		synchronized(waitingRequests)
+		{
+			inFlightCount--;
+		}
+		startWaitingRequests();
+	}
+	
+	/**
+	 * Starts queued requests, in order, while fewer than {@link #maxInFlight} requests are in flight.
+	 * 
+	 * <p>
+	 * A request that fails right away finishes while it is being started, and frees its slot on the same thread.
+	 * The requests are therefore started in a loop by one thread at a time, rather than each finishing request starting the next one,
+	 * so that a long queue of requests failing right away, such as when the Yoda API is unreachable, never grows the stack.
+	 * </p>
+	 */
+	private void startWaitingRequests()
+	{
+		synchronized(waitingRequests)
+		{
+			if(isStartingRequests)
+			{
+				return;
+			}
+			isStartingRequests = true;
+		}
+		
+		while(true)
+		{
+			Runnable next;
+			synchronized(waitingRequests)
+			{
+				if(inFlightCount >= maxInFlight || waitingRequests.isEmpty())
+				{
+					isStartingRequests = false;
+					return;
+				}
+				next = waitingRequests.poll();
+				inFlightCount++;
+			}
+			
+			try
+			{
+				next.run();
+			}
+			catch (RuntimeException | Error e)
+			{
+				// Requests report their own failures, but if one could not even start, let a later request start the rest of the queue
+				synchronized(waitingRequests)
+				{
+					isStartingRequests = false;
+				}
+				throw e;
+			}
 		}
 	}
 }
\ No newline at end of file
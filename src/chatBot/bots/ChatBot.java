@@ -1,10 +1,18 @@
 package chatBot.bots;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import chatBot.persistence.ChatBotSnapshot;
+import chatBot.persistence.SnapshotReader;
+import chatBot.persistence.SnapshotWriter;
 
 /**
  * The <code>ChatBot</code> interface defines the necessary functionality that all chat bots require to implement.
@@ -16,6 +24,11 @@ import java.io.Serializable;
  * <li>{@link #getName()} - returns the file path of the chat bot's image, also to add a touch of personality</li>
  * <li>{@link #getReply(String)} - responds to a message that the user sent</li>
  * </ul>
+ * A non-blocking variant, {@link #getReplyAsync(String, Executor)}, adapts {@link #getReply(String)} by default
+ * and can be overridden by chat bots that rely on slow or remote services.
+ * Likewise, {@link #getReplies(List)} responds to many messages at once, such as a whole file of them, by looping over {@link #getReply(String)}.
+ * Chat bots that can be called from many threads at once say so with {@link #isThreadSafe()},
+ * and chat bots report their own measurements, such as the size of their memory, with {@link #getGauges()}.
  * </p>
  * 
  * <p>
@@ -24,6 +37,8 @@ import java.io.Serializable;
  * <li>{@link #save(ChatBot, String)} - saves the chat bot to the specified <code>path</code></li>
  * <li>{@link #load(String)} - loads a chat bot from the specified <code>path</code></li>
  * </ul>
+ * Chat bots are saved as a {@link ChatBotSnapshot}, and chat bots that learn should override
+ * {@link #writeSnapshot(SnapshotWriter)} and {@link #readSnapshot(SnapshotReader)} to keep what they learned.
  * </p>
  * 
  * @author Mohammad Alali (Sanavesa)
@@ -50,6 +65,102 @@ public interface ChatBot extends Serializable
 	 */
 	String getReply(String input);
 	
+	/**
+	 * Responds to a message that the user sent without blocking the calling thread.
+	 * 
+	 * <p>
+	 * The default implementation runs {@link #getReply(String)} on the given <code>executor</code>.
+	 * Chat bots that wait on slow or remote services should override this to avoid tying up a thread while waiting.
+	 * </p>
+	 * 
+	 * @param input the message that the user sent
+	 * @param executor the executor used to compute the reply
+	 * @return a future that completes with the chat bot's response to the user
+	 */
+	default CompletableFuture<String> getReplyAsync(String input, Executor executor)
+	{
+		// Validity checks
+		Objects.requireNonNull(input, "Parameter 'input' cannot be null.");
+		Objects.requireNonNull(executor, "Parameter 'executor' cannot be null.");
+		
+		return CompletableFuture.supplyAsync(() -> getReply(input), executor);
+	}
+	
+	/**
+	 * Responds to a message that the user sent without blocking the calling thread, using the common fork-join pool.
+	 * Callers that expect a blocking chat bot should prefer {@link #getReplyAsync(String, Executor)} with a dedicated executor.
+	 * 
+	 * @param input the message that the user sent
+	 * @return a future that completes with the chat bot's response to the user
+	 */
+	default CompletableFuture<String> getReplyAsync(String input)
+	{
+		return getReplyAsync(input, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Responds to many messages, in order, as if the user sent them one after another.
+	 * 
+	 * <p>
+	 * The default implementation calls {@link #getReply(String)} for each message in turn.
+	 * Chat bots that can overlap their work, such as waiting on many requests to a remote service at once, should override this.
+	 * </p>
+	 * 
+	 * @param inputs the messages that the user sent
+	 * @return the chat bot's responses, one per message and in the same order
+	 */
+	default List<String> getReplies(List<String> inputs)
+	{
+		// Validity checks
+		Objects.requireNonNull(inputs, "Parameter 'inputs' cannot be null.");
+		
+		List<String> replies = new ArrayList<>(inputs.size());
+		for(String input : inputs)
+		{
+			replies.add(getReply(input));
+		}
+		return replies;
+	}
+	
+	/**
+	 * Returns whether or not the chat bot can reply to messages from many threads at once.
+	 * The default implementation returns false, so that callers take turns on chat bots that do not say otherwise.
+	 * @return true if the chat bot is thread-safe, false otherwise
+	 */
+	default boolean isThreadSafe()
+	{
+		return false;
+	}
+	
+	/**
+	 * Returns the chat bot's own measurements, such as the size of its memory or how often a remote service failed,
+	 * to show alongside its reply latencies. Gauges may be read from another thread while the chat bot replies, so a slightly stale
+	 * value is fine, but reading them must never fail.
+	 * The default implementation returns no gauges.
+	 * @return the gauges by name
+	 */
+	default Map<String, Long> getGauges()
+	{
+		return Map.of();
+	}
+	
+	/**
+	 * Writes the chat bot's learned state to a snapshot. The default implementation writes nothing, for chat bots without any state.
+	 * @param writer the snapshot writer
+	 */
+	default void writeSnapshot(SnapshotWriter writer) throws IOException
+	{
+	}
+	
+	/**
+	 * Reads back the learned state written by {@link #writeSnapshot(SnapshotWriter)} into a freshly constructed chat bot.
+	 * The default implementation reads nothing, for chat bots without any state.
+	 * @param reader the snapshot reader
+	 */
+	default void readSnapshot(SnapshotReader reader) throws IOException
+	{
+	}
+	
 	/**
 	 * Saves the chat bot to the specified <code>path</code>.
 	 * @param path the file path to save to
@@ -57,10 +168,9 @@ public interface ChatBot extends Serializable
 	 */
 	static boolean save(ChatBot chatBot, String path)
 	{
-		try(FileOutputStream fos = new FileOutputStream(new File(path));
-			ObjectOutputStream oos = new ObjectOutputStream(fos))
+		try
 		{
-			oos.writeObject(chatBot);
+			ChatBotSnapshot.write(chatBot, Path.of(path));
 			System.out.println("Successfuly saved " + chatBot.getName() + ".");
 			return true;
 		}
@@ -78,10 +188,9 @@ public interface ChatBot extends Serializable
 	 */
 	static ChatBot load(String path)
 	{
-		try(FileInputStream fis = new FileInputStream(new File(path));
-			ObjectInputStream ois = new ObjectInputStream(fis))
+		try
 		{
-			ChatBot chatBot = (ChatBot) ois.readObject();
+			ChatBot chatBot = ChatBotSnapshot.read(Path.of(path));
 			System.out.println("Successfully loaded " + chatBot.getName() + ".");
 			return chatBot;
 		}
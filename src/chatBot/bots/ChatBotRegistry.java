@@ -0,0 +1,113 @@
+package chatBot.bots;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The <code>ChatBotRegistry</code> class hands out one chat bot of each available kind, creating it the first time it is asked for
+ * and keeping it warm afterwards, so that switching back to a chat bot resumes it as it was left, such as a parrot with everything it learned.
+ * 
+ * <p>
+ * Only the most recently used chat bots are kept, up to a fixed number, after which the least recently used one is forgotten
+ * and created anew when asked for again. Switching to a warm chat bot is a single lookup, with no reflection.
+ * </p>
+ * 
+ * <p>
+ * Unlike the chat server, which gives every user a new chat bot through {@link ChatBots#create(Class)},
+ * the registry is meant for a single user switching between chat bots, such as in the JavaFX application.
+ * </p>
+ * 
+ * @see {@link ChatBots}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class ChatBotRegistry
+{
+	/** The default number of chat bots kept warm, enough for every built-in chat bot. */
+	public static final int DEFAULT_WARM_CAPACITY = 4;
+	
+	/** The warm chat bots by class, from the least to the most recently used. */
+	private final LinkedHashMap<Class<? extends ChatBot>, ChatBot> warmChatBots;
+	
+	/** Initialize a registry keeping {@link #DEFAULT_WARM_CAPACITY} chat bots warm. */
+	public ChatBotRegistry()
+	{
+		this(DEFAULT_WARM_CAPACITY);
+	}
+	
+	/**
+	 * Initialize a registry keeping up to the specified number of chat bots warm.
+	 * @param warmCapacity the maximum number of chat bots kept warm
+	 */
+	public ChatBotRegistry(int warmCapacity)
+	{
+		// Validity checks
+		if(warmCapacity <= 0)
+		{
+			throw new IllegalArgumentException("Parameter 'warmCapacity' must be positive.");
+		}
+		
+		warmChatBots = new LinkedHashMap<>(warmCapacity * 2, 0.75f, true)
+		{
+			/** An auto-generated serial UID. */
+			private static final long serialVersionUID = 5482210650932675437L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Class<? extends ChatBot>, ChatBot> eldest)
+			{
+				return size() > warmCapacity;
+			}
+		};
+	}
+	
+	/**
+	 * Returns the available chat bots, in the order that {@link ChatBots} lists them.
+	 * @return the chat bot classes
+	 */
+	public List<Class<? extends ChatBot>> getAvailable()
+	{
+		return ChatBots.AVAILABLE_CHATBOTS;
+	}
+	
+	/**
+	 * Returns the warm chat bot of the specified class, or creates one and keeps it warm if there is none.
+	 * @param clazz the chat bot class
+	 * @return the chat bot
+	 * @throws ReflectiveOperationException if the chat bot had to be created and could not be
+	 */
+	public synchronized ChatBot get(Class<? extends ChatBot> clazz) throws ReflectiveOperationException
+	{
+		// Validity checks
+		Objects.requireNonNull(clazz, "Parameter 'clazz' cannot be null.");
+		
+		ChatBot chatBot = warmChatBots.get(clazz);
+		if(chatBot == null)
+		{
+			chatBot = ChatBots.create(clazz);
+			warmChatBots.put(clazz, chatBot);
+		}
+		return chatBot;
+	}
+	
+	/**
+	 * Keeps the specified chat bot warm in place of any other of its class, such as one that the user loaded from a file.
+	 * @param chatBot the chat bot
+	 */
+	public synchronized void put(ChatBot chatBot)
+	{
+		// Validity checks
+		Objects.requireNonNull(chatBot, "Parameter 'chatBot' cannot be null.");
+		
+		warmChatBots.put(chatBot.getClass(), chatBot);
+	}
+	
+	/**
+	 * Returns whether or not a chat bot of the specified class is warm, so that {@link #get(Class)} would not create one.
+	 * @param clazz the chat bot class
+	 * @return true if a chat bot of that class is warm, false otherwise
+	 */
+	public synchronized boolean isWarm(Class<? extends ChatBot> clazz)
+	{
+		return warmChatBots.containsKey(clazz);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,137 @@
+package chatBot.bots;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * The <code>ChatBots</code> class lists the chat bots that users can talk to, and creates them by name.
+ * 
+ * <p>
+ * It is shared by the JavaFX application and the headless chat server, so that both offer the same chat bots
+ * and reply with the same typing delay, without the server depending on JavaFX.
+ * </p>
+ * 
+ * <p>
+ * The chat bots are found once, through a {@link ServiceLoader}, from the <code>META-INF/services/chatBot.bots.ChatBot</code> files
+ * on the class path, so that a chat bot is added by listing its class there rather than by editing this class.
+ * Finding them only reads their classes; a chat bot is not constructed until it is first created.
+ * If no chat bot is listed, such as when the resources were left off the class path, the built-in chat bots are offered instead.
+ * </p>
+ * 
+ * @see {@link ChatBot}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class ChatBots
+{
+	/** The minimum duration, in milliseconds, to wait before replying to a message to add realism. */
+	public static final int MIN_REPLY_DELAY = 500;
+	
+	/** The maximum duration, in milliseconds, to wait before replying to a message to add realism. */
+	public static final int MAX_REPLY_DELAY = 1500;
+	
+	/** The factory of each available chat bot, in the order they are listed. */
+	private static final Map<Class<? extends ChatBot>, Supplier<? extends ChatBot>> factories = loadFactories();
+	
+	/** The available chat bots that the user can select. The first one is the default. */
+	public static final List<Class<? extends ChatBot>> AVAILABLE_CHATBOTS = List.copyOf(factories.keySet());
+	
+	/** This class only contains static methods. */
+	private ChatBots()
+	{
+	}
+	
+	/**
+	 * Creates a new instance of the specified chat bot class, using its no-argument constructor.
+	 * Available chat bots are created by their service provider, which looks the constructor up only once.
+	 * @param clazz the chat bot class
+	 * @return a new chat bot
+	 * @throws ReflectiveOperationException if the chat bot could not be created
+	 */
+	public static ChatBot create(Class<? extends ChatBot> clazz) throws ReflectiveOperationException
+	{
+		// Validity checks
+		Objects.requireNonNull(clazz, "Parameter 'clazz' cannot be null.");
+		
+		Supplier<? extends ChatBot> factory = factories.get(clazz);
+		if(factory == null)
+		{
+			return clazz.getConstructor().newInstance();
+		}
+		
+		try
+		{
+			return factory.get();
+		}
+		catch (ServiceConfigurationError e)
+		{
+			throw new ReflectiveOperationException("Failed to create " + clazz.getSimpleName() + ".", e.getCause() != null ? e.getCause() : e);
+		}
+	}
+	
+	/**
+	 * Finds the available chat bot class with the specified simple class name, such as "ParrotBot", ignoring case.
+	 * @param name the simple class name of the chat bot
+	 * @return the chat bot class, or <code>null</code> if no available chat bot has that name
+	 */
+	public static Class<? extends ChatBot> find(String name)
+	{
+		// Validity checks
+		Objects.requireNonNull(name, "Parameter 'name' cannot be null.");
+		
+		for(Class<? extends ChatBot> clazz : AVAILABLE_CHATBOTS)
+		{
+			if(clazz.getSimpleName().equalsIgnoreCase(name))
+			{
+				return clazz;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Finds the chat bots listed for the {@link ServiceLoader}, without constructing any of them.
+	 * @return the factory of each chat bot, in the order they are listed, or of the built-in chat bots if none is listed
+	 */
+	private static Map<Class<? extends ChatBot>, Supplier<? extends ChatBot>> loadFactories()
+	{
+		Map<Class<? extends ChatBot>, Supplier<? extends ChatBot>> factories = new LinkedHashMap<>();
+		try
+		{
+			ServiceLoader.load(ChatBot.class).stream().forEach(provider -> factories.putIfAbsent(provider.type(), provider));
+		}
+		catch (ServiceConfigurationError e)
+		{
+			System.err.println("Failed to find the chat bots. Reason: " + e.getMessage());
+			factories.clear();
+		}
+		
+		if(factories.isEmpty())
+		{
+			factories.put(ParrotBot.class, ParrotBot::new);
+			factories.put(EchoBot.class, EchoBot::new);
+			factories.put(RandomBot.class, RandomBot::new);
+			factories.put(BabyYodaBot.class, BabyYodaBot::new);
+			factories.put(GroupParrotBot.class, GroupParrotBot::new);
+		}
+		return Collections.unmodifiableMap(factories);
+	}
+	
+	/**
+	 * Picks how long to wait before replying to a message, uniformly between {@link #MIN_REPLY_DELAY} and {@link #MAX_REPLY_DELAY}.
+	 * @param random the random generator to draw from
+	 * @return the delay in milliseconds
+	 */
+	public static long nextReplyDelay(RandomGenerator random)
+	{
+		// Validity checks
+		Objects.requireNonNull(random, "Parameter 'random' cannot be null.");
+		
+		return random.nextLong(MIN_REPLY_DELAY, MAX_REPLY_DELAY + 1);
+	}
+}
\ No newline at end of file
@@ -40,4 +40,14 @@ public class EchoBot implements ChatBot
 		// Reply verbatim
 		return input;
 	}
+	
+	/**
+	 * Returns true, since the echo bot keeps no state.
+	 * @return true
+	 */
+	@Override
+	public boolean isThreadSafe()
+	{
+		return true;
+	}
 }
\ No newline at end of file
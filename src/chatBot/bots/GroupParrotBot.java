@@ -0,0 +1,56 @@
+package chatBot.bots;
+import chatBot.memory.ConcurrentPhraseMemory;
+import chatBot.memory.PhraseMemory;
+
+/**
+ * The <code>GroupParrotBot</code> class is a {@link ParrotBot} that many users talk to at once, such as one parrot shared by every session of a chat room.
+ * 
+ * <p>
+ * Its memory is a {@link ConcurrentPhraseMemory}, so every user's phrases are learned and repeated without any thread waiting on another,
+ * and it draws its randomness from {@link java.util.concurrent.ThreadLocalRandom}. Once full, it forgets the oldest phrases first.
+ * A group parrot should not be given a random generator of its own, as generators are not thread-safe.
+ * It stays a group parrot when saved and loaded back.
+ * </p>
+ * 
+ * @see {@link ParrotBot}
+ * @see {@link ConcurrentPhraseMemory}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class GroupParrotBot extends ParrotBot
+{
+	/** An auto-generated serial UID. */
+	private static final long serialVersionUID = 3904185541285612127L;
+	
+	/** Initialize the group parrot with a memory of {@link #DEFAULT_MEMORY_CAPACITY} phrases. */
+	public GroupParrotBot()
+	{
+		this(DEFAULT_MEMORY_CAPACITY);
+	}
+	
+	/**
+	 * Initialize the group parrot with a memory of the specified capacity.
+	 * @param memoryCapacity the maximum number of previously seen user inputs to remember
+	 */
+	public GroupParrotBot(int memoryCapacity)
+	{
+		super(new ConcurrentPhraseMemory(memoryCapacity));
+	}
+	
+	@Override
+	public String getName()
+	{
+		return "Group Parrot";
+	}
+	
+	/**
+	 * Creates a thread-safe memory for a loaded group parrot, whether or not the saved memory was kept off-heap.
+	 * @param capacity the capacity of the saved memory
+	 * @param isOffHeap whether or not the saved memory was kept off-heap
+	 * @return an empty memory
+	 */
+	@Override
+	protected PhraseMemory createMemory(int capacity, boolean isOffHeap)
+	{
+		return new ConcurrentPhraseMemory(capacity);
+	}
+}
\ No newline at end of file
@@ -1,7 +1,29 @@
 package chatBot.bots;
-import java.util.LinkedHashSet;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.random.RandomGenerator;
+
+import chatBot.memory.ConcurrentPhraseMemory;
+import chatBot.memory.EvictionPolicy;
+import chatBot.memory.IndexedPhraseMemory;
+import chatBot.memory.OffHeapPhraseMemory;
+import chatBot.memory.PhraseMemory;
+import chatBot.persistence.ChatBotSnapshot;
+import chatBot.persistence.JournalSyncPolicy;
+import chatBot.persistence.PhraseJournal;
+import chatBot.persistence.SnapshotReader;
+import chatBot.persistence.SnapshotWriter;
 
 /**
  * The <code>ParrotBot</code> class is an implementation of the {@link ChatBot} interface.
@@ -17,13 +39,56 @@ import java.util.Set;
  * </ul>
  * </p>
  * 
+ * <p>
+ * The parrot's memory of previous conversations is bounded, so a long-running parrot keeps a fixed reply latency and heap footprint.
+ * Once full, the parrot forgets phrases according to an {@link EvictionPolicy}.
+ * </p>
+ * 
+ * <p>
+ * A parrot can optionally {@link #openJournal(Path, JournalSyncPolicy, long) journal} every phrase it learns next to a snapshot file,
+ * so that persisting it costs as much as what it learned rather than the size of its memory. Use {@link #recover(Path, JournalSyncPolicy, long)}
+ * to load such a parrot back. Once the journal is due, it is compacted into the snapshot in the background, so no reply waits on it.
+ * </p>
+ * 
+ * <p>
+ * A parrot draws its randomness from {@link ThreadLocalRandom}, unless it is {@link #setRandomGenerator(RandomGenerator) given a generator}.
+ * A parrot given a seeded generator replies the same way to the same conversation, see {@link RandomSources}.
+ * </p>
+ * 
+ * <p>
+ * A parrot is as thread-safe as its memory. Given a {@link ConcurrentPhraseMemory} and no random generator of its own,
+ * many threads can talk to the same parrot at once without waiting on one another, see {@link GroupParrotBot}.
+ * </p>
+ * 
  * @see {@link ChatBot}
+ * @see {@link PhraseMemory}
+ * @see {@link PhraseJournal}
+ * @see {@link RandomSources}
+ * @see {@link GroupParrotBot}
  * @author Mohammad Alali (Sanavesa)
  */
 public class ParrotBot implements ChatBot
 {
-	/** A conversations set, that contains all previously seen user input with <i>no duplicates</i>. */
-	private Set<String> conversations = new LinkedHashSet<>();
+	/** A conversations memory, that contains previously seen user input with <i>no duplicates</i>. */
+	private PhraseMemory conversations;
+	
+	/** The journal that newly learned phrases are appended to, or <code>null</code> if the parrot is not journaled. */
+	private transient volatile PhraseJournal journal;
+	
+	/** Keeps phrases from being learned while the journal is compacted, created along with the journal. */
+	private transient ReentrantReadWriteLock journalLock;
+	
+	/** The snapshot file that the journal is compacted into. */
+	private transient Path journalSnapshotPath;
+	
+	/** Whether a compaction of the journal is waiting for, or running on, the {@link #journalCompactor}. Created along with the journal. */
+	private transient AtomicBoolean isCompactionScheduled;
+	
+	/** Compacts the journals of every parrot in the background, one at a time. */
+	private static final ExecutorService journalCompactor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("journal-compactor").daemon().factory());
+	
+	/** The parrot's own random generator, or <code>null</code> to use {@link ThreadLocalRandom}. */
+	private transient RandomGenerator random;
 	
 	/** An auto-generated serial UID. */
 	private static final long serialVersionUID = -586595470909187255L;
@@ -37,6 +102,57 @@ public class ParrotBot implements ChatBot
 	/** The probability that the parrot will reply angrily. Range is [0, 1]. */
 	private static final double ANGER_PROBABILITY = 0.25;
 	
+	/** The default maximum number of previously seen user inputs that the parrot remembers. */
+	public static final int DEFAULT_MEMORY_CAPACITY = 100_000;
+	
+	/** Initialize the parrot bot with a memory of {@link #DEFAULT_MEMORY_CAPACITY} phrases, forgetting the least recently used first. */
+	public ParrotBot()
+	{
+		this(DEFAULT_MEMORY_CAPACITY, EvictionPolicy.lru());
+	}
+	
+	/**
+	 * Initialize the parrot bot with a memory of the specified capacity and eviction policy.
+	 * @param memoryCapacity the maximum number of previously seen user inputs to remember
+	 * @param evictionPolicy the policy deciding which user input to forget when the memory is full
+	 */
+	public ParrotBot(int memoryCapacity, EvictionPolicy evictionPolicy)
+	{
+		this(new IndexedPhraseMemory(memoryCapacity, evictionPolicy));
+	}
+	
+	/**
+	 * Initialize the parrot bot with the specified memory.
+	 * @param conversations the memory used to store previously seen user input
+	 */
+	public ParrotBot(PhraseMemory conversations)
+	{
+		// Validity checks
+		Objects.requireNonNull(conversations, "Parameter 'conversations' cannot be null.");
+		
+		this.conversations = conversations;
+	}
+	
+	/**
+	 * Initialize the parrot bot with the specified memory and random generator.
+	 * @param conversations the memory used to store previously seen user input
+	 * @param random the source of the parrot's randomness, which should not be shared with other threads
+	 */
+	public ParrotBot(PhraseMemory conversations, RandomGenerator random)
+	{
+		this(conversations);
+		this.random = random;
+	}
+	
+	/**
+	 * Gives the parrot its own random generator, such as a {@link RandomSources#seeded(long) seeded} one to replay a conversation.
+	 * @param random the source of the parrot's randomness, or <code>null</code> to use {@link ThreadLocalRandom}
+	 */
+	public void setRandomGenerator(RandomGenerator random)
+	{
+		this.random = random;
+	}
+	
 	@Override
 	public String getName()
 	{
@@ -71,20 +187,30 @@ public class ParrotBot implements ChatBot
 		// Validity checks
 		Objects.requireNonNull(input, "Parameter 'input' cannot be null.");
 		
-		// Store the given input to the conversations set, which ensures unique elements
-		conversations.add(input);
+		RandomGenerator random = this.random != null ? this.random : ThreadLocalRandom.current();
+		
+		// Store the given input to the conversations memory, which ensures unique elements, and journal it if it is new
+		PhraseJournal journal = this.journal;
+		if(journal == null)
+		{
+			conversations.add(input);
+		}
+		else
+		{
+			learnJournaled(journal, input);
+		}
 		
 		// For a specified probability, just squawk back
-		if(Math.random() <= SQUAWK_PROBABILITY)
+		if(random.nextDouble() <= SQUAWK_PROBABILITY)
 		{
 			return "*SQUAWK*";
 		}
 		
 		// For a specified probability, just echo back what the user said
-		if(Math.random() <= ECHO_PROBABILITY)
+		if(random.nextDouble() <= ECHO_PROBABILITY)
 		{
 			// For a specified probability, reply angrily, otherwise reply verbatim
-			if(Math.random() <= ANGER_PROBABILITY)
+			if(random.nextDouble() <= ANGER_PROBABILITY)
 			{
 				return addAnger(input);
 			}
@@ -96,12 +222,12 @@ public class ParrotBot implements ChatBot
 		// Else, reply with a previously seen user's input
 		else
 		{
-			// Retrieve randomly a user input from the conversations set
-			int randomIndex = (int) (Math.random() * conversations.size());
-			String reply = getFromPreviousConversations(randomIndex);
+			// Retrieve randomly a user input from the conversations memory
+			int randomIndex = random.nextInt(conversations.size());
+			String reply = conversations.recall(randomIndex);
 			
 			// For a specified probability, reply angrily, otherwise reply normally
-			if(Math.random() <= ANGER_PROBABILITY)
+			if(random.nextDouble() <= ANGER_PROBABILITY)
 			{
 				return addAnger(reply);
 			}
@@ -112,6 +238,30 @@ public class ParrotBot implements ChatBot
 		}
 	}
 	
+	/**
+	 * Returns whether or not the parrot can reply from many threads at once, which it can if its memory is a {@link ConcurrentPhraseMemory}
+	 * and it was not given a random generator of its own.
+	 * @return true if the parrot is thread-safe, false otherwise
+	 */
+	@Override
+	public boolean isThreadSafe()
+	{
+		return random == null && conversations instanceof ConcurrentPhraseMemory;
+	}
+	
+	/**
+	 * Returns how many phrases the parrot remembers, and how many it can remember at most.
+	 * @return the gauges <code>memorySize</code> and <code>memoryCapacity</code>
+	 */
+	@Override
+	public Map<String, Long> getGauges()
+	{
+		Map<String, Long> gauges = new LinkedHashMap<>();
+		gauges.put("memorySize", (long) conversations.size());
+		gauges.put("memoryCapacity", (long) conversations.getCapacity());
+		return gauges;
+	}
+	
 	/**
 	 * Makes the given <code>text</code> angry, by capitalizing it and adding !!! at the end.
 	 * @param text the text to make angry
@@ -126,30 +276,265 @@ public class ParrotBot implements ChatBot
 	}
 	
 	/**
-     * Returns the element at the specified position in the conversation set.
-     *
-     * @param  index index of the element to return
-     * @return the element at the specified position in this list
-     * @throws IndexOutOfBoundsException if the index is out of range <code>(index < 0 || index >= conversations.size())</code>
-     */
-	private String getFromPreviousConversations(int index)
+	 * Loads a journaled parrot from the specified snapshot file, if it exists, then replays its journal and keeps journaling to it.
+	 * @param snapshotPath the snapshot file, next to which the journal is kept
+	 * @param syncPolicy the policy for forcing journaled phrases to disk
+	 * @param compactionThreshold the number of journaled phrases after which the journal is compacted into the snapshot
+	 * @return the recovered parrot
+	 */
+	public static ParrotBot recover(Path snapshotPath, JournalSyncPolicy syncPolicy, long compactionThreshold) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(snapshotPath, "Parameter 'snapshotPath' cannot be null.");
+		
+		ParrotBot parrot = new ParrotBot();
+		if(Files.exists(snapshotPath))
+		{
+			ChatBot loaded = ChatBotSnapshot.read(snapshotPath);
+			if(!(loaded instanceof ParrotBot))
+			{
+				throw new IOException(snapshotPath + " is not a parrot bot.");
+			}
+			parrot = (ParrotBot) loaded;
+		}
+		
+		parrot.openJournal(snapshotPath, syncPolicy, compactionThreshold);
+		return parrot;
+	}
+	
+	/**
+	 * Replays the journal kept next to the specified snapshot file into the parrot's memory, then appends every phrase the parrot learns to it.
+	 * @param snapshotPath the snapshot file, next to which the journal is kept
+	 * @param syncPolicy the policy for forcing journaled phrases to disk
+	 * @param compactionThreshold the number of journaled phrases after which the journal is compacted into the snapshot
+	 */
+	public synchronized void openJournal(Path snapshotPath, JournalSyncPolicy syncPolicy, long compactionThreshold) throws IOException
 	{
 		// Validity checks
-		Objects.checkIndex(index, conversations.size());
+		Objects.requireNonNull(snapshotPath, "Parameter 'snapshotPath' cannot be null.");
+		if(journal != null)
+		{
+			throw new IllegalStateException("The parrot's journal is already open.");
+		}
+		
+		journalLock = new ReentrantReadWriteLock();
+		journalSnapshotPath = snapshotPath;
+		isCompactionScheduled = new AtomicBoolean();
+		journal = new PhraseJournal(PhraseJournal.pathFor(snapshotPath), syncPolicy, compactionThreshold, conversations::add);
+	}
+	
+	/**
+	 * Writes the whole memory to the journal's snapshot file, then drops the compacted phrases from the journal.
+	 * Phrases are only kept from being learned while the memory is copied, not while the snapshot is written.
+	 * Does nothing if the parrot is not journaled.
+	 */
+	public synchronized void compactJournal() throws IOException
+	{
+		if(journal == null)
+		{
+			return;
+		}
 		
-		// Sequentially iterate through the conversations set to the specified index and return that element
-		int i = 0;
-		String reply = null;
-		for(String convo : conversations)
+		// Copy the memory and mark the journal at the same point, with no phrase learned in between
+		int capacity;
+		boolean isOffHeap;
+		String[] phrases;
+		long mark;
+		journalLock.writeLock().lock();
+		try
 		{
-			if(i == index)
+			capacity = conversations.getCapacity();
+			isOffHeap = conversations instanceof OffHeapPhraseMemory;
+			phrases = new String[conversations.size()];
+			for(int i = 0; i < phrases.length; i++)
 			{
-				reply = convo;
-				break;
+				phrases[i] = conversations.get(i);
 			}
-			i++;
+			mark = journal.mark();
+		}
+		finally
+		{
+			journalLock.writeLock().unlock();
 		}
 		
-		return reply;
+		// The snapshot is complete before the journal is reset, so a crash in between only replays phrases the parrot already knows
+		ChatBotSnapshot.write(getClass(), writer ->
+		{
+			writer.writeInt(capacity);
+			writer.writeBoolean(isOffHeap);
+			for(String phrase : phrases)
+			{
+				writer.writePhrase(phrase);
+			}
+			writer.endPhrases();
+		}, journalSnapshotPath);
+		journal.resetTo(mark);
+	}
+	
+	/**
+	 * Writes every journaled phrase to disk and stops journaling.
+	 * Does nothing if the parrot is not journaled.
+	 */
+	public synchronized void closeJournal() throws IOException
+	{
+		if(journal == null)
+		{
+			return;
+		}
+		
+		try
+		{
+			journal.close();
+		}
+		finally
+		{
+			journal = null;
+			journalSnapshotPath = null;
+		}
+	}
+	
+	/**
+	 * Stores a phrase in the memory and, if it is new, appends it to the journal, scheduling a compaction of the journal once it is due.
+	 * If journaling fails, the error is reported and the parrot stops journaling.
+	 * @param journal the journal, as it was when the phrase was received
+	 * @param phrase the phrase to learn
+	 */
+	private void learnJournaled(PhraseJournal journal, String phrase)
+	{
+		try
+		{
+			// Phrases are learned concurrently, but never during a compaction
+			boolean isNew;
+			journalLock.readLock().lock();
+			try
+			{
+				isNew = conversations.add(phrase);
+				if(isNew)
+				{
+					journal.append(phrase);
+				}
+			}
+			finally
+			{
+				journalLock.readLock().unlock();
+			}
+			
+			// Compact in the background, once at a time
+			AtomicBoolean isScheduled = isCompactionScheduled;
+			if(isNew && journal.isCompactionDue() && isScheduled.compareAndSet(false, true))
+			{
+				journalCompactor.execute(() ->
+				{
+					try
+					{
+						compactJournalIfDue();
+					}
+					catch (IOException e)
+					{
+						stopJournaling(e);
+					}
+					finally
+					{
+						isScheduled.set(false);
+					}
+				});
+			}
+		}
+		catch (IOException e)
+		{
+			stopJournaling(e);
+		}
+	}
+	
+	/**
+	 * Compacts the journal, unless it has been compacted or closed since it became due.
+	 */
+	private synchronized void compactJournalIfDue() throws IOException
+	{
+		if(journal != null && journal.isCompactionDue())
+		{
+			compactJournal();
+		}
+	}
+	
+	/**
+	 * Reports why journaling failed, and stops journaling.
+	 * @param e the failure
+	 */
+	private void stopJournaling(IOException e)
+	{
+		System.err.println("Failed to journal the parrot's memory, journaling is stopped: " + e.getMessage());
+		try
+		{
+			closeJournal();
+		}
+		catch (IOException closeException)
+		{
+			// The error was already reported
+		}
+	}
+	
+	/**
+	 * Writes the parrot's memory: its capacity, whether it is kept off-heap, and all of its phrases.
+	 * The eviction policy is not saved, and a loaded parrot forgets the least recently used phrases first.
+	 * @param writer the snapshot writer
+	 */
+	@Override
+	public void writeSnapshot(SnapshotWriter writer) throws IOException
+	{
+		writer.writeInt(conversations.getCapacity());
+		writer.writeBoolean(conversations instanceof OffHeapPhraseMemory);
+		writer.writePhrases(conversations);
+	}
+	
+	/**
+	 * Reads back the parrot's memory, streaming the phrases into a new memory block by block.
+	 * @param reader the snapshot reader
+	 */
+	@Override
+	public void readSnapshot(SnapshotReader reader) throws IOException
+	{
+		int capacity = reader.readInt();
+		boolean isOffHeap = reader.readBoolean();
+		
+		conversations = createMemory(capacity, isOffHeap);
+		reader.readPhrases(conversations::add);
+	}
+	
+	/**
+	 * Creates the memory that a loaded parrot reads its phrases into.
+	 * @param capacity the capacity of the saved memory
+	 * @param isOffHeap whether or not the saved memory was kept off-heap
+	 * @return an empty memory
+	 */
+	protected PhraseMemory createMemory(int capacity, boolean isOffHeap)
+	{
+		return isOffHeap ? new OffHeapPhraseMemory(capacity) : new IndexedPhraseMemory(capacity, EvictionPolicy.lru());
+	}
+	
+	/**
+	 * Restores a serialized parrot bot, migrating the plain conversations set used by older versions into a bounded memory.
+	 * @param in the stream to read from
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		ObjectInputStream.GetField fields = in.readFields();
+		Object stored = fields.get("conversations", null);
+		
+		if(stored instanceof PhraseMemory)
+		{
+			conversations = (PhraseMemory) stored;
+		}
+		else
+		{
+			conversations = new IndexedPhraseMemory(DEFAULT_MEMORY_CAPACITY, EvictionPolicy.lru());
+			if(stored instanceof Collection)
+			{
+				for(Object convo : (Collection<?>) stored)
+				{
+					conversations.add((String) convo);
+				}
+			}
+		}
 	}
 }
\ No newline at end of file
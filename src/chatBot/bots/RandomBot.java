@@ -1,13 +1,25 @@
 package chatBot.bots;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+import chatBot.text.TokenSpans;
+import chatBot.text.Tokenizer;
 
 /**
  * The <code>RandomBot</code> class is an implementation of the {@link ChatBot} interface.
  * The <code>RandomBot</code> will randomize the word order of whatever the user says.
  * 
+ * <p>
+ * The words are shuffled as {@link TokenSpans} over the message, so a reply costs a single pass to find the words
+ * and a single copy to write them out, and replies to several users can be computed at once.
+ * </p>
+ * 
+ * <p>
+ * The words are shuffled with {@link ThreadLocalRandom}, unless the bot is {@link #setRandomGenerator(RandomGenerator) given a generator},
+ * such as a seeded one to replay a conversation, see {@link RandomSources}.
+ * </p>
+ * 
  * @see {@link ChatBot}
  * @author Mohammad Alali (Sanavesa)
  */
@@ -16,6 +28,32 @@ public class RandomBot implements ChatBot
 	/** An auto-generated serial UID. */
 	private static final long serialVersionUID = 900937006793263841L;
 	
+	/** The bot's own random generator, or <code>null</code> to use {@link ThreadLocalRandom}. */
+	private transient RandomGenerator random;
+	
+	/** Initialize the random bot, shuffling with {@link ThreadLocalRandom}. */
+	public RandomBot()
+	{
+	}
+	
+	/**
+	 * Initialize the random bot with the specified random generator.
+	 * @param random the source of the bot's randomness, which should not be shared with other threads
+	 */
+	public RandomBot(RandomGenerator random)
+	{
+		this.random = random;
+	}
+	
+	/**
+	 * Gives the bot its own random generator, such as a {@link RandomSources#seeded(long) seeded} one to replay a conversation.
+	 * @param random the source of the bot's randomness, or <code>null</code> to use {@link ThreadLocalRandom}
+	 */
+	public void setRandomGenerator(RandomGenerator random)
+	{
+		this.random = random;
+	}
+	
 	@Override
 	public String getName()
 	{
@@ -35,31 +73,28 @@ public class RandomBot implements ChatBot
 	 * @return the bot's response to the user
 	 */
 	@Override
-	public synchronized String getReply(String input)
+	public String getReply(String input)
 	{
 		// Validity checks
 		Objects.requireNonNull(input, "Parameter 'input' cannot be null.");
 		
-		// Split by space
-		List<String> words = Arrays.asList(input.trim().split("\\s+"));
+		// Split by whitespace
+		TokenSpans words = Tokenizer.splitWhitespace(input);
 		
 		// Shuffle randomly
-		Collections.shuffle(words);
-
-		// Construct output string
-		String output = "";
-		for(int i = 0; i < words.size(); i++)
-		{
-			// Add the word
-			output += words.get(i);
-			
-			// Add space after the word, except for the last word.
-			if(i != words.size() - 1)
-			{
-				output += " ";
-			}
-		}
+		words.shuffle(random != null ? random : ThreadLocalRandom.current());
 		
-		return output;
+		// Construct output string, with a space between words
+		return words.join(' ');
+	}
+	
+	/**
+	 * Returns whether or not the bot can reply from many threads at once, which it can unless it was given a random generator of its own.
+	 * @return true if the bot shuffles with {@link ThreadLocalRandom}, false otherwise
+	 */
+	@Override
+	public boolean isThreadSafe()
+	{
+		return random == null;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package chatBot.bots;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * The <code>RandomSources</code> class creates the random generators given to chat bots that reply randomly,
+ * such as {@link ParrotBot} and {@link RandomBot}.
+ * 
+ * <p>
+ * A chat bot without a generator of its own draws from {@link java.util.concurrent.ThreadLocalRandom}, which is never contended.
+ * Giving a chat bot a {@link #seeded(long) seeded} generator makes its replies reproducible: the same seed and the same
+ * messages, in the same order, give the same replies, which replays a conversation exactly.
+ * </p>
+ * 
+ * <p>
+ * The generators created here are not thread-safe, so a chat bot given one should only reply to one conversation at a time.
+ * </p>
+ * 
+ * @see {@link ParrotBot}
+ * @see {@link RandomBot}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class RandomSources
+{
+	/** The algorithm of seeded generators, a fast generator with good statistical quality. */
+	public static final String DEFAULT_ALGORITHM = "L64X128MixRandom";
+	
+	/** This class only contains static methods. */
+	private RandomSources()
+	{
+	}
+	
+	/**
+	 * Creates a generator of the {@link #DEFAULT_ALGORITHM default algorithm} with a fixed seed.
+	 * @param seed the seed
+	 * @return a new generator
+	 */
+	public static RandomGenerator seeded(long seed)
+	{
+		return seeded(DEFAULT_ALGORITHM, seed);
+	}
+	
+	/**
+	 * Creates a generator of the specified algorithm with a fixed seed.
+	 * @param algorithm the name of the algorithm, such as "SplittableRandom" or "L64X128MixRandom"
+	 * @param seed the seed
+	 * @return a new generator
+	 */
+	public static RandomGenerator seeded(String algorithm, long seed)
+	{
+		// Validity checks
+		Objects.requireNonNull(algorithm, "Parameter 'algorithm' cannot be null.");
+		
+		return RandomGeneratorFactory.of(algorithm).create(seed);
+	}
+	
+	/**
+	 * Creates a generator of the {@link #DEFAULT_ALGORITHM default algorithm} with a random seed, for a new conversation.
+	 * @return a new generator
+	 */
+	public static RandomGenerator unseeded()
+	{
+		return RandomGeneratorFactory.of(DEFAULT_ALGORITHM).create();
+	}
+}
@@ -0,0 +1,22 @@
+package chatBot.bots;
+
+import chatBot.yodish.YodishEngine;
+
+/**
+ * The <code>YodishMode</code> enumeration contains the possible ways for a {@link BabyYodaBot} to translate messages into Yodish.
+ * 
+ * @see {@link BabyYodaBot}
+ * @see {@link YodishEngine}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public enum YodishMode
+{
+	/** Only ask the remote Yoda API, and reply that baby yoda is sleeping when it cannot be reached. */
+	Remote,
+	
+	/** Ask the remote Yoda API, and translate locally with the {@link YodishEngine} when it cannot be reached. */
+	RemoteWithFallback,
+	
+	/** Only translate locally with the {@link YodishEngine}, without any network access. */
+	Offline;
+}
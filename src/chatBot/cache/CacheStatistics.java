@@ -0,0 +1,132 @@
+package chatBot.cache;
+
+/**
+ * The <code>CacheStatistics</code> class is an immutable snapshot of the counters of a {@link TranslationCache}.
+ * 
+ * @see {@link TranslationCache}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class CacheStatistics
+{
+	/** The number of lookups answered by the in-memory tier. */
+	private final long memoryHitCount;
+	
+	/** The number of lookups answered by the on-disk tier. */
+	private final long diskHitCount;
+	
+	/** The number of lookups answered by neither tier. */
+	private final long missCount;
+	
+	/** The number of entries evicted from either tier to keep it within its capacity. */
+	private final long evictionCount;
+	
+	/** The number of in-memory entries that expired. */
+	private final long expirationCount;
+	
+	/** The number of entries in the in-memory tier. */
+	private final int memorySize;
+	
+	/** The number of entries in the on-disk tier. */
+	private final int diskSize;
+	
+	/**
+	 * Constructs a new snapshot of cache counters.
+	 * @param memoryHitCount the number of lookups answered by the in-memory tier
+	 * @param diskHitCount the number of lookups answered by the on-disk tier
+	 * @param missCount the number of lookups answered by neither tier
+	 * @param evictionCount the number of entries evicted from either tier
+	 * @param expirationCount the number of in-memory entries that expired
+	 * @param memorySize the number of entries in the in-memory tier
+	 * @param diskSize the number of entries in the on-disk tier
+	 */
+	public CacheStatistics(long memoryHitCount, long diskHitCount, long missCount, long evictionCount, long expirationCount, int memorySize, int diskSize)
+	{
+		this.memoryHitCount = memoryHitCount;
+		this.diskHitCount = diskHitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.expirationCount = expirationCount;
+		this.memorySize = memorySize;
+		this.diskSize = diskSize;
+	}
+	
+	/**
+	 * Returns the number of lookups answered by the in-memory tier.
+	 * @return the number of in-memory hits
+	 */
+	public long getMemoryHitCount()
+	{
+		return memoryHitCount;
+	}
+	
+	/**
+	 * Returns the number of lookups answered by the on-disk tier.
+	 * @return the number of on-disk hits
+	 */
+	public long getDiskHitCount()
+	{
+		return diskHitCount;
+	}
+	
+	/**
+	 * Returns the number of lookups answered by neither tier.
+	 * @return the number of misses
+	 */
+	public long getMissCount()
+	{
+		return missCount;
+	}
+	
+	/**
+	 * Returns the number of entries evicted from either tier to keep it within its capacity.
+	 * @return the number of evictions
+	 */
+	public long getEvictionCount()
+	{
+		return evictionCount;
+	}
+	
+	/**
+	 * Returns the number of in-memory entries that expired.
+	 * @return the number of expirations
+	 */
+	public long getExpirationCount()
+	{
+		return expirationCount;
+	}
+	
+	/**
+	 * Returns the number of entries in the in-memory tier.
+	 * @return the in-memory size
+	 */
+	public int getMemorySize()
+	{
+		return memorySize;
+	}
+	
+	/**
+	 * Returns the number of entries in the on-disk tier.
+	 * @return the on-disk size
+	 */
+	public int getDiskSize()
+	{
+		return diskSize;
+	}
+	
+	/**
+	 * Returns the fraction of lookups answered by either tier.
+	 * @return the hit rate, in the range [0, 1]
+	 */
+	public double getHitRate()
+	{
+		long lookups = memoryHitCount + diskHitCount + missCount;
+		return lookups == 0 ? 0 : (double) (memoryHitCount + diskHitCount) / lookups;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("memoryHits=%d diskHits=%d misses=%d evictions=%d expirations=%d memorySize=%d diskSize=%d hitRate=%.3f",
+				memoryHitCount, diskHitCount, missCount, evictionCount, expirationCount, memorySize, diskSize, getHitRate());
+	}
+}
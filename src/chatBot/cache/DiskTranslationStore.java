@@ -0,0 +1,422 @@
+package chatBot.cache;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * The <code>DiskTranslationStore</code> class is an append-only file of translations, that survives restarts of the application.
+ * 
+ * <p>
+ * Only the offsets of the records are kept in memory, and a translation is read from the file when it is looked up.
+ * Once the file grows past its capacity, it is compacted to half of its capacity, keeping the most recently stored translations:
+ * <pre>
+ * store  := magic:int32 version:int32 record*
+ * record := keyLength:int32 valueLength:int32 storedAt:int64 crc32c:int32 utf8Key utf8Value
+ * </pre>
+ * </p>
+ * 
+ * <p>
+ * The store locks a <code>.lock</code> file next to its file while it is open, so that two processes never write or compact the same store.
+ * </p>
+ * 
+ * <p>
+ * Lookups may run at the same time as each other, and as one thread storing translations, since records are read and written at explicit offsets
+ * and a record is only indexed once it is written. Compacting and closing the store need it to themselves, which its owning
+ * {@link TranslationCache} ensures with its read-write lock.
+ * </p>
+ * 
+ * @see {@link TranslationCache}
+ * @author Mohammad Alali (Sanavesa)
+ */
+final class DiskTranslationStore implements Closeable
+{
+	/** The magic number that every store starts with, "CBTC" in ASCII. */
+	static final int MAGIC = 0x43425443;
+	
+	/** The version of the store format written by this class. */
+	static final int FORMAT_VERSION = 1;
+	
+	/** The size, in bytes, of the store header. */
+	private static final int HEADER_SIZE = 2 * Integer.BYTES;
+	
+	/** The size, in bytes, of the header of each record. */
+	private static final int RECORD_HEADER_SIZE = 3 * Integer.BYTES + Long.BYTES;
+	
+	/** The store file. */
+	private final Path path;
+	
+	/** The maximum size, in bytes, of the store file. */
+	private final long capacityBytes;
+	
+	/** The time, in milliseconds, after which a stored translation expires. */
+	private final long timeToLiveMillis;
+	
+	/** The file offset of the latest record of each key. Records are only appended, so a larger offset was stored more recently. */
+	private final ConcurrentHashMap<String, Long> index = new ConcurrentHashMap<>();
+	
+	/** A reusable checksum, only used by the thread storing translations. */
+	private final CRC32C crc = new CRC32C();
+	
+	/** The channel of the lock file, held open while the store is. */
+	private final FileChannel lockChannel;
+	
+	/** The channel of the store file, only replaced while the store is being compacted. */
+	private FileChannel channel;
+	
+	/** The number of translations dropped by compactions. */
+	private volatile long evictionCount = 0;
+	
+	/**
+	 * Opens the store at the specified file, creating it and its directory if they do not exist.
+	 * @param path the store file
+	 * @param capacityBytes the maximum size, in bytes, of the store file
+	 * @param timeToLiveMillis the time, in milliseconds, after which a stored translation expires
+	 * @throws IOException if the store cannot be opened, or another process has it open
+	 */
+	DiskTranslationStore(Path path, long capacityBytes, long timeToLiveMillis) throws IOException
+	{
+		// Validity checks
+		if(capacityBytes <= HEADER_SIZE)
+		{
+			throw new IllegalArgumentException("Parameter 'capacityBytes' is too small.");
+		}
+		if(timeToLiveMillis <= 0)
+		{
+			throw new IllegalArgumentException("Parameter 'timeToLiveMillis' must be positive.");
+		}
+		
+		this.path = path;
+		this.capacityBytes = capacityBytes;
+		this.timeToLiveMillis = timeToLiveMillis;
+		
+		Path directory = path.toAbsolutePath().getParent();
+		if(directory != null)
+		{
+			Files.createDirectories(directory);
+		}
+		
+		// Lock a separate file, since compactions replace the store file and a lock on it would be lost
+		lockChannel = FileChannel.open(path.resolveSibling(path.getFileName() + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		try
+		{
+			FileLock lock;
+			try
+			{
+				lock = lockChannel.tryLock();
+			}
+			catch (OverlappingFileLockException e)
+			{
+				lock = null;
+			}
+			if(lock == null)
+			{
+				throw new IOException("The translation cache file is in use by another process.");
+			}
+			open();
+		}
+		catch (IOException | RuntimeException e)
+		{
+			lockChannel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Returns the translation of the given key.
+	 * @param key the normalized text to look up
+	 * @return the translation, or <code>null</code> if the key is missing or expired
+	 */
+	String get(String key) throws IOException
+	{
+		Long offset = index.get(key);
+		if(offset == null)
+		{
+			return null;
+		}
+		
+		ByteBuffer header = readFully(offset, RECORD_HEADER_SIZE);
+		int keyLength = header.getInt();
+		int valueLength = header.getInt();
+		long storedAt = header.getLong();
+		if(System.currentTimeMillis() - storedAt >= timeToLiveMillis)
+		{
+			// Keep the key if it was stored again in the meantime
+			index.remove(key, offset);
+			return null;
+		}
+		
+		ByteBuffer value = readFully(offset + RECORD_HEADER_SIZE + keyLength, valueLength);
+		return new String(value.array(), 0, valueLength, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Appends the translation of the given key. Only one thread may store translations at a time.
+	 * @param key the normalized text
+	 * @param value its translation
+	 * @return true if the store grew past its capacity, and should be {@link #compact() compacted}, false otherwise
+	 */
+	boolean put(String key, String value) throws IOException
+	{
+		long offset = channel.size();
+		write(channel, offset, key, value, System.currentTimeMillis());
+		
+		// Index the record only once it is written, so that lookups never read it half-written
+		index.put(key, offset);
+		return channel.size() > capacityBytes;
+	}
+	
+	/**
+	 * Returns the number of stored translations, including expired translations that were not looked up since they expired.
+	 * @return the number of translations
+	 */
+	int size()
+	{
+		return index.size();
+	}
+	
+	/**
+	 * Returns the number of translations dropped to keep the store within its capacity.
+	 * @return the number of evictions
+	 */
+	long getEvictionCount()
+	{
+		return evictionCount;
+	}
+	
+	/**
+	 * Closes the store file, and releases its lock.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			channel.close();
+		}
+		finally
+		{
+			lockChannel.close();
+		}
+	}
+	
+	/**
+	 * Opens the store file, writing the header of a new store or indexing every intact record of an existing one.
+	 * A torn or corrupted tail, left behind by an interrupted write, is truncated.
+	 */
+	private void open() throws IOException
+	{
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		index.clear();
+		
+		long size = channel.size();
+		if(size < HEADER_SIZE)
+		{
+			channel.truncate(0);
+			writeHeader(channel);
+			return;
+		}
+		
+		// The stream shares the channel's position, and is deliberately not closed since that would close the channel
+		channel.position(0);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+		if(in.readInt() != MAGIC || in.readInt() > FORMAT_VERSION)
+		{
+			channel.close();
+			throw new IOException("Not a supported translation cache file.");
+		}
+		
+		long now = System.currentTimeMillis();
+		byte[] scratch = new byte[256];
+		long position = HEADER_SIZE;
+		while(size - position >= RECORD_HEADER_SIZE)
+		{
+			int keyLength = in.readInt();
+			int valueLength = in.readInt();
+			long storedAt = in.readLong();
+			int checksum = in.readInt();
+			
+			// Stop at a torn record
+			long length = (long) keyLength + valueLength;
+			if(keyLength < 0 || valueLength < 0 || length > size - position - RECORD_HEADER_SIZE)
+			{
+				break;
+			}
+			
+			if(scratch.length < length)
+			{
+				scratch = new byte[(int) Math.max(length, scratch.length * 2L)];
+			}
+			in.readFully(scratch, 0, (int) length);
+			
+			// Stop at a corrupted record
+			crc.reset();
+			crc.update(scratch, 0, (int) length);
+			if((int) crc.getValue() != checksum)
+			{
+				break;
+			}
+			
+			String key = new String(scratch, 0, keyLength, StandardCharsets.UTF_8);
+			if(now - storedAt < timeToLiveMillis)
+			{
+				index.put(key, position);
+			}
+			else
+			{
+				index.remove(key);
+			}
+			position += RECORD_HEADER_SIZE + length;
+		}
+		
+		channel.truncate(position);
+	}
+	
+	/**
+	 * Rewrites the store with its most recently stored translations, up to half of its capacity, dropping the rest and any expired translations.
+	 * No lookup may run while the store is compacted.
+	 */
+	void compact() throws IOException
+	{
+		long now = System.currentTimeMillis();
+		List<Map.Entry<String, Long>> records = new ArrayList<>(index.entrySet());
+		records.sort(Map.Entry.comparingByValue());
+		List<String> kept = new ArrayList<>();
+		List<String> keptValues = new ArrayList<>();
+		List<Long> keptStoredAt = new ArrayList<>();
+		
+		// Walk from the most recently stored translation, until half of the capacity is used
+		long budget = capacityBytes / 2 - HEADER_SIZE;
+		for(int i = records.size() - 1; i >= 0; i--)
+		{
+			long offset = records.get(i).getValue();
+			ByteBuffer header = readFully(offset, RECORD_HEADER_SIZE);
+			int keyLength = header.getInt();
+			int valueLength = header.getInt();
+			long storedAt = header.getLong();
+			
+			long recordSize = RECORD_HEADER_SIZE + (long) keyLength + valueLength;
+			if(recordSize > budget || now - storedAt >= timeToLiveMillis)
+			{
+				continue;
+			}
+			budget -= recordSize;
+			
+			ByteBuffer value = readFully(offset + RECORD_HEADER_SIZE + keyLength, valueLength);
+			kept.add(records.get(i).getKey());
+			keptValues.add(new String(value.array(), 0, valueLength, StandardCharsets.UTF_8));
+			keptStoredAt.add(storedAt);
+		}
+		
+		// Write the kept translations to a new file, oldest first, then swap it in
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		try
+		{
+			try(FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+			{
+				writeHeader(out);
+				for(int i = kept.size() - 1; i >= 0; i--)
+				{
+					write(out, out.size(), kept.get(i), keptValues.get(i), keptStoredAt.get(i));
+				}
+			}
+			
+			channel.close();
+			try
+			{
+				Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (IOException e)
+			{
+				Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			Files.deleteIfExists(temporary);
+			throw e;
+		}
+		
+		evictionCount += records.size() - kept.size();
+		open();
+	}
+	
+	/**
+	 * Writes a record at the given offset of the given channel.
+	 * @param target the channel to write to
+	 * @param offset the offset to write at
+	 * @param key the normalized text
+	 * @param value its translation
+	 * @param storedAt the time the translation was first stored, in milliseconds since the epoch
+	 */
+	private void write(FileChannel target, long offset, String key, String value, long storedAt) throws IOException
+	{
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+		
+		crc.reset();
+		crc.update(keyBytes);
+		crc.update(valueBytes);
+		
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + keyBytes.length + valueBytes.length)
+				.putInt(keyBytes.length)
+				.putInt(valueBytes.length)
+				.putLong(storedAt)
+				.putInt((int) crc.getValue())
+				.put(keyBytes)
+				.put(valueBytes)
+				.flip();
+		while(record.hasRemaining())
+		{
+			offset += target.write(record, offset);
+		}
+	}
+	
+	/**
+	 * Writes the store header at the start of the given channel.
+	 * @param target the channel to write to
+	 */
+	private static void writeHeader(FileChannel target) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+		while(header.hasRemaining())
+		{
+			target.write(header, HEADER_SIZE - header.remaining());
+		}
+	}
+	
+	/**
+	 * Reads the given number of bytes at the given offset of the store file.
+	 * @param offset the offset to read at
+	 * @param length the number of bytes to read
+	 * @return a heap buffer with the bytes read, positioned at its start
+	 */
+	private ByteBuffer readFully(long offset, int length) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while(buffer.hasRemaining())
+		{
+			int read = channel.read(buffer, offset + buffer.position());
+			if(read < 0)
+			{
+				throw new IOException("Unexpected end of translation cache file.");
+			}
+		}
+		return buffer.flip();
+	}
+}
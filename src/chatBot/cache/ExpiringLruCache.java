@@ -0,0 +1,148 @@
+package chatBot.cache;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The <code>ExpiringLruCache</code> class is a bounded in-memory cache, that forgets the least recently used entry once full
+ * and treats entries older than its time to live as missing.
+ * 
+ * <p>
+ * This class is not thread-safe, and is guarded by its owning {@link TranslationCache}.
+ * </p>
+ * 
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @see {@link TranslationCache}
+ * @author Mohammad Alali (Sanavesa)
+ */
+final class ExpiringLruCache<K, V>
+{
+	/** The maximum number of entries. */
+	private final int capacity;
+	
+	/** The time, in nanoseconds, after which an entry expires. */
+	private final long timeToLiveNanos;
+	
+	/** The entries, ordered from least to most recently used. */
+	private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	
+	/** The number of entries forgotten because the cache was full. */
+	private long evictionCount = 0;
+	
+	/** The number of entries forgotten because they expired. */
+	private long expirationCount = 0;
+	
+	/**
+	 * Constructs a new, empty cache.
+	 * @param capacity the maximum number of entries
+	 * @param timeToLiveNanos the time, in nanoseconds, after which an entry expires
+	 */
+	ExpiringLruCache(int capacity, long timeToLiveNanos)
+	{
+		// Validity checks
+		if(capacity <= 0)
+		{
+			throw new IllegalArgumentException("Parameter 'capacity' must be positive.");
+		}
+		if(timeToLiveNanos <= 0)
+		{
+			throw new IllegalArgumentException("Parameter 'timeToLiveNanos' must be positive.");
+		}
+		
+		this.capacity = capacity;
+		this.timeToLiveNanos = timeToLiveNanos;
+	}
+	
+	/**
+	 * Returns the value of the given key, marking it as the most recently used.
+	 * @param key the key to look up
+	 * @param nowNanos the current time, as given by {@link System#nanoTime()}
+	 * @return the value, or <code>null</code> if the key is missing or expired
+	 */
+	V get(K key, long nowNanos)
+	{
+		Entry<V> entry = entries.get(key);
+		if(entry == null)
+		{
+			return null;
+		}
+		
+		if(nowNanos - entry.createdNanos >= timeToLiveNanos)
+		{
+			entries.remove(key);
+			expirationCount++;
+			return null;
+		}
+		return entry.value;
+	}
+	
+	/**
+	 * Stores the value of the given key, forgetting the least recently used entry if the cache is full.
+	 * @param key the key
+	 * @param value the value
+	 * @param nowNanos the current time, as given by {@link System#nanoTime()}
+	 */
+	void put(K key, V value, long nowNanos)
+	{
+		// Validity checks
+		Objects.requireNonNull(key, "Parameter 'key' cannot be null.");
+		Objects.requireNonNull(value, "Parameter 'value' cannot be null.");
+		
+		entries.put(key, new Entry<>(value, nowNanos));
+		if(entries.size() > capacity)
+		{
+			Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+			eldest.next();
+			eldest.remove();
+			evictionCount++;
+		}
+	}
+	
+	/**
+	 * Returns the number of entries, including expired entries that were not looked up since they expired.
+	 * @return the number of entries
+	 */
+	int size()
+	{
+		return entries.size();
+	}
+	
+	/**
+	 * Returns the number of entries forgotten because the cache was full.
+	 * @return the number of evictions
+	 */
+	long getEvictionCount()
+	{
+		return evictionCount;
+	}
+	
+	/**
+	 * Returns the number of entries forgotten because they expired.
+	 * @return the number of expirations
+	 */
+	long getExpirationCount()
+	{
+		return expirationCount;
+	}
+	
+	/**
+	 * A cached value along with the time it was stored.
+	 * @param <V> the type of the value
+	 */
+	private static final class Entry<V>
+	{
+		/** The cached value. */
+		private final V value;
+		
+		/** The time the value was stored, as given by {@link System#nanoTime()}. */
+		private final long createdNanos;
+		
+		private Entry(V value, long createdNanos)
+		{
+			this.value = value;
+			this.createdNanos = createdNanos;
+		}
+	}
+}
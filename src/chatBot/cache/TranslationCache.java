@@ -0,0 +1,407 @@
+package chatBot.cache;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The <code>TranslationCache</code> class remembers the replies of a remote service, so that it is only asked about texts it has not seen before.
+ * 
+ * <p>
+ * The cache has two tiers:
+ * <ul>
+ * <li><b>memory</b> - a bounded, least recently used cache whose entries expire after a time to live</li>
+ * <li><b>disk</b> - an optional, size-bounded append-only file that survives restarts, and refills the memory tier on a hit</li>
+ * </ul>
+ * Keys are {@link #normalize(String) normalized}, so texts that only differ in whitespace share an entry.
+ * </p>
+ * 
+ * <p>
+ * The cache is thread-safe. Only the memory tier is guarded by the cache's monitor. Writes to the disk tier, and its compactions, are done
+ * by a single background writer. Lookups read the disk tier at the same time as each other and as the writer appends to it, and only while
+ * the writer compacts it is a lookup answered by the memory tier alone, rather than waiting for the compaction.
+ * If the disk tier fails, the error is reported and the cache carries on with its memory tier only.
+ * </p>
+ * 
+ * <p>
+ * The file of the disk tier is locked while the cache is open, so if another process already has it open, the constructor fails
+ * and the caller may fall back to a cache kept in memory only.
+ * </p>
+ * 
+ * @see {@link CacheStatistics}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class TranslationCache implements Closeable
+{
+	/** The default maximum number of entries in the memory tier. */
+	public static final int DEFAULT_MEMORY_CAPACITY = 10_000;
+	
+	/** The default time, in milliseconds, after which an entry of the memory tier expires. */
+	public static final long DEFAULT_MEMORY_TIME_TO_LIVE_MILLIS = TimeUnit.HOURS.toMillis(1);
+	
+	/** The default maximum size, in bytes, of the disk tier. */
+	public static final long DEFAULT_DISK_CAPACITY_BYTES = 64L << 20;
+	
+	/** The default time, in milliseconds, after which an entry of the disk tier expires. */
+	public static final long DEFAULT_DISK_TIME_TO_LIVE_MILLIS = TimeUnit.DAYS.toMillis(30);
+	
+	/** The memory tier. Guarded by this cache's monitor. */
+	private final ExpiringLruCache<String, String> memory;
+	
+	/**
+	 * Guards the {@link #disk} tier. Lookups and appends share its read lock, which lookups only try to take,
+	 * while compacting, closing or giving up on the disk tier takes its write lock.
+	 */
+	private final ReadWriteLock diskLock = new ReentrantReadWriteLock();
+	
+	/** The disk tier, or <code>null</code> if the cache is kept in memory only. Only set to <code>null</code> while holding the write lock of {@link #diskLock}. */
+	private volatile DiskTranslationStore disk;
+	
+	/** Writes to the disk tier in the background, or <code>null</code> if the cache is kept in memory only. */
+	private final ExecutorService diskWriter;
+	
+	/** The number of lookups answered by the memory tier. */
+	private final AtomicLong memoryHitCount = new AtomicLong();
+	
+	/** The number of lookups answered by the disk tier. */
+	private final AtomicLong diskHitCount = new AtomicLong();
+	
+	/** The number of lookups answered by neither tier. */
+	private final AtomicLong missCount = new AtomicLong();
+	
+	/**
+	 * Constructs a new cache, kept in memory only.
+	 * @param memoryCapacity the maximum number of entries
+	 * @param memoryTimeToLiveMillis the time, in milliseconds, after which an entry expires
+	 */
+	public TranslationCache(int memoryCapacity, long memoryTimeToLiveMillis)
+	{
+		memory = new ExpiringLruCache<>(memoryCapacity, TimeUnit.MILLISECONDS.toNanos(memoryTimeToLiveMillis));
+		disk = null;
+		diskWriter = null;
+	}
+	
+	/**
+	 * Constructs a new cache, backed by the specified file. The entries already in the file are available right away.
+	 * @param memoryCapacity the maximum number of entries in the memory tier
+	 * @param memoryTimeToLiveMillis the time, in milliseconds, after which an entry of the memory tier expires
+	 * @param diskPath the file of the disk tier, created along with its directory if it does not exist
+	 * @param diskCapacityBytes the maximum size, in bytes, of the disk tier
+	 * @param diskTimeToLiveMillis the time, in milliseconds, after which an entry of the disk tier expires
+	 * @throws IOException if the file cannot be opened, or is locked by another process
+	 */
+	public TranslationCache(int memoryCapacity, long memoryTimeToLiveMillis, Path diskPath, long diskCapacityBytes, long diskTimeToLiveMillis) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(diskPath, "Parameter 'diskPath' cannot be null.");
+		
+		memory = new ExpiringLruCache<>(memoryCapacity, TimeUnit.MILLISECONDS.toNanos(memoryTimeToLiveMillis));
+		disk = new DiskTranslationStore(diskPath, diskCapacityBytes, diskTimeToLiveMillis);
+		diskWriter = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("translation-cache-writer").daemon().factory());
+	}
+	
+	/**
+	 * Normalizes a text into a cache key, by composing its unicode characters, trimming it and collapsing runs of whitespace into single spaces.
+	 * @param text the text to normalize
+	 * @return the normalized key
+	 */
+	public static String normalize(String text)
+	{
+		// Validity checks
+		Objects.requireNonNull(text, "Parameter 'text' cannot be null.");
+		
+		String composed = Normalizer.normalize(text, Normalizer.Form.NFC);
+		StringBuilder key = new StringBuilder(composed.length());
+		boolean isPendingSpace = false;
+		for(int i = 0; i < composed.length(); i++)
+		{
+			char c = composed.charAt(i);
+			if(Character.isWhitespace(c))
+			{
+				isPendingSpace = key.length() > 0;
+				continue;
+			}
+			if(isPendingSpace)
+			{
+				key.append(' ');
+				isPendingSpace = false;
+			}
+			key.append(c);
+		}
+		return key.toString();
+	}
+	
+	/**
+	 * Returns the cached reply for the given key, looking at the memory tier first, then at the disk tier.
+	 * The disk tier is skipped while the background writer compacts it, rather than waiting for the compaction.
+	 * @param key a key returned by {@link #normalize(String)}
+	 * @return the cached reply, or <code>null</code> if it is not cached
+	 */
+	public String get(String key)
+	{
+		// Validity checks
+		Objects.requireNonNull(key, "Parameter 'key' cannot be null.");
+		
+		long now = System.nanoTime();
+		String value;
+		synchronized(this)
+		{
+			value = memory.get(key, now);
+		}
+		if(value != null)
+		{
+			memoryHitCount.incrementAndGet();
+			return value;
+		}
+		
+		DiskTranslationStore store = disk;
+		if(store != null && diskLock.readLock().tryLock())
+		{
+			IOException failure = null;
+			try
+			{
+				if(disk == store)
+				{
+					value = store.get(key);
+				}
+			}
+			catch (IOException e)
+			{
+				failure = e;
+			}
+			finally
+			{
+				diskLock.readLock().unlock();
+			}
+			if(failure != null)
+			{
+				disableDisk(store, failure);
+			}
+			
+			// Refill the memory tier, so the next lookup does not touch the disk
+			if(value != null)
+			{
+				diskHitCount.incrementAndGet();
+				synchronized(this)
+				{
+					memory.put(key, value, now);
+				}
+				return value;
+			}
+		}
+		
+		missCount.incrementAndGet();
+		return null;
+	}
+	
+	/**
+	 * Caches the reply for the given key in the memory tier right away, and in the disk tier in the background.
+	 * @param key a key returned by {@link #normalize(String)}
+	 * @param value the reply to cache
+	 */
+	public void put(String key, String value)
+	{
+		// Validity checks
+		Objects.requireNonNull(key, "Parameter 'key' cannot be null.");
+		Objects.requireNonNull(value, "Parameter 'value' cannot be null.");
+		
+		synchronized(this)
+		{
+			memory.put(key, value, System.nanoTime());
+		}
+		if(disk != null && !diskWriter.isShutdown())
+		{
+			try
+			{
+				diskWriter.execute(() -> writeToDisk(key, value));
+			}
+			catch (RejectedExecutionException e)
+			{
+				// The cache was closed in the meantime, and keeps the reply in its memory tier only
+			}
+		}
+	}
+	
+	/**
+	 * Waits until every reply cached so far has been written to the disk tier.
+	 */
+	public void flush()
+	{
+		if(diskWriter == null || diskWriter.isShutdown())
+		{
+			return;
+		}
+		
+		try
+		{
+			diskWriter.submit(() -> {}).get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException | RejectedExecutionException e)
+		{
+			// The writer reports its own failures, and a closed cache has nothing left to write
+		}
+	}
+	
+	/**
+	 * Returns a snapshot of the cache's counters.
+	 * @return the cache statistics
+	 */
+	public CacheStatistics getStatistics()
+	{
+		long memoryEvictionCount;
+		long expirationCount;
+		int memorySize;
+		synchronized(this)
+		{
+			memoryEvictionCount = memory.getEvictionCount();
+			expirationCount = memory.getExpirationCount();
+			memorySize = memory.size();
+		}
+		
+		DiskTranslationStore store = disk;
+		long evictionCount = memoryEvictionCount + (store != null ? store.getEvictionCount() : 0);
+		return new CacheStatistics(memoryHitCount.get(), diskHitCount.get(), missCount.get(), evictionCount, expirationCount,
+				memorySize, store != null ? store.size() : 0);
+	}
+	
+	/**
+	 * Writes the pending replies to the disk tier, then closes it. The cache keeps working from its memory tier.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if(diskWriter != null)
+		{
+			diskWriter.shutdown();
+			try
+			{
+				diskWriter.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		diskLock.writeLock().lock();
+		try
+		{
+			if(disk != null)
+			{
+				DiskTranslationStore closing = disk;
+				disk = null;
+				closing.close();
+			}
+		}
+		finally
+		{
+			diskLock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Appends a reply to the disk tier, compacting it if it grew past its capacity. Only called by the {@link #diskWriter}.
+	 * @param key the normalized text
+	 * @param value the reply
+	 */
+	private void writeToDisk(String key, String value)
+	{
+		DiskTranslationStore store = disk;
+		if(store == null)
+		{
+			return;
+		}
+		
+		// Append alongside the lookups
+		boolean isFull = false;
+		IOException failure = null;
+		diskLock.readLock().lock();
+		try
+		{
+			if(disk == store)
+			{
+				isFull = store.put(key, value);
+			}
+		}
+		catch (IOException e)
+		{
+			failure = e;
+		}
+		finally
+		{
+			diskLock.readLock().unlock();
+		}
+		
+		// Compact with the disk tier to itself, since compacting replaces its file
+		if(isFull)
+		{
+			diskLock.writeLock().lock();
+			try
+			{
+				if(disk == store)
+				{
+					store.compact();
+				}
+			}
+			catch (IOException e)
+			{
+				failure = e;
+			}
+			finally
+			{
+				diskLock.writeLock().unlock();
+			}
+		}
+		
+		if(failure != null)
+		{
+			disableDisk(store, failure);
+		}
+	}
+	
+	/**
+	 * Reports a failure of the disk tier, and stops using it. Must not hold the {@link #diskLock}.
+	 * @param store the disk tier that failed
+	 * @param e the failure
+	 */
+	private void disableDisk(DiskTranslationStore store, IOException e)
+	{
+		diskLock.writeLock().lock();
+		try
+		{
+			// Another thread may have given up on it already
+			if(disk != store)
+			{
+				return;
+			}
+			
+			System.err.println("Translation cache disk tier failed, continuing in memory only: " + e.getMessage());
+			disk = null;
+			try
+			{
+				store.close();
+			}
+			catch (IOException closeException)
+			{
+				// The error was already reported
+			}
+		}
+		finally
+		{
+			diskLock.writeLock().unlock();
+		}
+	}
+}
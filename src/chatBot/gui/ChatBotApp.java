@@ -1,25 +1,47 @@
 package chatBot.gui;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import chatBot.bots.BabyYodaBot;
 import chatBot.bots.ChatBot;
+import chatBot.bots.ChatBotRegistry;
+import chatBot.bots.ChatBots;
 import chatBot.bots.ParrotBot;
-import chatBot.bots.RandomBot;
-import chatBot.bots.EchoBot;
+import chatBot.metrics.ChatBotStatistics;
+import chatBot.metrics.InstrumentedChatBot;
+import chatBot.persistence.JournalSyncPolicy;
+import chatBot.persistence.PhraseJournal;
+import chatBot.persistence.TranscriptEntry;
+import chatBot.persistence.TranscriptEntryKind;
+import chatBot.persistence.TranscriptLog;
+import chatBot.persistence.TranscriptPage;
+import chatBot.scheduling.TimerWheel;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.CheckMenuItem;
+import javafx.scene.control.Label;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
@@ -28,10 +50,13 @@ import javafx.scene.control.SeparatorMenuItem;
 import javafx.scene.control.ToggleGroup;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.StackPane;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 /**
  * 
@@ -53,35 +78,67 @@ public class ChatBotApp extends Application
 	public static final String USER_IMAGE_PATH = "res/UserIcon.png";
 	
 	/** The minimum duration, in milliseconds, to wait between messages to add realism. */
-	public static final int CHAT_BOT_MIN_DELAY = 500;
+	public static final int CHAT_BOT_MIN_DELAY = ChatBots.MIN_REPLY_DELAY;
 	
 	/** The maximum duration, in milliseconds, to wait between messages to add realism. */
-	public static final int CHAT_BOT_MAX_DELAY = 1500;
+	public static final int CHAT_BOT_MAX_DELAY = ChatBots.MAX_REPLY_DELAY;
 	
-	/** The available chat bots that the user can select. */
-	public static final List<Class<? extends ChatBot>> AVAILABLE_CHATBOTS = List.of(
-			ParrotBot.class,
-			EchoBot.class,
-			RandomBot.class,
-			BabyYodaBot.class);
+	/** The duration, in seconds, that the thread of a chat bot's own reply executor is kept once it has nothing left to do. */
+	public static final int SERIAL_REPLY_KEEP_ALIVE_SECONDS = 60;
 	
-	/** The executor is used to call methods after a period of time on another thread (its used to simulate delay between the bot's responses). */
-	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+	/** The duration, in milliseconds, between refreshes of the stats overlay while it is shown. */
+	public static final int STATS_REFRESH_MILLIS = 500;
+	
+	/** The snapshot file that the parrot's memory is kept in with <code>--remember-parrot</code>, next to which its journal is kept. */
+	public static final Path PARROT_SNAPSHOT_PATH = Path.of(System.getProperty("user.home"), ".parrotai", "parrot.chatbot");
+	
+	/** The available chat bots that the user can select, shared with the headless chat server through {@link ChatBots}. */
+	public static final List<Class<? extends ChatBot>> AVAILABLE_CHATBOTS = ChatBots.AVAILABLE_CHATBOTS;
+	
+	/** The timer wheel is used to call methods after a period of time on another thread (its used to simulate delay between the bot's responses). */
+	private final TimerWheel replyScheduler = new TimerWheel();
+	
+	/** The executor used to compute the replies of thread-safe chat bots, so that slow chat bots never block the JavaFX thread or the {@link #replyScheduler}. */
+	private final ExecutorService replyExecutor = Executors.newCachedThreadPool();
 	
 	/**
-	 * A list used by the {@link #executor} of any pending tasks that haven't finished.
+	 * The executors used to compute the replies of the chat bots that are not thread-safe, one per chat bot, each running one task at a time.
+	 * A chat bot's executor holds no thread while it is idle, and is dropped along with the chat bot. Only used on the JavaFX thread.
+	 */
+	private final Map<ChatBot, ExecutorService> serialReplyExecutors = new WeakHashMap<>();
+	
+	/**
+	 * The group of the {@link #replyScheduler}'s pending replies.
 	 * Specifically, this exists so that when the user types to the bot and is awaiting a response,
 	 * and in the meantime, changes the bot to something else, then the first bot will reply.
-	 * To combat this bug, we store all scheduled tasks, and when the chat bot has changed, all of those tasks are suspended.
+	 * To combat this bug, all replies are scheduled in this group, and when the chat bot has changed, the whole group is cancelled at once.
 	 * */
-	private final List<ScheduledFuture<?>> executorScheduledTasks = new ArrayList<>();
+	private final TimerWheel.Group pendingReplies = replyScheduler.newGroup();
 	
 	/** This boolean property holds whether or not the bot is typing, to add realism between responses. */
 	private final BooleanProperty isBotTyping = new SimpleBooleanProperty(false);
 	
-	/** The chatbot that the application is using. Will start with the first chatbot in {@link #AVAILABLE_CHATBOTS} */
+	/** Hands out the chat bots that the user switches between, keeping each one warm so that it resumes where it was left. */
+	private final ChatBotRegistry chatBotRegistry = new ChatBotRegistry();
+	
+	/** The transcript of every conversation, so that the last one is shown again on the next start. Is <code>null</code> if it could not be opened. */
+	private TranscriptLog transcript;
+	
+	/** The oldest page of the current conversation shown in the chat box, or <code>null</code> if none was read from the {@link #transcript}. */
+	private TranscriptPage oldestShownPage;
+	
+	/** Whether or not the page before {@link #oldestShownPage} is being read, so that it is only read once. */
+	private boolean isLoadingOlderMessages = false;
+	
+	/** The parrot whose memory is journaled to {@link #PARROT_SNAPSHOT_PATH}, or <code>null</code> if it is not kept. */
+	private ParrotBot rememberedParrot;
+	
+	/** The chatbot that the application is using. Will start with the chatbot of the last conversation, or the first chatbot in {@link #AVAILABLE_CHATBOTS} */
 	private ChatBot chatBot;
 	
+	/** The {@link #chatBot} wrapped to record its reply latencies, which the stats overlay shows. Replies are always asked of this one. */
+	private InstrumentedChatBot instrumentedChatBot;
+	
 	/** The image of the bot, loaded in run-time. */
 	private Image botImage;
 	
@@ -91,9 +148,21 @@ public class ChatBotApp extends Application
 	/** The chat box used in the app, created in run-time. */
 	private ChatBox chatBox;
 
+	/** The search bar above the chat box, created the first time it is asked for. */
+	private SearchBar searchBar;
+
 	/** The typing notification used for the bot. It is used in conjunction with {@link #isBotTyping} to show 'Bot is typing...'. Created in run-time. */
 	private TypingNotificationMessage botTypingNotification;
 
+	/** The stats overlay shown over the chat box, created in run-time. */
+	private Label statsLabel;
+
+	/** Refreshes the {@link #statsLabel} while it is shown, created in run-time. */
+	private Timeline statsRefresher;
+
+	/** The only menu of the menu bar, whose items are only created once the window is shown. */
+	private Menu chatBotMenu;
+
 	/** The root node of the application, created in run-time. */
 	private BorderPane root;
 
@@ -109,6 +178,8 @@ public class ChatBotApp extends Application
 	@Override
 	public void start(Stage stage) throws Exception
 	{
+		StartupTimer.mark("Launch JavaFX");
+		
 		// Validation check
 		Objects.requireNonNull(APP_STYLESHEET_PATH, "The 'APP_STYLESHEET' constant in ParrotApp cannot be a null value.");
 		Objects.requireNonNull(USER_IMAGE_PATH, "The 'USER_IMAGE_PATH' constant in ParrotApp cannot be a null value.");
@@ -119,12 +190,26 @@ public class ChatBotApp extends Application
 		root = new BorderPane();
 		scene = new Scene(root);
 		
-		// Create the chatbot
-		chatBot = AVAILABLE_CHATBOTS.get(0).getConstructor().newInstance();
+		// Open the transcript, and find the chat bot of the last conversation, which is only available if the transcript is
+		transcript = openTranscript();
+		Class<? extends ChatBot> lastChatBotClass = findLastChatBot();
+		StartupTimer.mark("Open transcript");
+		
+		// Load the parrot with everything it learned in previous runs, if asked to keep its memory
+		if(getParameters().getRaw().contains("--remember-parrot"))
+		{
+			rememberParrot();
+			StartupTimer.mark("Recover parrot");
+		}
+		
+		// Create the chatbot, resuming the last conversation's if there was one
+		chatBot = chatBotRegistry.get(lastChatBotClass != null ? lastChatBotClass : AVAILABLE_CHATBOTS.get(0));
+		instrumentedChatBot = new InstrumentedChatBot(chatBot);
+		StartupTimer.mark("Create chat bot");
 		
-		// Load the images of the user and the bot
-		userImage = new Image(USER_IMAGE_PATH);
-		botImage = new Image(chatBot.getImagePath());
+		// Load the avatars of the user and the bot in the background, so that the window shows without waiting on them
+		userImage = IconCache.getAvatar(USER_IMAGE_PATH);
+		botImage = IconCache.getAvatar(chatBot.getImagePath());
 		
 		// Create a chatbox
 		chatBox = new ChatBox();
@@ -132,33 +217,117 @@ public class ChatBotApp extends Application
 		// Hook the function for when the sends a message
 		chatBox.setOnSend(message -> onUserSentMessage(message));
 		
+		// Load older messages of the conversation once the user scrolls up to the first one shown
+		chatBox.setOnScrolledToTop(() -> loadOlderMessages());
+		
+		// Show the end of the last conversation again, or start a new one
+		if(lastChatBotClass != null)
+		{
+			showLastTranscriptPage();
+		}
+		else
+		{
+			startTranscriptConversation();
+		}
+		
 		// Add a typing notification for the bot to add character :)
 		botTypingNotification = new TypingNotificationMessage(ChatMessagePosition.Left, chatBot.getName() + " is typing...", botImage);
-		chatBox.getScrollPaneContent().getChildren().add(botTypingNotification);
+		chatBox.getTranscriptContent().getChildren().add(botTypingNotification);
 		
 		// Style the 'X is typing' and make automatically hide when the parrot is not answering/typing
 		botTypingNotification.setLabelCSSId("label_chatbot");
+		botTypingNotification.bindMessageMaxWidth(chatBox.messageMaxWidthProperty());
 		botTypingNotification.visibleProperty().bind(isBotTyping);
 		botTypingNotification.managedProperty().bind(isBotTyping);
 		
-		// Create a top menu bar to use for the app
+		// Create a stats overlay in the top right corner of the chat box, hidden until asked for, that lets clicks through to the chat
+		statsLabel = new Label();
+		statsLabel.setId("label_stats");
+		statsLabel.setMouseTransparent(true);
+		statsLabel.setVisible(false);
+		StackPane.setAlignment(statsLabel, Pos.TOP_RIGHT);
+		statsRefresher = new Timeline(new KeyFrame(Duration.millis(STATS_REFRESH_MILLIS), e -> updateStats()));
+		statsRefresher.setCycleCount(Animation.INDEFINITE);
+		StartupTimer.mark("Build chat box");
+		
+		// Create a top menu bar to use for the app, whose menu is only filled in once the window is shown
 		MenuBar menuBar = createAppMenuBar();
 		
 		// Finalizes the styling and layout of the application
-		root.setCenter(chatBox);
+		root.setCenter(new StackPane(chatBox, statsLabel));
 		root.setTop(menuBar);
 		scene.getStylesheets().add(APP_STYLESHEET_PATH);
 		
-		// Setup and show the stage/window
+		// Setup the stage/window, whose icon is only loaded once it is shown
 		stage.setMinWidth(APP_MIN_WIDTH);
 		stage.setMinHeight(APP_MIN_HEIGHT);
 		stage.setScene(scene);
 		stage.setTitle(chatBot.getName() +  " AI");
-		stage.getIcons().add(botImage);
-		stage.setOnCloseRequest(e -> executor.shutdown());
+		StartupTimer.mark("Build scene");
+		
+		// Finish starting up right after the first frame is laid out, so that the window is drawn before anything that can wait
+		scene.addPostLayoutPulseListener(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				scene.removePostLayoutPulseListener(this);
+				StartupTimer.mark("Lay out first frame");
+				Platform.runLater(() -> finishStartup());
+			}
+		});
 		
 		// Show the stage, no code can be written after this point.
 		stage.show();
+		StartupTimer.mark("Show window");
+	}
+	
+	/**
+	 * Finishes starting up once the window is shown, creating what the user cannot see or use right away: the items of the menu, and the window icon.
+	 * 
+	 * <p>
+	 * With <code>--startup-report</code>, the time of each phase of startup is then printed, and with <code>--exit-after-startup</code> the application exits,
+	 * such as to create a class data sharing archive of every class that startup loads.
+	 * </p>
+	 * 
+	 * @see {@link StartupTimer}
+	 */
+	private void finishStartup()
+	{
+		// Create the items of the menu, which loads every available chat bot class and decodes the menu icons
+		fillChatBotMenu();
+		StartupTimer.mark("Build menus");
+		
+		// Load the window icon
+		stage.getIcons().setAll(IconCache.getImage(chatBot.getImagePath()));
+		StartupTimer.mark("Load window icon");
+		
+		// Report the startup timing, and exit, if asked to
+		List<String> arguments = getParameters().getRaw();
+		if(arguments.contains("--startup-report"))
+		{
+			StartupTimer.printReport();
+		}
+		if(arguments.contains("--exit-after-startup"))
+		{
+			Platform.exit();
+		}
+	}
+	
+	/**
+	 * Called when the application exits, whether the window was closed or {@link Platform#exit()} was called.
+	 * Stops the timers and threads of the application, and closes the transcript and the translation cache.
+	 */
+	@Override
+	public void stop()
+	{
+		statsRefresher.stop();
+		replyScheduler.stop();
+		replyExecutor.shutdownNow();
+		serialReplyExecutors.values().forEach(ExecutorService::shutdownNow);
+		closeTranscript();
+		forgetParrot();
+		BabyYodaBot.closeSharedCache();
 	}
 	
 	/**
@@ -172,9 +341,8 @@ public class ChatBotApp extends Application
 	private void onUserSentMessage(String message)
 	{
 		// Add the user's message
-		ChatMessage userMessage = new ChatMessage(ChatMessagePosition.Right, message, userImage);
-		userMessage.setLabelCSSId("label_user");
-		chatBox.addMessage(userMessage);
+		chatBox.addMessage(new ChatMessageData(ChatMessagePosition.Right, message, userImage, "label_user"));
+		appendToTranscript(TranscriptEntryKind.User, message);
 		
 		// ChatBot response will have a small time delay (0.5-1.5s)
 		long delay = (long) (CHAT_BOT_MIN_DELAY + Math.random() * (CHAT_BOT_MAX_DELAY - CHAT_BOT_MIN_DELAY));
@@ -182,30 +350,62 @@ public class ChatBotApp extends Application
 		// Show the 'X is typing' notification
 		isBotTyping.set(true);
 		
+		// Remember which chat bot is replying, so that a late reply is dropped if the chat bot has changed in the meantime.
+		// The instrumented chat bot is new on every change, so a reply is dropped even if the user has switched back to the same warm chat bot.
+		InstrumentedChatBot replyingChatBot = instrumentedChatBot;
+		Image replyingBotImage = botImage;
+		ExecutorService executor = getReplyExecutor(chatBot);
+		
 		// Run a function after some delay to add the ChatBot's reponse
-		ScheduledFuture<?> future = executor.schedule(() ->
+		pendingReplies.schedule(() ->
 		{
-			// Hide the 'X is typing' notification
-			isBotTyping.set(false);
-			
-			// Platform.runLater is needed since we are accessing JavaFX from another thread
-			Platform.runLater(() ->
+			// Retrieve a reply from the ChatBot's AI on a worker thread, since it may block (e.g. network requests)
+			replyingChatBot.getReplyAsync(message, executor).whenComplete((reply, error) ->
 			{
-				// Retrieve a reply from the ChatBot's AI
-				String reply = chatBot.getReply(message);
-				
-				// Add the ChatBot's reply message
-				ChatMessage botMessage = new ChatMessage(ChatMessagePosition.Left, reply, botImage);
-				botMessage.setLabelCSSId("label_chatbot");
-				chatBox.addMessage(botMessage);
+				// Platform.runLater is needed since we are accessing JavaFX from another thread
+				Platform.runLater(() ->
+				{
+					// Drop the reply if the user has switched to another chat bot while it was being computed
+					if(replyingChatBot != instrumentedChatBot)
+					{
+						return;
+					}
+					
+					// Hide the 'X is typing' notification, whether or not the chat bot managed to reply
+					isBotTyping.set(false);
+					
+					// Show that the chat bot failed to reply instead of leaving the message unanswered, without keeping it in the transcript
+					if(error != null)
+					{
+						Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+						System.err.println("Failed to get a reply from " + replyingChatBot.getName() + ". Reason: " + cause);
+						chatBox.addMessage(new ChatMessageData(ChatMessagePosition.Left, replyingChatBot.getName() + " failed to reply: " + cause.getMessage(), replyingBotImage, "label_chatbot"));
+						return;
+					}
+					
+					// Add the ChatBot's reply message
+					chatBox.addMessage(new ChatMessageData(ChatMessagePosition.Left, reply, replyingBotImage, "label_chatbot"));
+					appendToTranscript(TranscriptEntryKind.ChatBot, reply);
+				});
 			});
 		}, delay, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Returns the executor that computes the specified chat bot's replies: the shared {@link #replyExecutor} if the chat bot is thread-safe,
+	 * otherwise the chat bot's own, which runs one task at a time so that no two replies, or a reply and a save, ever overlap.
+	 * @param chatBot the chat bot
+	 * @return the executor
+	 */
+	private ExecutorService getReplyExecutor(ChatBot chatBot)
+	{
+		if(chatBot.isThreadSafe())
+		{
+			return replyExecutor;
+		}
 		
-		// Add it to the scheduled tasks
-		executorScheduledTasks.add(future);
-		
-		// Also, filter out all completed schedules
-		executorScheduledTasks.removeIf(task -> task.isDone());
+		return serialReplyExecutors.computeIfAbsent(chatBot, key -> new ThreadPoolExecutor(0, 1, SERIAL_REPLY_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), Thread.ofPlatform().name("chat-bot-replies").daemon().factory()));
 	}
 	
 	/***
@@ -221,11 +421,16 @@ public class ChatBotApp extends Application
 	 */
 	private void onChatBotChanged()
 	{
-		// Clear chat
+		// Clear chat, and start a new conversation in the transcript
 		chatBox.clearMessages();
+		startTranscriptConversation();
+		
+		// Record the new bot's replies, and show its stats right away
+		instrumentedChatBot = new InstrumentedChatBot(chatBot);
+		updateStats();
 		
-		// Reload the bot image
-		botImage = new Image(chatBot.getImagePath());
+		// Reload the bot avatar, which is only decoded the first time
+		botImage = IconCache.getAvatar(chatBot.getImagePath());
 		
 		// Adjust the message of the bot is typing notification
 		isBotTyping.set(false);
@@ -234,14 +439,278 @@ public class ChatBotApp extends Application
 		
 		// Modify the stage title and icon to match the name of the loaded bot
 		stage.setTitle(chatBot.getName() + " AI");
-		stage.getIcons().set(0, botImage);
+		stage.getIcons().setAll(IconCache.getImage(chatBot.getImagePath()));
 		
-		// Reset the executor incase we had pending messages coming from the chat bot
-		for(ScheduledFuture<?> future : executorScheduledTasks)
+		// Cancel all pending replies incase we had pending messages coming from the chat bot
+		pendingReplies.cancelAll();
+	}
+	
+	/**
+	 * Recovers the parrot from {@link #PARROT_SNAPSHOT_PATH} and its journal, and hands it out as the parrot, journaling every phrase it learns from now on.
+	 * If that fails, the error is reported and the parrot starts with an empty memory, as usual.
+	 */
+	private void rememberParrot()
+	{
+		try
 		{
-			future.cancel(true);
+			Files.createDirectories(PARROT_SNAPSHOT_PATH.getParent());
+			rememberedParrot = ParrotBot.recover(PARROT_SNAPSHOT_PATH, JournalSyncPolicy.Periodic, PhraseJournal.DEFAULT_COMPACTION_THRESHOLD);
+			chatBotRegistry.put(rememberedParrot);
+		}
+		catch (IOException e)
+		{
+			System.err.println("Failed to recover the parrot's memory, it will not be kept. Reason: " + e.getMessage());
+			rememberedParrot = null;
 		}
-		executorScheduledTasks.clear();
+	}
+	
+	/**
+	 * Writes the rest of the parrot's journal to disk and stops journaling, if its memory is kept.
+	 */
+	private void forgetParrot()
+	{
+		if(rememberedParrot == null)
+		{
+			return;
+		}
+		
+		try
+		{
+			rememberedParrot.closeJournal();
+		}
+		catch (IOException e)
+		{
+			System.err.println("Failed to write the parrot's memory. Reason: " + e.getMessage());
+		}
+		rememberedParrot = null;
+	}
+	
+	/**
+	 * Opens the transcript at {@link TranscriptLog#DEFAULT_PATH}.
+	 * @return the transcript, or <code>null</code> if it could not be opened, in which case conversations are not kept
+	 */
+	private TranscriptLog openTranscript()
+	{
+		try
+		{
+			return new TranscriptLog(TranscriptLog.DEFAULT_PATH);
+		}
+		catch (IOException e)
+		{
+			System.err.println("Failed to open the transcript, conversations will not be kept. Reason: " + e.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * Finds the chat bot of the last conversation in the transcript.
+	 * @return the chat bot class, or <code>null</code> if there is no conversation or its chat bot is no longer available
+	 */
+	private Class<? extends ChatBot> findLastChatBot()
+	{
+		if(transcript == null)
+		{
+			return null;
+		}
+		
+		try
+		{
+			String name = transcript.getLastChatBotName();
+			return name != null ? ChatBots.find(name) : null;
+		}
+		catch (IOException e)
+		{
+			System.err.println("Failed to read the transcript. Reason: " + e.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * Shows the last page of the last conversation in the transcript, leaving the older pages to {@link #loadOlderMessages()}.
+	 */
+	private void showLastTranscriptPage()
+	{
+		try
+		{
+			oldestShownPage = transcript.readLastPage();
+		}
+		catch (IOException e)
+		{
+			System.err.println("Failed to read the transcript. Reason: " + e.getMessage());
+			oldestShownPage = null;
+		}
+		
+		if(oldestShownPage != null)
+		{
+			for(ChatMessageData message : toMessages(oldestShownPage))
+			{
+				chatBox.addMessage(message);
+			}
+		}
+	}
+	
+	/**
+	 * Reads the page of the current conversation before the oldest one shown, in the background, then adds its messages above the others.
+	 * Does nothing if that page is already being read, or if the whole conversation is shown.
+	 */
+	private void loadOlderMessages()
+	{
+		if(transcript == null || oldestShownPage == null || !oldestShownPage.hasOlder() || isLoadingOlderMessages)
+		{
+			return;
+		}
+		isLoadingOlderMessages = true;
+		
+		TranscriptLog readTranscript = transcript;
+		TranscriptPage page = oldestShownPage;
+		replyExecutor.execute(() ->
+		{
+			TranscriptPage olderPage = null;
+			try
+			{
+				olderPage = readTranscript.readPageBefore(page);
+			}
+			catch (IOException e)
+			{
+				System.err.println("Failed to read older messages from the transcript. Reason: " + e.getMessage());
+			}
+			
+			TranscriptPage loadedPage = olderPage;
+			Platform.runLater(() ->
+			{
+				isLoadingOlderMessages = false;
+				
+				// Drop the page if the chat was cleared or the chat bot changed while it was being read
+				if(oldestShownPage != page)
+				{
+					return;
+				}
+				
+				oldestShownPage = loadedPage;
+				if(loadedPage != null)
+				{
+					chatBox.addOlderMessages(toMessages(loadedPage));
+				}
+			});
+		});
+	}
+	
+	/**
+	 * Converts the entries of a transcript page to chat messages, shown with the current user and bot avatars.
+	 * @param page the transcript page
+	 * @return the chat messages, from the oldest to the newest
+	 */
+	private List<ChatMessageData> toMessages(TranscriptPage page)
+	{
+		List<ChatMessageData> messages = new ArrayList<>(page.getEntries().size());
+		for(TranscriptEntry entry : page.getEntries())
+		{
+			if(entry.getKind() == TranscriptEntryKind.User)
+			{
+				messages.add(new ChatMessageData(ChatMessagePosition.Right, entry.getText(), userImage, "label_user"));
+			}
+			else
+			{
+				messages.add(new ChatMessageData(ChatMessagePosition.Left, entry.getText(), botImage, "label_chatbot"));
+			}
+		}
+		return messages;
+	}
+	
+	/**
+	 * Starts a new conversation with the current chat bot in the transcript, so that the messages shown before are no longer loaded.
+	 */
+	private void startTranscriptConversation()
+	{
+		oldestShownPage = null;
+		appendToTranscript(TranscriptEntryKind.ConversationStart, chatBot.getClass().getSimpleName());
+	}
+	
+	/**
+	 * Appends an entry to the transcript, if there is one. If that fails, the transcript is closed and no longer kept.
+	 * @param kind the kind of the entry
+	 * @param text the message, or the chat bot's simple class name for the start of a conversation
+	 */
+	private void appendToTranscript(TranscriptEntryKind kind, String text)
+	{
+		if(transcript == null)
+		{
+			return;
+		}
+		
+		try
+		{
+			transcript.append(kind, text);
+		}
+		catch (IOException e)
+		{
+			System.err.println("Failed to write the transcript, conversations will no longer be kept. Reason: " + e.getMessage());
+			closeTranscript();
+		}
+	}
+	
+	/**
+	 * Writes the rest of the transcript to disk and closes it.
+	 */
+	private void closeTranscript()
+	{
+		if(transcript == null)
+		{
+			return;
+		}
+		
+		try
+		{
+			transcript.close();
+		}
+		catch (IOException e)
+		{
+			System.err.println("Failed to close the transcript. Reason: " + e.getMessage());
+		}
+		transcript = null;
+	}
+	
+	/**
+	 * Shows or hides the stats overlay, which only refreshes while it is shown.
+	 * @param isShown true to show the overlay, false to hide it
+	 */
+	private void setStatsShown(boolean isShown)
+	{
+		statsLabel.setVisible(isShown);
+		if(isShown)
+		{
+			updateStats();
+			statsRefresher.play();
+		}
+		else
+		{
+			statsRefresher.stop();
+		}
+	}
+	
+	/**
+	 * Refreshes the stats overlay with the current chat bot's reply latencies, throughput, errors and gauges.
+	 */
+	private void updateStats()
+	{
+		if(!statsLabel.isVisible())
+		{
+			return;
+		}
+		
+		ChatBotStatistics statistics = instrumentedChatBot.getMetrics().getStatistics();
+		StringBuilder text = new StringBuilder();
+		text.append(chatBot.getName()).append('\n');
+		text.append(String.format("Replies  %d (%.2f/s), %d failed\n", statistics.getReplyCount(), statistics.getRepliesPerSecond(), statistics.getErrorCount()));
+		text.append(String.format("p50      %.3f ms\n", statistics.getPercentileMillis(50)));
+		text.append(String.format("p99      %.3f ms\n", statistics.getPercentileMillis(99)));
+		text.append(String.format("p99.9    %.3f ms\n", statistics.getPercentileMillis(99.9)));
+		text.append(String.format("max      %.3f ms", statistics.getMaxMillis()));
+		for(Map.Entry<String, Long> gauge : statistics.getGauges().entrySet())
+		{
+			text.append('\n').append(gauge.getKey()).append(' ').append(gauge.getValue());
+		}
+		statsLabel.setText(text.toString());
 	}
 	
 	/**
@@ -261,16 +730,23 @@ public class ChatBotApp extends Application
 		File saveFile = fileChooser.showSaveDialog(stage);
 		if(saveFile != null)
 		{
-			// Attempt to save, otherwise show error dialog
-			boolean successful = ChatBot.save(chatBot, saveFile.getAbsolutePath());
-			if(!successful)
+			// Attempt to save on the chat bot's reply executor, so that it never saves in the middle of a reply, otherwise show error dialog
+			ChatBot savedChatBot = chatBot;
+			getReplyExecutor(savedChatBot).execute(() ->
 			{
-				Alert errorAlert = new Alert(AlertType.ERROR);
-				errorAlert.setContentText("Failed to save chat bot.");
-				errorAlert.setHeaderText("Error!");
-				errorAlert.setTitle("Chat Bot Alert");
-				errorAlert.showAndWait();
-			}
+				boolean successful = ChatBot.save(savedChatBot, saveFile.getAbsolutePath());
+				if(!successful)
+				{
+					Platform.runLater(() ->
+					{
+						Alert errorAlert = new Alert(AlertType.ERROR);
+						errorAlert.setContentText("Failed to save chat bot.");
+						errorAlert.setHeaderText("Error!");
+						errorAlert.setTitle("Chat Bot Alert");
+						errorAlert.showAndWait();
+					});
+				}
+			});
 		}
 	}
 	
@@ -293,6 +769,8 @@ public class ChatBotApp extends Application
 			ChatBot loaded = ChatBot.load(openFile.getAbsolutePath());
 			if(loaded != null)
 			{
+				// The loaded bot replaces the warm one of its kind
+				chatBotRegistry.put(loaded);
 				chatBot = loaded;
 				onChatBotChanged();
 			}
@@ -307,18 +785,47 @@ public class ChatBotApp extends Application
 		}
 	}
 	
+	/**
+	 * Creates the menu bar of the application, with its only menu, 'Chat Bot', empty until {@link #fillChatBotMenu()} is called.
+	 * The menu is created right away so that the menu bar takes up its height in the first frame.
+	 * @return the menu bar
+	 */
 	private MenuBar createAppMenuBar()
 	{
 		// Create the menu bar
 		MenuBar menuBar = new MenuBar();
 		
 		// The only menu beneath the menu bar is Chat Bot, just like 'File', 'Edit'..
-		Menu chatBotMenu = new Menu("Chat Bot");
+		chatBotMenu = new Menu("Chat Bot");
 		
+		// Add a single menu, 'Chat Bot', to the menu bar
+		menuBar.getMenus().addAll(chatBotMenu);
+		
+		return menuBar;
+	}
+	
+	/**
+	 * Creates the items of the 'Chat Bot' menu.
+	 */
+	private void fillChatBotMenu()
+	{
 		// In our menu, we have a 'Clear Chat' option that clears the chatbox
 		MenuItem clearChatMenuItem = new MenuItem("Clear Chat");
 		clearChatMenuItem.setGraphic(new ImageView("res/Clear.png"));
-		clearChatMenuItem.setOnAction(e -> chatBox.clearMessages());
+		clearChatMenuItem.setOnAction(e ->
+		{
+			chatBox.clearMessages();
+			startTranscriptConversation();
+		});
+		
+		// In our menu, we have a 'Find' option that shows the search bar above the chatbox
+		MenuItem findMenuItem = new MenuItem("Find");
+		findMenuItem.setAccelerator(KeyCombination.keyCombination("Shortcut+F"));
+		findMenuItem.setOnAction(e -> showSearchBar());
+		
+		// In our menu, we have a 'Show Stats' option that shows the bot's reply latencies over the chatbox
+		CheckMenuItem showStatsMenuItem = new CheckMenuItem("Show Stats");
+		showStatsMenuItem.setOnAction(e -> setStatsShown(showStatsMenuItem.isSelected()));
 		
 		// In our menu, we have a 'Save Bot' option that saves our chat bot to local disk
 		MenuItem saveBotMenuItem = new MenuItem("Save Bot");
@@ -342,14 +849,14 @@ public class ChatBotApp extends Application
 			RadioMenuItem choice = new RadioMenuItem(clazz.getSimpleName());
 			choices.add(choice);
 			
-			// Once this option is clicked, load the assigned chat bot class
+			// Once this option is clicked, switch to the assigned chat bot class, resuming it if it was used before
 			choice.setOnAction(e ->
 			{
-				// Create the chatbot, or show error if failed
+				// Get the chatbot, creating it on first use, or show error if failed
 				try
 				{
-					ChatBot loaded = clazz.getConstructor().newInstance();
-					if(loaded != null)
+					ChatBot loaded = chatBotRegistry.get(clazz);
+					if(loaded != chatBot)
 					{
 						chatBot = loaded;
 						onChatBotChanged();
@@ -366,8 +873,8 @@ public class ChatBotApp extends Application
 			});
 		}
 		
-		// By default, load the first chat bot class
-		choices.get(0).setSelected(true);
+		// By default, select the chat bot that the application started with
+		choices.get(Math.max(AVAILABLE_CHATBOTS.indexOf(chatBot.getClass()), 0)).setSelected(true);
 		
 		// Create a toggle group for all the classes, so that we can only select 1 option from all those radio menu items
 		ToggleGroup chatBotsToggleGroup = new ToggleGroup();
@@ -376,16 +883,24 @@ public class ChatBotApp extends Application
 		// Add all of those choices to the 'Change Bot' submenu
 		changeBotMenu.getItems().addAll(choices);
 		
-		// Add all options under the 'Chat Bot' menu such as 'Clear Chat', 'Save Bot', 'Open Bot', 'Change Bot'
+		// Add all options under the 'Chat Bot' menu such as 'Clear Chat', 'Find', 'Show Stats', 'Save Bot', 'Open Bot', 'Change Bot'
 		// Note, I added separators between them to make it visually pleasing
 		chatBotMenu.getItems().addAll(
-				clearChatMenuItem, new SeparatorMenuItem(),
+				clearChatMenuItem, findMenuItem, showStatsMenuItem, new SeparatorMenuItem(),
 				saveBotMenuItem, openBotMenuItem, new SeparatorMenuItem(),
 				changeBotMenu);
-		
-		// Add a single menu, 'Chat Bot', to the menu bar
-		menuBar.getMenus().addAll(chatBotMenu);
-		
-		return menuBar;
+	}
+	
+	/**
+	 * Shows the search bar above the chat box, creating it the first time.
+	 */
+	private void showSearchBar()
+	{
+		if(searchBar == null)
+		{
+			searchBar = new SearchBar(chatBox);
+			chatBox.setTop(searchBar);
+		}
+		searchBar.show();
 	}
 }
\ No newline at end of file
@@ -1,11 +1,21 @@
 package chatBot.gui;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
+import chatBot.search.MessageIndex;
 import javafx.beans.binding.Bindings;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
+import javafx.scene.Scene;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
@@ -22,23 +32,39 @@ import javafx.scene.layout.VBox;
  * </p>
  * 
  * <p>
- * Furthermore, a helper method, {@link #addMessage(ChatMessage)} is used to add messages to the chat box.
+ * Furthermore, a helper method, {@link #addMessage(ChatMessageData)} is used to add messages to the chat box.
+ * </p>
+ * 
+ * <p>
+ * The transcript is virtualized: the chat box only keeps a lightweight {@link ChatMessageData} per message,
+ * and {@link ChatMessage} nodes are only created for the visible rows, then recycled as the user scrolls.
+ * </p>
+ * 
+ * <p>
+ * Older messages can be loaded on demand, such as from a transcript log: {@link #setOnScrolledToTop(Runnable)} is told when the user reaches the first message,
+ * and {@link #addOlderMessages(List)} adds them above it without moving what the user is looking at.
+ * </p>
+ * 
+ * <p>
+ * Every message is added to a {@link MessageIndex} as well, so that {@link #search(String)} finds messages without reading them again,
+ * and {@link #highlightMessage(int)} scrolls to a match and highlights it.
  * </p>
  * 
  * @see {@link ChatMessage}
+ * @see {@link ChatMessageData}
  * @see {@link OnSendCallback}
  * @author Mohammad Alali (Sanavesa)
  */
 public class ChatBox extends BorderPane
 {
-	/** A scroll pane that contains {@link #scrollPaneContent}. */
-	protected final ScrollPane messagesScrollPane;
+	/** All messages in the chat box, in the order they were added. */
+	protected final ObservableList<ChatMessageData> messages;
 	
-	/** Contains the content in the scroll pane, namely the {@link #messagesVBox}. */
-	protected final VBox scrollPaneContent;
+	/** A virtualized list view that only creates chat message nodes for the visible {@link #messages}. */
+	protected final ListView<ChatMessageData> messagesListView;
 	
-	/** A vbox that contains all messages in the chat box. */
-	protected final VBox messagesVBox;
+	/** Contains the transcript of the chat box, namely the {@link #messagesListView} followed by any notifications. */
+	protected final VBox transcriptContent;
 	
 	/** A textfield that contains the user input for the chat box. */
 	protected final TextField inputTextField;
@@ -52,12 +78,47 @@ public class ChatBox extends BorderPane
 	/** A callback that is fired when the user pressed the send button (or ENTER). */
 	protected OnSendCallback onSendCallback;
 	
+	/** A callback that is fired when the first message is shown, as the user scrolled to the top of the transcript. */
+	protected Runnable onScrolledToTop;
+	
+	/** The inverted index of all messages, in the order they were added to the chat box, which is not their order when older messages were added. */
+	protected final MessageIndex messageIndex;
+	
+	/**
+	 * Where each message of the {@link #messageIndex} is, by its number in the index:
+	 * a message added at the end holds how many messages were added at the end before it,
+	 * and an older message holds minus how many messages are between it and the first message added at the end, itself included.
+	 * Either way, its index in {@link #messages} is that plus {@link #olderMessageCount}.
+	 */
+	private int[] indexedMessageOffsets;
+	
+	/** The number of messages added at the end of the chat box. */
+	private int newerMessageCount;
+	
+	/** The number of older messages added at the start of the chat box. */
+	private int olderMessageCount;
+	
+	/** The index of the highlighted message, or -1 if none. All chat message cells bind to this single property. */
+	protected final ReadOnlyIntegerWrapper highlightedIndex;
+	
+	/** The maximum width, in pixels, of every chat message's label. All chat messages bind to this single property. */
+	protected final ReadOnlyDoubleWrapper messageMaxWidth;
+	
+	/** Applies a pending change of the chat box's width to {@link #messageMaxWidth}, at most once per pulse. */
+	private final Runnable messageMaxWidthUpdater;
+	
+	/** The scene that {@link #messageMaxWidthUpdater} is scheduled on for its next pulse, or <code>null</code> if not scheduled. */
+	private Scene messageMaxWidthUpdateScene;
+	
 	/** The vertical spacing, in pixels, between each chat message. */
 	public static final int MESSAGES_VERTICAL_SPACING = 15;
 	
 	/** The padding, in pixels, for the message vbox. */
 	public static final int MESSAGES_PADDING = 10;
 	
+	/** The fraction of the chat box's width that a chat message's label can take up before wrapping. */
+	public static final double MESSAGE_MAX_WIDTH_RATIO = 0.4;
+	
 	/** The horizontal spacing, in pixels, between each the user text field and the send button. */
 	public static final int USER_INPUT_HORIZONTAL_SPACING = 10;
 	
@@ -69,13 +130,22 @@ public class ChatBox extends BorderPane
 	 */
 	public ChatBox()
 	{
-		messagesVBox = new VBox();
-		scrollPaneContent = new VBox(messagesVBox);
-		messagesScrollPane = new ScrollPane(scrollPaneContent);
+		messages = FXCollections.observableArrayList();
+		messagesListView = new ListView<>(messages);
+		transcriptContent = new VBox(messagesListView);
 		inputTextField = new TextField();
 		sendButton = new Button("SEND");
 		userInputHBox = new HBox(USER_INPUT_HORIZONTAL_SPACING, inputTextField, sendButton);
 		onSendCallback = null;
+		onScrolledToTop = null;
+		messageIndex = new MessageIndex();
+		indexedMessageOffsets = new int[64];
+		newerMessageCount = 0;
+		olderMessageCount = 0;
+		highlightedIndex = new ReadOnlyIntegerWrapper(-1);
+		messageMaxWidth = new ReadOnlyDoubleWrapper(Double.MAX_VALUE);
+		messageMaxWidthUpdater = this::updateMessageMaxWidth;
+		messageMaxWidthUpdateScene = null;
 		
 		initializeGUI();
 	}
@@ -85,21 +155,21 @@ public class ChatBox extends BorderPane
 	 */
 	protected void initializeGUI()
 	{
-		// Make the scroll pane always fill the available space
-		messagesScrollPane.setFitToWidth(true);
-		messagesScrollPane.setFitToHeight(true);
+		// Recycle a handful of chat message cells for the visible rows, instead of a node per message
+		messagesListView.setCellFactory(listView -> new ChatMessageCell(messageMaxWidth.getReadOnlyProperty(), this::fireScrolledToTop, highlightedIndex.getReadOnlyProperty()));
+		messagesListView.setFocusTraversable(false);
+		messagesListView.setId("chat_background");
 		
-		// Setup styling and layout of the scroll pane's content vbox
-		scrollPaneContent.setSpacing(MESSAGES_VERTICAL_SPACING);
-		scrollPaneContent.setId("chat_background");
-		scrollPaneContent.setPadding(new Insets(MESSAGES_PADDING));
-				
-		// Setup styling and layout of the messages vbox
-		messagesVBox.setSpacing(MESSAGES_VERTICAL_SPACING);
-		messagesVBox.setId("chat_background");
+		// Track the chat box's width with a single listener, coalescing resizes into one update per pulse
+		widthProperty().addListener((args, oldWidth, newWidth) -> scheduleMessageMaxWidthUpdate());
 		
-		// Scroll down the scroll pane whenever a new message is added
-		messagesScrollPane.vvalueProperty().bind(messagesVBox.heightProperty());
+		// Make the list view always fill the available space
+		VBox.setVgrow(messagesListView, Priority.ALWAYS);
+		
+		// Setup styling and layout of the transcript's content vbox
+		transcriptContent.setSpacing(MESSAGES_VERTICAL_SPACING);
+		transcriptContent.setId("chat_background");
+		transcriptContent.setPadding(new Insets(0, MESSAGES_PADDING, MESSAGES_PADDING, MESSAGES_PADDING));
 		
 		// Set a prompt text for the input text field when its empty
 		inputTextField.setPromptText("Write something...");
@@ -137,14 +207,62 @@ public class ChatBox extends BorderPane
 		// Setup the layout of the chat box
 		// 		center - list of messages
 		//		bottom - input field and send button
-		setCenter(messagesScrollPane);
+		setCenter(transcriptContent);
 		setBottom(userInputHBox);
 	}
 	
+	/**
+	 * Schedules {@link #messageMaxWidth} to be updated right before the next layout pass.
+	 * Any further resizes until then are coalesced into that single update.
+	 */
+	private void scheduleMessageMaxWidthUpdate()
+	{
+		// Without a scene there are no pulses, so update right away
+		if(getScene() == null)
+		{
+			updateMessageMaxWidth();
+			return;
+		}
+		
+		if(messageMaxWidthUpdateScene == null)
+		{
+			messageMaxWidthUpdateScene = getScene();
+			messageMaxWidthUpdateScene.addPreLayoutPulseListener(messageMaxWidthUpdater);
+		}
+	}
+	
+	/**
+	 * Updates {@link #messageMaxWidth} from the chat box's current width.
+	 */
+	private void updateMessageMaxWidth()
+	{
+		// Unschedule from the pulse, as a new update will be scheduled on the next resize
+		if(messageMaxWidthUpdateScene != null)
+		{
+			messageMaxWidthUpdateScene.removePreLayoutPulseListener(messageMaxWidthUpdater);
+			messageMaxWidthUpdateScene = null;
+		}
+		
+		messageMaxWidth.set(getWidth() * MESSAGE_MAX_WIDTH_RATIO);
+	}
+	
+	/**
+	 * Returns the property holding the maximum width, in pixels, of every chat message's label in the chat box.
+	 * Chat messages that are shown alongside the chat box, such as typing notifications, should bind to it as well.
+	 * @return the shared maximum width of chat message labels
+	 */
+	public ReadOnlyDoubleProperty messageMaxWidthProperty()
+	{
+		return messageMaxWidth.getReadOnlyProperty();
+	}
 	
-	public VBox getScrollPaneContent()
+	/**
+	 * Returns the content of the transcript, which holds the messages followed by any extra nodes such as typing notifications.
+	 * @return the transcript's content vbox
+	 */
+	public VBox getTranscriptContent()
 	{
-		return scrollPaneContent;
+		return transcriptContent;
 	}
 
 	public void showLeftIsTyping(boolean show, String text)
@@ -153,17 +271,147 @@ public class ChatBox extends BorderPane
 	}
 
 	/**
-	 * Adds a message to the end of the chat box.
+	 * Adds a message to the end of the chat box, and scrolls down to it.
 	 * 
 	 * @param chatMessage message to add
 	 */
-	public void addMessage(ChatMessage chatMessage)
+	public void addMessage(ChatMessageData chatMessage)
 	{
 		// Validation check
 		Objects.requireNonNull(chatMessage, "Parameter 'chatMessage' cannot be null.");
 		
-		// Add message to the end of the vbox (bottom)
-		messagesVBox.getChildren().add(chatMessage);
+		// Add message to the end of the transcript (bottom), and index it
+		messages.add(chatMessage);
+		indexMessage(chatMessage, newerMessageCount++);
+		
+		// Scroll down the list view whenever a new message is added
+		messagesListView.scrollTo(messages.size() - 1);
+	}
+	
+	/**
+	 * Adds older messages above the first message of the chat box, keeping the messages that were shown in place.
+	 * 
+	 * @param olderMessages the messages to add, from the oldest to the newest
+	 */
+	public void addOlderMessages(List<ChatMessageData> olderMessages)
+	{
+		// Validation check
+		Objects.requireNonNull(olderMessages, "Parameter 'olderMessages' cannot be null.");
+		
+		if(olderMessages.isEmpty())
+		{
+			return;
+		}
+		
+		// Add the messages to the start of the transcript (top) in a single change, then scroll back to the message that was first
+		messages.addAll(0, olderMessages);
+		messagesListView.scrollTo(olderMessages.size());
+		
+		// Index the messages, which are numbered after the ones already indexed, however old they are
+		for(int i = 0; i < olderMessages.size(); i++)
+		{
+			indexMessage(olderMessages.get(i), -(olderMessageCount + olderMessages.size() - i));
+		}
+		olderMessageCount += olderMessages.size();
+		
+		// The highlighted message moved down along with every other message
+		if(highlightedIndex.get() >= 0)
+		{
+			highlightedIndex.set(highlightedIndex.get() + olderMessages.size());
+		}
+	}
+	
+	/**
+	 * Finds the messages matching the specified query, as described in {@link MessageIndex}, without reading any message again.
+	 * @param query the query, such as <code>parrot</code>, <code>parr*</code> or <code>"pretty bird"</code>
+	 * @return the indices of the matching messages, from the top to the bottom of the chat box
+	 */
+	public int[] search(String query)
+	{
+		// Validation check
+		Objects.requireNonNull(query, "Parameter 'query' cannot be null.");
+		
+		int[] matches = messageIndex.search(query);
+		for(int i = 0; i < matches.length; i++)
+		{
+			matches[i] = olderMessageCount + indexedMessageOffsets[matches[i]];
+		}
+		
+		// Messages are indexed in the order they were added, which is only their order in the chat box if none was added at the start
+		if(olderMessageCount > 0)
+		{
+			Arrays.sort(matches);
+		}
+		return matches;
+	}
+	
+	/**
+	 * Highlights the message at the specified index and scrolls to it, such as a search match, or removes the highlight.
+	 * @param index the index of the message, or -1 to remove the highlight
+	 */
+	public void highlightMessage(int index)
+	{
+		// Validation check
+		if(index < -1 || index >= messages.size())
+		{
+			throw new IndexOutOfBoundsException("Parameter 'index' must be -1 or the index of a message, not " + index + ".");
+		}
+		
+		highlightedIndex.set(index);
+		if(index >= 0)
+		{
+			messagesListView.scrollTo(index);
+		}
+	}
+	
+	/**
+	 * Returns the property holding the index of the highlighted message, or -1 if none.
+	 * @return the index of the highlighted message
+	 */
+	public ReadOnlyIntegerProperty highlightedIndexProperty()
+	{
+		return highlightedIndex.getReadOnlyProperty();
+	}
+	
+	/**
+	 * Adds a message to the {@link #messageIndex}, remembering where it is in the chat box.
+	 * @param chatMessage the message
+	 * @param offset where the message is, as described in {@link #indexedMessageOffsets}
+	 */
+	private void indexMessage(ChatMessageData chatMessage, int offset)
+	{
+		int number = messageIndex.add(chatMessage.getMessage());
+		if(number == indexedMessageOffsets.length)
+		{
+			indexedMessageOffsets = Arrays.copyOf(indexedMessageOffsets, number * 2);
+		}
+		indexedMessageOffsets[number] = offset;
+	}
+	
+	/**
+	 * Sets the action invoked whenever the first message is shown, as the user scrolled to the top of the transcript, such as to load older messages.
+	 * It can be invoked again before older messages are added, so it should ignore calls while it is already loading them.
+	 * 
+	 * <p>
+	 * Note, <code>onScrolledToTop</code> can be <code>null</code> to remove any actions.
+	 * </p>
+	 * 
+	 * @param onScrolledToTop the action to invoke when the user scrolled to the top
+	 */
+	public void setOnScrolledToTop(Runnable onScrolledToTop)
+	{
+		this.onScrolledToTop = onScrolledToTop;
+	}
+	
+	/**
+	 * Fires {@link #onScrolledToTop}, if set.
+	 */
+	private void fireScrolledToTop()
+	{
+		if(onScrolledToTop != null)
+		{
+			onScrolledToTop.run();
+		}
 	}
 	
 	/**
@@ -189,9 +437,16 @@ public class ChatBox extends BorderPane
 		this.onSendCallback = onSendCallback;
 	}
 
+	/**
+	 * Removes all messages from the chat box.
+	 */
 	public void clearMessages()
 	{
-		messagesVBox.getChildren().clear();
+		messages.clear();
+		messageIndex.clear();
+		newerMessageCount = 0;
+		olderMessageCount = 0;
+		highlightedIndex.set(-1);
 	}
 	
 	/**
@@ -200,6 +455,6 @@ public class ChatBox extends BorderPane
 	 */
 	public int getMessagesSize()
 	{
-		return messagesVBox.getChildren().size();
+		return messages.size();
 	}
 }
\ No newline at end of file
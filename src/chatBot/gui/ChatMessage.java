@@ -1,7 +1,7 @@
 package chatBot.gui;
 import java.util.Objects;
 
-import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableDoubleValue;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
 import javafx.scene.control.OverrunStyle;
@@ -15,6 +15,10 @@ import javafx.scene.shape.Circle;
  * The <code>ChatMessage</code> class represents a chat message that contains a label and an icon in a chat box.
  * The chat message can be aligned to the left or the right of a chatbox via the {@link ChatMessagePosition} parameter.
  * 
+ * <p>
+ * Icons are best given as avatars from the {@link IconCache}, which are already {@link #ICON_SIZE} pixels and round, and so are shown as is.
+ * Any other image is scaled down and clipped by a circle of its own.
+ * </p>
  * 
  * @see {@link ChatBox}
  * @see {@link ChatMessagePosition}
@@ -29,7 +33,7 @@ public class ChatMessage extends HBox
 	protected final ImageView iconImageView; 
 	
 	/** The position of the chat message in a chat box (Left / Right). */
-	protected final ChatMessagePosition messagePosition;
+	protected ChatMessagePosition messagePosition;
 	
 	/** The size, in pixels, of the icon in the chat message. */
 	public static final int ICON_SIZE = 32;
@@ -68,57 +72,68 @@ public class ChatMessage extends HBox
 		messageLabel.setWrapText(true);
 		messageLabel.setMinHeight(Region.USE_PREF_SIZE);
 
-		// Setup auto resizing for the message label
-		ChangeListener<? super Number> sceneWidthChangeListener = (args, oldWidth, newWidth) ->
-		{
-			double width = newWidth.doubleValue() * 0.4;
-			messageLabel.setMaxWidth(width);
-		};
-		
-		// Attach the auto resizing to whenever the scene changes
-		sceneProperty().addListener((args, oldScene, newScene) ->
-		{
-			// Remove listener from previous scene, to prevent memory leaks
-			if(oldScene != null)
-			{
-				oldScene.widthProperty().removeListener(sceneWidthChangeListener);
-			}
-			
-			// Attach a new listener to then new listener
-			if(newScene != null)
-			{
-				newScene.widthProperty().addListener(sceneWidthChangeListener);
-				
-				// Since the listener wont fire yet, lets calculate and set the width manually
-				double width = newScene.getWidth() * 0.40;
-				messageLabel.setMaxWidth(width);
-			}
-		});
-		
 		// Fit the icon to what we specified
-		iconImageView.setFitHeight(ICON_SIZE);
-		iconImageView.setPreserveRatio(true);
-		
-		// Clip the icon by a circle to add that profile picture feeling
-		Circle clipCircle = new Circle(ICON_SIZE / 2, ICON_SIZE / 2, ICON_SIZE / 2);
-		iconImageView.setClip(clipCircle);
+		fitIcon();
 		
 		// Align the message and icon to the specified position
+		layoutForPosition();
+		
+		// Spacing between the message label and the icon
+		setSpacing(CHAT_MESSAGE_HORIZONTAL_SPACING);
+	}
+	
+	/**
+	 * Binds the maximum width of the chat message's label to the specified value, so that long messages wrap.
+	 * 
+	 * <p>
+	 * A chat box shares a single maximum width among all of its chat messages, instead of every chat message
+	 * listening to the scene's width on its own.
+	 * </p>
+	 * 
+	 * @param maxWidth the maximum width, in pixels, of the chat message's label
+	 */
+	public void bindMessageMaxWidth(ObservableDoubleValue maxWidth)
+	{
+		// Validation check
+		Objects.requireNonNull(maxWidth, "Parameter 'maxWidth' cannot be null.");
+		
+		messageLabel.maxWidthProperty().bind(maxWidth);
+	}
+	
+	/**
+	 * Orders the message label and the icon, and aligns them, according to {@link #messagePosition}.
+	 */
+	protected void layoutForPosition()
+	{
 		if(messagePosition == ChatMessagePosition.Left)
 		{
 			// If our message is rendered at the left, we want the following format: (icon) Message
-			getChildren().addAll(iconImageView, messageLabel);
+			getChildren().setAll(iconImageView, messageLabel);
 			setAlignment(Pos.CENTER_LEFT);
 		}
 		else if(messagePosition == ChatMessagePosition.Right)
 		{
 			// If our message is rendered at the right, we want the following format: Message (icon)
-			getChildren().addAll(messageLabel, iconImageView);
+			getChildren().setAll(messageLabel, iconImageView);
 			setAlignment(Pos.CENTER_RIGHT);
 		}
+	}
+	
+	/**
+	 * Sets the chatMessage's position to the specified position, reordering its label and icon if needed.
+	 * @param messagePosition the new chat message position
+	 */
+	public void setMessagePosition(ChatMessagePosition messagePosition)
+	{
+		// Validation check
+		Objects.requireNonNull(messagePosition, "Parameter 'messagePosition' cannot be null.");
 		
-		// Spacing between the message label and the icon
-		setSpacing(CHAT_MESSAGE_HORIZONTAL_SPACING);
+		// Only relayout when the position actually changes, as this is called whenever a recycled cell is reused
+		if(this.messagePosition != messagePosition)
+		{
+			this.messagePosition = messagePosition;
+			layoutForPosition();
+		}
 	}
 	
 	/**
@@ -143,6 +158,26 @@ public class ChatMessage extends HBox
 		Objects.requireNonNull(image, "Parameter 'image' cannot be null.");
 				
 		iconImageView.setImage(image);
+		fitIcon();
+	}
+	
+	/**
+	 * Shows avatars from the {@link IconCache} as is, and scales down and clips any other icon by a circle to add that profile picture feeling.
+	 */
+	private void fitIcon()
+	{
+		Image image = iconImageView.getImage();
+		if(image.getWidth() == ICON_SIZE && image.getHeight() == ICON_SIZE)
+		{
+			iconImageView.setFitHeight(0);
+			iconImageView.setClip(null);
+		}
+		else if(iconImageView.getClip() == null)
+		{
+			iconImageView.setFitHeight(ICON_SIZE);
+			iconImageView.setPreserveRatio(true);
+			iconImageView.setClip(new Circle(ICON_SIZE / 2, ICON_SIZE / 2, ICON_SIZE / 2));
+		}
 	}
 	
 	/**
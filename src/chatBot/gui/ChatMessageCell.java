@@ -0,0 +1,130 @@
+package chatBot.gui;
+import java.util.Objects;
+
+import javafx.beans.value.ObservableDoubleValue;
+import javafx.beans.value.ObservableIntegerValue;
+import javafx.css.PseudoClass;
+import javafx.geometry.Insets;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.ListCell;
+
+/**
+ * The <code>ChatMessageCell</code> class is a list cell that renders a {@link ChatMessageData} in a chat box.
+ * 
+ * <p>
+ * Each cell owns a single {@link ChatMessage} node which is recycled as the user scrolls, so the number of live
+ * chat message nodes depends on the visible area of the chat box rather than the length of the transcript.
+ * </p>
+ * 
+ * <p>
+ * Since only the visible rows have cells, a cell showing the first message is also how the chat box learns that the user scrolled to the top.
+ * </p>
+ * 
+ * @see {@link ChatBox}
+ * @see {@link ChatMessageData}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class ChatMessageCell extends ListCell<ChatMessageData>
+{
+	/** The pseudo class of the cell showing the highlighted message, such as a search match. */
+	private static final PseudoClass HIGHLIGHTED = PseudoClass.getPseudoClass("highlighted");
+	
+	/** The recycled chat message node, created once the cell is first given a message. */
+	private ChatMessage chatMessage;
+	
+	/** The maximum width of the chat message's label, shared by all cells of a chat box. */
+	private final ObservableDoubleValue messageMaxWidth;
+	
+	/** Called whenever the cell shows the first message of the chat box, or <code>null</code> if nothing is. */
+	private final Runnable onFirstMessageShown;
+	
+	/** The index of the highlighted message of the chat box, or -1 if none, shared by all cells of a chat box. */
+	private final ObservableIntegerValue highlightedIndex;
+	
+	/**
+	 * Constructs a new, empty chat message cell.
+	 * @param messageMaxWidth the maximum width of the chat message's label, shared by all cells of a chat box
+	 */
+	public ChatMessageCell(ObservableDoubleValue messageMaxWidth)
+	{
+		this(messageMaxWidth, null, null);
+	}
+	
+	/**
+	 * Constructs a new, empty chat message cell.
+	 * @param messageMaxWidth the maximum width of the chat message's label, shared by all cells of a chat box
+	 * @param onFirstMessageShown called whenever the cell shows the first message of the chat box, or <code>null</code> for nothing
+	 * @param highlightedIndex the index of the highlighted message of the chat box, or <code>null</code> to never highlight
+	 */
+	public ChatMessageCell(ObservableDoubleValue messageMaxWidth, Runnable onFirstMessageShown, ObservableIntegerValue highlightedIndex)
+	{
+		// Validation check
+		Objects.requireNonNull(messageMaxWidth, "Parameter 'messageMaxWidth' cannot be null.");
+		
+		this.messageMaxWidth = messageMaxWidth;
+		this.onFirstMessageShown = onFirstMessageShown;
+		this.highlightedIndex = highlightedIndex;
+		
+		// Highlight the cell whenever it shows the highlighted message, as either of them changes
+		if(highlightedIndex != null)
+		{
+			highlightedIndex.addListener((args, oldIndex, newIndex) -> updateHighlight());
+			indexProperty().addListener((args, oldIndex, newIndex) -> updateHighlight());
+		}
+		
+		// Only show the chat message node, with half of the vertical spacing above and below it
+		setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+		setPadding(new Insets(ChatBox.MESSAGES_VERTICAL_SPACING / 2.0, 0, ChatBox.MESSAGES_VERTICAL_SPACING / 2.0, 0));
+		
+		// Never let the cell request more width than the list view, which would cause horizontal scrolling
+		setPrefWidth(0);
+	}
+	
+	@Override
+	protected void updateItem(ChatMessageData item, boolean empty)
+	{
+		super.updateItem(item, empty);
+		
+		updateHighlight();
+		
+		if(empty || item == null)
+		{
+			setGraphic(null);
+			return;
+		}
+		
+		// Recycle the chat message node, only creating it the first time this cell is used
+		if(chatMessage == null)
+		{
+			chatMessage = new ChatMessage(item.getMessagePosition(), item.getMessage(), item.getIconImage());
+			chatMessage.bindMessageMaxWidth(messageMaxWidth);
+			
+			// Let the chat message fill the cell horizontally, so that it can align itself to the left or the right
+			chatMessage.prefWidthProperty().bind(widthProperty());
+		}
+		else
+		{
+			chatMessage.setMessagePosition(item.getMessagePosition());
+			chatMessage.setMessage(item.getMessage());
+			chatMessage.setIcon(item.getIconImage());
+		}
+		chatMessage.setLabelCSSId(item.getLabelCSSId());
+		
+		setGraphic(chatMessage);
+		
+		// Let the chat box know that the user reached the top of the transcript
+		if(getIndex() == 0 && onFirstMessageShown != null)
+		{
+			onFirstMessageShown.run();
+		}
+	}
+	
+	/**
+	 * Highlights the cell if it shows the highlighted message of the chat box.
+	 */
+	private void updateHighlight()
+	{
+		boolean isHighlighted = highlightedIndex != null && !isEmpty() && getIndex() == highlightedIndex.get();
+		pseudoClassStateChanged(HIGHLIGHTED, isHighlighted);
+	}
+}
@@ -0,0 +1,89 @@
+package chatBot.gui;
+import java.util.Objects;
+
+import javafx.scene.image.Image;
+
+/**
+ * The <code>ChatMessageData</code> class is a lightweight, immutable model of a chat message in a chat box.
+ * 
+ * <p>
+ * Unlike {@link ChatMessage}, this class holds no JavaFX nodes, so a chat box can keep a very long transcript of these
+ * while only creating {@link ChatMessage} nodes for the rows that are actually visible.
+ * </p>
+ * 
+ * @see {@link ChatBox}
+ * @see {@link ChatMessage}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class ChatMessageData
+{
+	/** The position of the chat message in a chat box (Left / Right). */
+	private final ChatMessagePosition messagePosition;
+	
+	/** The chat message content. */
+	private final String message;
+	
+	/** The icon in the chat message. */
+	private final Image iconImage;
+	
+	/** The styling id of the chat message's label. */
+	private final String labelCSSId;
+	
+	/**
+	 * Constructs a new chat message model with the specified arguments.
+	 * 
+	 * @param messagePosition the position of the chat message in a chat box
+	 * @param message the chat message content
+	 * @param iconImage the icon in the chat message
+	 * @param labelCSSId the styling id of the chat message's label
+	 */
+	public ChatMessageData(ChatMessagePosition messagePosition, String message, Image iconImage, String labelCSSId)
+	{
+		// Validation checks
+		Objects.requireNonNull(messagePosition, "Parameter 'messagePosition' cannot be null.");
+		Objects.requireNonNull(message, "Parameter 'message' cannot be null.");
+		Objects.requireNonNull(iconImage, "Parameter 'iconImage' cannot be null.");
+		Objects.requireNonNull(labelCSSId, "Parameter 'labelCSSId' cannot be null.");
+		
+		this.messagePosition = messagePosition;
+		this.message = message;
+		this.iconImage = iconImage;
+		this.labelCSSId = labelCSSId;
+	}
+	
+	/**
+	 * Returns the position of the chat message in a chat box.
+	 * @return the chat message's position
+	 */
+	public ChatMessagePosition getMessagePosition()
+	{
+		return messagePosition;
+	}
+	
+	/**
+	 * Returns the chat message content.
+	 * @return the chat message's content
+	 */
+	public String getMessage()
+	{
+		return message;
+	}
+	
+	/**
+	 * Returns the icon in the chat message.
+	 * @return the chat message's icon
+	 */
+	public Image getIconImage()
+	{
+		return iconImage;
+	}
+	
+	/**
+	 * Returns the styling id of the chat message's label.
+	 * @return the chat message's label styling id
+	 */
+	public String getLabelCSSId()
+	{
+		return labelCSSId;
+	}
+}
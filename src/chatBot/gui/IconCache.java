@@ -0,0 +1,167 @@
+package chatBot.gui;
+import java.nio.IntBuffer;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+
+/**
+ * The <code>IconCache</code> class decodes the icons of the chat messages once, in the background, and shares them between all chat messages.
+ * 
+ * <p>
+ * An avatar is an icon decoded straight at {@link ChatMessage#ICON_SIZE} pixels, rather than at its full size, and cropped to a circle once,
+ * so that chat messages show it as is, with no scaling and no clip of their own. {@link #getAvatar(String)} returns it right away,
+ * blank at first, and it is filled in on the JavaFX thread once decoded, which every chat message showing it picks up.
+ * </p>
+ * 
+ * <p>
+ * Icons are kept for as long as the program runs, since there are only a few of them.
+ * </p>
+ * 
+ * @see {@link ChatMessage}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class IconCache
+{
+	/** The number of samples per pixel, along each axis, used to smooth the edge of the circle. */
+	private static final int EDGE_SAMPLES = 4;
+	
+	/** The avatars by image path. */
+	private static final ConcurrentHashMap<String, WritableImage> avatars = new ConcurrentHashMap<>();
+	
+	/** The full-size images by image path. */
+	private static final ConcurrentHashMap<String, Image> images = new ConcurrentHashMap<>();
+	
+	/** Decodes the avatars, one at a time, so that the JavaFX thread never waits on decoding. */
+	private static final ExecutorService decoder = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("icon-decoder").daemon().factory());
+	
+	/** This class only contains static methods. */
+	private IconCache()
+	{
+	}
+	
+	/**
+	 * Returns the circular avatar of the image at the specified path, {@link ChatMessage#ICON_SIZE} pixels wide and high.
+	 * The first call starts decoding it in the background, and returns it blank until it is decoded.
+	 * @param path the path of the image
+	 * @return the avatar, shared by every caller
+	 */
+	public static Image getAvatar(String path)
+	{
+		// Validity checks
+		Objects.requireNonNull(path, "Parameter 'path' cannot be null.");
+		
+		// Looking up an existing avatar allocates nothing
+		WritableImage avatar = avatars.get(path);
+		if(avatar != null)
+		{
+			return avatar;
+		}
+		return avatars.computeIfAbsent(path, key ->
+		{
+			WritableImage created = new WritableImage(ChatMessage.ICON_SIZE, ChatMessage.ICON_SIZE);
+			decoder.execute(() -> renderAvatar(key, created));
+			return created;
+		});
+	}
+	
+	/**
+	 * Returns the image at the specified path at its full size, such as for a window icon. The first call starts loading it in the background.
+	 * @param path the path of the image
+	 * @return the image, shared by every caller
+	 */
+	public static Image getImage(String path)
+	{
+		// Validity checks
+		Objects.requireNonNull(path, "Parameter 'path' cannot be null.");
+		
+		Image image = images.get(path);
+		if(image != null)
+		{
+			return image;
+		}
+		return images.computeIfAbsent(path, key -> new Image(key, true));
+	}
+	
+	/**
+	 * Starts decoding the avatars of the images at the specified paths, so that they are ready when first shown.
+	 * @param paths the paths of the images
+	 */
+	public static void preloadAvatars(String... paths)
+	{
+		for(String path : paths)
+		{
+			getAvatar(path);
+		}
+	}
+	
+	/**
+	 * Decodes the image at the specified path at the avatar's size, crops it to a circle, then copies it into the avatar on the JavaFX thread.
+	 * @param path the path of the image
+	 * @param avatar the avatar to fill in
+	 */
+	private static void renderAvatar(String path, WritableImage avatar)
+	{
+		int size = ChatMessage.ICON_SIZE;
+		
+		// Decode straight at the avatar's height, keeping the ratio, rather than decoding the full image and scaling it on every frame
+		Image image = new Image(path, 0, size, true, true, false);
+		if(image.isError())
+		{
+			System.err.println("Failed to load icon " + path + ". Reason: " + image.getException().getMessage());
+			return;
+		}
+		
+		// Crop the middle of the image to a circle, smoothing its edge by the share of each pixel inside the circle
+		int width = (int) image.getWidth();
+		int height = (int) image.getHeight();
+		int offsetX = (width - size) / 2;
+		int offsetY = (height - size) / 2;
+		double radius = size / 2.0;
+		PixelReader reader = image.getPixelReader();
+		int[] pixels = new int[size * size];
+		for(int y = 0; y < size; y++)
+		{
+			for(int x = 0; x < size; x++)
+			{
+				int sourceX = x + offsetX;
+				int sourceY = y + offsetY;
+				if(sourceX < 0 || sourceY < 0 || sourceX >= width || sourceY >= height)
+				{
+					continue;
+				}
+				
+				int inside = 0;
+				for(int sampleY = 0; sampleY < EDGE_SAMPLES; sampleY++)
+				{
+					for(int sampleX = 0; sampleX < EDGE_SAMPLES; sampleX++)
+					{
+						double dx = x + (sampleX + 0.5) / EDGE_SAMPLES - radius;
+						double dy = y + (sampleY + 0.5) / EDGE_SAMPLES - radius;
+						if(dx * dx + dy * dy <= radius * radius)
+						{
+							inside++;
+						}
+					}
+				}
+				if(inside == 0)
+				{
+					continue;
+				}
+				
+				int argb = reader.getArgb(sourceX, sourceY);
+				int alpha = (argb >>> 24) * inside / (EDGE_SAMPLES * EDGE_SAMPLES);
+				pixels[y * size + x] = (alpha << 24) | (argb & 0x00FFFFFF);
+			}
+		}
+		
+		// Images shown on screen may only be written on the JavaFX thread
+		Platform.runLater(() -> avatar.getPixelWriter().setPixels(0, 0, size, size, PixelFormat.getIntArgbInstance(), IntBuffer.wrap(pixels), size));
+	}
+}
\ No newline at end of file
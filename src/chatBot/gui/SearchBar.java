@@ -0,0 +1,167 @@
+package chatBot.gui;
+import java.util.Arrays;
+import java.util.Objects;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+
+/**
+ * The <code>SearchBar</code> class represents a search bar that finds messages in a {@link ChatBox} as the user types, and jumps between them.
+ * 
+ * <p>
+ * The most recent match is highlighted first. ENTER and the PREV button go to the match above the highlighted one, SHIFT+ENTER and the NEXT button to the one below,
+ * wrapping around at either end, and ESCAPE hides the search bar. The chat box is searched again on every jump, which only takes a few milliseconds thanks to its index,
+ * so that the matches stay right as messages are added.
+ * </p>
+ * 
+ * @see {@link ChatBox#search(String)}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class SearchBar extends HBox
+{
+	/** The chat box that is searched. */
+	protected final ChatBox chatBox;
+	
+	/** A textfield that contains the search query. */
+	protected final TextField queryTextField;
+	
+	/** A label that shows which match is highlighted, out of how many. */
+	protected final Label matchesLabel;
+	
+	/** A button that highlights the match above the highlighted one. */
+	protected final Button previousButton;
+	
+	/** A button that highlights the match below the highlighted one. */
+	protected final Button nextButton;
+	
+	/** The horizontal spacing, in pixels, between each control of the search bar. */
+	public static final int HORIZONTAL_SPACING = 10;
+	
+	/** The padding, in pixels, for the search bar. */
+	public static final int PADDING = 10;
+	
+	/**
+	 * Constructs a new, hidden search bar for the specified chat box.
+	 * @param chatBox the chat box to search
+	 */
+	public SearchBar(ChatBox chatBox)
+	{
+		// Validation check
+		Objects.requireNonNull(chatBox, "Parameter 'chatBox' cannot be null.");
+		
+		this.chatBox = chatBox;
+		queryTextField = new TextField();
+		matchesLabel = new Label();
+		previousButton = new Button("PREV");
+		nextButton = new Button("NEXT");
+		
+		initializeGUI();
+	}
+	
+	/**
+	 * Fully initializes and sets up the GUI elements in the search bar.
+	 */
+	protected void initializeGUI()
+	{
+		// Set a prompt text for the query text field when its empty
+		queryTextField.setPromptText("Search, such as parrot, parr* or \"pretty bird\"");
+		
+		// Search again as the user types, jumping to the most recent match
+		queryTextField.textProperty().addListener((args, oldQuery, newQuery) -> jumpToMatch(0));
+		
+		// ENTER goes up through the matches and SHIFT+ENTER goes down, while ESCAPE hides the search bar
+		queryTextField.addEventHandler(KeyEvent.KEY_PRESSED, e ->
+		{
+			if(e.getCode() == KeyCode.ENTER)
+			{
+				jumpToMatch(e.isShiftDown() ? 1 : -1);
+			}
+			else if(e.getCode() == KeyCode.ESCAPE)
+			{
+				hide();
+			}
+		});
+		previousButton.setOnAction(e -> jumpToMatch(-1));
+		nextButton.setOnAction(e -> jumpToMatch(1));
+		
+		// Setup styling and layout of the search bar, which only takes up space while shown
+		matchesLabel.setId("label_search");
+		setId("input_background");
+		setSpacing(HORIZONTAL_SPACING);
+		setPadding(new Insets(PADDING));
+		setAlignment(Pos.CENTER);
+		HBox.setHgrow(queryTextField, Priority.ALWAYS);
+		getChildren().addAll(queryTextField, matchesLabel, previousButton, nextButton);
+		setVisible(false);
+		managedProperty().bind(visibleProperty());
+	}
+	
+	/**
+	 * Shows the search bar and focuses its query, selecting it so that typing replaces it.
+	 */
+	public void show()
+	{
+		setVisible(true);
+		queryTextField.requestFocus();
+		queryTextField.selectAll();
+		jumpToMatch(0);
+	}
+	
+	/**
+	 * Hides the search bar and removes the highlight from the chat box.
+	 */
+	public void hide()
+	{
+		setVisible(false);
+		chatBox.highlightMessage(-1);
+	}
+	
+	/**
+	 * Searches the chat box again, then highlights a match relative to the highlighted message.
+	 * @param direction -1 for the match above the highlighted message, 1 for the one below, or 0 for the most recent match
+	 */
+	private void jumpToMatch(int direction)
+	{
+		int[] matches = chatBox.search(queryTextField.getText());
+		if(matches.length == 0)
+		{
+			matchesLabel.setText(queryTextField.getText().isBlank() ? "" : "No matches");
+			chatBox.highlightMessage(-1);
+			return;
+		}
+		
+		// Find where the highlighted message is among the matches, which it may no longer be one of
+		int current = chatBox.highlightedIndexProperty().get();
+		int match;
+		if(direction == 0 || current < 0)
+		{
+			match = matches.length - 1;
+		}
+		else
+		{
+			int found = Arrays.binarySearch(matches, current);
+			if(direction < 0)
+			{
+				// The last match above the highlighted message, wrapping around to the bottom
+				match = (found >= 0 ? found : -found - 1) - 1;
+				match = match < 0 ? matches.length - 1 : match;
+			}
+			else
+			{
+				// The first match below the highlighted message, wrapping around to the top
+				match = found >= 0 ? found + 1 : -found - 1;
+				match = match >= matches.length ? 0 : match;
+			}
+		}
+		
+		chatBox.highlightMessage(matches[match]);
+		matchesLabel.setText((match + 1) + " of " + matches.length);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package chatBot.gui;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The <code>StartupTimer</code> class times each phase of starting the application, from the start of the JVM
+ * to the first interaction, so that startup can be tracked between releases, such as on a cold JVM or with a class data sharing archive.
+ * 
+ * <p>
+ * Each call to {@link #mark(String)} ends a phase, which lasted since the previous call, and the first call ends the phase
+ * that started with the JVM. Marking only reads the clock, so phases are always timed, and only reported when asked for.
+ * </p>
+ * 
+ * @see {@link ChatBotApp}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class StartupTimer
+{
+	/** The names of the phases, in the order they ended. */
+	private static final List<String> phases = new ArrayList<>();
+	
+	/** The time, in nanoseconds, that each phase lasted. */
+	private static final List<Long> durations = new ArrayList<>();
+	
+	/** The time, from {@link System#nanoTime()}, that the last phase ended at, or 0 before the first one. */
+	private static long lastNanos = 0;
+	
+	/** This class only contains static methods. */
+	private StartupTimer()
+	{
+	}
+	
+	/**
+	 * Ends a phase, which lasted since the previous phase ended, or since the JVM started if it is the first one.
+	 * @param phase the name of the phase
+	 */
+	public static synchronized void mark(String phase)
+	{
+		// Validity checks
+		Objects.requireNonNull(phase, "Parameter 'phase' cannot be null.");
+		
+		long now = System.nanoTime();
+		long duration;
+		if(lastNanos == 0)
+		{
+			// The JVM's start is only known to the operating system, on the wall clock, and to within a few milliseconds
+			Instant jvmStart = ProcessHandle.current().info().startInstant().orElse(null);
+			duration = jvmStart == null ? 0 : Math.max(0, (System.currentTimeMillis() - jvmStart.toEpochMilli()) * 1_000_000);
+		}
+		else
+		{
+			duration = now - lastNanos;
+		}
+		
+		phases.add(phase);
+		durations.add(duration);
+		lastNanos = now;
+	}
+	
+	/**
+	 * Returns the phases so far, with how long each one lasted and how long since the JVM started when it ended.
+	 * @return the report, one line per phase
+	 */
+	public static synchronized String getReport()
+	{
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("Startup timing (%s, %s)%n", System.getProperty("java.vm.version"), System.getProperty("java.vm.info")));
+		report.append(String.format("  %-28s %10s %10s%n", "Phase", "Duration", "Total"));
+		
+		long total = 0;
+		for(int i = 0; i < phases.size(); i++)
+		{
+			total += durations.get(i);
+			report.append(String.format("  %-28s %7.1f ms %7.1f ms%n", phases.get(i), durations.get(i) / 1e6, total / 1e6));
+		}
+		return report.toString();
+	}
+	
+	/**
+	 * Prints the phases so far to the standard output.
+	 */
+	public static void printReport()
+	{
+		System.out.print(getReport());
+	}
+}
\ No newline at end of file
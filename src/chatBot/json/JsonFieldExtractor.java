@@ -0,0 +1,398 @@
+package chatBot.json;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The <code>JsonFieldExtractor</code> class pulls a few top-level fields out of a UTF-8 encoded JSON object, such as the
+ * response body of a remote service, without building a map or a string of the whole document.
+ * 
+ * <p>
+ * The object is scanned once, straight from its bytes. Keys are compared to the wanted fields byte by byte, values of
+ * unwanted fields are skipped without being decoded, and the scan stops as soon as every wanted field was found.
+ * The only allocations are the returned array and the decoded values.
+ * </p>
+ * 
+ * <p>
+ * String values are unescaped, numbers and booleans are returned as their literal text, and <code>null</code>, objects
+ * and arrays are returned as <code>null</code>. An extractor is immutable, and can be shared between threads.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class JsonFieldExtractor
+{
+	/** The names of the wanted fields. */
+	private final String[] fields;
+	
+	/** The UTF-8 bytes of the names of the wanted fields. */
+	private final byte[][] fieldBytes;
+	
+	/**
+	 * Constructs a new extractor of the specified top-level fields.
+	 * @param fields the names of the wanted fields
+	 */
+	public JsonFieldExtractor(String... fields)
+	{
+		// Validity checks
+		Objects.requireNonNull(fields, "Parameter 'fields' cannot be null.");
+		if(fields.length == 0)
+		{
+			throw new IllegalArgumentException("Parameter 'fields' must name at least one field.");
+		}
+		
+		this.fields = fields.clone();
+		fieldBytes = new byte[fields.length][];
+		for(int i = 0; i < fields.length; i++)
+		{
+			Objects.requireNonNull(fields[i], "Parameter 'fields' cannot contain null.");
+			fieldBytes[i] = fields[i].getBytes(StandardCharsets.UTF_8);
+		}
+	}
+	
+	/**
+	 * Extracts the wanted fields from a JSON object.
+	 * @param json the UTF-8 bytes of the JSON object
+	 * @return the value of each wanted field, in the order they were given to the constructor, or <code>null</code> for missing fields
+	 * @throws IOException if the bytes are not a well-formed JSON object, up to the last wanted field
+	 */
+	public String[] extract(byte[] json) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(json, "Parameter 'json' cannot be null.");
+		
+		return new Scan(json).extract();
+	}
+	
+	/**
+	 * Returns the names of the wanted fields.
+	 * @return the field names
+	 */
+	public String[] getFields()
+	{
+		return fields.clone();
+	}
+	
+	/**
+	 * A single pass over a JSON object.
+	 */
+	private final class Scan
+	{
+		/** The bytes being scanned. */
+		private final byte[] json;
+		
+		/** The position of the next byte to scan. */
+		private int position = 0;
+		
+		private Scan(byte[] json)
+		{
+			this.json = json;
+		}
+		
+		/**
+		 * Scans the top-level object for the wanted fields.
+		 * @return the value of each wanted field
+		 */
+		private String[] extract() throws IOException
+		{
+			String[] values = new String[fields.length];
+			boolean[] isFound = new boolean[fields.length];
+			int remaining = fields.length;
+			
+			expect('{');
+			if(peek() == '}')
+			{
+				return values;
+			}
+			
+			while(true)
+			{
+				// Match the key against the wanted fields, without decoding it
+				expect('"');
+				int keyStart = position;
+				int keyEnd = skipString();
+				int field = findField(keyStart, keyEnd);
+				expect(':');
+				
+				if(field >= 0 && !isFound[field])
+				{
+					values[field] = readValue();
+					isFound[field] = true;
+					if(--remaining == 0)
+					{
+						return values;
+					}
+				}
+				else
+				{
+					skipValue();
+				}
+				
+				if(peek() == ',')
+				{
+					position++;
+					continue;
+				}
+				expect('}');
+				return values;
+			}
+		}
+		
+		/**
+		 * Returns the index of the wanted field whose name is the given key, comparing raw bytes unless the key has escapes.
+		 * @param keyStart the position of the key's first byte
+		 * @param keyEnd the position of the key's closing quote
+		 * @return the index of the field, or -1 if the key is not wanted
+		 */
+		private int findField(int keyStart, int keyEnd) throws IOException
+		{
+			boolean hasEscapes = false;
+			for(int i = keyStart; i < keyEnd; i++)
+			{
+				if(json[i] == '\\')
+				{
+					hasEscapes = true;
+					break;
+				}
+			}
+			
+			if(hasEscapes)
+			{
+				String key = unescape(keyStart, keyEnd);
+				for(int i = 0; i < fields.length; i++)
+				{
+					if(fields[i].equals(key))
+					{
+						return i;
+					}
+				}
+				return -1;
+			}
+			
+			for(int i = 0; i < fieldBytes.length; i++)
+			{
+				if(Arrays.equals(json, keyStart, keyEnd, fieldBytes[i], 0, fieldBytes[i].length))
+				{
+					return i;
+				}
+			}
+			return -1;
+		}
+		
+		/**
+		 * Reads the value at the current position.
+		 * @return the decoded string, the literal text of a number or boolean, or <code>null</code>
+		 */
+		private String readValue() throws IOException
+		{
+			byte b = peek();
+			if(b == '"')
+			{
+				position++;
+				int start = position;
+				int end = skipString();
+				for(int i = start; i < end; i++)
+				{
+					if(json[i] == '\\')
+					{
+						return unescape(start, end);
+					}
+				}
+				return new String(json, start, end - start, StandardCharsets.UTF_8);
+			}
+			if(b == '{' || b == '[')
+			{
+				skipValue();
+				return null;
+			}
+			
+			int start = position;
+			skipLiteral();
+			String literal = new String(json, start, position - start, StandardCharsets.US_ASCII);
+			return literal.equals("null") ? null : literal;
+		}
+		
+		/**
+		 * Skips the value at the current position, including nested objects and arrays.
+		 */
+		private void skipValue() throws IOException
+		{
+			byte b = peek();
+			if(b == '"')
+			{
+				position++;
+				skipString();
+				return;
+			}
+			if(b != '{' && b != '[')
+			{
+				skipLiteral();
+				return;
+			}
+			
+			int depth = 0;
+			do
+			{
+				if(position >= json.length)
+				{
+					throw malformed("unterminated object or array");
+				}
+				b = json[position++];
+				if(b == '"')
+				{
+					skipString();
+				}
+				else if(b == '{' || b == '[')
+				{
+					depth++;
+				}
+				else if(b == '}' || b == ']')
+				{
+					depth--;
+				}
+			}
+			while(depth > 0);
+		}
+		
+		/**
+		 * Skips the rest of a string whose opening quote was consumed.
+		 * @return the position of the closing quote
+		 */
+		private int skipString() throws IOException
+		{
+			while(position < json.length)
+			{
+				byte b = json[position++];
+				if(b == '"')
+				{
+					return position - 1;
+				}
+				if(b == '\\')
+				{
+					position++;
+				}
+			}
+			throw malformed("unterminated string");
+		}
+		
+		/**
+		 * Skips a number, <code>true</code>, <code>false</code> or <code>null</code>.
+		 */
+		private void skipLiteral() throws IOException
+		{
+			int start = position;
+			while(position < json.length)
+			{
+				byte b = json[position];
+				if(b == ',' || b == '}' || b == ']' || b == ' ' || b == '\t' || b == '\n' || b == '\r')
+				{
+					break;
+				}
+				position++;
+			}
+			if(position == start)
+			{
+				throw malformed("expected a value");
+			}
+		}
+		
+		/**
+		 * Decodes a string with escape sequences.
+		 * @param start the position of the string's first byte
+		 * @param end the position of the string's closing quote
+		 * @return the unescaped string
+		 */
+		private String unescape(int start, int end) throws IOException
+		{
+			StringBuilder builder = new StringBuilder(end - start);
+			int chunkStart = start;
+			int i = start;
+			while(i < end)
+			{
+				if(json[i] != '\\')
+				{
+					i++;
+					continue;
+				}
+				
+				// Decode the unescaped bytes before the escape sequence as UTF-8
+				builder.append(new String(json, chunkStart, i - chunkStart, StandardCharsets.UTF_8));
+				if(i + 1 >= end)
+				{
+					throw malformed("unterminated escape sequence");
+				}
+				
+				byte escaped = json[i + 1];
+				i += 2;
+				switch(escaped)
+				{
+					case '"': builder.append('"'); break;
+					case '\\': builder.append('\\'); break;
+					case '/': builder.append('/'); break;
+					case 'b': builder.append('\b'); break;
+					case 'f': builder.append('\f'); break;
+					case 'n': builder.append('\n'); break;
+					case 'r': builder.append('\r'); break;
+					case 't': builder.append('\t'); break;
+					case 'u':
+						if(i + 4 > end)
+						{
+							throw malformed("truncated unicode escape");
+						}
+						try
+						{
+							builder.append((char) Integer.parseInt(new String(json, i, 4, StandardCharsets.US_ASCII), 16));
+						}
+						catch (NumberFormatException e)
+						{
+							throw malformed("invalid unicode escape");
+						}
+						i += 4;
+						break;
+					default:
+						throw malformed("invalid escape sequence");
+				}
+				chunkStart = i;
+			}
+			builder.append(new String(json, chunkStart, end - chunkStart, StandardCharsets.UTF_8));
+			return builder.toString();
+		}
+		
+		/**
+		 * Skips whitespace, then returns the next byte without consuming it.
+		 * @return the next byte
+		 */
+		private byte peek() throws IOException
+		{
+			while(position < json.length)
+			{
+				byte b = json[position];
+				if(b != ' ' && b != '\t' && b != '\n' && b != '\r')
+				{
+					return b;
+				}
+				position++;
+			}
+			throw malformed("unexpected end of input");
+		}
+		
+		/**
+		 * Skips whitespace, then consumes the expected byte.
+		 * @param expected the expected byte
+		 */
+		private void expect(char expected) throws IOException
+		{
+			if(peek() != expected)
+			{
+				throw malformed("expected '" + expected + "'");
+			}
+			position++;
+		}
+		
+		private IOException malformed(String reason)
+		{
+			return new IOException("Malformed JSON at byte " + position + ": " + reason + ".");
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package chatBot.memory;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The <code>ConcurrentPhraseMemory</code> class is a thread-safe {@link PhraseMemory}, for a chat bot that many users talk to at once,
+ * such as a {@link chatBot.bots.GroupParrotBot}. It takes no lock, so threads storing and recalling phrases never wait on one another.
+ *
+ * <p>
+ * Phrases are kept in a ring of slots. Storing a phrase claims the next slot with a single atomic increment,
+ * and once the ring is full, the oldest slot is overwritten (FIFO eviction), so recalling a phrase does not keep it from being evicted.
+ * Deduplication uses a {@link ConcurrentHashMap}, whose reads take no lock and whose writes only contend within a bin.
+ * </p>
+ *
+ * <p>
+ * Reads are consistent: a phrase returned by {@link #get(int)} or {@link #recall(int)} was stored in the memory at some point during the call,
+ * and never <code>null</code>, even while other threads store and evict phrases. The phrase at an index may change at any time,
+ * so a phrase that is evicted while being recalled is still returned. {@link #clear()} should not be called while other threads use the memory,
+ * since their indices may then be out of range.
+ * </p>
+ *
+ * @see {@link PhraseMemory}
+ * @see {@link chatBot.bots.GroupParrotBot}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class ConcurrentPhraseMemory implements PhraseMemory
+{
+	/** An auto-generated serial UID. */
+	private static final long serialVersionUID = 5167458234561093210L;
+
+	/** The maximum number of phrases that can be stored before evicting. */
+	private final int capacity;
+
+	/** The current ring of phrases, replaced as a whole when the memory is cleared. */
+	private final AtomicReference<Ring> ring;
+
+	/**
+	 * Initialize an empty memory.
+	 * @param capacity the maximum number of phrases that can be stored before evicting
+	 */
+	public ConcurrentPhraseMemory(int capacity)
+	{
+		// Validity checks
+		if(capacity < 1)
+		{
+			throw new IllegalArgumentException("Parameter 'capacity' must be at least 1.");
+		}
+
+		this.capacity = capacity;
+		this.ring = new AtomicReference<>(new Ring(capacity));
+	}
+
+	@Override
+	public boolean add(String phrase)
+	{
+		// Validity checks
+		Objects.requireNonNull(phrase, "Parameter 'phrase' cannot be null.");
+
+		Ring ring = this.ring.get();
+
+		// Only one thread can store a given phrase
+		if(!ring.phrases.add(phrase))
+		{
+			return false;
+		}
+
+		// Claim the next slot, and forget the phrase it held, if any
+		int slot = (int) (ring.nextSequence.getAndIncrement() % capacity);
+		String evicted = ring.slots.getAndSet(slot, phrase);
+		if(evicted == null)
+		{
+			ring.filledCount.incrementAndGet();
+		}
+		else
+		{
+			ring.phrases.remove(evicted);
+		}
+		return true;
+	}
+
+	@Override
+	public String get(int index)
+	{
+		Ring ring = this.ring.get();
+
+		// Validity checks
+		int size = ring.filledCount.get();
+		if(index < 0 || index >= size)
+		{
+			throw new IndexOutOfBoundsException("Index " + index + " is out of range for size " + size + ".");
+		}
+
+		// While the ring is first filled, a slot may be claimed but not written yet, so take the next written one instead
+		for(int i = 0; i < capacity; i++)
+		{
+			String phrase = ring.slots.get((index + i) % capacity);
+			if(phrase != null)
+			{
+				return phrase;
+			}
+		}
+
+		// Unreachable, since slots are never emptied once written and at least one was
+		throw new IllegalStateException("No phrase was found in a non-empty memory.");
+	}
+
+	/**
+	 * Returns the phrase at the specified index. Since phrases are evicted in the order they were stored, this is the same as {@link #get(int)}.
+	 * @param index index of the phrase to recall
+	 * @return the phrase at the specified index
+	 */
+	@Override
+	public String recall(int index)
+	{
+		return get(index);
+	}
+
+	@Override
+	public boolean contains(String phrase)
+	{
+		return ring.get().phrases.contains(phrase);
+	}
+
+	@Override
+	public int size()
+	{
+		return ring.get().filledCount.get();
+	}
+
+	@Override
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	@Override
+	public void clear()
+	{
+		ring.set(new Ring(capacity));
+	}
+
+	/**
+	 * The <code>Ring</code> class holds the phrases of a {@link ConcurrentPhraseMemory}.
+	 */
+	private static final class Ring implements Serializable
+	{
+		/** An auto-generated serial UID. */
+		private static final long serialVersionUID = -4180927263447590128L;
+
+		/** The phrase of each slot, or <code>null</code> for a slot that was never written. */
+		private final AtomicReferenceArray<String> slots;
+
+		/** The stored phrases, including those whose slot is claimed but not written yet. */
+		private final ConcurrentHashMap.KeySetView<String, Boolean> phrases = ConcurrentHashMap.newKeySet();
+
+		/** The sequence number of the next phrase to store, whose slot is the sequence number modulo the capacity. */
+		private final AtomicLong nextSequence = new AtomicLong();
+
+		/** The number of slots that have been written, which is the size of the memory. */
+		private final AtomicInteger filledCount = new AtomicInteger();
+
+		/**
+		 * Initialize an empty ring.
+		 * @param capacity the number of slots
+		 */
+		Ring(int capacity)
+		{
+			slots = new AtomicReferenceArray<>(capacity);
+		}
+	}
+}
\ No newline at end of file
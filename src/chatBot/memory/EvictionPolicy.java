@@ -0,0 +1,81 @@
+package chatBot.memory;
+import java.io.Serializable;
+
+/**
+ * The <code>EvictionPolicy</code> interface decides which phrase a full {@link PhraseMemory} forgets to make room for a new one.
+ * 
+ * <p>
+ * A policy is told about every insertion, use and removal of a phrase, all of which must take constant time, and is asked for a victim when the memory is full.
+ * The following policies are provided:
+ * <ul>
+ * <li>{@link #fifo()} - forgets the phrase that was learned first</li>
+ * <li>{@link #lru()} - forgets the phrase that was used least recently</li>
+ * <li>{@link #lfu()} - forgets the phrase that was used least frequently, breaking ties by the oldest use</li>
+ * </ul>
+ * </p>
+ * 
+ * <p>
+ * A policy instance keeps state about the phrases of a single memory, so it cannot be shared between memories.
+ * </p>
+ * 
+ * @see {@link PhraseMemory}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public interface EvictionPolicy extends Serializable
+{
+	/**
+	 * Called when a phrase has been newly stored.
+	 * @param phrase the stored phrase
+	 */
+	void recordInsertion(String phrase);
+	
+	/**
+	 * Called when an already stored phrase has been used, either by storing it again or by recalling it.
+	 * @param phrase the used phrase
+	 */
+	void recordAccess(String phrase);
+	
+	/**
+	 * Called when a phrase has been removed.
+	 * @param phrase the removed phrase
+	 */
+	void recordRemoval(String phrase);
+	
+	/**
+	 * Returns the phrase that should be evicted next, without removing it.
+	 * @return the phrase to evict, or <code>null</code> if no phrases are tracked
+	 */
+	String selectVictim();
+	
+	/**
+	 * Forgets about all tracked phrases.
+	 */
+	void clear();
+	
+	/**
+	 * Creates a policy that evicts the phrase that was learned first.
+	 * @return a new first-in-first-out policy
+	 */
+	static EvictionPolicy fifo()
+	{
+		return new OrderedEvictionPolicy(false);
+	}
+	
+	/**
+	 * Creates a policy that evicts the phrase that was used least recently.
+	 * @return a new least-recently-used policy
+	 */
+	static EvictionPolicy lru()
+	{
+		return new OrderedEvictionPolicy(true);
+	}
+	
+	/**
+	 * Creates a policy that evicts the phrase that was used least frequently.
+	 * @return a new least-frequently-used policy
+	 */
+	static EvictionPolicy lfu()
+	{
+		return new LfuEvictionPolicy();
+	}
+}
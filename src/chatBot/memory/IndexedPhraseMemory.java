@@ -0,0 +1,139 @@
+package chatBot.memory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Objects;
+
+/**
+ * The <code>IndexedPhraseMemory</code> class is a bounded {@link PhraseMemory} with constant time insertion and random access.
+ * 
+ * <p>
+ * Phrases are kept in an array list for indexed access, alongside a hash map from each phrase to its index for deduplication.
+ * When a phrase is evicted, the last phrase in the list is moved into its place, so that removal also takes constant time.
+ * Which phrase is evicted is decided by a pluggable {@link EvictionPolicy}.
+ * </p>
+ * 
+ * @see {@link PhraseMemory}
+ * @see {@link EvictionPolicy}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class IndexedPhraseMemory implements PhraseMemory
+{
+	/** An auto-generated serial UID. */
+	private static final long serialVersionUID = 4386250143391765829L;
+	
+	/** All stored phrases, in no particular order. */
+	private final ArrayList<String> phrases = new ArrayList<>();
+	
+	/** The index of each stored phrase in {@link #phrases}. */
+	private final HashMap<String, Integer> indices = new HashMap<>();
+	
+	/** The maximum number of phrases that can be stored before evicting. */
+	private final int capacity;
+	
+	/** The policy deciding which phrase to evict when full. */
+	private final EvictionPolicy evictionPolicy;
+	
+	/**
+	 * Constructs a new, empty phrase memory.
+	 * @param capacity the maximum number of phrases that can be stored before evicting
+	 * @param evictionPolicy the policy deciding which phrase to evict when full
+	 */
+	public IndexedPhraseMemory(int capacity, EvictionPolicy evictionPolicy)
+	{
+		// Validity checks
+		if(capacity < 1)
+		{
+			throw new IllegalArgumentException("Parameter 'capacity' must be at least 1.");
+		}
+		Objects.requireNonNull(evictionPolicy, "Parameter 'evictionPolicy' cannot be null.");
+		
+		this.capacity = capacity;
+		this.evictionPolicy = evictionPolicy;
+	}
+	
+	@Override
+	public boolean add(String phrase)
+	{
+		// Validity checks
+		Objects.requireNonNull(phrase, "Parameter 'phrase' cannot be null.");
+		
+		// Already stored phrases only count as a use
+		if(indices.containsKey(phrase))
+		{
+			evictionPolicy.recordAccess(phrase);
+			return false;
+		}
+		
+		// Make room for the new phrase if needed
+		if(phrases.size() >= capacity)
+		{
+			remove(evictionPolicy.selectVictim());
+		}
+		
+		indices.put(phrase, phrases.size());
+		phrases.add(phrase);
+		evictionPolicy.recordInsertion(phrase);
+		return true;
+	}
+	
+	@Override
+	public String get(int index)
+	{
+		return phrases.get(index);
+	}
+	
+	@Override
+	public String recall(int index)
+	{
+		String phrase = phrases.get(index);
+		evictionPolicy.recordAccess(phrase);
+		return phrase;
+	}
+	
+	@Override
+	public boolean contains(String phrase)
+	{
+		return indices.containsKey(phrase);
+	}
+	
+	@Override
+	public int size()
+	{
+		return phrases.size();
+	}
+	
+	@Override
+	public int getCapacity()
+	{
+		return capacity;
+	}
+	
+	@Override
+	public void clear()
+	{
+		phrases.clear();
+		indices.clear();
+		evictionPolicy.clear();
+	}
+	
+	/**
+	 * Removes the given phrase by moving the last phrase into its place.
+	 * @param phrase the phrase to remove
+	 */
+	private void remove(String phrase)
+	{
+		int index = indices.remove(phrase);
+		int lastIndex = phrases.size() - 1;
+		
+		// Fill the hole with the last phrase, then drop the last slot
+		if(index != lastIndex)
+		{
+			String last = phrases.get(lastIndex);
+			phrases.set(index, last);
+			indices.put(last, index);
+		}
+		phrases.remove(lastIndex);
+		
+		evictionPolicy.recordRemoval(phrase);
+	}
+}
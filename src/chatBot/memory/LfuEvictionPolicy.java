@@ -0,0 +1,116 @@
+package chatBot.memory;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * The <code>LfuEvictionPolicy</code> class evicts the phrase that was used least frequently,
+ * breaking ties by evicting the phrase whose frequency changed the longest time ago.
+ * 
+ * <p>
+ * Phrases are grouped in buckets by frequency, and the lowest non-empty frequency is tracked, so that every operation takes constant time.
+ * </p>
+ * 
+ * @see {@link EvictionPolicy#lfu()}
+ * @author Mohammad Alali (Sanavesa)
+ */
+class LfuEvictionPolicy implements EvictionPolicy
+{
+	/** An auto-generated serial UID. */
+	private static final long serialVersionUID = 7912274300652286011L;
+	
+	/** The number of uses of each tracked phrase. */
+	private final HashMap<String, Integer> frequencies = new HashMap<>();
+	
+	/** The tracked phrases grouped by their number of uses, each group in the order the phrases joined it. */
+	private final HashMap<Integer, LinkedHashSet<String>> buckets = new HashMap<>();
+	
+	/** The lowest number of uses among the tracked phrases. */
+	private int minFrequency = 0;
+	
+	@Override
+	public void recordInsertion(String phrase)
+	{
+		frequencies.put(phrase, 1);
+		bucket(1).add(phrase);
+		minFrequency = 1;
+	}
+	
+	@Override
+	public void recordAccess(String phrase)
+	{
+		Integer frequency = frequencies.get(phrase);
+		if(frequency == null)
+		{
+			return;
+		}
+		
+		// Move the phrase up to the next bucket
+		removeFromBucket(phrase, frequency);
+		frequencies.put(phrase, frequency + 1);
+		bucket(frequency + 1).add(phrase);
+		
+		if(minFrequency == frequency && !buckets.containsKey(frequency))
+		{
+			minFrequency = frequency + 1;
+		}
+	}
+	
+	@Override
+	public void recordRemoval(String phrase)
+	{
+		Integer frequency = frequencies.remove(phrase);
+		if(frequency != null)
+		{
+			removeFromBucket(phrase, frequency);
+		}
+	}
+	
+	@Override
+	public String selectVictim()
+	{
+		if(frequencies.isEmpty())
+		{
+			return null;
+		}
+		
+		// The lowest bucket only empties out of order when a phrase is removed without an insertion after it, so this rarely loops
+		while(!buckets.containsKey(minFrequency))
+		{
+			minFrequency++;
+		}
+		return buckets.get(minFrequency).iterator().next();
+	}
+	
+	@Override
+	public void clear()
+	{
+		frequencies.clear();
+		buckets.clear();
+		minFrequency = 0;
+	}
+	
+	/**
+	 * Returns the bucket of the given frequency, creating it if needed.
+	 * @param frequency the number of uses
+	 * @return the bucket of phrases with that number of uses
+	 */
+	private LinkedHashSet<String> bucket(int frequency)
+	{
+		return buckets.computeIfAbsent(frequency, key -> new LinkedHashSet<>());
+	}
+	
+	/**
+	 * Removes the phrase from the bucket of the given frequency, dropping the bucket once it is empty.
+	 * @param phrase the phrase to remove
+	 * @param frequency the number of uses of the phrase
+	 */
+	private void removeFromBucket(String phrase, int frequency)
+	{
+		LinkedHashSet<String> bucket = buckets.get(frequency);
+		bucket.remove(phrase);
+		if(bucket.isEmpty())
+		{
+			buckets.remove(frequency);
+		}
+	}
+}
@@ -0,0 +1,545 @@
+package chatBot.memory;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The <code>OffHeapPhraseMemory</code> class is a {@link PhraseMemory} that packs its phrases outside of the garbage collected heap.
+ * It is meant for memories of tens of millions of phrases, where millions of <code>String</code> objects would make garbage collection slow.
+ * 
+ * <p>
+ * Phrases are encoded as UTF-8, prefixed by their length, and appended to an arena of off-heap segments,
+ * which are either direct byte buffers or memory-mapped temporary files. The heap only holds a few primitive arrays:
+ * <ul>
+ * <li>an offset table, locating the phrase stored in each slot within the arena</li>
+ * <li>the hash of the phrase stored in each slot</li>
+ * <li>an open-addressing hash index from phrases to slots, used for deduplication</li>
+ * </ul>
+ * </p>
+ * 
+ * <p>
+ * Slots are filled in order, and once the memory is full, the oldest slot is overwritten (FIFO eviction).
+ * The space of overwritten phrases is reclaimed by compacting the arena once it holds more garbage than live phrases.
+ * </p>
+ * 
+ * @see {@link PhraseMemory}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class OffHeapPhraseMemory implements PhraseMemory
+{
+	/** An auto-generated serial UID. */
+	private static final long serialVersionUID = -2297630149214587207L;
+	
+	/** The size, in bytes, of the first arena segment. Following segments double in size up to {@link #MAX_SEGMENT_SIZE}. */
+	public static final int MIN_SEGMENT_SIZE = 1 << 16;
+	
+	/** The maximum size, in bytes, of an arena segment. This is also the maximum encoded size of a single phrase. */
+	public static final int MAX_SEGMENT_SIZE = 1 << 26;
+	
+	/** The initial number of slots of the offset table and hashes, which grow by doubling. */
+	private static final int INITIAL_SLOTS = 64;
+	
+	/** The maximum number of phrases that can be stored before evicting. */
+	private final int capacity;
+	
+	/** The directory holding memory-mapped segment files, or <code>null</code> to use direct byte buffers. */
+	private final transient Path directory;
+	
+	/** The segments of the arena, in the order they were allocated. */
+	private transient List<ByteBuffer> segments;
+	
+	/** The position, within the last segment, where the next phrase will be written. */
+	private transient int writePosition;
+	
+	/** The location of the phrase of each slot, as the segment index in the upper 32 bits and the position in the lower 32 bits. */
+	private transient long[] offsets;
+	
+	/** The hash of the phrase of each slot. */
+	private transient int[] hashes;
+	
+	/** A linear probing hash index, holding <code>slot + 1</code> of each phrase, or 0 for an empty bucket. */
+	private transient int[] index;
+	
+	/** The number of stored phrases, which are in slots <code>0</code> to <code>size - 1</code>. */
+	private transient int size;
+	
+	/** The slot that will be overwritten next once the memory is full, which holds the oldest phrase. */
+	private transient int oldestSlot;
+	
+	/** The number of arena bytes holding stored phrases. */
+	private transient long liveBytes;
+	
+	/** The number of arena bytes holding overwritten phrases. */
+	private transient long garbageBytes;
+	
+	/**
+	 * Constructs a new, empty phrase memory backed by direct byte buffers.
+	 * @param capacity the maximum number of phrases that can be stored before evicting
+	 */
+	public OffHeapPhraseMemory(int capacity)
+	{
+		this(capacity, null);
+	}
+	
+	/**
+	 * Constructs a new, empty phrase memory backed by memory-mapped temporary files in the specified directory.
+	 * @param capacity the maximum number of phrases that can be stored before evicting
+	 * @param directory the directory for the segment files, or <code>null</code> to use direct byte buffers
+	 */
+	public OffHeapPhraseMemory(int capacity, Path directory)
+	{
+		// Validity checks
+		if(capacity < 1)
+		{
+			throw new IllegalArgumentException("Parameter 'capacity' must be at least 1.");
+		}
+		
+		this.capacity = capacity;
+		this.directory = directory;
+		initialize();
+	}
+	
+	/**
+	 * Allocates the empty tables, used on construction and deserialization.
+	 */
+	private void initialize()
+	{
+		segments = new ArrayList<>();
+		writePosition = 0;
+		offsets = new long[Math.min(INITIAL_SLOTS, capacity)];
+		hashes = new int[offsets.length];
+		index = new int[INITIAL_SLOTS * 2];
+		size = 0;
+		oldestSlot = 0;
+		liveBytes = 0;
+		garbageBytes = 0;
+	}
+	
+	@Override
+	public boolean add(String phrase)
+	{
+		// Validity checks
+		Objects.requireNonNull(phrase, "Parameter 'phrase' cannot be null.");
+		
+		byte[] bytes = phrase.getBytes(StandardCharsets.UTF_8);
+		int hash = hash(bytes);
+		
+		// Already stored phrases are not stored twice
+		if(find(bytes, hash) >= 0)
+		{
+			return false;
+		}
+		
+		// Pick a free slot, or overwrite the oldest one once full
+		int slot;
+		if(size < capacity)
+		{
+			slot = size++;
+			ensureSlots(size);
+		}
+		else
+		{
+			slot = oldestSlot;
+			oldestSlot = (oldestSlot + 1) % capacity;
+			removeFromIndex(slot);
+			
+			long recordLength = recordLength(slot);
+			liveBytes -= recordLength;
+			garbageBytes += recordLength;
+		}
+		
+		offsets[slot] = append(bytes);
+		hashes[slot] = hash;
+		insertIntoIndex(slot);
+		liveBytes += varIntLength(bytes.length) + bytes.length;
+		
+		// Reclaim the space of overwritten phrases once they outweigh the stored ones
+		if(garbageBytes > liveBytes && garbageBytes > MAX_SEGMENT_SIZE)
+		{
+			compact();
+		}
+		return true;
+	}
+	
+	@Override
+	public String get(int slot)
+	{
+		Objects.checkIndex(slot, size);
+		
+		ByteBuffer segment = segments.get((int) (offsets[slot] >>> 32));
+		int position = (int) offsets[slot];
+		int length = readVarInt(segment, position);
+		
+		byte[] bytes = new byte[length];
+		segment.get(position + varIntLength(length), bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	@Override
+	public String recall(int slot)
+	{
+		// Eviction is first-in-first-out, so recalling a phrase does not change anything
+		return get(slot);
+	}
+	
+	@Override
+	public boolean contains(String phrase)
+	{
+		byte[] bytes = phrase.getBytes(StandardCharsets.UTF_8);
+		return find(bytes, hash(bytes)) >= 0;
+	}
+	
+	@Override
+	public int size()
+	{
+		return size;
+	}
+	
+	@Override
+	public int getCapacity()
+	{
+		return capacity;
+	}
+	
+	@Override
+	public void clear()
+	{
+		initialize();
+	}
+	
+	/**
+	 * Returns the number of off-heap bytes allocated by the arena, including overwritten phrases and unused space at the end of segments.
+	 * @return the arena's size in bytes
+	 */
+	public long getArenaSize()
+	{
+		long arenaSize = 0;
+		for(ByteBuffer segment : segments)
+		{
+			arenaSize += segment.capacity();
+		}
+		return arenaSize;
+	}
+	
+	/**
+	 * Looks up the slot holding the given phrase.
+	 * @param bytes the UTF-8 encoding of the phrase
+	 * @param hash the hash of the phrase
+	 * @return the slot of the phrase, or -1 if it is not stored
+	 */
+	private int find(byte[] bytes, int hash)
+	{
+		int mask = index.length - 1;
+		for(int bucket = hash & mask; index[bucket] != 0; bucket = (bucket + 1) & mask)
+		{
+			int slot = index[bucket] - 1;
+			if(hashes[slot] == hash && equalsAt(slot, bytes))
+			{
+				return slot;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Compares the phrase stored in the given slot with the given bytes, without decoding it.
+	 * @param slot the slot to compare
+	 * @param bytes the UTF-8 encoding of a phrase
+	 * @return true if equal, false otherwise
+	 */
+	private boolean equalsAt(int slot, byte[] bytes)
+	{
+		ByteBuffer segment = segments.get((int) (offsets[slot] >>> 32));
+		int position = (int) offsets[slot];
+		int length = readVarInt(segment, position);
+		if(length != bytes.length)
+		{
+			return false;
+		}
+		
+		position += varIntLength(length);
+		for(int i = 0; i < length; i++)
+		{
+			if(segment.get(position + i) != bytes[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Adds the given slot to the hash index, growing the index if it would become more than half full.
+	 * @param slot the slot to add
+	 */
+	private void insertIntoIndex(int slot)
+	{
+		if(size * 2 > index.length)
+		{
+			// Rebuild a twice as large index from the stored slots
+			index = new int[index.length * 2];
+			for(int i = 0; i < size; i++)
+			{
+				if(i != slot)
+				{
+					insertIntoIndex(i);
+				}
+			}
+		}
+		
+		int mask = index.length - 1;
+		int bucket = hashes[slot] & mask;
+		while(index[bucket] != 0)
+		{
+			bucket = (bucket + 1) & mask;
+		}
+		index[bucket] = slot + 1;
+	}
+	
+	/**
+	 * Removes the given slot from the hash index, shifting back any following entries so that lookups never stop early.
+	 * @param slot the slot to remove
+	 */
+	private void removeFromIndex(int slot)
+	{
+		int mask = index.length - 1;
+		int hole = hashes[slot] & mask;
+		while(index[hole] != slot + 1)
+		{
+			hole = (hole + 1) & mask;
+		}
+		index[hole] = 0;
+		
+		// Move back every entry of the following cluster whose home bucket is not between the hole and itself
+		for(int bucket = (hole + 1) & mask; index[bucket] != 0; bucket = (bucket + 1) & mask)
+		{
+			int home = hashes[index[bucket] - 1] & mask;
+			boolean isHomeBetween = hole <= bucket ? (hole < home && home <= bucket) : (hole < home || home <= bucket);
+			if(!isHomeBetween)
+			{
+				index[hole] = index[bucket];
+				index[bucket] = 0;
+				hole = bucket;
+			}
+		}
+	}
+	
+	/**
+	 * Grows the offset table and hashes to hold at least the given number of slots.
+	 * @param slots the number of slots needed
+	 */
+	private void ensureSlots(int slots)
+	{
+		if(slots > offsets.length)
+		{
+			int length = (int) Math.min(capacity, Math.max(slots, offsets.length * 2L));
+			offsets = Arrays.copyOf(offsets, length);
+			hashes = Arrays.copyOf(hashes, length);
+		}
+	}
+	
+	/**
+	 * Appends the given bytes, prefixed by their length, to the arena.
+	 * @param bytes the bytes to append
+	 * @return the location of the appended record
+	 */
+	private long append(byte[] bytes)
+	{
+		int recordLength = varIntLength(bytes.length) + bytes.length;
+		if(recordLength > MAX_SEGMENT_SIZE)
+		{
+			throw new IllegalArgumentException("Phrases cannot be larger than " + MAX_SEGMENT_SIZE + " bytes.");
+		}
+		
+		// Start a new segment when the current one cannot fit the record
+		if(segments.isEmpty() || writePosition + recordLength > segments.get(segments.size() - 1).capacity())
+		{
+			int previousSize = segments.isEmpty() ? MIN_SEGMENT_SIZE / 2 : segments.get(segments.size() - 1).capacity();
+			int segmentSize = Math.min(MAX_SEGMENT_SIZE, previousSize * 2);
+			while(segmentSize < recordLength)
+			{
+				segmentSize *= 2;
+			}
+			segments.add(allocateSegment(segmentSize));
+			writePosition = 0;
+		}
+		
+		int segmentIndex = segments.size() - 1;
+		ByteBuffer segment = segments.get(segmentIndex);
+		int position = writePosition;
+		
+		writePosition = writeVarInt(segment, writePosition, bytes.length);
+		segment.put(writePosition, bytes);
+		writePosition += bytes.length;
+		
+		return ((long) segmentIndex << 32) | position;
+	}
+	
+	/**
+	 * Allocates an arena segment, either as a direct byte buffer or as a memory-mapped temporary file.
+	 * @param segmentSize the size of the segment in bytes
+	 * @return the allocated segment
+	 */
+	private ByteBuffer allocateSegment(int segmentSize)
+	{
+		if(directory == null)
+		{
+			return ByteBuffer.allocateDirect(segmentSize);
+		}
+		
+		try
+		{
+			Path file = Files.createTempFile(directory, "phrases-", ".arena");
+			try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE))
+			{
+				ByteBuffer segment = channel.map(MapMode.READ_WRITE, 0, segmentSize);
+				
+				// The mapping outlives the file on most systems, otherwise clean up when the application exits
+				try
+				{
+					Files.delete(file);
+				}
+				catch (IOException e)
+				{
+					file.toFile().deleteOnExit();
+				}
+				return segment;
+			}
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException("Failed to map a phrase arena segment in " + directory + ".", e);
+		}
+	}
+	
+	/**
+	 * Copies every stored phrase into fresh segments, dropping the space of overwritten phrases.
+	 */
+	private void compact()
+	{
+		List<ByteBuffer> oldSegments = segments;
+		long[] oldOffsets = offsets.clone();
+		
+		segments = new ArrayList<>();
+		writePosition = 0;
+		for(int slot = 0; slot < size; slot++)
+		{
+			ByteBuffer segment = oldSegments.get((int) (oldOffsets[slot] >>> 32));
+			int position = (int) oldOffsets[slot];
+			int length = readVarInt(segment, position);
+			
+			byte[] bytes = new byte[length];
+			segment.get(position + varIntLength(length), bytes);
+			offsets[slot] = append(bytes);
+		}
+		garbageBytes = 0;
+	}
+	
+	/**
+	 * Returns the number of arena bytes taken by the record of the given slot.
+	 * @param slot the slot
+	 * @return the record's length in bytes
+	 */
+	private long recordLength(int slot)
+	{
+		int length = readVarInt(segments.get((int) (offsets[slot] >>> 32)), (int) offsets[slot]);
+		return varIntLength(length) + length;
+	}
+	
+	/**
+	 * Hashes the given bytes, spreading the bits so that the lower bits can be used directly as a bucket.
+	 * @param bytes the bytes to hash
+	 * @return the hash
+	 */
+	private static int hash(byte[] bytes)
+	{
+		int hash = 1;
+		for(byte b : bytes)
+		{
+			hash = 31 * hash + b;
+		}
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+	
+	private static int varIntLength(int value)
+	{
+		int length = 1;
+		while((value >>>= 7) != 0)
+		{
+			length++;
+		}
+		return length;
+	}
+	
+	private static int writeVarInt(ByteBuffer buffer, int position, int value)
+	{
+		while((value & ~0x7F) != 0)
+		{
+			buffer.put(position++, (byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put(position++, (byte) value);
+		return position;
+	}
+	
+	private static int readVarInt(ByteBuffer buffer, int position)
+	{
+		int value = 0;
+		for(int shift = 0; ; shift += 7)
+		{
+			byte b = buffer.get(position++);
+			value |= (b & 0x7F) << shift;
+			if(b >= 0)
+			{
+				return value;
+			}
+		}
+	}
+	
+	/**
+	 * Serializes the memory as its capacity followed by its phrases, from oldest to newest.
+	 * @param out the stream to write to
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException
+	{
+		out.defaultWriteObject();
+		out.writeInt(size);
+		for(int i = 0; i < size; i++)
+		{
+			byte[] bytes = get((oldestSlot + i) % size).getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+	
+	/**
+	 * Restores a serialized memory into direct byte buffers.
+	 * @param in the stream to read from
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		initialize();
+		
+		int storedSize = in.readInt();
+		for(int i = 0; i < storedSize; i++)
+		{
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			add(new String(bytes, StandardCharsets.UTF_8));
+		}
+	}
+}
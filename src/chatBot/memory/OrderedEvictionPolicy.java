@@ -0,0 +1,61 @@
+package chatBot.memory;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * The <code>OrderedEvictionPolicy</code> class evicts phrases in the order they were learned (FIFO),
+ * or in the order they were last used (LRU).
+ * 
+ * @see {@link EvictionPolicy#fifo()}
+ * @see {@link EvictionPolicy#lru()}
+ * @author Mohammad Alali (Sanavesa)
+ */
+class OrderedEvictionPolicy implements EvictionPolicy
+{
+	/** An auto-generated serial UID. */
+	private static final long serialVersionUID = -3590412845209745326L;
+	
+	/** All tracked phrases, ordered from the next victim to the most recently learned (or used) phrase. */
+	private final LinkedHashMap<String, Boolean> order;
+	
+	/**
+	 * Constructs a new ordered eviction policy.
+	 * @param accessOrder true to order by last use (LRU), false to order by insertion (FIFO)
+	 */
+	OrderedEvictionPolicy(boolean accessOrder)
+	{
+		order = new LinkedHashMap<>(16, 0.75f, accessOrder);
+	}
+	
+	@Override
+	public void recordInsertion(String phrase)
+	{
+		order.put(phrase, Boolean.TRUE);
+	}
+	
+	@Override
+	public void recordAccess(String phrase)
+	{
+		// In access order, a lookup moves the phrase to the end; in insertion order, this has no effect
+		order.get(phrase);
+	}
+	
+	@Override
+	public void recordRemoval(String phrase)
+	{
+		order.remove(phrase);
+	}
+	
+	@Override
+	public String selectVictim()
+	{
+		Iterator<String> iterator = order.keySet().iterator();
+		return iterator.hasNext() ? iterator.next() : null;
+	}
+	
+	@Override
+	public void clear()
+	{
+		order.clear();
+	}
+}
@@ -0,0 +1,65 @@
+package chatBot.memory;
+import java.io.Serializable;
+
+/**
+ * The <code>PhraseMemory</code> interface defines a deduplicated store of phrases that a chat bot has learned,
+ * such as everything the user has said to a {@link chatBot.bots.ParrotBot}.
+ * 
+ * <p>
+ * Phrases are indexed from <code>0</code> to <code>size() - 1</code>, so that a uniformly random phrase can be
+ * recalled in constant time. The index of a phrase is <i>not</i> stable, as evicting a phrase may move another one into its place.
+ * </p>
+ * 
+ * @see {@link IndexedPhraseMemory}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public interface PhraseMemory extends Serializable
+{
+	/**
+	 * Stores the given phrase, unless it is already stored, in which case it only counts as a use of that phrase.
+	 * If the memory is full, a phrase is evicted to make room for the new one.
+	 * @param phrase the phrase to store
+	 * @return true if the phrase was newly stored, false if it was already stored
+	 */
+	boolean add(String phrase);
+	
+	/**
+	 * Returns the phrase at the specified index, without counting it as a use of that phrase.
+	 * @param index index of the phrase to return
+	 * @return the phrase at the specified index
+	 * @throws IndexOutOfBoundsException if the index is out of range <code>(index < 0 || index >= size())</code>
+	 */
+	String get(int index);
+	
+	/**
+	 * Returns the phrase at the specified index, and counts it as a use of that phrase, which may keep it from being evicted.
+	 * @param index index of the phrase to recall
+	 * @return the phrase at the specified index
+	 * @throws IndexOutOfBoundsException if the index is out of range <code>(index < 0 || index >= size())</code>
+	 */
+	String recall(int index);
+	
+	/**
+	 * Returns whether or not the given phrase is stored.
+	 * @param phrase the phrase to look for
+	 * @return true if stored, false otherwise
+	 */
+	boolean contains(String phrase);
+	
+	/**
+	 * Returns the number of stored phrases.
+	 * @return number of stored phrases
+	 */
+	int size();
+	
+	/**
+	 * Returns the maximum number of phrases that can be stored before evicting.
+	 * @return the memory's capacity
+	 */
+	int getCapacity();
+	
+	/**
+	 * Removes all stored phrases.
+	 */
+	void clear();
+}
@@ -0,0 +1,153 @@
+package chatBot.metrics;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chatBot.bots.ChatBot;
+
+/**
+ * The <code>ChatBotMetrics</code> class records how a chat bot replies: a {@link LatencyHistogram} of its reply latencies,
+ * its throughput, how often it fails to reply, and its own gauges, such as the size of a parrot's memory.
+ * 
+ * <p>
+ * Recording takes no lock and allocates nothing, so it can be done on every reply. The metrics of every kind of chat bot are kept
+ * by the {@link MetricsRegistry}, which also publishes them over JMX. They are usually recorded by an {@link InstrumentedChatBot}.
+ * </p>
+ * 
+ * @see {@link MetricsRegistry}
+ * @see {@link InstrumentedChatBot}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class ChatBotMetrics implements ChatBotMetricsMXBean
+{
+	/** The name of the metrics, which is the chat bot's simple class name. */
+	private final String name;
+	
+	/** The latencies of the replies. */
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	
+	/** The number of messages that the chat bot failed to reply to. */
+	private final AtomicLong errorCount = new AtomicLong();
+	
+	/** The time, from {@link System#nanoTime()}, the metrics were created or reset. */
+	private volatile long startNanos = System.nanoTime();
+	
+	/** The chat bot whose gauges are reported, or <code>null</code> if the metrics are shared by many chat bots. */
+	private volatile ChatBot gaugeSource;
+	
+	/**
+	 * Constructs empty metrics.
+	 * @param name the name of the metrics, which is the chat bot's simple class name
+	 */
+	public ChatBotMetrics(String name)
+	{
+		// Validity checks
+		Objects.requireNonNull(name, "Parameter 'name' cannot be null.");
+		
+		this.name = name;
+	}
+	
+	/**
+	 * Records a reply.
+	 * @param latencyNanos the time, in nanoseconds, taken to reply
+	 */
+	public void recordReply(long latencyNanos)
+	{
+		latencies.record(latencyNanos);
+	}
+	
+	/**
+	 * Records a message that the chat bot failed to reply to.
+	 */
+	public void recordError()
+	{
+		errorCount.incrementAndGet();
+	}
+	
+	/**
+	 * Sets the chat bot whose gauges are reported.
+	 * @param gaugeSource the chat bot, or <code>null</code> to report no gauges
+	 */
+	public void setGaugeSource(ChatBot gaugeSource)
+	{
+		this.gaugeSource = gaugeSource;
+	}
+	
+	/**
+	 * Returns a snapshot of the metrics.
+	 * @return the statistics
+	 */
+	public ChatBotStatistics getStatistics()
+	{
+		return new ChatBotStatistics(name, latencies.getSnapshot(), errorCount.get(), System.nanoTime() - startNanos, getGauges());
+	}
+	
+	@Override
+	public String getName()
+	{
+		return name;
+	}
+	
+	@Override
+	public long getReplyCount()
+	{
+		return latencies.getSnapshot().getCount();
+	}
+	
+	@Override
+	public long getErrorCount()
+	{
+		return errorCount.get();
+	}
+	
+	@Override
+	public double getRepliesPerSecond()
+	{
+		return getStatistics().getRepliesPerSecond();
+	}
+	
+	@Override
+	public double getMeanLatencyMillis()
+	{
+		return ChatBotStatistics.toMillis(latencies.getSnapshot().getMeanNanos());
+	}
+	
+	@Override
+	public double getP50LatencyMillis()
+	{
+		return ChatBotStatistics.toMillis(latencies.getSnapshot().getPercentileNanos(50));
+	}
+	
+	@Override
+	public double getP99LatencyMillis()
+	{
+		return ChatBotStatistics.toMillis(latencies.getSnapshot().getPercentileNanos(99));
+	}
+	
+	@Override
+	public double getP999LatencyMillis()
+	{
+		return ChatBotStatistics.toMillis(latencies.getSnapshot().getPercentileNanos(99.9));
+	}
+	
+	@Override
+	public double getMaxLatencyMillis()
+	{
+		return ChatBotStatistics.toMillis(latencies.getSnapshot().getMaxNanos());
+	}
+	
+	@Override
+	public Map<String, Long> getGauges()
+	{
+		ChatBot gaugeSource = this.gaugeSource;
+		return gaugeSource == null ? Map.of() : gaugeSource.getGauges();
+	}
+	
+	@Override
+	public void reset()
+	{
+		latencies.reset();
+		errorCount.set(0);
+		startNanos = System.nanoTime();
+	}
+}
\ No newline at end of file
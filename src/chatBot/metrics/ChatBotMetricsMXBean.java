@@ -0,0 +1,78 @@
+package chatBot.metrics;
+import java.util.Map;
+
+/**
+ * The <code>ChatBotMetricsMXBean</code> interface is the management interface of {@link ChatBotMetrics}, published over JMX
+ * under <code>chatBot:type=ChatBotMetrics,name=...</code> so that tools such as JConsole can watch a running chat bot.
+ * 
+ * @see {@link ChatBotMetrics}
+ * @see {@link MetricsRegistry}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public interface ChatBotMetricsMXBean
+{
+	/**
+	 * Returns the name that the metrics are published under, which is the chat bot's simple class name.
+	 * @return the name
+	 */
+	String getName();
+	
+	/**
+	 * Returns the number of replies made since the metrics were created or reset.
+	 * @return the number of replies
+	 */
+	long getReplyCount();
+	
+	/**
+	 * Returns the number of messages that the chat bot failed to reply to.
+	 * @return the number of errors
+	 */
+	long getErrorCount();
+	
+	/**
+	 * Returns the average number of replies per second since the metrics were created or reset.
+	 * @return the throughput
+	 */
+	double getRepliesPerSecond();
+	
+	/**
+	 * Returns the average time taken to reply.
+	 * @return the mean latency in milliseconds
+	 */
+	double getMeanLatencyMillis();
+	
+	/**
+	 * Returns the time that half of the replies took at most.
+	 * @return the median latency in milliseconds
+	 */
+	double getP50LatencyMillis();
+	
+	/**
+	 * Returns the time that 99% of the replies took at most.
+	 * @return the 99th percentile latency in milliseconds
+	 */
+	double getP99LatencyMillis();
+	
+	/**
+	 * Returns the time that 99.9% of the replies took at most.
+	 * @return the 99.9th percentile latency in milliseconds
+	 */
+	double getP999LatencyMillis();
+	
+	/**
+	 * Returns the longest time taken to reply.
+	 * @return the maximum latency in milliseconds
+	 */
+	double getMaxLatencyMillis();
+	
+	/**
+	 * Returns the chat bot's own gauges, such as the size of a parrot's memory.
+	 * @return the gauges by name, or an empty map if the metrics are not bound to a single chat bot
+	 */
+	Map<String, Long> getGauges();
+	
+	/**
+	 * Forgets every reply and error counted so far.
+	 */
+	void reset();
+}
\ No newline at end of file
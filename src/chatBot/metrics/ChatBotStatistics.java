@@ -0,0 +1,144 @@
+package chatBot.metrics;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The <code>ChatBotStatistics</code> class is an immutable snapshot of a chat bot's {@link ChatBotMetrics}.
+ * 
+ * @see {@link ChatBotMetrics}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class ChatBotStatistics
+{
+	/** The name of the metrics, which is the chat bot's simple class name. */
+	private final String name;
+	
+	/** The latencies of the replies. */
+	private final LatencySnapshot latencies;
+	
+	/** The number of messages that the chat bot failed to reply to. */
+	private final long errorCount;
+	
+	/** The time, in nanoseconds, that the replies were counted over. */
+	private final long elapsedNanos;
+	
+	/** The chat bot's own gauges. */
+	private final Map<String, Long> gauges;
+	
+	/**
+	 * Constructs a new snapshot of a chat bot's metrics.
+	 * @param name the name of the metrics
+	 * @param latencies the latencies of the replies
+	 * @param errorCount the number of messages that the chat bot failed to reply to
+	 * @param elapsedNanos the time, in nanoseconds, that the replies were counted over
+	 * @param gauges the chat bot's own gauges
+	 */
+	public ChatBotStatistics(String name, LatencySnapshot latencies, long errorCount, long elapsedNanos, Map<String, Long> gauges)
+	{
+		this.name = name;
+		this.latencies = latencies;
+		this.errorCount = errorCount;
+		this.elapsedNanos = elapsedNanos;
+		this.gauges = gauges;
+	}
+	
+	/**
+	 * Returns the name of the metrics, which is the chat bot's simple class name.
+	 * @return the name
+	 */
+	public String getName()
+	{
+		return name;
+	}
+	
+	/**
+	 * Returns the number of replies made.
+	 * @return the number of replies
+	 */
+	public long getReplyCount()
+	{
+		return latencies.getCount();
+	}
+	
+	/**
+	 * Returns the number of messages that the chat bot failed to reply to.
+	 * @return the number of errors
+	 */
+	public long getErrorCount()
+	{
+		return errorCount;
+	}
+	
+	/**
+	 * Returns the average number of replies per second.
+	 * @return the throughput
+	 */
+	public double getRepliesPerSecond()
+	{
+		return elapsedNanos <= 0 ? 0 : latencies.getCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+	
+	/**
+	 * Returns the latencies of the replies.
+	 * @return the latency snapshot
+	 */
+	public LatencySnapshot getLatencies()
+	{
+		return latencies;
+	}
+	
+	/**
+	 * Returns the chat bot's own gauges, such as the size of a parrot's memory.
+	 * @return the gauges by name
+	 */
+	public Map<String, Long> getGauges()
+	{
+		return gauges;
+	}
+	
+	/**
+	 * Returns the specified percentile of the reply latencies.
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the latency in milliseconds
+	 */
+	public double getPercentileMillis(double percentile)
+	{
+		return toMillis(latencies.getPercentileNanos(percentile));
+	}
+	
+	/**
+	 * Returns the average time taken to reply.
+	 * @return the mean latency in milliseconds
+	 */
+	public double getMeanMillis()
+	{
+		return toMillis(latencies.getMeanNanos());
+	}
+	
+	/**
+	 * Returns the longest time taken to reply.
+	 * @return the maximum latency in milliseconds
+	 */
+	public double getMaxMillis()
+	{
+		return toMillis(latencies.getMaxNanos());
+	}
+	
+	/**
+	 * Converts nanoseconds to fractional milliseconds.
+	 * @param nanos the duration in nanoseconds
+	 * @return the duration in milliseconds
+	 */
+	static double toMillis(double nanos)
+	{
+		return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("name=%s replies=%d errors=%d repliesPerSecond=%.2f meanMillis=%.3f p50Millis=%.3f p99Millis=%.3f p999Millis=%.3f maxMillis=%.3f gauges=%s",
+				name, getReplyCount(), errorCount, getRepliesPerSecond(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(99),
+				getPercentileMillis(99.9), getMaxMillis(), gauges);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,205 @@
+package chatBot.metrics;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import chatBot.bots.ChatBot;
+
+/**
+ * The <code>InstrumentedChatBot</code> class wraps any {@link ChatBot} to record the latency of its replies, and the messages it failed
+ * to reply to, in {@link ChatBotMetrics}. Everything else, such as its name and its gauges, is passed through to the wrapped chat bot.
+ * 
+ * <p>
+ * Replying through the wrapper allocates nothing more than the wrapped chat bot does, except for the extra completion stage of
+ * {@link #getReplyAsync(String, Executor)}. Asynchronous replies are timed from when they are asked for until they complete,
+ * which includes any time spent waiting for the executor, since that is what the user waits for too.
+ * </p>
+ * 
+ * <p>
+ * The wrapper is not meant to be saved, since a snapshot would name the wrapper rather than the chat bot; save {@link #getDelegate()} instead.
+ * </p>
+ * 
+ * @see {@link ChatBotMetrics}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class InstrumentedChatBot implements ChatBot
+{
+	/** An auto-generated serial UID. */
+	private static final long serialVersionUID = 4265118393024750873L;
+	
+	/** The chat bot whose replies are recorded. */
+	private final ChatBot delegate;
+	
+	/** The metrics that the replies are recorded in. */
+	private final transient ChatBotMetrics metrics;
+	
+	/**
+	 * Wraps the specified chat bot, recording its replies in the shared metrics of its kind from the {@link MetricsRegistry},
+	 * which then report its gauges.
+	 * @param delegate the chat bot whose replies are recorded
+	 */
+	public InstrumentedChatBot(ChatBot delegate)
+	{
+		this(delegate, MetricsRegistry.get(delegate));
+		metrics.setGaugeSource(delegate);
+	}
+	
+	/**
+	 * Wraps the specified chat bot, recording its replies in the specified metrics.
+	 * @param delegate the chat bot whose replies are recorded
+	 * @param metrics the metrics that the replies are recorded in
+	 */
+	public InstrumentedChatBot(ChatBot delegate, ChatBotMetrics metrics)
+	{
+		// Validity checks
+		Objects.requireNonNull(delegate, "Parameter 'delegate' cannot be null.");
+		Objects.requireNonNull(metrics, "Parameter 'metrics' cannot be null.");
+		
+		this.delegate = delegate;
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * Returns the chat bot whose replies are recorded.
+	 * @return the wrapped chat bot
+	 */
+	public ChatBot getDelegate()
+	{
+		return delegate;
+	}
+	
+	/**
+	 * Returns the metrics that the replies are recorded in.
+	 * @return the metrics
+	 */
+	public ChatBotMetrics getMetrics()
+	{
+		return metrics;
+	}
+	
+	@Override
+	public String getName()
+	{
+		return delegate.getName();
+	}
+	
+	@Override
+	public String getImagePath()
+	{
+		return delegate.getImagePath();
+	}
+	
+	/**
+	 * Responds to a message through the wrapped chat bot, recording how long it took, or that it failed.
+	 * 
+	 * @param input the message that the user sent
+	 * @return the wrapped chat bot's response to the user
+	 */
+	@Override
+	public String getReply(String input)
+	{
+		long startNanos = System.nanoTime();
+		try
+		{
+			String reply = delegate.getReply(input);
+			metrics.recordReply(System.nanoTime() - startNanos);
+			return reply;
+		}
+		catch (RuntimeException e)
+		{
+			metrics.recordError();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Responds to a message through the wrapped chat bot without blocking, recording how long it took, or that it failed, once it completes.
+	 * 
+	 * @param input the message that the user sent
+	 * @param executor the executor used to compute the reply
+	 * @return a future that completes with the wrapped chat bot's response to the user
+	 */
+	@Override
+	public CompletableFuture<String> getReplyAsync(String input, Executor executor)
+	{
+		long startNanos = System.nanoTime();
+		return record(delegate.getReplyAsync(input, executor), startNanos);
+	}
+	
+	@Override
+	public CompletableFuture<String> getReplyAsync(String input)
+	{
+		long startNanos = System.nanoTime();
+		return record(delegate.getReplyAsync(input), startNanos);
+	}
+	
+	/**
+	 * Records how long an asynchronous reply took, or that it failed, once it completes.
+	 * @param reply the wrapped chat bot's pending reply
+	 * @param startNanos the time, from {@link System#nanoTime()}, the reply was asked for
+	 * @return a future that completes with the same reply, once it is recorded
+	 */
+	private CompletableFuture<String> record(CompletableFuture<String> reply, long startNanos)
+	{
+		return reply.whenComplete((result, error) ->
+		{
+			if(error == null)
+			{
+				metrics.recordReply(System.nanoTime() - startNanos);
+			}
+			else
+			{
+				metrics.recordError();
+			}
+		});
+	}
+	
+	/**
+	 * Responds to many messages through the wrapped chat bot. Since the messages are answered together, each reply is recorded
+	 * as taking an equal share of the whole time; if they fail, every message is recorded as failed.
+	 * 
+	 * @param inputs the messages that the user sent
+	 * @return the wrapped chat bot's responses, one per message and in the same order
+	 */
+	@Override
+	public List<String> getReplies(List<String> inputs)
+	{
+		// Validity checks
+		Objects.requireNonNull(inputs, "Parameter 'inputs' cannot be null.");
+		
+		long startNanos = System.nanoTime();
+		try
+		{
+			List<String> replies = delegate.getReplies(inputs);
+			
+			long shareNanos = inputs.isEmpty() ? 0 : (System.nanoTime() - startNanos) / inputs.size();
+			for(int i = 0; i < inputs.size(); i++)
+			{
+				metrics.recordReply(shareNanos);
+			}
+			return replies;
+		}
+		catch (RuntimeException e)
+		{
+			for(int i = 0; i < inputs.size(); i++)
+			{
+				metrics.recordError();
+			}
+			throw e;
+		}
+	}
+	
+	@Override
+	public boolean isThreadSafe()
+	{
+		return delegate.isThreadSafe();
+	}
+	
+	@Override
+	public Map<String, Long> getGauges()
+	{
+		return delegate.getGauges();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,122 @@
+package chatBot.metrics;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The <code>LatencyHistogram</code> class counts latencies, in nanoseconds, into log-linear buckets, so that percentiles can be read back at any time.
+ * 
+ * <p>
+ * Latencies below {@link #SUB_BUCKET_COUNT} nanoseconds each have a bucket of their own. Above that, every power of two is split
+ * into {@link #SUB_BUCKET_COUNT} buckets of equal width, so a percentile is reported to within about 3% of the latency it stands for,
+ * from nanoseconds up to hours, in a fixed number of buckets.
+ * </p>
+ * 
+ * <p>
+ * Recording a latency is a few bit operations and atomic increments: it takes no lock and allocates nothing, so it can be called
+ * on every reply from any number of threads. Reading the histogram with {@link #getSnapshot()} copies the buckets, and a snapshot
+ * taken while latencies are recorded may miss the latest ones.
+ * </p>
+ * 
+ * @see {@link LatencySnapshot}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class LatencyHistogram
+{
+	/** The number of bits of a latency, after its highest one bit, that pick its bucket within a power of two. */
+	public static final int SUB_BUCKET_BITS = 5;
+	
+	/** The number of buckets that each power of two is split into. */
+	public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	
+	/** The number of buckets, enough for any non-negative <code>long</code>. */
+	static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+	
+	/** The number of latencies in each bucket. */
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	
+	/** The sum of all latencies, in nanoseconds. */
+	private final AtomicLong totalNanos = new AtomicLong();
+	
+	/** The highest latency, in nanoseconds. */
+	private final AtomicLong maxNanos = new AtomicLong();
+	
+	/**
+	 * Counts a latency. Negative latencies, such as from a clock that went backwards, count as zero.
+	 * @param nanos the latency in nanoseconds
+	 */
+	public void record(long nanos)
+	{
+		long latency = Math.max(nanos, 0);
+		counts.incrementAndGet(bucketOf(latency));
+		totalNanos.addAndGet(latency);
+		
+		// Only contend on the maximum when it grows
+		long max = maxNanos.get();
+		while(latency > max && !maxNanos.compareAndSet(max, latency))
+		{
+			max = maxNanos.get();
+		}
+	}
+	
+	/**
+	 * Forgets every latency counted so far.
+	 */
+	public void reset()
+	{
+		for(int i = 0; i < BUCKET_COUNT; i++)
+		{
+			counts.set(i, 0);
+		}
+		totalNanos.set(0);
+		maxNanos.set(0);
+	}
+	
+	/**
+	 * Returns a copy of the latencies counted so far.
+	 * @return the snapshot
+	 */
+	public LatencySnapshot getSnapshot()
+	{
+		long[] copy = new long[BUCKET_COUNT];
+		for(int i = 0; i < BUCKET_COUNT; i++)
+		{
+			copy[i] = counts.get(i);
+		}
+		return new LatencySnapshot(copy, totalNanos.get(), maxNanos.get());
+	}
+	
+	/**
+	 * Returns the bucket that counts the specified latency.
+	 * @param nanos the non-negative latency in nanoseconds
+	 * @return the index of the bucket
+	 */
+	static int bucketOf(long nanos)
+	{
+		if(nanos < SUB_BUCKET_COUNT)
+		{
+			return (int) nanos;
+		}
+		
+		// The power of two sets the group of buckets, and the bits after the highest one bit set the bucket within it
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT + (int) ((nanos >>> shift) & (SUB_BUCKET_COUNT - 1));
+	}
+	
+	/**
+	 * Returns the highest latency that the specified bucket counts.
+	 * @param bucket the index of the bucket
+	 * @return the latency in nanoseconds
+	 */
+	static long highestLatencyOf(int bucket)
+	{
+		if(bucket < SUB_BUCKET_COUNT)
+		{
+			return bucket;
+		}
+		
+		int shift = bucket / SUB_BUCKET_COUNT - 1;
+		long lowest = (long) (SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
\ No newline at end of file
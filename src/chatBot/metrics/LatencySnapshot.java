@@ -0,0 +1,101 @@
+package chatBot.metrics;
+
+/**
+ * The <code>LatencySnapshot</code> class is an immutable copy of a {@link LatencyHistogram}, to read its count, mean and percentiles from.
+ * 
+ * @see {@link LatencyHistogram}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class LatencySnapshot
+{
+	/** The number of latencies in each bucket. */
+	private final long[] counts;
+	
+	/** The number of latencies counted. */
+	private final long count;
+	
+	/** The sum of all latencies, in nanoseconds. */
+	private final long totalNanos;
+	
+	/** The highest latency, in nanoseconds. */
+	private final long maxNanos;
+	
+	/**
+	 * Constructs a new snapshot of a histogram's buckets.
+	 * @param counts the number of latencies in each bucket, which is kept rather than copied
+	 * @param totalNanos the sum of all latencies, in nanoseconds
+	 * @param maxNanos the highest latency, in nanoseconds
+	 */
+	LatencySnapshot(long[] counts, long totalNanos, long maxNanos)
+	{
+		long count = 0;
+		for(long bucketCount : counts)
+		{
+			count += bucketCount;
+		}
+		
+		this.counts = counts;
+		this.count = count;
+		this.totalNanos = totalNanos;
+		this.maxNanos = maxNanos;
+	}
+	
+	/**
+	 * Returns the number of latencies counted.
+	 * @return the count
+	 */
+	public long getCount()
+	{
+		return count;
+	}
+	
+	/**
+	 * Returns the average latency.
+	 * @return the mean in nanoseconds, or 0 if no latency was counted
+	 */
+	public double getMeanNanos()
+	{
+		return count == 0 ? 0 : (double) totalNanos / count;
+	}
+	
+	/**
+	 * Returns the highest latency.
+	 * @return the maximum in nanoseconds
+	 */
+	public long getMaxNanos()
+	{
+		return maxNanos;
+	}
+	
+	/**
+	 * Returns the latency that the specified percentage of latencies are at or below, such as 99 for the 99th percentile.
+	 * The latency is the highest one of its bucket, and never above the highest latency counted.
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the latency in nanoseconds, or 0 if no latency was counted
+	 */
+	public long getPercentileNanos(double percentile)
+	{
+		// Validity checks
+		if(percentile < 0 || percentile > 100)
+		{
+			throw new IllegalArgumentException("Parameter 'percentile' must be between 0 and 100.");
+		}
+		if(count == 0)
+		{
+			return 0;
+		}
+		
+		// Walk the buckets until the rank of the percentile is reached
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for(int i = 0; i < counts.length; i++)
+		{
+			seen += counts[i];
+			if(seen >= rank)
+			{
+				return Math.min(LatencyHistogram.highestLatencyOf(i), maxNanos);
+			}
+		}
+		return maxNanos;
+	}
+}
\ No newline at end of file
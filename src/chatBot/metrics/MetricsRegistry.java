@@ -0,0 +1,108 @@
+package chatBot.metrics;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import chatBot.bots.ChatBot;
+
+/**
+ * The <code>MetricsRegistry</code> class keeps the {@link ChatBotMetrics} of every kind of chat bot, and publishes each of them
+ * as an MXBean on the platform MBean server, under <code>chatBot:type=ChatBotMetrics,name=ParrotBot</code> and so on.
+ * 
+ * <p>
+ * The metrics of a kind of chat bot are created the first time they are asked for, and kept for as long as the program runs.
+ * They are published in the background, since the first use of the platform MBean server loads hundreds of classes,
+ * which takes around half a second on a cold JVM, and would otherwise hold up the first chat bot of the application.
+ * If they cannot be published over JMX, the error is reported and they are still recorded.
+ * </p>
+ * 
+ * @see {@link ChatBotMetrics}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class MetricsRegistry
+{
+	/** The JMX domain that the metrics are published under. */
+	public static final String JMX_DOMAIN = "chatBot";
+	
+	/** The metrics of every kind of chat bot, by the chat bot's simple class name. */
+	private static final ConcurrentHashMap<String, ChatBotMetrics> metrics = new ConcurrentHashMap<>();
+	
+	/** Publishes the metrics over JMX, one at a time, so that asking for metrics never waits on the MBean server. */
+	private static final ExecutorService publisher = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("metrics-publisher").daemon().factory());
+	
+	/** This class only contains static methods. */
+	private MetricsRegistry()
+	{
+	}
+	
+	/**
+	 * Returns the metrics of the specified chat bot's kind, creating them on first use and publishing them in the background.
+	 * @param chatBot the chat bot
+	 * @return the metrics of its kind
+	 */
+	public static ChatBotMetrics get(ChatBot chatBot)
+	{
+		// Validity checks
+		Objects.requireNonNull(chatBot, "Parameter 'chatBot' cannot be null.");
+		
+		return get(chatBot.getClass().getSimpleName());
+	}
+	
+	/**
+	 * Returns the metrics with the specified name, creating them on first use and publishing them in the background.
+	 * @param name the name of the metrics, usually a chat bot's simple class name
+	 * @return the metrics
+	 */
+	public static ChatBotMetrics get(String name)
+	{
+		// Validity checks
+		Objects.requireNonNull(name, "Parameter 'name' cannot be null.");
+		
+		// Looking up existing metrics allocates nothing
+		ChatBotMetrics existing = metrics.get(name);
+		if(existing != null)
+		{
+			return existing;
+		}
+		return metrics.computeIfAbsent(name, key ->
+		{
+			ChatBotMetrics created = new ChatBotMetrics(key);
+			publisher.execute(() -> publish(created));
+			return created;
+		});
+	}
+	
+	/**
+	 * Returns the metrics created so far.
+	 * @return the metrics of every kind of chat bot asked for
+	 */
+	public static Collection<ChatBotMetrics> getAll()
+	{
+		return Collections.unmodifiableCollection(metrics.values());
+	}
+	
+	/**
+	 * Publishes metrics over JMX.
+	 * @param created the new metrics
+	 */
+	private static void publish(ChatBotMetrics created)
+	{
+		String name = created.getName();
+		try
+		{
+			ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=ChatBotMetrics,name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(created, objectName);
+		}
+		catch (JMException e)
+		{
+			System.err.println("Failed to publish the metrics of " + name + " over JMX. Reason: " + e.getMessage());
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,218 @@
+package chatBot.persistence;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+
+import chatBot.bots.ChatBot;
+import chatBot.bots.ChatBots;
+
+/**
+ * The <code>ChatBotSnapshot</code> class saves and loads chat bots in the versioned, binary <code>.chatbot</code> format.
+ * 
+ * <p>
+ * A snapshot starts with a header naming the chat bot's class, followed by whatever state the chat bot writes in
+ * {@link ChatBot#writeSnapshot(SnapshotWriter)}:
+ * <pre>
+ * snapshot := magic:int32 version:int32 botClass:string body
+ * string   := length:int32 utf8:byte[length]
+ * </pre>
+ * Only the chat bots listed in {@link ChatBots#AVAILABLE_CHATBOTS} can be loaded, since snapshots may come from anywhere: the chat bot is
+ * created by {@link ChatBots#create(Class)}, and then reads back its state in {@link ChatBot#readSnapshot(SnapshotReader)}.
+ * </p>
+ * 
+ * <p>
+ * Files written by older versions with Java serialization are detected by their stream header and still loaded,
+ * through a filter that only lets the chat bot classes and the <code>java.util</code> collections be deserialized.
+ * </p>
+ * 
+ * @see {@link SnapshotWriter}
+ * @see {@link SnapshotReader}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class ChatBotSnapshot
+{
+	/** The magic number that every snapshot starts with, "CBOT" in ASCII. */
+	public static final int MAGIC = 0x43424F54;
+	
+	/** The version of the snapshot format written by this class. */
+	public static final int FORMAT_VERSION = 1;
+	
+	/** The first two bytes of any Java serialization stream, used by older versions. */
+	private static final int JAVA_SERIALIZATION_MAGIC = 0xACED;
+	
+	/** The classes that files serialized by older versions may hold: the chat bots and their state, and the collections they kept it in. */
+	private static final ObjectInputFilter LEGACY_FILTER = ObjectInputFilter.Config.createFilter(
+			"maxdepth=32;chatBot.**;java.util.*;java.lang.Object;java.lang.Enum;java.lang.Number;java.lang.Boolean;java.lang.Integer;java.lang.Long;!*");
+	
+	/** This class only contains static methods. */
+	private ChatBotSnapshot()
+	{
+	}
+	
+	/**
+	 * The <code>Body</code> interface writes the state of a chat bot after the snapshot header, like {@link ChatBot#writeSnapshot(SnapshotWriter)}.
+	 * It lets a chat bot save a copy of its state, taken earlier, rather than the state it has when the snapshot is written.
+	 */
+	@FunctionalInterface
+	public interface Body
+	{
+		/**
+		 * Writes the chat bot's state.
+		 * @param writer the snapshot writer
+		 */
+		void write(SnapshotWriter writer) throws IOException;
+	}
+	
+	/**
+	 * Writes a snapshot of the given chat bot to the specified file.
+	 * The snapshot is first written next to the file, then moved in place, so a failed save never corrupts an existing file.
+	 * @param chatBot the chat bot to save
+	 * @param path the file to write to
+	 */
+	public static void write(ChatBot chatBot, Path path) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(chatBot, "Parameter 'chatBot' cannot be null.");
+		
+		write(chatBot.getClass(), chatBot::writeSnapshot, path);
+	}
+	
+	/**
+	 * Writes a snapshot of a chat bot of the given class, whose state is written by the given body, to the specified file.
+	 * The snapshot is first written next to the file, then moved in place, so a failed save never corrupts an existing file.
+	 * @param chatBotClass the class of the saved chat bot, which {@link #read(Path)} creates
+	 * @param body writes the chat bot's state
+	 * @param path the file to write to
+	 */
+	public static void write(Class<? extends ChatBot> chatBotClass, Body body, Path path) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(chatBotClass, "Parameter 'chatBotClass' cannot be null.");
+		Objects.requireNonNull(body, "Parameter 'body' cannot be null.");
+		Objects.requireNonNull(path, "Parameter 'path' cannot be null.");
+		
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		try
+		{
+			try(OutputStream out = Files.newOutputStream(temporary);
+				SnapshotWriter writer = new SnapshotWriter(out))
+			{
+				writer.writeInt(MAGIC);
+				writer.writeInt(FORMAT_VERSION);
+				writer.writeString(chatBotClass.getName());
+				body.write(writer);
+			}
+			
+			try
+			{
+				Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (IOException e)
+			{
+				Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			// Leave no half-written snapshot behind
+			Files.deleteIfExists(temporary);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Reads a chat bot from the specified file, which is either a snapshot or a file serialized by older versions.
+	 * @param path the file to read from
+	 * @return the loaded chat bot
+	 */
+	public static ChatBot read(Path path) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(path, "Parameter 'path' cannot be null.");
+		
+		// Peek at the header to tell the formats apart
+		int magic;
+		try(DataInputStream in = new DataInputStream(Files.newInputStream(path)))
+		{
+			magic = in.readInt();
+		}
+		if((magic >>> 16) == JAVA_SERIALIZATION_MAGIC)
+		{
+			return readLegacy(path);
+		}
+		if(magic != MAGIC)
+		{
+			throw new IOException("Not a chat bot file.");
+		}
+		
+		try(SnapshotReader reader = new SnapshotReader(path))
+		{
+			reader.readInt();
+			int version = reader.readInt();
+			if(version > FORMAT_VERSION)
+			{
+				throw new IOException("Unsupported chat bot file version " + version + ", this version only reads up to " + FORMAT_VERSION + ".");
+			}
+			
+			ChatBot chatBot = instantiate(reader.readString());
+			chatBot.readSnapshot(reader);
+			return chatBot;
+		}
+	}
+	
+	/**
+	 * Reads a chat bot that was saved with Java serialization by older versions, rejecting any class outside of {@link #LEGACY_FILTER}.
+	 * @param path the serialized file
+	 * @return the loaded chat bot
+	 */
+	private static ChatBot readLegacy(Path path) throws IOException
+	{
+		try(InputStream in = Files.newInputStream(path);
+			ObjectInputStream ois = new ObjectInputStream(in))
+		{
+			ois.setObjectInputFilter(LEGACY_FILTER);
+			Object loaded = ois.readObject();
+			if(!(loaded instanceof ChatBot))
+			{
+				throw new IOException("Not a chat bot file.");
+			}
+			return (ChatBot) loaded;
+		}
+		catch (ClassNotFoundException e)
+		{
+			throw new IOException("Unknown chat bot class: " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * Creates a chat bot of the given class, which must be one of the {@link ChatBots#AVAILABLE_CHATBOTS}.
+	 * The class is matched by name, so no other class named in a snapshot is ever loaded or initialized.
+	 * @param className the chat bot's fully qualified class name
+	 * @return a new chat bot
+	 */
+	private static ChatBot instantiate(String className) throws IOException
+	{
+		for(Class<? extends ChatBot> clazz : ChatBots.AVAILABLE_CHATBOTS)
+		{
+			if(clazz.getName().equals(className))
+			{
+				try
+				{
+					return ChatBots.create(clazz);
+				}
+				catch (ReflectiveOperationException e)
+				{
+					throw new IOException("Cannot create chat bot " + className + ": " + e.getMessage(), e);
+				}
+			}
+		}
+		throw new IOException(className + " is not an available chat bot.");
+	}
+}
@@ -0,0 +1,20 @@
+package chatBot.persistence;
+
+/**
+ * The <code>JournalSyncPolicy</code> enumeration contains the possible policies of a {@link PhraseJournal} for forcing its writes to disk.
+ * Records that are written but not yet forced survive a crash of the application, but not a crash of the operating system.
+ * 
+ * @see {@link PhraseJournal}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public enum JournalSyncPolicy
+{
+	/** Force every batch of records to disk as soon as it is written. */
+	EveryBatch,
+	
+	/** Force written records to disk at most once every {@link PhraseJournal#SYNC_INTERVAL_MILLIS} milliseconds. */
+	Periodic,
+	
+	/** Never force records to disk, except when the journal is flushed or closed, and leave it to the operating system. */
+	Never;
+}
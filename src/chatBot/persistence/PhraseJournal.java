@@ -0,0 +1,671 @@
+package chatBot.persistence;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * The <code>PhraseJournal</code> class is an append-only file of phrases, used to persist a chat bot's memory incrementally
+ * between two {@link ChatBotSnapshot snapshots}.
+ * 
+ * <p>
+ * Appending a phrase only queues it. A background writer thread drains the queue and writes all of the queued phrases
+ * with a single write (group commit), then forces them to disk according to its {@link JournalSyncPolicy}:
+ * <pre>
+ * journal := magic:int32 version:int32 record*
+ * record  := length:int32 crc32c:int32 utf8:byte[length]
+ * </pre>
+ * </p>
+ * 
+ * <p>
+ * When a journal is opened, its records are replayed in order. The replay stops at the first torn or corrupted record,
+ * which is what an interrupted write leaves behind, and the journal is truncated there.
+ * Once the journal holds {@link #isCompactionDue() enough records}, its owner should write a snapshot and {@link #reset()} the journal.
+ * To keep appending while the snapshot is written, the owner can instead {@link #mark()} the journal when it copies its state,
+ * and then {@link #resetTo(long) reset it to the mark}, which keeps the records appended after the copy.
+ * </p>
+ * 
+ * @see {@link JournalSyncPolicy}
+ * @see {@link ChatBotSnapshot}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class PhraseJournal implements Closeable
+{
+	/** The magic number that every journal starts with, "CBJL" in ASCII. */
+	public static final int MAGIC = 0x43424A4C;
+	
+	/** The version of the journal format written by this class. */
+	public static final int FORMAT_VERSION = 1;
+	
+	/** The default number of records after which the journal should be compacted into a snapshot. */
+	public static final long DEFAULT_COMPACTION_THRESHOLD = 100_000;
+	
+	/** The interval, in milliseconds, at which written records are forced to disk under {@link JournalSyncPolicy#Periodic}. */
+	public static final long SYNC_INTERVAL_MILLIS = 1000;
+	
+	/** The size, in bytes, of the journal header. */
+	private static final int HEADER_SIZE = 2 * Integer.BYTES;
+	
+	/** The size, in bytes, of the header of each record. */
+	private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+	
+	/** The journal file. */
+	private final Path path;
+	
+	/** Held around every I/O on the {@link #channel}, and while the channel is swapped for a compacted file. */
+	private final Object fileLock = new Object();
+	
+	/** The channel of the journal file. Guarded by {@link #fileLock}. */
+	private FileChannel channel;
+	
+	/** The policy for forcing written records to disk. */
+	private final JournalSyncPolicy syncPolicy;
+	
+	/** The number of records after which the journal should be compacted. */
+	private final long compactionThreshold;
+	
+	/** The background thread that writes queued records. */
+	private final Thread writer;
+	
+	/** The lock guarding the queue and the sequence numbers below. */
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	/** Signalled whenever phrases are queued, written or synced, or when the journal is closed. */
+	private final Condition changed = lock.newCondition();
+	
+	/** The encoded phrases waiting to be written. */
+	private List<byte[]> pending = new ArrayList<>();
+	
+	/** The number of phrases appended since the journal was opened. */
+	private long appendedSequence = 0;
+	
+	/** The number of appended phrases that were written to the file. */
+	private long writtenSequence = 0;
+	
+	/** The number of appended phrases that were forced to disk. */
+	private long syncedSequence = 0;
+	
+	/** The number of appended phrases that a caller of {@link #flush()} is waiting to be forced to disk. */
+	private long syncRequestedSequence = 0;
+	
+	/** The number of records in the journal file, including the queued ones. */
+	private long recordCount = 0;
+	
+	/** The sequence number of the phrase right before the first record in the journal file. Replayed records have sequences up to 0. */
+	private long fileStartSequence = 0;
+	
+	/** Whether the journal was closed. */
+	private boolean isClosed = false;
+	
+	/** The error that stopped the writer thread, if any. */
+	private IOException failure = null;
+	
+	/**
+	 * Opens the journal at the specified file, creating it if it does not exist, and replays its records.
+	 * @param path the journal file
+	 * @param syncPolicy the policy for forcing written records to disk
+	 * @param compactionThreshold the number of records after which {@link #isCompactionDue()} returns <code>true</code>
+	 * @param replay receives every phrase already in the journal, in the order they were appended
+	 */
+	public PhraseJournal(Path path, JournalSyncPolicy syncPolicy, long compactionThreshold, Consumer<String> replay) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(path, "Parameter 'path' cannot be null.");
+		Objects.requireNonNull(syncPolicy, "Parameter 'syncPolicy' cannot be null.");
+		Objects.requireNonNull(replay, "Parameter 'replay' cannot be null.");
+		if(compactionThreshold <= 0)
+		{
+			throw new IllegalArgumentException("Parameter 'compactionThreshold' must be positive.");
+		}
+		
+		this.path = path;
+		this.syncPolicy = syncPolicy;
+		this.compactionThreshold = compactionThreshold;
+		
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try
+		{
+			long validEnd = recover(replay);
+			channel.truncate(validEnd);
+			channel.position(validEnd);
+			fileStartSequence = -recordCount;
+		}
+		catch (IOException | RuntimeException e)
+		{
+			channel.close();
+			throw e;
+		}
+		
+		writer = new Thread(this::runWriter, "Phrase journal writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+	
+	/**
+	 * Returns the journal file that belongs to the specified snapshot file.
+	 * @param snapshotPath the snapshot file
+	 * @return the journal file, next to the snapshot file
+	 */
+	public static Path pathFor(Path snapshotPath)
+	{
+		// Validity checks
+		Objects.requireNonNull(snapshotPath, "Parameter 'snapshotPath' cannot be null.");
+		
+		return snapshotPath.resolveSibling(snapshotPath.getFileName() + ".journal");
+	}
+	
+	/**
+	 * Queues a phrase to be appended to the journal. This does not wait for the phrase to be written.
+	 * @param phrase the phrase to append
+	 * @throws IOException if the journal is closed, or if writing a previous phrase failed
+	 */
+	public void append(String phrase) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(phrase, "Parameter 'phrase' cannot be null.");
+		
+		byte[] bytes = phrase.getBytes(StandardCharsets.UTF_8);
+		
+		lock.lock();
+		try
+		{
+			checkUsable();
+			pending.add(bytes);
+			appendedSequence++;
+			recordCount++;
+			changed.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Waits until every phrase appended so far is written and forced to disk, regardless of the sync policy.
+	 * @throws IOException if the journal is closed, or if writing failed
+	 */
+	public void flush() throws IOException
+	{
+		lock.lock();
+		try
+		{
+			checkUsable();
+			long target = appendedSequence;
+			syncRequestedSequence = Math.max(syncRequestedSequence, target);
+			changed.signalAll();
+			
+			while(syncedSequence < target)
+			{
+				checkUsable();
+				changed.await();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while flushing the journal.");
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Discards every record of the journal, once they have been compacted into a snapshot.
+	 * The caller must not append phrases concurrently, otherwise they may be discarded as well.
+	 */
+	public void reset() throws IOException
+	{
+		flush();
+		
+		synchronized(fileLock)
+		{
+			channel.truncate(HEADER_SIZE);
+			channel.force(true);
+		}
+		
+		lock.lock();
+		try
+		{
+			recordCount = pending.size();
+			fileStartSequence = appendedSequence - pending.size();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the sequence number of the last phrase appended so far, to {@link #resetTo(long) reset the journal to} once the
+	 * state that includes every phrase up to it has been compacted into a snapshot.
+	 * The caller must not append phrases concurrently, so that the mark matches the state it copies.
+	 * @return the mark
+	 */
+	public long mark()
+	{
+		lock.lock();
+		try
+		{
+			return appendedSequence;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Discards the records of the journal up to the given mark, once they have been compacted into a snapshot, and keeps the records appended since.
+	 * Phrases may be appended concurrently. The kept records are written to a new file, which then replaces the journal,
+	 * so a crash meanwhile leaves either the old or the new journal behind.
+	 * @param mark a mark returned by {@link #mark()}
+	 * @throws IOException if the journal is closed, or if writing failed
+	 */
+	public void resetTo(long mark) throws IOException
+	{
+		// Every record up to the mark is in the file from here on
+		flush();
+		
+		long dropCount;
+		lock.lock();
+		try
+		{
+			dropCount = mark - fileStartSequence;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+		if(dropCount <= 0)
+		{
+			return;
+		}
+		
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		synchronized(fileLock)
+		{
+			// Skip the dropped records, the writer cannot add any while the file lock is held
+			long size = channel.size();
+			long position = HEADER_SIZE;
+			ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+			for(long i = 0; i < dropCount; i++)
+			{
+				length.clear();
+				while(length.hasRemaining())
+				{
+					if(channel.read(length, position + length.position()) < 0)
+					{
+						throw new IOException("Unexpected end of phrase journal file.");
+					}
+				}
+				position += RECORD_HEADER_SIZE + length.flip().getInt();
+			}
+			
+			// Copy the header and the kept records to a new file
+			try(FileChannel compacted = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+			{
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+				while(header.hasRemaining())
+				{
+					compacted.write(header);
+				}
+				for(long copied = 0; copied < size - position; )
+				{
+					copied += channel.transferTo(position + copied, size - position - copied, compacted);
+				}
+				compacted.force(true);
+			}
+			catch (IOException | RuntimeException e)
+			{
+				Files.deleteIfExists(temporary);
+				throw e;
+			}
+			
+			// Swap it in, then append to whichever file is the journal from its end
+			channel.close();
+			try
+			{
+				try
+				{
+					Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				}
+				catch (IOException e)
+				{
+					Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+			catch (IOException e)
+			{
+				Files.deleteIfExists(temporary);
+				throw e;
+			}
+			finally
+			{
+				channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+				channel.position(channel.size());
+			}
+		}
+		
+		lock.lock();
+		try
+		{
+			recordCount -= dropCount;
+			fileStartSequence = mark;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the number of records in the journal, including those not yet written.
+	 * @return the number of records
+	 */
+	public long getRecordCount()
+	{
+		lock.lock();
+		try
+		{
+			return recordCount;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns whether the journal has grown past its compaction threshold, and should be compacted into a snapshot.
+	 * @return true if the journal should be compacted, false otherwise
+	 */
+	public boolean isCompactionDue()
+	{
+		return getRecordCount() >= compactionThreshold;
+	}
+	
+	/**
+	 * Writes and forces every queued phrase to disk, then closes the journal.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		lock.lock();
+		try
+		{
+			if(isClosed)
+			{
+				return;
+			}
+			isClosed = true;
+			changed.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+		
+		try
+		{
+			writer.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			synchronized(fileLock)
+			{
+				channel.close();
+			}
+		}
+		
+		if(failure != null)
+		{
+			throw failure;
+		}
+	}
+	
+	/**
+	 * Validates the journal header, or writes it to a new journal, then replays every intact record.
+	 * @param replay receives every phrase of the journal
+	 * @return the file position right after the last intact record
+	 */
+	private long recover(Consumer<String> replay) throws IOException
+	{
+		long size = channel.size();
+		
+		// A new journal, or one whose header was never completely written
+		if(size < HEADER_SIZE)
+		{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+			channel.truncate(0);
+			while(header.hasRemaining())
+			{
+				channel.write(header, HEADER_SIZE - header.remaining());
+			}
+			channel.force(true);
+			return HEADER_SIZE;
+		}
+		
+		// The stream shares the channel's position, and is deliberately not closed since that would close the channel
+		channel.position(0);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+		if(in.readInt() != MAGIC)
+		{
+			throw new IOException("Not a phrase journal file.");
+		}
+		int version = in.readInt();
+		if(version > FORMAT_VERSION)
+		{
+			throw new IOException("Unsupported phrase journal version " + version + ", this version only reads up to " + FORMAT_VERSION + ".");
+		}
+		
+		CRC32C crc = new CRC32C();
+		byte[] scratch = new byte[256];
+		long position = HEADER_SIZE;
+		while(size - position >= RECORD_HEADER_SIZE)
+		{
+			int length = in.readInt();
+			int checksum = in.readInt();
+			
+			// Stop at a torn record
+			if(length < 0 || length > size - position - RECORD_HEADER_SIZE)
+			{
+				break;
+			}
+			
+			if(scratch.length < length)
+			{
+				scratch = new byte[Math.max(length, scratch.length * 2)];
+			}
+			in.readFully(scratch, 0, length);
+			
+			// Stop at a corrupted record
+			crc.reset();
+			crc.update(scratch, 0, length);
+			if((int) crc.getValue() != checksum)
+			{
+				break;
+			}
+			
+			replay.accept(new String(scratch, 0, length, StandardCharsets.UTF_8));
+			recordCount++;
+			position += RECORD_HEADER_SIZE + length;
+		}
+		return position;
+	}
+	
+	/**
+	 * The loop of the writer thread, which writes queued phrases in batches until the journal is closed.
+	 */
+	private void runWriter()
+	{
+		List<byte[]> batch = new ArrayList<>();
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		CRC32C crc = new CRC32C();
+		long lastSyncNanos = System.nanoTime();
+		
+		try
+		{
+			while(true)
+			{
+				long batchSequence;
+				boolean isSyncRequested;
+				boolean isClosing;
+				
+				lock.lock();
+				try
+				{
+					// Wait until there is something to write or to force to disk
+					while(pending.isEmpty() && !isClosed && syncRequestedSequence <= syncedSequence)
+					{
+						if(syncPolicy != JournalSyncPolicy.Periodic || writtenSequence == syncedSequence)
+						{
+							changed.await();
+							continue;
+						}
+						
+						long remainingNanos = TimeUnit.MILLISECONDS.toNanos(SYNC_INTERVAL_MILLIS) - (System.nanoTime() - lastSyncNanos);
+						if(remainingNanos <= 0)
+						{
+							break;
+						}
+						changed.awaitNanos(remainingNanos);
+					}
+					
+					// Take the whole queue as one batch
+					List<byte[]> queued = pending;
+					pending = batch;
+					batch = queued;
+					batchSequence = appendedSequence;
+					isSyncRequested = syncRequestedSequence > syncedSequence;
+					isClosing = isClosed;
+				}
+				finally
+				{
+					lock.unlock();
+				}
+				
+				// Encode the batch, and write it with a single write
+				buffer.clear();
+				for(byte[] bytes : batch)
+				{
+					if(buffer.remaining() < RECORD_HEADER_SIZE + bytes.length)
+					{
+						ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + RECORD_HEADER_SIZE + bytes.length));
+						buffer = larger.put(buffer.flip());
+					}
+					crc.reset();
+					crc.update(bytes);
+					buffer.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes);
+				}
+				batch.clear();
+				buffer.flip();
+				
+				boolean isSyncDue = syncPolicy == JournalSyncPolicy.EveryBatch || isSyncRequested || isClosing
+						|| (syncPolicy == JournalSyncPolicy.Periodic && System.nanoTime() - lastSyncNanos >= TimeUnit.MILLISECONDS.toNanos(SYNC_INTERVAL_MILLIS));
+				synchronized(fileLock)
+				{
+					while(buffer.hasRemaining())
+					{
+						channel.write(buffer);
+					}
+					if(isSyncDue)
+					{
+						channel.force(false);
+						lastSyncNanos = System.nanoTime();
+					}
+				}
+				
+				lock.lock();
+				try
+				{
+					writtenSequence = batchSequence;
+					if(isSyncDue)
+					{
+						syncedSequence = batchSequence;
+					}
+					changed.signalAll();
+					
+					if(isClosing && pending.isEmpty())
+					{
+						return;
+					}
+				}
+				finally
+				{
+					lock.unlock();
+				}
+				
+				// Shrink the buffer back after an unusually large batch
+				if(buffer.capacity() > 1 << 24)
+				{
+					buffer = ByteBuffer.allocate(1 << 16);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			fail(e);
+		}
+		catch (InterruptedException e)
+		{
+			fail(new InterruptedIOException("The journal writer was interrupted."));
+		}
+	}
+	
+	/**
+	 * Records the error that stopped the writer thread, and wakes up every waiting caller.
+	 * @param e the error
+	 */
+	private void fail(IOException e)
+	{
+		lock.lock();
+		try
+		{
+			failure = e;
+			changed.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Throws if the journal can no longer be appended to. Must be called while holding {@link #lock}.
+	 */
+	private void checkUsable() throws IOException
+	{
+		if(failure != null)
+		{
+			throw new IOException("Writing the journal failed: " + failure.getMessage(), failure);
+		}
+		if(isClosed)
+		{
+			throw new IOException("The journal is closed.");
+		}
+	}
+}
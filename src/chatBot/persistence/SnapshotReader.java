@@ -0,0 +1,197 @@
+package chatBot.persistence;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * The <code>SnapshotReader</code> class reads the body of a {@link ChatBotSnapshot}, as handed to {@link chatBot.bots.ChatBot#readSnapshot(SnapshotReader)}.
+ * 
+ * <p>
+ * The snapshot file is memory-mapped through a sliding window, so large phrase blocks are decoded straight from the
+ * page cache without copying the file through a stream, and files larger than a single mapping are still supported.
+ * </p>
+ * 
+ * @see {@link SnapshotWriter}
+ * @see {@link ChatBotSnapshot}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class SnapshotReader implements Closeable
+{
+	/** The maximum size, in bytes, of the mapped window of the file. */
+	public static final int MAX_WINDOW_SIZE = 1 << 28;
+	
+	/** The channel of the snapshot file. */
+	private final FileChannel channel;
+	
+	/** The size, in bytes, of the snapshot file. */
+	private final long fileSize;
+	
+	/** The currently mapped window of the file. */
+	private ByteBuffer window;
+	
+	/** The file position of the start of {@link #window}. */
+	private long windowStart;
+	
+	/** A reusable buffer for decoding strings. */
+	private byte[] scratch = new byte[256];
+	
+	/**
+	 * Opens a snapshot reader on the specified file, starting at the beginning of the file.
+	 * @param path the snapshot file
+	 */
+	SnapshotReader(Path path) throws IOException
+	{
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		fileSize = channel.size();
+		window = ByteBuffer.allocate(0);
+		windowStart = 0;
+	}
+	
+	/**
+	 * Reads an integer.
+	 * @return the value read
+	 */
+	public int readInt() throws IOException
+	{
+		return require(Integer.BYTES).getInt();
+	}
+	
+	/**
+	 * Reads a long integer.
+	 * @return the value read
+	 */
+	public long readLong() throws IOException
+	{
+		return require(Long.BYTES).getLong();
+	}
+	
+	/**
+	 * Reads a boolean.
+	 * @return the value read
+	 */
+	public boolean readBoolean() throws IOException
+	{
+		return require(1).get() != 0;
+	}
+	
+	/**
+	 * Reads a string written by {@link SnapshotWriter#writeString(String)}.
+	 * @return the value read
+	 */
+	public String readString() throws IOException
+	{
+		int length = readInt();
+		if(length < 0)
+		{
+			throw new IOException("Corrupted snapshot: negative string length.");
+		}
+		return decode(require(length), length);
+	}
+	
+	/**
+	 * Reads the phrases written by {@link SnapshotWriter#writePhrases(chatBot.memory.PhraseMemory)}, one block at a time,
+	 * handing each phrase to the given consumer as soon as it is decoded.
+	 * @param consumer receives every phrase, in the order they were written
+	 * @return the number of phrases read
+	 */
+	public long readPhrases(Consumer<String> consumer) throws IOException
+	{
+		long total = 0;
+		for(int count = readInt(); count != 0; count = readInt())
+		{
+			int byteLength = readInt();
+			if(count < 0 || byteLength < 0)
+			{
+				throw new IOException("Corrupted snapshot: invalid phrase block header.");
+			}
+			
+			// Map the whole block at once, then decode its phrases
+			ByteBuffer block = require(byteLength);
+			int blockEnd = block.position() + byteLength;
+			for(int i = 0; i < count; i++)
+			{
+				int length = readVarInt(block);
+				if(length < 0 || block.position() + length > blockEnd)
+				{
+					throw new IOException("Corrupted snapshot: phrase overruns its block.");
+				}
+				consumer.accept(decode(block, length));
+			}
+			if(block.position() != blockEnd)
+			{
+				throw new IOException("Corrupted snapshot: phrase block has trailing bytes.");
+			}
+			total += count;
+		}
+		return total;
+	}
+	
+	/**
+	 * Makes sure that at least the given number of bytes can be read from the window, moving the window forward if needed.
+	 * @param bytes the number of bytes that will be read
+	 * @return the window, positioned at the next byte to read
+	 */
+	private ByteBuffer require(int bytes) throws IOException
+	{
+		if(window.remaining() >= bytes)
+		{
+			return window;
+		}
+		
+		long position = windowStart + window.position();
+		if(position + bytes > fileSize)
+		{
+			throw new EOFException("Unexpected end of snapshot file.");
+		}
+		
+		// Map a new window starting at the current position
+		long windowSize = Math.min(fileSize - position, Math.max(bytes, MAX_WINDOW_SIZE));
+		window = channel.map(MapMode.READ_ONLY, position, windowSize);
+		windowStart = position;
+		return window;
+	}
+	
+	/**
+	 * Decodes a UTF-8 string from the given buffer, advancing its position.
+	 * @param buffer the buffer to decode from
+	 * @param length the length of the string, in bytes
+	 * @return the decoded string
+	 */
+	private String decode(ByteBuffer buffer, int length)
+	{
+		if(scratch.length < length)
+		{
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		}
+		buffer.get(scratch, 0, length);
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+	
+	private static int readVarInt(ByteBuffer buffer)
+	{
+		int value = 0;
+		for(int shift = 0; shift < 35; shift += 7)
+		{
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if(b >= 0)
+			{
+				return value;
+			}
+		}
+		return -1;
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+}
@@ -0,0 +1,180 @@
+package chatBot.persistence;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+import chatBot.memory.PhraseMemory;
+
+/**
+ * The <code>SnapshotWriter</code> class writes the body of a {@link ChatBotSnapshot}, as handed to {@link chatBot.bots.ChatBot#writeSnapshot(SnapshotWriter)}.
+ * 
+ * <p>
+ * Besides a few primitive values, it writes phrases in length-prefixed blocks, so that a reader can stream
+ * them into a memory block by block instead of decoding the whole snapshot up front:
+ * <pre>
+ * block   := count:int32 byteLength:int32 phrase*   (count &gt; 0)
+ * phrase  := length:varint utf8:byte[length]
+ * end     := 0:int32
+ * </pre>
+ * </p>
+ * 
+ * @see {@link SnapshotReader}
+ * @see {@link ChatBotSnapshot}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class SnapshotWriter implements Closeable
+{
+	/** The maximum number of phrases per block. */
+	public static final int MAX_BLOCK_PHRASES = 4096;
+	
+	/** The size, in bytes, after which a block is written out even if it has fewer than {@link #MAX_BLOCK_PHRASES} phrases. */
+	public static final int MAX_BLOCK_BYTES = 1 << 20;
+	
+	/** The stream that the snapshot is written to. */
+	private final DataOutputStream out;
+	
+	/** The encoded phrases of the block being built. */
+	private byte[] block = new byte[1 << 16];
+	
+	/** The number of bytes in {@link #block}. */
+	private int blockLength = 0;
+	
+	/** The number of phrases in {@link #block}. */
+	private int blockPhrases = 0;
+	
+	/**
+	 * Constructs a new snapshot writer.
+	 * @param out the stream to write to
+	 */
+	SnapshotWriter(OutputStream out)
+	{
+		this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+	}
+	
+	/**
+	 * Writes an integer.
+	 * @param value the value to write
+	 */
+	public void writeInt(int value) throws IOException
+	{
+		out.writeInt(value);
+	}
+	
+	/**
+	 * Writes a long integer.
+	 * @param value the value to write
+	 */
+	public void writeLong(long value) throws IOException
+	{
+		out.writeLong(value);
+	}
+	
+	/**
+	 * Writes a boolean.
+	 * @param value the value to write
+	 */
+	public void writeBoolean(boolean value) throws IOException
+	{
+		out.writeBoolean(value);
+	}
+	
+	/**
+	 * Writes a string, of any length, as its UTF-8 length followed by its UTF-8 bytes.
+	 * @param value the value to write
+	 */
+	public void writeString(String value) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(value, "Parameter 'value' cannot be null.");
+		
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	/**
+	 * Writes every phrase of the given memory in blocks, followed by an end marker.
+	 * @param memory the memory whose phrases to write
+	 */
+	public void writePhrases(PhraseMemory memory) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(memory, "Parameter 'memory' cannot be null.");
+		
+		for(int i = 0; i < memory.size(); i++)
+		{
+			writePhrase(memory.get(i));
+		}
+		endPhrases();
+	}
+	
+	/**
+	 * Adds a phrase to the current block, writing the block out once it is full.
+	 * Every sequence of phrases must be terminated by {@link #endPhrases()}.
+	 * @param phrase the phrase to write
+	 */
+	public void writePhrase(String phrase) throws IOException
+	{
+		byte[] bytes = phrase.getBytes(StandardCharsets.UTF_8);
+		
+		// Make room for the length prefix (at most 5 bytes) and the phrase
+		int needed = blockLength + 5 + bytes.length;
+		if(needed > block.length)
+		{
+			block = Arrays.copyOf(block, Math.max(needed, block.length * 2));
+		}
+		
+		int length = bytes.length;
+		while((length & ~0x7F) != 0)
+		{
+			block[blockLength++] = (byte) ((length & 0x7F) | 0x80);
+			length >>>= 7;
+		}
+		block[blockLength++] = (byte) length;
+		System.arraycopy(bytes, 0, block, blockLength, bytes.length);
+		blockLength += bytes.length;
+		blockPhrases++;
+		
+		if(blockPhrases >= MAX_BLOCK_PHRASES || blockLength >= MAX_BLOCK_BYTES)
+		{
+			flushBlock();
+		}
+	}
+	
+	/**
+	 * Writes out the last block of phrases, followed by the end marker.
+	 */
+	public void endPhrases() throws IOException
+	{
+		flushBlock();
+		out.writeInt(0);
+	}
+	
+	/**
+	 * Writes out the current block, if it has any phrases.
+	 */
+	private void flushBlock() throws IOException
+	{
+		if(blockPhrases == 0)
+		{
+			return;
+		}
+		
+		out.writeInt(blockPhrases);
+		out.writeInt(blockLength);
+		out.write(block, 0, blockLength);
+		blockPhrases = 0;
+		blockLength = 0;
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		out.close();
+	}
+}
@@ -0,0 +1,65 @@
+package chatBot.persistence;
+
+/**
+ * The <code>TranscriptEntry</code> class is an immutable entry of a {@link TranscriptLog}, such as a message that the user sent.
+ * 
+ * @see {@link TranscriptLog}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class TranscriptEntry
+{
+	/** The kind of the entry. */
+	private final TranscriptEntryKind kind;
+	
+	/** The time the entry was written, in milliseconds since the epoch. */
+	private final long timestampMillis;
+	
+	/** The message, or the chat bot's name for the start of a conversation. */
+	private final String text;
+	
+	/**
+	 * Constructs a new transcript entry.
+	 * @param kind the kind of the entry
+	 * @param timestampMillis the time the entry was written, in milliseconds since the epoch
+	 * @param text the message, or the chat bot's name for the start of a conversation
+	 */
+	public TranscriptEntry(TranscriptEntryKind kind, long timestampMillis, String text)
+	{
+		this.kind = kind;
+		this.timestampMillis = timestampMillis;
+		this.text = text;
+	}
+	
+	/**
+	 * Returns the kind of the entry.
+	 * @return the kind
+	 */
+	public TranscriptEntryKind getKind()
+	{
+		return kind;
+	}
+	
+	/**
+	 * Returns the time the entry was written.
+	 * @return the time in milliseconds since the epoch
+	 */
+	public long getTimestampMillis()
+	{
+		return timestampMillis;
+	}
+	
+	/**
+	 * Returns the message, or the chat bot's simple class name for the start of a conversation.
+	 * @return the text
+	 */
+	public String getText()
+	{
+		return text;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return kind + "@" + timestampMillis + ": " + text;
+	}
+}
\ No newline at end of file
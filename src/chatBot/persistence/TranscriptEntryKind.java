@@ -0,0 +1,20 @@
+package chatBot.persistence;
+
+/**
+ * The <code>TranscriptEntryKind</code> enumeration contains the kinds of entries in a {@link TranscriptLog}.
+ * 
+ * @see {@link TranscriptLog}
+ * @see {@link TranscriptEntry}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public enum TranscriptEntryKind
+{
+	/** The start of a new conversation, whose text is the simple class name of the chat bot talked to. */
+	ConversationStart,
+	
+	/** A message that the user sent. */
+	User,
+	
+	/** A reply of the chat bot. */
+	ChatBot;
+}
\ No newline at end of file
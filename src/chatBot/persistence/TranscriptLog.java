@@ -0,0 +1,667 @@
+package chatBot.persistence;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * The <code>TranscriptLog</code> class is an append-only file of every message the user and the chat bots sent, so that the last conversation
+ * can be reopened when the application starts again.
+ * 
+ * <p>
+ * Appending an entry only queues it. A background writer thread writes all of the queued entries with a single write,
+ * in a compact binary format, and leaves forcing them to disk to the operating system until the log is closed:
+ * <pre>
+ * log     := magic:int32 version:int32 record*
+ * record  := length:int32 crc32c:int32 kind:byte timestampMillis:int64 utf8:byte[length - 9]
+ * </pre>
+ * </p>
+ * 
+ * <p>
+ * The records are cut into pages of up to {@link #PAGE_SIZE} records, and every conversation starts on a new page.
+ * A sparse index, in a file next to the log, holds one entry per page rather than per record:
+ * <pre>
+ * index   := (offset:int64 conversationStartPage:int32)*
+ * </pre>
+ * so that a page is found in constant time and read by mapping only its part of the log. Reopening the last conversation reads its last page only,
+ * and older pages are read on demand, so that the time to open the log does not depend on how long the history is.
+ * </p>
+ * 
+ * <p>
+ * When the log is opened, only the records after the last indexed page are checked. The log is truncated at the first torn or corrupted record,
+ * which is what an interrupted write leaves behind, and pages that the index missed are indexed again.
+ * If the index is lost, it is rebuilt from the whole log.
+ * </p>
+ * 
+ * @see {@link TranscriptEntry}
+ * @see {@link TranscriptPage}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class TranscriptLog implements Closeable
+{
+	/** The magic number that every transcript log starts with, "CBTR" in ASCII. */
+	public static final int MAGIC = 0x43425452;
+	
+	/** The version of the transcript log format written by this class. */
+	public static final int FORMAT_VERSION = 1;
+	
+	/** The maximum number of records per page. */
+	public static final int PAGE_SIZE = 64;
+	
+	/** The default transcript log file, in the user's home directory. */
+	public static final Path DEFAULT_PATH = Path.of(System.getProperty("user.home"), ".parrotai", "transcript.log");
+	
+	/** The size, in bytes, of the log header. */
+	private static final int HEADER_SIZE = 2 * Integer.BYTES;
+	
+	/** The size, in bytes, of the header of each record. */
+	private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+	
+	/** The size, in bytes, of the kind and timestamp that start each record's payload. */
+	private static final int ENTRY_HEADER_SIZE = 1 + Long.BYTES;
+	
+	/** The size, in bytes, of each entry of the index. */
+	private static final int INDEX_ENTRY_SIZE = Long.BYTES + Integer.BYTES;
+	
+	/** The entry kinds by their ordinal, which is how they are written. */
+	private static final TranscriptEntryKind[] KINDS = TranscriptEntryKind.values();
+	
+	/** The channel of the log file. */
+	private final FileChannel channel;
+	
+	/** The channel of the index file. */
+	private final FileChannel indexChannel;
+	
+	/** The background thread that writes queued entries. */
+	private final Thread writer;
+	
+	/** The lock guarding the queue and the written state below. */
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	/** Signalled whenever entries are queued or written, or when the log is closed. */
+	private final Condition changed = lock.newCondition();
+	
+	/** The encoded payloads of the entries waiting to be written. */
+	private List<byte[]> pending = new ArrayList<>();
+	
+	/** The position right after the last written record. */
+	private long writtenEnd;
+	
+	/** The number of pages written, and indexed. */
+	private int pageCount;
+	
+	/** The page that the last written conversation starts on, or -1 if nothing was written. */
+	private int lastConversationStartPage = -1;
+	
+	/** The number of records on the last page. Only used by the writer thread, once the log is open. */
+	private int lastPageRecords;
+	
+	/** Whether the log was closed. */
+	private boolean isClosed = false;
+	
+	/** The error that stopped the writer thread, if any. */
+	private IOException failure = null;
+	
+	/**
+	 * Opens the transcript log at the specified file, creating it and its directory if they do not exist.
+	 * @param path the log file, whose index is kept next to it
+	 */
+	public TranscriptLog(Path path) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(path, "Parameter 'path' cannot be null.");
+		
+		Path parent = path.toAbsolutePath().getParent();
+		if(parent != null)
+		{
+			Files.createDirectories(parent);
+		}
+		
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try
+		{
+			indexChannel = FileChannel.open(path.resolveSibling(path.getFileName() + ".index"),
+					StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		}
+		catch (IOException e)
+		{
+			channel.close();
+			throw e;
+		}
+		
+		try
+		{
+			recover();
+		}
+		catch (IOException | RuntimeException e)
+		{
+			channel.close();
+			indexChannel.close();
+			throw e;
+		}
+		
+		writer = new Thread(this::runWriter, "Transcript log writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+	
+	/**
+	 * Queues the start of a new conversation, so that the following messages are read back as a separate conversation.
+	 * @param chatBotName the simple class name of the chat bot talked to
+	 * @throws IOException if the log is closed, or if writing a previous entry failed
+	 */
+	public void startConversation(String chatBotName) throws IOException
+	{
+		append(TranscriptEntryKind.ConversationStart, chatBotName);
+	}
+	
+	/**
+	 * Queues an entry to be appended to the log. This does not wait for the entry to be written.
+	 * @param kind the kind of the entry
+	 * @param text the message, or the chat bot's simple class name for the start of a conversation
+	 * @throws IOException if the log is closed, or if writing a previous entry failed
+	 */
+	public void append(TranscriptEntryKind kind, String text) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(kind, "Parameter 'kind' cannot be null.");
+		Objects.requireNonNull(text, "Parameter 'text' cannot be null.");
+		
+		// Encode the entry on the caller's thread, so that the writer thread only copies bytes
+		byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+		byte[] payload = ByteBuffer.allocate(ENTRY_HEADER_SIZE + utf8.length)
+				.put((byte) kind.ordinal())
+				.putLong(System.currentTimeMillis())
+				.put(utf8)
+				.array();
+		
+		lock.lock();
+		try
+		{
+			checkUsable();
+			pending.add(payload);
+			changed.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the chat bot of the last conversation.
+	 * @return the simple class name of the chat bot, or <code>null</code> if the log holds no conversation
+	 */
+	public String getLastChatBotName() throws IOException
+	{
+		int page;
+		lock.lock();
+		try
+		{
+			page = lastConversationStartPage;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+		if(page < 0)
+		{
+			return null;
+		}
+		
+		// The start of a conversation is always the first record of its page
+		long offset = readIndexOffset(page);
+		ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE + ENTRY_HEADER_SIZE);
+		readFully(channel, header, offset);
+		int length = header.getInt(0);
+		if(KINDS[header.get(RECORD_HEADER_SIZE)] != TranscriptEntryKind.ConversationStart)
+		{
+			return null;
+		}
+		
+		ByteBuffer text = ByteBuffer.allocate(length - ENTRY_HEADER_SIZE);
+		readFully(channel, text, offset + RECORD_HEADER_SIZE + ENTRY_HEADER_SIZE);
+		return new String(text.array(), StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Reads the last page of the last conversation, without reading any other page.
+	 * @return the page, or <code>null</code> if the log holds no conversation
+	 */
+	public TranscriptPage readLastPage() throws IOException
+	{
+		int page;
+		lock.lock();
+		try
+		{
+			page = pageCount - 1;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+		return page < 0 ? null : readPage(page);
+	}
+	
+	/**
+	 * Reads the page of the same conversation right before the specified page.
+	 * @param page a page read from this log
+	 * @return the older page, or <code>null</code> if the specified page starts its conversation
+	 */
+	public TranscriptPage readPageBefore(TranscriptPage page) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(page, "Parameter 'page' cannot be null.");
+		
+		return page.hasOlder() ? readPage(page.getPageIndex() - 1) : null;
+	}
+	
+	/**
+	 * Writes every queued entry, forces the log and its index to disk, then closes them.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		lock.lock();
+		try
+		{
+			if(isClosed)
+			{
+				return;
+			}
+			isClosed = true;
+			changed.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+		
+		try
+		{
+			writer.join();
+			channel.force(true);
+			indexChannel.force(true);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			channel.close();
+			indexChannel.close();
+		}
+		
+		if(failure != null)
+		{
+			throw failure;
+		}
+	}
+	
+	/**
+	 * Reads a written page by mapping its part of the log.
+	 * @param page the number of the page
+	 * @return the page
+	 */
+	private TranscriptPage readPage(int page) throws IOException
+	{
+		long end;
+		lock.lock();
+		try
+		{
+			end = page + 1 < pageCount ? -1 : writtenEnd;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+		
+		ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+		readFully(indexChannel, entry, (long) page * INDEX_ENTRY_SIZE);
+		long start = entry.getLong(0);
+		int conversationStartPage = entry.getInt(Long.BYTES);
+		if(end < 0)
+		{
+			end = readIndexOffset(page + 1);
+		}
+		
+		// Only the page's part of the log is mapped, however long the log is
+		MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		List<TranscriptEntry> entries = new ArrayList<>(PAGE_SIZE);
+		while(records.remaining() >= RECORD_HEADER_SIZE)
+		{
+			int length = records.getInt();
+			records.getInt();
+			TranscriptEntryKind kind = KINDS[records.get()];
+			long timestampMillis = records.getLong();
+			byte[] utf8 = new byte[length - ENTRY_HEADER_SIZE];
+			records.get(utf8);
+			
+			if(kind != TranscriptEntryKind.ConversationStart)
+			{
+				entries.add(new TranscriptEntry(kind, timestampMillis, new String(utf8, StandardCharsets.UTF_8)));
+			}
+		}
+		return new TranscriptPage(page, conversationStartPage, entries);
+	}
+	
+	/**
+	 * Reads the position in the log that an indexed page starts at.
+	 * @param page the number of the page
+	 * @return the position of the page's first record
+	 */
+	private long readIndexOffset(int page) throws IOException
+	{
+		ByteBuffer offset = ByteBuffer.allocate(Long.BYTES);
+		readFully(indexChannel, offset, (long) page * INDEX_ENTRY_SIZE);
+		return offset.getLong(0);
+	}
+	
+	/**
+	 * Validates the log header, or writes it to a new log, then checks the records after the last indexed page and indexes any page the index missed.
+	 */
+	private void recover() throws IOException
+	{
+		long size = channel.size();
+		
+		// A new log, or one whose header was never completely written
+		if(size < HEADER_SIZE)
+		{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+			channel.truncate(0);
+			writeFully(channel, header, 0);
+			indexChannel.truncate(0);
+			writtenEnd = HEADER_SIZE;
+			return;
+		}
+		
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		readFully(channel, header, 0);
+		if(header.getInt(0) != MAGIC)
+		{
+			throw new IOException("Not a transcript log file.");
+		}
+		int version = header.getInt(Integer.BYTES);
+		if(version > FORMAT_VERSION)
+		{
+			throw new IOException("Unsupported transcript log version " + version + ", this version only reads up to " + FORMAT_VERSION + ".");
+		}
+		
+		// Drop a partly written index entry, and the entries of pages that were never completely written
+		int indexedPages = (int) (indexChannel.size() / INDEX_ENTRY_SIZE);
+		while(indexedPages > 0 && readIndexOffset(indexedPages - 1) >= size)
+		{
+			indexedPages--;
+		}
+		indexChannel.truncate((long) indexedPages * INDEX_ENTRY_SIZE);
+		
+		// Check the records from the start of the last indexed page, which was possibly being written, to the end of the log
+		long position = HEADER_SIZE;
+		int conversationStartPage = -1;
+		if(indexedPages > 0)
+		{
+			ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+			readFully(indexChannel, entry, (long) (indexedPages - 1) * INDEX_ENTRY_SIZE);
+			position = entry.getLong(0);
+			conversationStartPage = entry.getInt(Long.BYTES);
+		}
+		
+		// The stream shares the channel's position, and is deliberately not closed since that would close the channel
+		channel.position(position);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+		ByteBuffer newEntries = ByteBuffer.allocate(INDEX_ENTRY_SIZE * 16);
+		CRC32C crc = new CRC32C();
+		byte[] scratch = new byte[256];
+		int pages = indexedPages;
+		int pageRecords = 0;
+		boolean isFirstRecordIndexed = indexedPages > 0;
+		while(size - position >= RECORD_HEADER_SIZE)
+		{
+			int length = in.readInt();
+			int checksum = in.readInt();
+			
+			// Stop at a torn record
+			if(length < ENTRY_HEADER_SIZE || length > size - position - RECORD_HEADER_SIZE)
+			{
+				break;
+			}
+			
+			if(scratch.length < length)
+			{
+				scratch = new byte[Math.max(length, scratch.length * 2)];
+			}
+			in.readFully(scratch, 0, length);
+			
+			// Stop at a corrupted record
+			crc.reset();
+			crc.update(scratch, 0, length);
+			if((int) crc.getValue() != checksum || scratch[0] < 0 || scratch[0] >= KINDS.length)
+			{
+				break;
+			}
+			
+			// Index the record's page if it starts one that the index missed
+			boolean isConversationStart = KINDS[scratch[0]] == TranscriptEntryKind.ConversationStart;
+			if(!isFirstRecordIndexed && (pages == 0 || isConversationStart || pageRecords == PAGE_SIZE))
+			{
+				if(isConversationStart || conversationStartPage < 0)
+				{
+					conversationStartPage = pages;
+				}
+				if(newEntries.remaining() < INDEX_ENTRY_SIZE)
+				{
+					newEntries = ByteBuffer.allocate(newEntries.capacity() * 2).put(newEntries.flip());
+				}
+				newEntries.putLong(position).putInt(conversationStartPage);
+				pages++;
+				pageRecords = 0;
+			}
+			isFirstRecordIndexed = false;
+			pageRecords++;
+			position += RECORD_HEADER_SIZE + length;
+		}
+		
+		channel.truncate(position);
+		writeFully(indexChannel, newEntries.flip(), (long) indexedPages * INDEX_ENTRY_SIZE);
+		
+		writtenEnd = position;
+		pageCount = pages;
+		lastConversationStartPage = conversationStartPage;
+		lastPageRecords = pageRecords;
+	}
+	
+	/**
+	 * The loop of the writer thread, which writes queued entries in batches until the log is closed.
+	 */
+	private void runWriter()
+	{
+		List<byte[]> batch = new ArrayList<>();
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		ByteBuffer indexBuffer = ByteBuffer.allocate(INDEX_ENTRY_SIZE * 16);
+		CRC32C crc = new CRC32C();
+		
+		// Only this thread changes the written state, so it keeps its own copy and publishes it after each batch
+		long end = writtenEnd;
+		int pages = pageCount;
+		int conversationStartPage = lastConversationStartPage;
+		int pageRecords = lastPageRecords;
+		
+		try
+		{
+			while(true)
+			{
+				boolean isClosing;
+				
+				lock.lock();
+				try
+				{
+					// Wait until there is something to write
+					while(pending.isEmpty() && !isClosed)
+					{
+						changed.await();
+					}
+					
+					// Take the whole queue as one batch
+					List<byte[]> queued = pending;
+					pending = batch;
+					batch = queued;
+					isClosing = isClosed;
+				}
+				finally
+				{
+					lock.unlock();
+				}
+				
+				// Encode the batch, starting a page for every conversation and every PAGE_SIZE records
+				buffer.clear();
+				indexBuffer.clear();
+				int firstNewPage = pages;
+				for(byte[] payload : batch)
+				{
+					boolean isConversationStart = KINDS[payload[0]] == TranscriptEntryKind.ConversationStart;
+					if(pages == 0 || isConversationStart || pageRecords == PAGE_SIZE)
+					{
+						if(isConversationStart || conversationStartPage < 0)
+						{
+							conversationStartPage = pages;
+						}
+						if(indexBuffer.remaining() < INDEX_ENTRY_SIZE)
+						{
+							indexBuffer = ByteBuffer.allocate(indexBuffer.capacity() * 2).put(indexBuffer.flip());
+						}
+						indexBuffer.putLong(end + buffer.position()).putInt(conversationStartPage);
+						pages++;
+						pageRecords = 0;
+					}
+					
+					if(buffer.remaining() < RECORD_HEADER_SIZE + payload.length)
+					{
+						buffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + RECORD_HEADER_SIZE + payload.length)).put(buffer.flip());
+					}
+					crc.reset();
+					crc.update(payload);
+					buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+					pageRecords++;
+				}
+				batch.clear();
+				
+				// Write the records before indexing their pages, so that the index never points past the log
+				writeFully(channel, buffer.flip(), end);
+				writeFully(indexChannel, indexBuffer.flip(), (long) firstNewPage * INDEX_ENTRY_SIZE);
+				end += buffer.limit();
+				
+				lock.lock();
+				try
+				{
+					writtenEnd = end;
+					pageCount = pages;
+					lastConversationStartPage = conversationStartPage;
+					changed.signalAll();
+					
+					if(isClosing && pending.isEmpty())
+					{
+						return;
+					}
+				}
+				finally
+				{
+					lock.unlock();
+				}
+				
+				// Shrink the buffer back after an unusually large batch
+				if(buffer.capacity() > 1 << 24)
+				{
+					buffer = ByteBuffer.allocate(1 << 16);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			fail(e);
+		}
+		catch (InterruptedException e)
+		{
+			fail(new IOException("The transcript log writer was interrupted."));
+		}
+	}
+	
+	/**
+	 * Records the error that stopped the writer thread, and wakes up every waiting caller.
+	 * @param e the error
+	 */
+	private void fail(IOException e)
+	{
+		lock.lock();
+		try
+		{
+			failure = e;
+			changed.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Throws if the log can no longer be appended to. Must be called while holding {@link #lock}.
+	 */
+	private void checkUsable() throws IOException
+	{
+		if(failure != null)
+		{
+			throw new IOException("Writing the transcript log failed: " + failure.getMessage(), failure);
+		}
+		if(isClosed)
+		{
+			throw new IOException("The transcript log is closed.");
+		}
+	}
+	
+	/**
+	 * Reads from a channel at a position until the buffer is full.
+	 * @param channel the channel
+	 * @param buffer the buffer to fill
+	 * @param position the position to read from
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+	{
+		while(buffer.hasRemaining())
+		{
+			if(channel.read(buffer, position + buffer.position()) < 0)
+			{
+				throw new IOException("Unexpected end of the transcript log.");
+			}
+		}
+	}
+	
+	/**
+	 * Writes a whole buffer to a channel at a position.
+	 * @param channel the channel
+	 * @param buffer the buffer to write
+	 * @param position the position to write at
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+	{
+		long start = position - buffer.position();
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer, start + buffer.position());
+		}
+	}
+}
\ No newline at end of file
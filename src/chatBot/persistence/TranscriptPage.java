@@ -0,0 +1,70 @@
+package chatBot.persistence;
+import java.util.List;
+
+/**
+ * The <code>TranscriptPage</code> class is an immutable page of a conversation read from a {@link TranscriptLog},
+ * holding up to {@link TranscriptLog#PAGE_SIZE} of its messages in the order they were written.
+ * 
+ * @see {@link TranscriptLog}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class TranscriptPage
+{
+	/** The number of the page in the log. */
+	private final int pageIndex;
+	
+	/** The number of the page that the conversation starts on. */
+	private final int conversationStartPage;
+	
+	/** The messages of the page, without the start of the conversation. */
+	private final List<TranscriptEntry> entries;
+	
+	/**
+	 * Constructs a new page.
+	 * @param pageIndex the number of the page in the log
+	 * @param conversationStartPage the number of the page that the conversation starts on
+	 * @param entries the messages of the page, without the start of the conversation
+	 */
+	TranscriptPage(int pageIndex, int conversationStartPage, List<TranscriptEntry> entries)
+	{
+		this.pageIndex = pageIndex;
+		this.conversationStartPage = conversationStartPage;
+		this.entries = entries;
+	}
+	
+	/**
+	 * Returns the number of the page in the log.
+	 * @return the page number
+	 */
+	int getPageIndex()
+	{
+		return pageIndex;
+	}
+	
+	/**
+	 * Returns the number of the page that the conversation starts on.
+	 * @return the page number
+	 */
+	int getConversationStartPage()
+	{
+		return conversationStartPage;
+	}
+	
+	/**
+	 * Returns the messages of the page, in the order they were written.
+	 * @return the messages
+	 */
+	public List<TranscriptEntry> getEntries()
+	{
+		return entries;
+	}
+	
+	/**
+	 * Returns whether or not the conversation has older pages, which {@link TranscriptLog#readPageBefore(TranscriptPage)} reads.
+	 * @return true if this is not the first page of the conversation, false otherwise
+	 */
+	public boolean hasOlder()
+	{
+		return pageIndex > conversationStartPage;
+	}
+}
\ No newline at end of file
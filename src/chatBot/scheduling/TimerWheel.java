@@ -0,0 +1,294 @@
+package chatBot.scheduling;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The <code>TimerWheel</code> class runs tasks after a delay, such as a chat bot's reply after its typing delay,
+ * and scales to hundreds of thousands of pending tasks at a constant cost per task.
+ * 
+ * <p>
+ * It is a hashed timer wheel: time is cut into ticks, and a task is put in the bucket of the tick it is due at, modulo the number of buckets.
+ * A single thread wakes up every tick and runs the tasks of that tick's bucket, skipping those due on a later turn of the wheel.
+ * Scheduling only adds the task to a lock-free queue, which the thread empties into the buckets, so it never waits on a lock or on the other tasks.
+ * Tasks run up to one tick late, and run on the wheel's thread, so they should only hand off their work, never block.
+ * </p>
+ * 
+ * <p>
+ * Tasks are scheduled in a {@link Group}, and a whole group is cancelled at once, in constant time, by bumping its generation:
+ * tasks of an older generation are dropped when the thread reaches them, rather than being looked up and removed one by one.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class TimerWheel
+{
+	/** The default duration, in milliseconds, of a tick. */
+	public static final long DEFAULT_TICK_MILLIS = 10;
+	
+	/** The default number of buckets, so that a turn of the wheel lasts a few seconds at the default tick. */
+	public static final int DEFAULT_BUCKET_COUNT = 512;
+	
+	/** The duration, in nanoseconds, of a tick. */
+	private final long tickNanos;
+	
+	/** The buckets, each the head of a linked list of the tasks due at its ticks. Only touched by the {@link #worker}. */
+	private final Timeout[] buckets;
+	
+	/** The number of buckets minus one, to find a tick's bucket with a mask, since the number of buckets is a power of two. */
+	private final int mask;
+	
+	/** The tasks scheduled since the {@link #worker} last emptied the queue. */
+	private final ConcurrentLinkedQueue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+	
+	/** The number of tasks that are neither run nor dropped yet. */
+	private final AtomicLong pendingCount = new AtomicLong();
+	
+	/** The time, from {@link System#nanoTime()}, the wheel started at, which ticks are counted from. */
+	private final long startNanos;
+	
+	/** The thread that runs the tasks. */
+	private final Thread worker;
+	
+	/** Whether or not the wheel has been stopped. */
+	private volatile boolean isStopped;
+	
+	/** Initialize a timer wheel with {@link #DEFAULT_BUCKET_COUNT} buckets of {@link #DEFAULT_TICK_MILLIS} milliseconds, and start its thread. */
+	public TimerWheel()
+	{
+		this(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_BUCKET_COUNT);
+	}
+	
+	/**
+	 * Initialize a timer wheel and start its thread.
+	 * @param tickDuration the duration of a tick, which is how late a task may run
+	 * @param unit the unit of the tick duration
+	 * @param bucketCount the number of buckets, rounded up to a power of two
+	 */
+	public TimerWheel(long tickDuration, TimeUnit unit, int bucketCount)
+	{
+		// Validity checks
+		Objects.requireNonNull(unit, "Parameter 'unit' cannot be null.");
+		if(tickDuration <= 0)
+		{
+			throw new IllegalArgumentException("Parameter 'tickDuration' must be positive.");
+		}
+		if(bucketCount <= 0 || bucketCount > (1 << 30))
+		{
+			throw new IllegalArgumentException("Parameter 'bucketCount' must be between 1 and 2^30.");
+		}
+		
+		// Round the number of buckets up to a power of two
+		int size = 1;
+		while(size < bucketCount)
+		{
+			size <<= 1;
+		}
+		
+		tickNanos = unit.toNanos(tickDuration);
+		buckets = new Timeout[size];
+		mask = size - 1;
+		startNanos = System.nanoTime();
+		
+		worker = Thread.ofPlatform().name("timer-wheel").daemon().start(this::run);
+	}
+	
+	/**
+	 * Creates a group of tasks that are cancelled together.
+	 * @return a new, empty group
+	 */
+	public Group newGroup()
+	{
+		return new Group();
+	}
+	
+	/**
+	 * Returns the number of tasks that are neither run nor dropped yet, including those of cancelled groups that the thread has not reached yet.
+	 * @return the number of pending tasks
+	 */
+	public long getPendingCount()
+	{
+		return pendingCount.get();
+	}
+	
+	/**
+	 * Stops the wheel's thread. Pending tasks never run, and tasks scheduled afterwards are ignored.
+	 */
+	public void stop()
+	{
+		isStopped = true;
+		LockSupport.unpark(worker);
+	}
+	
+	/**
+	 * Runs the tasks of each tick, once it has passed, until the wheel is stopped.
+	 */
+	private void run()
+	{
+		long tick = 0;
+		while(!isStopped)
+		{
+			// Wait for the tick to pass
+			long remainingNanos = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+			if(remainingNanos > 0)
+			{
+				LockSupport.parkNanos(this, remainingNanos);
+				continue;
+			}
+			
+			addScheduled(tick);
+			expire(tick);
+			tick++;
+		}
+	}
+	
+	/**
+	 * Moves the newly scheduled tasks into the buckets of the ticks they are due at.
+	 * @param tick the tick being processed, before which no task can be put
+	 */
+	private void addScheduled(long tick)
+	{
+		Timeout timeout;
+		while((timeout = scheduled.poll()) != null)
+		{
+			// A task due in the past runs on this tick
+			long dueTick = Math.max(timeout.dueTick, tick);
+			int bucket = (int) (dueTick & mask);
+			timeout.dueTick = dueTick;
+			timeout.next = buckets[bucket];
+			buckets[bucket] = timeout;
+		}
+	}
+	
+	/**
+	 * Runs the tasks of a tick's bucket that are due, and drops those of cancelled groups.
+	 * @param tick the tick that has passed
+	 */
+	private void expire(long tick)
+	{
+		int bucket = (int) (tick & mask);
+		Timeout previous = null;
+		Timeout timeout = buckets[bucket];
+		while(timeout != null)
+		{
+			Timeout next = timeout.next;
+			boolean isCancelled = timeout.generation != timeout.group.generation;
+			if(isCancelled || timeout.dueTick <= tick)
+			{
+				// Unlink the task, then run it unless its group was cancelled
+				if(previous == null)
+				{
+					buckets[bucket] = next;
+				}
+				else
+				{
+					previous.next = next;
+				}
+				timeout.next = null;
+				pendingCount.decrementAndGet();
+				
+				if(!isCancelled)
+				{
+					try
+					{
+						timeout.task.run();
+					}
+					catch (RuntimeException e)
+					{
+						System.err.println("A scheduled task failed. Reason: " + e.getMessage());
+					}
+				}
+			}
+			else
+			{
+				// Due on a later turn of the wheel
+				previous = timeout;
+			}
+			timeout = next;
+		}
+	}
+	
+	/**
+	 * The <code>Group</code> class is a set of tasks on a {@link TimerWheel} that are cancelled together,
+	 * such as every reply that a chat bot has yet to make.
+	 */
+	public final class Group
+	{
+		/** The generation of the group, which scheduled tasks remember and cancelling bumps. */
+		private volatile long generation;
+		
+		/** Only the timer wheel creates groups. */
+		private Group()
+		{
+		}
+		
+		/**
+		 * Runs the specified task after the specified delay, on the timer wheel's thread, unless the group is cancelled first.
+		 * @param task the task, which should only hand off its work, never block
+		 * @param delay the delay before running the task
+		 * @param unit the unit of the delay
+		 */
+		public void schedule(Runnable task, long delay, TimeUnit unit)
+		{
+			// Validity checks
+			Objects.requireNonNull(task, "Parameter 'task' cannot be null.");
+			Objects.requireNonNull(unit, "Parameter 'unit' cannot be null.");
+			
+			if(isStopped)
+			{
+				return;
+			}
+			
+			// Round up, so that a task never runs before its delay has passed
+			long dueTick = (System.nanoTime() - startNanos + unit.toNanos(Math.max(delay, 0)) + tickNanos - 1) / tickNanos;
+			pendingCount.incrementAndGet();
+			scheduled.add(new Timeout(this, generation, task, dueTick));
+		}
+		
+		/**
+		 * Cancels every task scheduled in the group so far, in constant time. Tasks scheduled afterwards run as usual.
+		 */
+		public synchronized void cancelAll()
+		{
+			generation++;
+		}
+	}
+	
+	/**
+	 * The <code>Timeout</code> class is a scheduled task, linked to the other tasks of its bucket.
+	 */
+	private static final class Timeout
+	{
+		/** The group that the task was scheduled in. */
+		final Group group;
+		
+		/** The generation of the group when the task was scheduled. */
+		final long generation;
+		
+		/** The task to run. */
+		final Runnable task;
+		
+		/** The tick that the task is due at. */
+		long dueTick;
+		
+		/** The next task in the same bucket. */
+		Timeout next;
+		
+		/**
+		 * Constructs a scheduled task.
+		 * @param group the group that the task was scheduled in
+		 * @param generation the generation of the group when the task was scheduled
+		 * @param task the task to run
+		 * @param dueTick the tick that the task is due at
+		 */
+		Timeout(Group group, long generation, Runnable task, long dueTick)
+		{
+			this.group = group;
+			this.generation = generation;
+			this.task = task;
+			this.dueTick = dueTick;
+		}
+	}
+}
\ No newline at end of file
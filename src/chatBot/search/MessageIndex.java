@@ -0,0 +1,559 @@
+package chatBot.search;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import chatBot.text.TokenSpans;
+import chatBot.text.Tokenizer;
+
+/**
+ * The <code>MessageIndex</code> class is an inverted index of chat messages, updated as each message is added,
+ * that finds the messages matching a query without reading their text again.
+ * 
+ * <p>
+ * Messages are numbered in the order they are added, from 0, and split into lower case words with {@link Tokenizer#splitWords(String)}.
+ * Every distinct word, or term, is given an id by a front coded {@link TermDictionary}, and has a posting list of where it occurs:
+ * a byte array of the differences between the numbers of the messages it occurs in, and of its positions in each message, as variable-length integers.
+ * Since messages are only added at the end, a posting list is only ever appended to, and most differences take a single byte.
+ * </p>
+ * 
+ * <p>
+ * A query is made of words, all of which a message must match, separated by whitespace or punctuation:
+ * <ul>
+ * <li><code>parrot</code> - the message holds the word "parrot", in any case</li>
+ * <li><code>parr*</code> - the message holds a word starting with "parr"</li>
+ * <li><code>"pretty bird"</code> - the message holds "pretty" immediately followed by "bird"</li>
+ * </ul>
+ * </p>
+ * 
+ * <p>
+ * The index is not thread-safe, and is meant to be used from a single thread, such as the JavaFX thread of a {@link chatBot.gui.ChatBox}.
+ * </p>
+ * 
+ * @see {@link TermDictionary}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class MessageIndex
+{
+	/** The maximum length of a term. Longer words are cut to this length, both in messages and in queries. */
+	public static final int MAX_TERM_LENGTH = 64;
+	
+	/** The number of terms that room is made for up front. */
+	private static final int INITIAL_TERM_CAPACITY = 1024;
+	
+	/** The size, in bytes, of a new posting list. */
+	private static final int INITIAL_POSTING_CAPACITY = 8;
+	
+	/** The maximum size, in bytes, of a variable-length integer. */
+	private static final int MAX_VARINT_SIZE = 5;
+	
+	/** The ids of the terms. */
+	private final TermDictionary dictionary = new TermDictionary();
+	
+	/** The posting list of each term, by term id, only the first {@link #postingLengths} bytes of which are used. */
+	private byte[][] postings = new byte[INITIAL_TERM_CAPACITY][];
+	
+	/** The number of bytes used of each posting list. */
+	private int[] postingLengths = new int[INITIAL_TERM_CAPACITY];
+	
+	/** The last message that each term occurs in, or -1 if none, which the next posting is encoded against. */
+	private int[] lastMessages = filled(INITIAL_TERM_CAPACITY, -1);
+	
+	/** The last position that each term occurs at, in its last message. */
+	private int[] lastPositions = new int[INITIAL_TERM_CAPACITY];
+	
+	/** The number of messages. */
+	private int size = 0;
+	
+	/** The number of bytes used by all posting lists. */
+	private long postingBytes = 0;
+	
+	/**
+	 * Adds a message to the index.
+	 * @param message the text of the message
+	 * @return the number of the message, which is the number of messages added before it
+	 */
+	public int add(String message)
+	{
+		// Validity checks
+		Objects.requireNonNull(message, "Parameter 'message' cannot be null.");
+		
+		int id = size++;
+		TokenSpans words = Tokenizer.splitWords(message);
+		for(int position = 0; position < words.size(); position++)
+		{
+			int term = dictionary.getOrAdd(toTerm(message, words.start(position), words.end(position)));
+			if(term >= postings.length)
+			{
+				growTerms();
+			}
+			addPosting(term, id, position);
+		}
+		return id;
+	}
+	
+	/**
+	 * Finds the messages matching the specified query.
+	 * @param query the query, as described in {@link MessageIndex}
+	 * @return the numbers of the matching messages, in increasing order, or none if the query has no words
+	 */
+	public int[] search(String query)
+	{
+		// Validity checks
+		Objects.requireNonNull(query, "Parameter 'query' cannot be null.");
+		
+		BitSet matches = null;
+		for(Clause clause : parse(query))
+		{
+			BitSet clauseMatches = clause.phrase.length > 1 ? findPhrase(clause.phrase) : (clause.isPrefix ? findPrefix(clause.phrase[0]) : findTerm(clause.phrase[0]));
+			if(matches == null)
+			{
+				matches = clauseMatches;
+			}
+			else
+			{
+				matches.and(clauseMatches);
+			}
+			
+			// No message can match the rest of the query
+			if(matches.isEmpty())
+			{
+				break;
+			}
+		}
+		return matches == null ? new int[0] : matches.stream().toArray();
+	}
+	
+	/**
+	 * Returns the number of messages.
+	 * @return the number of messages
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Returns the number of distinct terms.
+	 * @return the number of terms
+	 */
+	public int getTermCount()
+	{
+		return dictionary.size();
+	}
+	
+	/**
+	 * Returns roughly how many bytes the term dictionary takes up.
+	 * @return the size of the term dictionary, in bytes
+	 */
+	public long getDictionaryBytes()
+	{
+		return dictionary.getMemoryBytes();
+	}
+	
+	/**
+	 * Returns how many bytes of the posting lists are used.
+	 * @return the size of the posting lists, in bytes
+	 */
+	public long getPostingBytes()
+	{
+		return postingBytes;
+	}
+	
+	/**
+	 * Removes every message, so that the next message added is number 0.
+	 */
+	public void clear()
+	{
+		dictionary.clear();
+		postings = new byte[INITIAL_TERM_CAPACITY][];
+		postingLengths = new int[INITIAL_TERM_CAPACITY];
+		lastMessages = filled(INITIAL_TERM_CAPACITY, -1);
+		lastPositions = new int[INITIAL_TERM_CAPACITY];
+		size = 0;
+		postingBytes = 0;
+	}
+	
+	/**
+	 * Appends an occurrence of a term to its posting list.
+	 * @param term the term id
+	 * @param message the message it occurs in, no less than the last one
+	 * @param position the position it occurs at, after the last one if in the same message
+	 */
+	private void addPosting(int term, int message, int position)
+	{
+		byte[] list = postings[term];
+		int length = postingLengths[term];
+		if(list == null)
+		{
+			list = postings[term] = new byte[INITIAL_POSTING_CAPACITY];
+		}
+		else if(list.length - length < 2 * MAX_VARINT_SIZE)
+		{
+			list = postings[term] = Arrays.copyOf(list, list.length + (list.length >> 1) + 2 * MAX_VARINT_SIZE);
+		}
+		
+		// A new message is encoded as its difference from the last one, followed by the position,
+		// and another position in the same message as a zero, followed by its difference from the last position
+		int messageDelta = message - lastMessages[term];
+		int positionDelta = messageDelta == 0 ? position - lastPositions[term] : position;
+		int end = writeVarint(list, length, messageDelta);
+		end = writeVarint(list, end, positionDelta);
+		
+		lastMessages[term] = message;
+		lastPositions[term] = position;
+		postingLengths[term] = end;
+		postingBytes += end - length;
+	}
+	
+	/**
+	 * Finds the messages holding a term.
+	 * @param term the term
+	 * @return the matching messages
+	 */
+	private BitSet findTerm(String term)
+	{
+		BitSet matches = new BitSet(size);
+		int id = dictionary.get(term);
+		if(id >= 0)
+		{
+			addMessages(id, matches);
+		}
+		return matches;
+	}
+	
+	/**
+	 * Finds the messages holding a term starting with a prefix.
+	 * @param prefix the prefix
+	 * @return the matching messages
+	 */
+	private BitSet findPrefix(String prefix)
+	{
+		BitSet matches = new BitSet(size);
+		dictionary.forEachWithPrefix(prefix, id -> addMessages(id, matches));
+		return matches;
+	}
+	
+	/**
+	 * Finds the messages holding terms right after each other, by walking their posting lists together.
+	 * @param phrase the terms, in order
+	 * @return the matching messages
+	 */
+	private BitSet findPhrase(String[] phrase)
+	{
+		BitSet matches = new BitSet(size);
+		PostingCursor[] cursors = new PostingCursor[phrase.length];
+		for(int i = 0; i < phrase.length; i++)
+		{
+			int id = dictionary.get(phrase[i]);
+			if(id < 0)
+			{
+				return matches;
+			}
+			cursors[i] = new PostingCursor(postings[id], postingLengths[id]);
+		}
+		
+		// Leapfrog the cursors to the next message that all of them are in
+		int message = -1;
+		while(true)
+		{
+			boolean isAligned = true;
+			for(PostingCursor cursor : cursors)
+			{
+				while(cursor.message < message || cursor.message < 0)
+				{
+					if(!cursor.nextMessage())
+					{
+						return matches;
+					}
+				}
+				if(cursor.message > message)
+				{
+					message = cursor.message;
+					isAligned = false;
+				}
+			}
+			if(!isAligned)
+			{
+				continue;
+			}
+			
+			// Check whether the terms follow each other anywhere in the message
+			if(isPhraseAt(cursors))
+			{
+				matches.set(message);
+			}
+			message++;
+		}
+	}
+	
+	/**
+	 * Returns whether the terms of a phrase follow each other in the message that all of the cursors are at.
+	 * @param cursors the cursor of each term of the phrase, in order
+	 * @return true if the phrase is in the message, false otherwise
+	 */
+	private static boolean isPhraseAt(PostingCursor[] cursors)
+	{
+		PostingCursor first = cursors[0];
+		for(int p = 0; p < first.positionCount; p++)
+		{
+			boolean isFound = true;
+			for(int i = 1; i < cursors.length && isFound; i++)
+			{
+				isFound = Arrays.binarySearch(cursors[i].positions, 0, cursors[i].positionCount, first.positions[p] + i) >= 0;
+			}
+			if(isFound)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Adds every message that a term occurs in to a set.
+	 * @param id the term id
+	 * @param messages the set of messages
+	 */
+	private void addMessages(int id, BitSet messages)
+	{
+		byte[] list = postings[id];
+		int length = postingLengths[id];
+		int message = -1;
+		int offset = 0;
+		while(offset < length)
+		{
+			// Read the difference from the last message
+			int delta = 0;
+			int shift = 0;
+			byte b;
+			do
+			{
+				b = list[offset++];
+				delta |= (b & 0x7F) << shift;
+				shift += 7;
+			}
+			while(b < 0);
+			while(list[offset++] < 0)
+			{
+				// Skip the position
+			}
+			
+			if(delta != 0)
+			{
+				message += delta;
+				messages.set(message);
+			}
+		}
+	}
+	
+	/**
+	 * Splits a query into clauses: every quoted phrase, and every other word, with whether it ends with a '*'.
+	 * @param query the query
+	 * @return the clauses
+	 */
+	private static List<Clause> parse(String query)
+	{
+		List<Clause> clauses = new ArrayList<>();
+		int start = 0;
+		boolean isQuoted = false;
+		for(int i = 0; i <= query.length(); i++)
+		{
+			if(i < query.length() && query.charAt(i) != '"')
+			{
+				continue;
+			}
+			
+			String part = query.substring(start, i);
+			TokenSpans words = Tokenizer.splitWords(part);
+			if(isQuoted && words.size() > 0)
+			{
+				String[] phrase = new String[words.size()];
+				for(int w = 0; w < words.size(); w++)
+				{
+					phrase[w] = toTerm(part, words.start(w), words.end(w));
+				}
+				clauses.add(new Clause(phrase, false));
+			}
+			else
+			{
+				for(int w = 0; w < words.size(); w++)
+				{
+					boolean isPrefix = words.end(w) < part.length() && part.charAt(words.end(w)) == '*';
+					clauses.add(new Clause(new String[] { toTerm(part, words.start(w), words.end(w)) }, isPrefix));
+				}
+			}
+			
+			isQuoted = !isQuoted;
+			start = i + 1;
+		}
+		return clauses;
+	}
+	
+	/**
+	 * Turns a word into a term, in lower case and at most {@link #MAX_TERM_LENGTH} characters long.
+	 * @param text the text holding the word
+	 * @param start the offset of the word's first character
+	 * @param end the offset right after the word's last character
+	 * @return the term
+	 */
+	private static String toTerm(String text, int start, int end)
+	{
+		String term = text.substring(start, Math.min(end, start + MAX_TERM_LENGTH)).toLowerCase(Locale.ROOT);
+		return term.length() > MAX_TERM_LENGTH ? term.substring(0, MAX_TERM_LENGTH) : term;
+	}
+	
+	/**
+	 * Makes room for more terms in every per-term array.
+	 */
+	private void growTerms()
+	{
+		int capacity = postings.length * 2;
+		postings = Arrays.copyOf(postings, capacity);
+		postingLengths = Arrays.copyOf(postingLengths, capacity);
+		int oldCapacity = lastMessages.length;
+		lastMessages = Arrays.copyOf(lastMessages, capacity);
+		Arrays.fill(lastMessages, oldCapacity, capacity, -1);
+		lastPositions = Arrays.copyOf(lastPositions, capacity);
+	}
+	
+	/**
+	 * Writes a non-negative integer in as few bytes as possible, 7 bits per byte with the high bit set on every byte but the last.
+	 * @param buffer the buffer, with room for {@link #MAX_VARINT_SIZE} bytes
+	 * @param offset the offset to write at
+	 * @param value the integer
+	 * @return the offset right after the integer
+	 */
+	private static int writeVarint(byte[] buffer, int offset, int value)
+	{
+		while((value & ~0x7F) != 0)
+		{
+			buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[offset++] = (byte) value;
+		return offset;
+	}
+	
+	/**
+	 * Creates an array filled with a value.
+	 * @param length the length of the array
+	 * @param value the value
+	 * @return the array
+	 */
+	private static int[] filled(int length, int value)
+	{
+		int[] array = new int[length];
+		Arrays.fill(array, value);
+		return array;
+	}
+	
+	/**
+	 * The <code>Clause</code> class is a part of a query that a message must match: a word, a prefix, or a phrase.
+	 */
+	private static final class Clause
+	{
+		/** The terms of the clause, a single one unless it is a phrase. */
+		final String[] phrase;
+		
+		/** Whether or not the single term is a prefix. */
+		final boolean isPrefix;
+		
+		/**
+		 * Constructs a clause.
+		 * @param phrase the terms of the clause
+		 * @param isPrefix whether or not the single term is a prefix
+		 */
+		Clause(String[] phrase, boolean isPrefix)
+		{
+			this.phrase = phrase;
+			this.isPrefix = isPrefix;
+		}
+	}
+	
+	/**
+	 * The <code>PostingCursor</code> class walks a posting list one message at a time, reading the positions of the term in each message.
+	 */
+	private static final class PostingCursor
+	{
+		/** The posting list. */
+		private final byte[] list;
+		
+		/** The number of bytes used of the posting list. */
+		private final int length;
+		
+		/** The offset of the next posting to read. */
+		private int offset = 0;
+		
+		/** The message that the cursor is at, or -1 before the first one. */
+		int message = -1;
+		
+		/** The positions of the term in the current message, only the first {@link #positionCount} of which are used. */
+		int[] positions = new int[4];
+		
+		/** The number of positions of the term in the current message. */
+		int positionCount = 0;
+		
+		/**
+		 * Constructs a cursor before the first message of a posting list.
+		 * @param list the posting list
+		 * @param length the number of bytes used of the posting list
+		 */
+		PostingCursor(byte[] list, int length)
+		{
+			this.list = list;
+			this.length = length;
+		}
+		
+		/**
+		 * Moves to the next message, reading every position of the term in it.
+		 * @return true if there is a next message, false if the posting list is over
+		 */
+		boolean nextMessage()
+		{
+			if(offset >= length)
+			{
+				return false;
+			}
+			
+			message += readVarint();
+			positions[0] = readVarint();
+			positionCount = 1;
+			
+			// The other positions in the same message follow, each with a message difference of zero, which is a single zero byte
+			while(offset < length && list[offset] == 0)
+			{
+				offset++;
+				if(positionCount == positions.length)
+				{
+					positions = Arrays.copyOf(positions, positionCount * 2);
+				}
+				positions[positionCount] = positions[positionCount - 1] + readVarint();
+				positionCount++;
+			}
+			return true;
+		}
+		
+		/**
+		 * Reads a variable-length integer.
+		 * @return the integer
+		 */
+		private int readVarint()
+		{
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do
+			{
+				b = list[offset++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			}
+			while(b < 0);
+			return value;
+		}
+	}
+}
\ No newline at end of file
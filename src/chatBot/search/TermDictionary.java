@@ -0,0 +1,356 @@
+package chatBot.search;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * The <code>TermDictionary</code> class assigns an id to every distinct term of a {@link MessageIndex}, and finds the terms starting with a prefix.
+ * 
+ * <p>
+ * Most terms are kept sorted and front coded, in blocks of {@link #BLOCK_SIZE} terms: the first term of a block is stored in full,
+ * and every other term as the length of the prefix it shares with the term before it, followed by the rest of it.
+ * Since sorted terms share long prefixes, such as "message", "messages" and "messaging", this takes a fraction of the memory of a string per term.
+ * A term is found by a binary search over the first terms of the blocks, then a scan of a single block,
+ * and the terms starting with a prefix are next to each other.
+ * </p>
+ * 
+ * <p>
+ * New terms are put in a small hash map first, and merged into the sorted terms once they are more than a fraction of them,
+ * so that adding a term stays cheap on average however many terms there are.
+ * </p>
+ * 
+ * @see {@link MessageIndex}
+ * @author Mohammad Alali (Sanavesa)
+ */
+final class TermDictionary
+{
+	/** The number of terms per block of the sorted terms. */
+	static final int BLOCK_SIZE = 16;
+	
+	/** The number of new terms that are always kept in the hash map before merging them. */
+	private static final int MIN_MERGE_SIZE = 1024;
+	
+	/** New terms are merged once they are more than one in this many sorted terms. */
+	private static final int MERGE_RATIO = 16;
+	
+	/** The sorted terms, front coded as the length of the shared prefix, the length of the rest, then the rest, one char each. */
+	private char[] data = new char[0];
+	
+	/** The offset in {@link #data} of the first term of each block. */
+	private int[] blockOffsets = new int[0];
+	
+	/** The id of each sorted term, in sorted order. */
+	private int[] sortedIds = new int[0];
+	
+	/** The number of sorted terms. */
+	private int sortedCount = 0;
+	
+	/** The terms added since the last merge, by term. */
+	private final HashMap<String, Integer> newTerms = new HashMap<>();
+	
+	/** The number of terms, which is also the id of the next new term. */
+	private int size = 0;
+	
+	/** Holds the term being decoded while scanning a block. */
+	private final char[] scratch = new char[MessageIndex.MAX_TERM_LENGTH];
+	
+	/** The length of the term in {@link #scratch}. */
+	private int scratchLength = 0;
+	
+	/**
+	 * Returns the id of the specified term.
+	 * @param term the term
+	 * @return the id, or -1 if the term was never added
+	 */
+	int get(String term)
+	{
+		Integer id = newTerms.get(term);
+		if(id != null)
+		{
+			return id;
+		}
+		
+		// Scan the only block that can hold the term
+		int block = findBlock(term);
+		if(block < 0)
+		{
+			return -1;
+		}
+		int offset = blockOffsets[block];
+		int end = Math.min((block + 1) * BLOCK_SIZE, sortedCount);
+		for(int rank = block * BLOCK_SIZE; rank < end; rank++)
+		{
+			offset = decode(offset);
+			int comparison = compareScratch(term);
+			if(comparison == 0)
+			{
+				return sortedIds[rank];
+			}
+			if(comparison > 0)
+			{
+				break;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Returns the id of the specified term, adding the term if it is new.
+	 * @param term the term, at most {@link MessageIndex#MAX_TERM_LENGTH} characters long
+	 * @return the id, which new terms are given in the order they are added, from 0
+	 */
+	int getOrAdd(String term)
+	{
+		int id = get(term);
+		if(id >= 0)
+		{
+			return id;
+		}
+		
+		id = size++;
+		newTerms.put(term, id);
+		if(newTerms.size() >= Math.max(MIN_MERGE_SIZE, sortedCount / MERGE_RATIO))
+		{
+			merge();
+		}
+		return id;
+	}
+	
+	/**
+	 * Calls the consumer with the id of every term starting with the specified prefix.
+	 * @param prefix the prefix
+	 * @param consumer the consumer of term ids, in no particular order
+	 */
+	void forEachWithPrefix(String prefix, IntConsumer consumer)
+	{
+		// The sorted terms with the prefix start in the block that the prefix itself would be in, and follow each other
+		int block = Math.max(findBlock(prefix), 0);
+		int offset = block < blockOffsets.length ? blockOffsets[block] : 0;
+		for(int rank = block * BLOCK_SIZE; rank < sortedCount; rank++)
+		{
+			offset = decode(offset);
+			int comparison = compareScratch(prefix);
+			if(startsWithScratch(prefix))
+			{
+				consumer.accept(sortedIds[rank]);
+			}
+			else if(comparison > 0)
+			{
+				break;
+			}
+		}
+		
+		for(Map.Entry<String, Integer> entry : newTerms.entrySet())
+		{
+			if(entry.getKey().startsWith(prefix))
+			{
+				consumer.accept(entry.getValue());
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of terms.
+	 * @return the number of terms
+	 */
+	int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Returns roughly how many bytes the terms take up, counting the new terms at the cost of a string each.
+	 * @return the size of the dictionary, in bytes
+	 */
+	long getMemoryBytes()
+	{
+		long bytes = (long) data.length * Character.BYTES + (long) blockOffsets.length * Integer.BYTES + (long) sortedIds.length * Integer.BYTES;
+		for(String term : newTerms.keySet())
+		{
+			// A string, its array, and a hash map entry with a boxed id
+			bytes += 24 + 16 + term.length() * Character.BYTES + 48;
+		}
+		return bytes;
+	}
+	
+	/**
+	 * Removes every term.
+	 */
+	void clear()
+	{
+		data = new char[0];
+		blockOffsets = new int[0];
+		sortedIds = new int[0];
+		sortedCount = 0;
+		newTerms.clear();
+		size = 0;
+	}
+	
+	/**
+	 * Finds the last block whose first term is not after the specified term, which is the only block that can hold it.
+	 * @param term the term
+	 * @return the block, or -1 if the term is before every sorted term
+	 */
+	private int findBlock(String term)
+	{
+		int low = 0;
+		int high = blockOffsets.length - 1;
+		int found = -1;
+		while(low <= high)
+		{
+			int middle = (low + high) >>> 1;
+			decode(blockOffsets[middle]);
+			if(compareScratch(term) <= 0)
+			{
+				found = middle;
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle - 1;
+			}
+		}
+		return found;
+	}
+	
+	/**
+	 * Decodes the term at the specified offset into {@link #scratch}, on top of the term before it, which must be there already unless it is the first of its block.
+	 * @param offset the offset of the term in {@link #data}
+	 * @return the offset of the next term
+	 */
+	private int decode(int offset)
+	{
+		int shared = data[offset];
+		int rest = data[offset + 1];
+		System.arraycopy(data, offset + 2, scratch, shared, rest);
+		scratchLength = shared + rest;
+		return offset + 2 + rest;
+	}
+	
+	/**
+	 * Compares the term in {@link #scratch} to the specified term, the same way as {@link String#compareTo(String)}.
+	 * @param term the term
+	 * @return a negative number, zero, or a positive number if the decoded term is before, the same as, or after the term
+	 */
+	private int compareScratch(String term)
+	{
+		int length = Math.min(scratchLength, term.length());
+		for(int i = 0; i < length; i++)
+		{
+			int difference = scratch[i] - term.charAt(i);
+			if(difference != 0)
+			{
+				return difference;
+			}
+		}
+		return scratchLength - term.length();
+	}
+	
+	/**
+	 * Returns whether the term in {@link #scratch} starts with the specified prefix.
+	 * @param prefix the prefix
+	 * @return true if it starts with the prefix, false otherwise
+	 */
+	private boolean startsWithScratch(String prefix)
+	{
+		if(scratchLength < prefix.length())
+		{
+			return false;
+		}
+		for(int i = 0; i < prefix.length(); i++)
+		{
+			if(scratch[i] != prefix.charAt(i))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Merges the new terms into the sorted terms, front coding them all again.
+	 */
+	private void merge()
+	{
+		// Sort the new terms, then merge them with the sorted terms, which are already in order
+		List<Map.Entry<String, Integer>> added = new ArrayList<>(newTerms.entrySet());
+		added.sort(Map.Entry.comparingByKey());
+		
+		int count = sortedCount + added.size();
+		char[] mergedData = new char[data.length + data.length / 4 + added.size() * 16];
+		int[] mergedBlockOffsets = new int[(count + BLOCK_SIZE - 1) / BLOCK_SIZE];
+		int[] mergedIds = new int[count];
+		
+		char[] previous = new char[MessageIndex.MAX_TERM_LENGTH];
+		int previousLength = 0;
+		int length = 0;
+		int offset = 0;
+		int sortedRank = 0;
+		int addedRank = 0;
+		for(int rank = 0; rank < count; rank++)
+		{
+			// Take the next sorted term, decoded into the scratch, or the next new term, whichever comes first
+			String addedTerm = addedRank < added.size() ? added.get(addedRank).getKey() : null;
+			boolean isSorted = false;
+			int nextOffset = offset;
+			if(sortedRank < sortedCount)
+			{
+				nextOffset = decode(offset);
+				isSorted = addedTerm == null || compareScratch(addedTerm) < 0;
+			}
+			
+			char[] term;
+			int termLength;
+			int id;
+			if(isSorted)
+			{
+				term = scratch;
+				termLength = scratchLength;
+				id = sortedIds[sortedRank++];
+				offset = nextOffset;
+			}
+			else
+			{
+				term = addedTerm.toCharArray();
+				termLength = term.length;
+				id = added.get(addedRank++).getValue();
+			}
+			
+			// Front code the term against the one before it, unless it starts a block
+			int shared = 0;
+			if(rank % BLOCK_SIZE == 0)
+			{
+				mergedBlockOffsets[rank / BLOCK_SIZE] = length;
+			}
+			else
+			{
+				int limit = Math.min(previousLength, termLength);
+				while(shared < limit && previous[shared] == term[shared])
+				{
+					shared++;
+				}
+			}
+			if(mergedData.length - length < 2 + termLength - shared)
+			{
+				mergedData = Arrays.copyOf(mergedData, mergedData.length * 2 + 2 + termLength);
+			}
+			mergedData[length++] = (char) shared;
+			mergedData[length++] = (char) (termLength - shared);
+			System.arraycopy(term, shared, mergedData, length, termLength - shared);
+			length += termLength - shared;
+			mergedIds[rank] = id;
+			
+			System.arraycopy(term, 0, previous, 0, termLength);
+			previousLength = termLength;
+		}
+		
+		data = Arrays.copyOf(mergedData, length);
+		blockOffsets = mergedBlockOffsets;
+		sortedIds = mergedIds;
+		sortedCount = count;
+		newTerms.clear();
+	}
+}
\ No newline at end of file
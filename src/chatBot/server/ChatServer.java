@@ -0,0 +1,615 @@
+package chatBot.server;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import chatBot.bots.BabyYodaBot;
+import chatBot.bots.ChatBot;
+import chatBot.bots.ChatBots;
+
+/**
+ * The <code>ChatServer</code> class serves chat bots to many users at once over HTTP, without JavaFX.
+ * 
+ * <p>
+ * Each user gets a {@link ChatSession session} with their own chat bot, created from {@link ChatBots#AVAILABLE_CHATBOTS}.
+ * Replies are delivered by long polling: the user sends a message, then asks for replies, and that request is held open
+ * until the chat bot has replied, after the same typing delay as in the JavaFX application.
+ * Every request and every reply runs on its own virtual thread, so waiting users and typing chat bots cost no platform threads.
+ * </p>
+ * 
+ * <p>
+ * The endpoints are:
+ * <ul>
+ * <li><code>GET /bots</code> - lists the available chat bots</li>
+ * <li><code>POST /sessions?bot=ParrotBot</code> - starts a session with a chat bot, the first available one by default</li>
+ * <li><code>POST /sessions/{id}/messages</code> - sends the request body, as UTF-8 text, to the session's chat bot</li>
+ * <li><code>GET /sessions/{id}/replies?wait=25000</code> - waits up to <code>wait</code> milliseconds for replies</li>
+ * <li><code>DELETE /sessions/{id}</code> - ends the session</li>
+ * <li><code>GET /stats</code> - counts the sessions in memory and on disk, and how long loading them back takes</li>
+ * </ul>
+ * Responses are JSON.
+ * </p>
+ * 
+ * <p>
+ * Sessions are kept in a {@link SessionRegistry}. Sessions that stay idle for a while are hibernated to disk, dropping their
+ * chat bots from memory, and are loaded back when the user returns. Sessions that stay hibernated for {@link #DEFAULT_EXPIRE_AFTER_MILLIS}
+ * are ended. When the server is stopped, all sessions are hibernated, so that the next run picks them up.
+ * </p>
+ * 
+ * @see {@link ChatSession}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public class ChatServer implements Closeable
+{
+	/** The port that the server listens on by default. */
+	public static final int DEFAULT_PORT = 8080;
+	
+	/** The maximum number of connections waiting to be accepted. */
+	public static final int CONNECTION_BACKLOG = 4096;
+	
+	/** The time, in milliseconds, that a poll for replies waits by default. */
+	public static final long DEFAULT_POLL_TIMEOUT_MILLIS = 25_000;
+	
+	/** The maximum time, in milliseconds, that a poll for replies can wait. */
+	public static final long MAX_POLL_TIMEOUT_MILLIS = 60_000;
+	
+	/** The directory that sessions are hibernated in by default. */
+	public static final Path DEFAULT_SESSION_DIRECTORY = Path.of(System.getProperty("user.home"), ".parrotai", "sessions");
+	
+	/** The time, in milliseconds, a session stays idle before it is hibernated by default. */
+	public static final long DEFAULT_HIBERNATE_AFTER_MILLIS = TimeUnit.MINUTES.toMillis(5);
+	
+	/** The time, in milliseconds, a session stays hibernated before it is ended. */
+	public static final long DEFAULT_EXPIRE_AFTER_MILLIS = TimeUnit.DAYS.toMillis(7);
+	
+	/** The longest time, in milliseconds, between looking for sessions to hibernate. */
+	public static final long MAX_SWEEP_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+	
+	/** The maximum size, in bytes, of a message. */
+	public static final int MAX_MESSAGE_BYTES = 16 * 1024;
+	
+	/** The maximum number of idle keep-alive connections, since every user keeps one between messages. */
+	public static final int MAX_IDLE_CONNECTIONS = 65_536;
+	
+	static
+	{
+		// Send each response right away, rather than holding back its body until the headers are acknowledged (Nagle's algorithm)
+		setDefaultProperty("sun.net.httpserver.nodelay", "true");
+		
+		// Keep the connections of users between their messages, rather than closing all but 200 of them
+		setDefaultProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(MAX_IDLE_CONNECTIONS));
+	}
+	
+	/** The path that sessions are served under. */
+	private static final String SESSIONS_PATH = "/sessions";
+	
+	/** The underlying HTTP server. */
+	private final HttpServer server;
+	
+	/** Runs every request and every reply on its own virtual thread. */
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	
+	/** Periodically hibernates idle sessions. */
+	private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor();
+	
+	/** All sessions, in memory or hibernated. */
+	private final SessionRegistry sessions;
+	
+	/** The time, in milliseconds, a session stays idle before it is hibernated. */
+	private final long hibernateAfterMillis;
+	
+	/** Whether or not chat bots wait for a typing delay before replying, as in the JavaFX application. */
+	private final boolean isTypingDelayed;
+	
+	/**
+	 * Initialize a chat server listening on the specified address, with a typing delay before each reply,
+	 * hibernating sessions in {@link #DEFAULT_SESSION_DIRECTORY} after {@link #DEFAULT_HIBERNATE_AFTER_MILLIS}.
+	 * The server does not accept requests until {@link #start()} is called.
+	 * @param address the address to listen on; a port of 0 picks a free port
+	 * @throws IOException if the address cannot be bound, or the session directory cannot be used
+	 */
+	public ChatServer(InetSocketAddress address) throws IOException
+	{
+		this(address, DEFAULT_SESSION_DIRECTORY, DEFAULT_HIBERNATE_AFTER_MILLIS, true);
+	}
+	
+	/**
+	 * Initialize a chat server listening on the specified address.
+	 * The server does not accept requests until {@link #start()} is called.
+	 * @param address the address to listen on; a port of 0 picks a free port
+	 * @param sessionDirectory the directory to hibernate sessions in, which may hold sessions hibernated by a previous run
+	 * @param hibernateAfterMillis the time, in milliseconds, a session stays idle before it is hibernated
+	 * @param isTypingDelayed whether or not chat bots wait for a typing delay before replying
+	 * @throws IOException if the address cannot be bound, or the session directory cannot be used
+	 */
+	public ChatServer(InetSocketAddress address, Path sessionDirectory, long hibernateAfterMillis, boolean isTypingDelayed) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(address, "Parameter 'address' cannot be null.");
+		Objects.requireNonNull(sessionDirectory, "Parameter 'sessionDirectory' cannot be null.");
+		
+		this.hibernateAfterMillis = hibernateAfterMillis;
+		this.isTypingDelayed = isTypingDelayed;
+		sessions = new SessionRegistry(sessionDirectory, hibernateAfterMillis, DEFAULT_EXPIRE_AFTER_MILLIS);
+		
+		server = HttpServer.create(address, CONNECTION_BACKLOG);
+		server.setExecutor(executor);
+		server.createContext("/bots", this::handleBots);
+		server.createContext("/stats", this::handleStats);
+		server.createContext(SESSIONS_PATH, this::handleSessions);
+	}
+	
+	/**
+	 * Starts accepting requests.
+	 */
+	public void start()
+	{
+		server.start();
+		
+		// Look for idle sessions often enough to hibernate them soon after they become idle
+		long interval = Math.max(Math.min(hibernateAfterMillis / 2, MAX_SWEEP_INTERVAL_MILLIS), 1);
+		sweeper.scheduleWithFixedDelay(sessions::sweep, interval, interval, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Returns the port that the server listens on.
+	 * @return the port
+	 */
+	public int getPort()
+	{
+		return server.getAddress().getPort();
+	}
+	
+	/**
+	 * Returns a snapshot of the counters of the server's sessions.
+	 * @return the statistics
+	 */
+	public SessionStatistics getStatistics()
+	{
+		return sessions.getStatistics();
+	}
+	
+	/**
+	 * Stops the server. Users waiting for replies are disconnected, all sessions are hibernated, and the translation cache is written to disk.
+	 */
+	@Override
+	public void close()
+	{
+		sweeper.shutdownNow();
+		server.stop(0);
+		
+		// Interrupt the users waiting for replies and the chat bots still typing, so that no chat bot changes while it is saved
+		executor.shutdownNow();
+		try
+		{
+			executor.awaitTermination(1, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		
+		sessions.hibernateAll();
+		BabyYodaBot.closeSharedCache();
+	}
+	
+	/**
+	 * Handles <code>GET /bots</code>, listing the names of the available chat bots.
+	 * @param exchange the HTTP exchange
+	 */
+	private void handleBots(HttpExchange exchange) throws IOException
+	{
+		try(exchange)
+		{
+			if(!exchange.getRequestMethod().equals("GET"))
+			{
+				sendError(exchange, 405, "Use GET to list the chat bots.");
+				return;
+			}
+			
+			StringBuilder json = new StringBuilder("{\"bots\":[");
+			for(int i = 0; i < ChatBots.AVAILABLE_CHATBOTS.size(); i++)
+			{
+				if(i > 0)
+				{
+					json.append(',');
+				}
+				appendQuoted(json, ChatBots.AVAILABLE_CHATBOTS.get(i).getSimpleName());
+			}
+			json.append("]}");
+			sendJson(exchange, 200, json.toString());
+		}
+	}
+	
+	/**
+	 * Handles <code>GET /stats</code>, counting the sessions in memory and on disk.
+	 * @param exchange the HTTP exchange
+	 */
+	private void handleStats(HttpExchange exchange) throws IOException
+	{
+		try(exchange)
+		{
+			if(!exchange.getRequestMethod().equals("GET"))
+			{
+				sendError(exchange, 405, "Use GET to count the sessions.");
+				return;
+			}
+			
+			SessionStatistics statistics = sessions.getStatistics();
+			sendJson(exchange, 200, String.format(Locale.ROOT,
+					"{\"resident\":%d,\"hibernated\":%d,\"hibernations\":%d,\"rehydrations\":%d,\"expirations\":%d,\"averageRehydrationMillis\":%.3f,\"maxRehydrationMillis\":%.3f}",
+					statistics.getResidentCount(), statistics.getHibernatedCount(), statistics.getHibernationCount(), statistics.getRehydrationCount(),
+					statistics.getExpirationCount(), statistics.getAverageRehydrationMillis(), statistics.getMaxRehydrationMillis()));
+		}
+	}
+	
+	/**
+	 * Handles all requests under <code>/sessions</code>, by dispatching on their path and method.
+	 * @param exchange the HTTP exchange
+	 */
+	private void handleSessions(HttpExchange exchange) throws IOException
+	{
+		try(exchange)
+		{
+			// The path is either '/sessions', '/sessions/{id}' or '/sessions/{id}/{resource}'
+			String path = exchange.getRequestURI().getPath();
+			String[] parts = path.substring(SESSIONS_PATH.length()).split("/");
+			String method = exchange.getRequestMethod();
+			
+			if(parts.length == 0 || (parts.length == 1 && parts[0].isEmpty()))
+			{
+				if(method.equals("POST"))
+				{
+					createSession(exchange);
+				}
+				else
+				{
+					sendError(exchange, 405, "Use POST to start a session.");
+				}
+				return;
+			}
+			
+			// Everything else starts with a slash and the session's identifier
+			if(!parts[0].isEmpty() || parts.length > 3)
+			{
+				sendError(exchange, 404, "Unknown path '" + path + "'.");
+				return;
+			}
+			String id = parts[1];
+			String resource = parts.length == 3 ? parts[2] : "";
+			
+			// Ending a session does not need it in memory
+			if(resource.isEmpty() && method.equals("DELETE"))
+			{
+				endSession(exchange, id);
+				return;
+			}
+			
+			// Everything else does, so load it back if it was hibernated
+			ChatSession session;
+			try
+			{
+				session = sessions.get(id);
+			}
+			catch (IOException e)
+			{
+				sendError(exchange, 500, "Failed to load session '" + id + "'. Reason: " + e.getMessage());
+				return;
+			}
+			if(session == null)
+			{
+				sendError(exchange, 404, "Unknown session '" + id + "'.");
+				return;
+			}
+			
+			switch(resource)
+			{
+				case "":
+					sendError(exchange, 405, "Use DELETE to end a session.");
+					break;
+				case "messages":
+					if(method.equals("POST"))
+					{
+						sendMessage(exchange, session);
+					}
+					else
+					{
+						sendError(exchange, 405, "Use POST to send a message.");
+					}
+					break;
+				case "replies":
+					if(method.equals("GET"))
+					{
+						pollReplies(exchange, session);
+					}
+					else
+					{
+						sendError(exchange, 405, "Use GET to poll for replies.");
+					}
+					break;
+				default:
+					sendError(exchange, 404, "Unknown path '" + path + "'.");
+					break;
+			}
+		}
+	}
+	
+	/**
+	 * Starts a session with the chat bot named by the <code>bot</code> query parameter, or with the first available chat bot.
+	 * @param exchange the HTTP exchange
+	 */
+	private void createSession(HttpExchange exchange) throws IOException
+	{
+		// Find the chat bot
+		String name = getQueryParameter(exchange, "bot");
+		Class<? extends ChatBot> clazz = name == null ? ChatBots.AVAILABLE_CHATBOTS.get(0) : ChatBots.find(name);
+		if(clazz == null)
+		{
+			sendError(exchange, 404, "Unknown chat bot '" + name + "'.");
+			return;
+		}
+		
+		// Create it for this session only
+		ChatBot chatBot;
+		try
+		{
+			chatBot = ChatBots.create(clazz);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			sendError(exchange, 500, "Failed to create " + clazz.getSimpleName() + ". Reason: " + e.getMessage());
+			return;
+		}
+		
+		ChatSession session = sessions.create(chatBot);
+		
+		StringBuilder json = new StringBuilder("{\"session\":");
+		appendQuoted(json, session.getId());
+		json.append(",\"name\":");
+		appendQuoted(json, chatBot.getName());
+		json.append('}');
+		sendJson(exchange, 201, json.toString());
+	}
+	
+	/**
+	 * Sends the request body to the session's chat bot. Responds immediately; the reply is polled for separately.
+	 * @param exchange the HTTP exchange
+	 * @param session the session
+	 */
+	private void sendMessage(HttpExchange exchange, ChatSession session) throws IOException
+	{
+		// Read the message, refusing overly long ones
+		byte[] body;
+		try(InputStream in = exchange.getRequestBody())
+		{
+			body = in.readNBytes(MAX_MESSAGE_BYTES + 1);
+		}
+		if(body.length > MAX_MESSAGE_BYTES)
+		{
+			sendError(exchange, 413, "Messages cannot be longer than " + MAX_MESSAGE_BYTES + " bytes.");
+			return;
+		}
+		String message = new String(body, StandardCharsets.UTF_8);
+		
+		long delay = isTypingDelayed ? ChatBots.nextReplyDelay(ThreadLocalRandom.current()) : 0;
+		while(!session.send(message, delay, executor))
+		{
+			if(!session.isClosed())
+			{
+				sendError(exchange, 429, "Too many messages are waiting for a reply.");
+				return;
+			}
+			
+			// The session was hibernated or ended since it was found, so find it again
+			String id = session.getId();
+			try
+			{
+				session = sessions.get(id);
+			}
+			catch (IOException e)
+			{
+				sendError(exchange, 500, "Failed to load session '" + id + "'. Reason: " + e.getMessage());
+				return;
+			}
+			if(session == null)
+			{
+				sendError(exchange, 404, "The session has ended.");
+				return;
+			}
+		}
+		sendJson(exchange, 202, "{}");
+	}
+	
+	/**
+	 * Holds the request open until the session's chat bot has replied, or until the <code>wait</code> query parameter's time has passed.
+	 * @param exchange the HTTP exchange
+	 * @param session the session
+	 */
+	private void pollReplies(HttpExchange exchange, ChatSession session) throws IOException
+	{
+		// Find out how long the user is willing to wait
+		long timeout = DEFAULT_POLL_TIMEOUT_MILLIS;
+		String wait = getQueryParameter(exchange, "wait");
+		if(wait != null)
+		{
+			try
+			{
+				timeout = Math.min(Math.max(Long.parseLong(wait), 0), MAX_POLL_TIMEOUT_MILLIS);
+			}
+			catch (NumberFormatException e)
+			{
+				sendError(exchange, 400, "The 'wait' parameter must be a number of milliseconds.");
+				return;
+			}
+		}
+		
+		List<String> replies;
+		try
+		{
+			replies = session.awaitReplies(timeout);
+		}
+		catch (InterruptedException e)
+		{
+			// The server is shutting down
+			Thread.currentThread().interrupt();
+			replies = List.of();
+		}
+		
+		StringBuilder json = new StringBuilder("{\"replies\":[");
+		for(int i = 0; i < replies.size(); i++)
+		{
+			if(i > 0)
+			{
+				json.append(',');
+			}
+			appendQuoted(json, replies.get(i));
+		}
+		json.append("]}");
+		sendJson(exchange, 200, json.toString());
+	}
+	
+	/**
+	 * Ends the session, whether it is in memory or hibernated.
+	 * @param exchange the HTTP exchange
+	 * @param id the session's identifier
+	 */
+	private void endSession(HttpExchange exchange, String id) throws IOException
+	{
+		if(!sessions.remove(id))
+		{
+			sendError(exchange, 404, "Unknown session '" + id + "'.");
+			return;
+		}
+		exchange.sendResponseHeaders(204, -1);
+	}
+	
+	/**
+	 * Sets a system property of the JDK's HTTP server, unless it was already set, such as on the command line.
+	 * The HTTP server reads them once, when the first server is created.
+	 * @param key the name of the property
+	 * @param value the value of the property
+	 */
+	private static void setDefaultProperty(String key, String value)
+	{
+		if(System.getProperty(key) == null)
+		{
+			System.setProperty(key, value);
+		}
+	}
+	
+	/**
+	 * Returns the value of the specified query parameter of the request, or <code>null</code> if it is absent.
+	 * @param exchange the HTTP exchange
+	 * @param name the name of the query parameter
+	 * @return the decoded value of the query parameter
+	 */
+	private static String getQueryParameter(HttpExchange exchange, String name)
+	{
+		String query = exchange.getRequestURI().getRawQuery();
+		if(query == null)
+		{
+			return null;
+		}
+		
+		for(String pair : query.split("&"))
+		{
+			int equals = pair.indexOf('=');
+			String key = equals < 0 ? pair : pair.substring(0, equals);
+			if(URLDecoder.decode(key, StandardCharsets.UTF_8).equals(name))
+			{
+				return equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Responds with an error, as a JSON object with an <code>error</code> message.
+	 * @param exchange the HTTP exchange
+	 * @param status the HTTP status code
+	 * @param message the error message
+	 */
+	private static void sendError(HttpExchange exchange, int status, String message) throws IOException
+	{
+		StringBuilder json = new StringBuilder("{\"error\":");
+		appendQuoted(json, message);
+		json.append('}');
+		sendJson(exchange, status, json.toString());
+	}
+	
+	/**
+	 * Responds with a JSON body.
+	 * @param exchange the HTTP exchange
+	 * @param status the HTTP status code
+	 * @param json the JSON body
+	 */
+	private static void sendJson(HttpExchange exchange, int status, String json) throws IOException
+	{
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+		try(OutputStream out = exchange.getResponseBody())
+		{
+			out.write(body);
+		}
+	}
+	
+	/**
+	 * Appends the specified text as a quoted JSON string, escaping it as needed.
+	 * @param json the JSON being built
+	 * @param text the text to append
+	 */
+	private static void appendQuoted(StringBuilder json, String text)
+	{
+		json.append('"');
+		for(int i = 0; i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+			switch(c)
+			{
+				case '"':
+					json.append("\\\"");
+					break;
+				case '\\':
+					json.append("\\\\");
+					break;
+				case '\n':
+					json.append("\\n");
+					break;
+				case '\r':
+					json.append("\\r");
+					break;
+				case '\t':
+					json.append("\\t");
+					break;
+				default:
+					if(c < 0x20)
+					{
+						json.append(String.format("\\u%04x", (int) c));
+					}
+					else
+					{
+						json.append(c);
+					}
+					break;
+			}
+		}
+		json.append('"');
+	}
+}
\ No newline at end of file
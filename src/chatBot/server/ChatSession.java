@@ -0,0 +1,296 @@
+package chatBot.server;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import chatBot.bots.ChatBot;
+import chatBot.metrics.ChatBotMetrics;
+import chatBot.metrics.MetricsRegistry;
+
+/**
+ * The <code>ChatSession</code> class is one user's conversation with their own chat bot on the {@link ChatServer}.
+ * 
+ * <p>
+ * Messages are answered one at a time, in the order they were sent, since chat bots are not thread-safe.
+ * Like in the JavaFX application, each reply waits for a typing delay that starts when the message is sent,
+ * so a reply to a quick second message is not delayed by the first one's delay twice.
+ * Replies wait in the session until the user polls for them with {@link #awaitReplies(long)}.
+ * </p>
+ * 
+ * <p>
+ * The session only blocks on a {@link ReentrantLock}, never on a monitor, so the virtual threads that wait on it
+ * do not pin their carrier threads.
+ * </p>
+ * 
+ * @see {@link ChatServer}
+ * @author Mohammad Alali (Sanavesa)
+ */
+final class ChatSession
+{
+	/** The maximum number of messages that can wait to be answered before new messages are refused. */
+	public static final int MAX_PENDING_MESSAGES = 32;
+	
+	/** The unique identifier of the session, given to the user. */
+	private final String id;
+	
+	/** The chat bot that the user is talking to. */
+	private final ChatBot chatBot;
+	
+	/** The metrics of the chat bot's kind, shared by every session talking to the same kind of chat bot. */
+	private final ChatBotMetrics metrics;
+	
+	/** Guards the replies, the reply chain and the counters below. */
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	/** Signaled whenever a reply is added or the session is closed. */
+	private final Condition isReplyAvailable = lock.newCondition();
+	
+	/** The replies that the user has not polled yet. */
+	private final ArrayDeque<String> replies = new ArrayDeque<>();
+	
+	/** The reply to the last message sent, which the next message's reply is chained after. */
+	private CompletableFuture<Void> lastReply = CompletableFuture.completedFuture(null);
+	
+	/** The number of messages that have not been answered yet. */
+	private int pendingMessages;
+	
+	/** Whether or not the session has been closed. */
+	private boolean isClosed;
+	
+	/** The time, from {@link System#nanoTime()}, the user last sent a message or polled for replies. */
+	private volatile long lastActiveNanos = System.nanoTime();
+	
+	/**
+	 * Initialize a session for a user talking to the specified chat bot.
+	 * @param id the unique identifier of the session
+	 * @param chatBot the chat bot that the user is talking to
+	 */
+	ChatSession(String id, ChatBot chatBot)
+	{
+		// Validity checks
+		Objects.requireNonNull(id, "Parameter 'id' cannot be null.");
+		Objects.requireNonNull(chatBot, "Parameter 'chatBot' cannot be null.");
+		
+		this.id = id;
+		this.chatBot = chatBot;
+		this.metrics = MetricsRegistry.get(chatBot);
+	}
+	
+	/**
+	 * Sends a message to the chat bot. The reply is computed on the <code>executor</code> once the typing delay has passed.
+	 * @param message the message that the user sent
+	 * @param delayMillis the typing delay, in milliseconds, to wait before replying
+	 * @param executor the executor used to compute the reply
+	 * @return true if the message was accepted, false if the session is closed or has too many unanswered messages
+	 */
+	boolean send(String message, long delayMillis, Executor executor)
+	{
+		// Validity checks
+		Objects.requireNonNull(message, "Parameter 'message' cannot be null.");
+		Objects.requireNonNull(executor, "Parameter 'executor' cannot be null.");
+		
+		// The typing delay starts now, rather than after the previous reply
+		long dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+		touch();
+		
+		lock.lock();
+		try
+		{
+			if(isClosed || pendingMessages >= MAX_PENDING_MESSAGES)
+			{
+				return false;
+			}
+			pendingMessages++;
+			
+			// Answer after the previous message, so that replies keep the order of the messages
+			lastReply = lastReply.thenRunAsync(() -> reply(message, dueNanos), executor);
+			return true;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Computes the chat bot's reply to a message once its typing delay has passed, and makes it available to the user.
+	 * @param message the message that the user sent
+	 * @param dueNanos the time, from {@link System#nanoTime()}, to reply at
+	 */
+	private void reply(String message, long dueNanos)
+	{
+		String reply = null;
+		try
+		{
+			// Wait for the rest of the typing delay
+			long remainingNanos = dueNanos - System.nanoTime();
+			if(remainingNanos > 0)
+			{
+				TimeUnit.NANOSECONDS.sleep(remainingNanos);
+			}
+			
+			// The typing delay is not part of the reply's latency
+			long startNanos = System.nanoTime();
+			reply = chatBot.getReply(message);
+			metrics.recordReply(System.nanoTime() - startNanos);
+		}
+		catch (InterruptedException e)
+		{
+			// The server is shutting down
+			Thread.currentThread().interrupt();
+		}
+		catch (RuntimeException e)
+		{
+			// A failing chat bot should not end the conversation, so only this message goes unanswered
+			metrics.recordError();
+			System.err.println("Failed to reply in session " + id + ". Reason: " + e.getMessage());
+		}
+		
+		lock.lock();
+		try
+		{
+			pendingMessages--;
+			if(reply != null && !isClosed)
+			{
+				replies.add(reply);
+				isReplyAvailable.signalAll();
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Waits until at least one reply is available, then takes all available replies.
+	 * @param timeoutMillis the maximum time, in milliseconds, to wait for a reply
+	 * @return the replies in the order they were made, or an empty list if none was made in time
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	List<String> awaitReplies(long timeoutMillis) throws InterruptedException
+	{
+		touch();
+		
+		lock.lock();
+		try
+		{
+			// Wait for a reply, unless the session gets closed meanwhile
+			long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+			while(replies.isEmpty() && !isClosed && remainingNanos > 0)
+			{
+				remainingNanos = isReplyAvailable.awaitNanos(remainingNanos);
+			}
+			
+			// Take all of them at once
+			List<String> taken = new ArrayList<>(replies);
+			replies.clear();
+			return taken;
+		}
+		finally
+		{
+			lock.unlock();
+			touch();
+		}
+	}
+	
+	/**
+	 * Closes the session. Unanswered messages are dropped and users waiting for replies are woken up.
+	 */
+	void close()
+	{
+		lock.lock();
+		try
+		{
+			isClosed = true;
+			replies.clear();
+			isReplyAvailable.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Closes the session, but only once every message has been answered, so that its chat bot is no longer in use
+	 * and can be saved safely. Like {@link #close()}, replies that were never polled are dropped.
+	 * @return true if the session was closed, false if a reply is still being made or it was already closed
+	 */
+	boolean closeIfAnswered()
+	{
+		lock.lock();
+		try
+		{
+			if(isClosed || pendingMessages > 0)
+			{
+				return false;
+			}
+			isClosed = true;
+			replies.clear();
+			isReplyAvailable.signalAll();
+			return true;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns whether or not the session has been closed.
+	 * @return true if closed, false otherwise
+	 */
+	boolean isClosed()
+	{
+		lock.lock();
+		try
+		{
+			return isClosed;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns how long the session has been idle, that is since the user last sent a message or polled for replies.
+	 * @param nowNanos the current time, from {@link System#nanoTime()}
+	 * @return the idle time in milliseconds
+	 */
+	long getIdleMillis(long nowNanos)
+	{
+		return TimeUnit.NANOSECONDS.toMillis(nowNanos - lastActiveNanos);
+	}
+	
+	/** Marks the session as active now. */
+	private void touch()
+	{
+		lastActiveNanos = System.nanoTime();
+	}
+	
+	/**
+	 * Returns the unique identifier of the session.
+	 * @return the session's identifier
+	 */
+	String getId()
+	{
+		return id;
+	}
+	
+	/**
+	 * Returns the chat bot that the user is talking to.
+	 * @return the session's chat bot
+	 */
+	ChatBot getChatBot()
+	{
+		return chatBot;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,515 @@
+package chatBot.server;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import chatBot.bots.ChatBot;
+import chatBot.persistence.ChatBotSnapshot;
+
+/**
+ * The <code>SessionRegistry</code> class keeps track of the {@link ChatServer}'s sessions, and keeps only the active ones in memory.
+ * 
+ * <p>
+ * Sessions are spread over {@link #SHARD_COUNT} shards by their identifier, each with its own lock,
+ * so that users starting, finding and ending sessions rarely wait on one another.
+ * Each session also has a lock of its own, which is held while it is saved or loaded, so that disk access never holds up a shard.
+ * </p>
+ * 
+ * <p>
+ * A session that stays idle for long enough is <i>hibernated</i>: its chat bot is saved as a {@link ChatBotSnapshot} in the
+ * registry's directory and dropped from memory. The next time the user sends a message or polls for replies, it is
+ * <i>rehydrated</i>: the chat bot is loaded back, as it was. This way memory grows with the number of active sessions,
+ * rather than with the number of sessions ever started. Hibernated sessions that stay idle for even longer are ended.
+ * Sessions saved in the directory by a previous run are picked up as hibernated sessions.
+ * </p>
+ * 
+ * @see {@link ChatServer}
+ * @see {@link ChatSession}
+ * @author Mohammad Alali (Sanavesa)
+ */
+final class SessionRegistry
+{
+	/** The number of shards, a power of two. */
+	public static final int SHARD_COUNT = 64;
+	
+	/** The file extension of hibernated sessions. */
+	public static final String FILE_EXTENSION = ".chatbot";
+	
+	/** The shards, each holding the sessions whose identifiers hash to it. */
+	private final Shard[] shards = new Shard[SHARD_COUNT];
+	
+	/** The directory that hibernated sessions are saved in. */
+	private final Path directory;
+	
+	/** The time, in milliseconds, a session stays idle before it is hibernated. */
+	private final long hibernateAfterMillis;
+	
+	/** The time, in milliseconds, a session stays hibernated before it is ended. */
+	private final long expireAfterMillis;
+	
+	/** The number of sessions whose chat bots are in memory. */
+	private final AtomicInteger residentCount = new AtomicInteger();
+	
+	/** The number of sessions whose chat bots are saved to disk. */
+	private final AtomicInteger hibernatedCount = new AtomicInteger();
+	
+	/** The number of times an idle session was hibernated. */
+	private final AtomicLong hibernationCount = new AtomicLong();
+	
+	/** The number of times a hibernated session was loaded back into memory. */
+	private final AtomicLong rehydrationCount = new AtomicLong();
+	
+	/** The number of hibernated sessions that were ended for staying idle too long. */
+	private final AtomicLong expirationCount = new AtomicLong();
+	
+	/** The total time, in nanoseconds, spent loading hibernated sessions back into memory. */
+	private final AtomicLong totalRehydrationNanos = new AtomicLong();
+	
+	/** The longest time, in nanoseconds, spent loading a hibernated session back into memory. */
+	private final AtomicLong maxRehydrationNanos = new AtomicLong();
+	
+	/**
+	 * Initialize a registry that hibernates idle sessions into the specified directory, creating it if needed.
+	 * @param directory the directory to save hibernated sessions in
+	 * @param hibernateAfterMillis the time, in milliseconds, a session stays idle before it is hibernated
+	 * @param expireAfterMillis the time, in milliseconds, a session stays hibernated before it is ended
+	 * @throws IOException if the directory cannot be created or read
+	 */
+	SessionRegistry(Path directory, long hibernateAfterMillis, long expireAfterMillis) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(directory, "Parameter 'directory' cannot be null.");
+		if(hibernateAfterMillis < 1 || expireAfterMillis < 1)
+		{
+			throw new IllegalArgumentException("Parameters 'hibernateAfterMillis' and 'expireAfterMillis' must be at least 1.");
+		}
+		
+		this.directory = directory;
+		this.hibernateAfterMillis = hibernateAfterMillis;
+		this.expireAfterMillis = expireAfterMillis;
+		
+		for(int i = 0; i < SHARD_COUNT; i++)
+		{
+			shards[i] = new Shard();
+		}
+		
+		// Pick up the sessions that a previous run hibernated
+		Files.createDirectories(directory);
+		long now = System.nanoTime();
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION))
+		{
+			for(Path file : files)
+			{
+				String name = file.getFileName().toString();
+				String id = name.substring(0, name.length() - FILE_EXTENSION.length());
+				Slot slot = new Slot();
+				slot.hibernatedAtNanos = now;
+				shardFor(id).put(id, slot);
+				hibernatedCount.incrementAndGet();
+			}
+		}
+	}
+	
+	/**
+	 * Starts a new session with the specified chat bot.
+	 * @param chatBot the chat bot that the user talks to
+	 * @return the new session
+	 */
+	ChatSession create(ChatBot chatBot)
+	{
+		ChatSession session = new ChatSession(UUID.randomUUID().toString(), chatBot);
+		
+		Slot slot = new Slot();
+		slot.session = session;
+		shardFor(session.getId()).put(session.getId(), slot);
+		residentCount.incrementAndGet();
+		return session;
+	}
+	
+	/**
+	 * Finds the session with the specified identifier, rehydrating it first if it was hibernated.
+	 * @param id the session's identifier
+	 * @return the session, or <code>null</code> if there is no such session
+	 * @throws IOException if the session was hibernated and could not be loaded
+	 */
+	ChatSession get(String id) throws IOException
+	{
+		// Validity checks
+		Objects.requireNonNull(id, "Parameter 'id' cannot be null.");
+		
+		Slot slot = shardFor(id).get(id);
+		if(slot == null)
+		{
+			return null;
+		}
+		
+		slot.lock.lock();
+		try
+		{
+			if(slot.isRemoved)
+			{
+				return null;
+			}
+			if(slot.session == null)
+			{
+				rehydrate(id, slot);
+			}
+			return slot.session;
+		}
+		finally
+		{
+			slot.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Ends the session with the specified identifier, whether it is in memory or hibernated.
+	 * @param id the session's identifier
+	 * @return true if the session was ended, false if there is no such session
+	 */
+	boolean remove(String id)
+	{
+		// Validity checks
+		Objects.requireNonNull(id, "Parameter 'id' cannot be null.");
+		
+		Slot slot = shardFor(id).remove(id);
+		if(slot == null)
+		{
+			return false;
+		}
+		
+		slot.lock.lock();
+		try
+		{
+			// The session may have just expired
+			if(!slot.isRemoved)
+			{
+				end(id, slot);
+			}
+			return true;
+		}
+		finally
+		{
+			slot.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Hibernates sessions that have been idle for long enough, and ends hibernated sessions that have been idle for too long.
+	 * Sessions that are being used at the moment are left alone until the next sweep.
+	 */
+	void sweep()
+	{
+		long now = System.nanoTime();
+		for(Shard shard : shards)
+		{
+			for(Map.Entry<String, Slot> entry : shard.entries())
+			{
+				String id = entry.getKey();
+				Slot slot = entry.getValue();
+				if(!slot.lock.tryLock())
+				{
+					continue;
+				}
+				try
+				{
+					if(slot.isRemoved)
+					{
+						continue;
+					}
+					
+					if(slot.session != null && slot.session.getIdleMillis(now) >= hibernateAfterMillis)
+					{
+						hibernate(id, slot);
+					}
+					else if(slot.session == null && TimeUnit.NANOSECONDS.toMillis(now - slot.hibernatedAtNanos) >= expireAfterMillis)
+					{
+						// Unless the user is ending it at the same time
+						if(shard.remove(id) == slot)
+						{
+							end(id, slot);
+							expirationCount.incrementAndGet();
+						}
+					}
+				}
+				finally
+				{
+					slot.lock.unlock();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Hibernates every session in memory, whether idle or not, so that the next run can pick them up.
+	 * Messages that have not been answered yet are dropped.
+	 */
+	void hibernateAll()
+	{
+		for(Shard shard : shards)
+		{
+			for(Map.Entry<String, Slot> entry : shard.entries())
+			{
+				Slot slot = entry.getValue();
+				slot.lock.lock();
+				try
+				{
+					if(!slot.isRemoved && slot.session != null)
+					{
+						slot.session.close();
+						save(entry.getKey(), slot);
+					}
+				}
+				finally
+				{
+					slot.lock.unlock();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns a snapshot of the registry's counters.
+	 * @return the statistics
+	 */
+	SessionStatistics getStatistics()
+	{
+		return new SessionStatistics(residentCount.get(), hibernatedCount.get(), hibernationCount.get(), rehydrationCount.get(),
+				expirationCount.get(), totalRehydrationNanos.get(), maxRehydrationNanos.get());
+	}
+	
+	/**
+	 * Saves an idle session's chat bot to disk and drops it from memory, unless it is still replying.
+	 * Replies that the user never polled are dropped.
+	 * Must be called while holding the slot's lock.
+	 * @param id the session's identifier
+	 * @param slot the session's slot
+	 */
+	private void hibernate(String id, Slot slot)
+	{
+		// Stop the session first, so that its chat bot does not change while being saved
+		if(!slot.session.closeIfAnswered())
+		{
+			return;
+		}
+		save(id, slot);
+	}
+	
+	/**
+	 * Saves a closed session's chat bot to disk and drops it from memory.
+	 * If it cannot be saved, the session is reopened and stays in memory. Must be called while holding the slot's lock.
+	 * @param id the session's identifier
+	 * @param slot the session's slot
+	 */
+	private void save(String id, Slot slot)
+	{
+		ChatBot chatBot = slot.session.getChatBot();
+		try
+		{
+			ChatBotSnapshot.write(chatBot, fileFor(id));
+		}
+		catch (IOException e)
+		{
+			System.err.println("Failed to hibernate session " + id + ", keeping it in memory. Reason: " + e.getMessage());
+			slot.session = new ChatSession(id, chatBot);
+			return;
+		}
+		
+		slot.session = null;
+		slot.hibernatedAtNanos = System.nanoTime();
+		residentCount.decrementAndGet();
+		hibernatedCount.incrementAndGet();
+		hibernationCount.incrementAndGet();
+	}
+	
+	/**
+	 * Loads a hibernated session's chat bot back into memory. Must be called while holding the slot's lock.
+	 * @param id the session's identifier
+	 * @param slot the session's slot
+	 * @throws IOException if the chat bot could not be loaded
+	 */
+	private void rehydrate(String id, Slot slot) throws IOException
+	{
+		long startTime = System.nanoTime();
+		
+		Path file = fileFor(id);
+		ChatBot chatBot = ChatBotSnapshot.read(file);
+		slot.session = new ChatSession(id, chatBot);
+		
+		// The file is rewritten when the session hibernates again, so that only hibernated sessions take up disk space
+		Files.deleteIfExists(file);
+		
+		long elapsed = System.nanoTime() - startTime;
+		hibernatedCount.decrementAndGet();
+		residentCount.incrementAndGet();
+		rehydrationCount.incrementAndGet();
+		totalRehydrationNanos.addAndGet(elapsed);
+		maxRehydrationNanos.accumulateAndGet(elapsed, Math::max);
+	}
+	
+	/**
+	 * Ends a session that has been removed from its shard. Must be called while holding the slot's lock.
+	 * @param id the session's identifier
+	 * @param slot the session's slot
+	 */
+	private void end(String id, Slot slot)
+	{
+		slot.isRemoved = true;
+		if(slot.session != null)
+		{
+			slot.session.close();
+			residentCount.decrementAndGet();
+			return;
+		}
+		
+		hibernatedCount.decrementAndGet();
+		try
+		{
+			Files.deleteIfExists(fileFor(id));
+		}
+		catch (IOException e)
+		{
+			System.err.println("Failed to delete hibernated session " + id + ". Reason: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Returns the file that the specified session is hibernated in.
+	 * @param id the session's identifier
+	 * @return the session's file
+	 */
+	private Path fileFor(String id)
+	{
+		return directory.resolve(id + FILE_EXTENSION);
+	}
+	
+	/**
+	 * Returns the shard that the specified session belongs to.
+	 * @param id the session's identifier
+	 * @return the session's shard
+	 */
+	private Shard shardFor(String id)
+	{
+		// Spread the hash's high bits into the low bits that pick the shard
+		int hash = id.hashCode();
+		return shards[(hash ^ (hash >>> 16)) & (SHARD_COUNT - 1)];
+	}
+	
+	/**
+	 * The <code>Slot</code> class holds a session while it is in memory, and remembers it while it is hibernated.
+	 * All of its fields are guarded by its lock.
+	 */
+	private static final class Slot
+	{
+		/** Held while the session is hibernated, rehydrated or ended. */
+		private final ReentrantLock lock = new ReentrantLock();
+		
+		/** The session, or <code>null</code> while it is hibernated. */
+		private ChatSession session;
+		
+		/** The time, from {@link System#nanoTime()}, the session was hibernated. */
+		private long hibernatedAtNanos;
+		
+		/** Whether or not the session has been ended. */
+		private boolean isRemoved;
+	}
+	
+	/**
+	 * The <code>Shard</code> class is one lock-guarded part of the registry's sessions.
+	 */
+	private static final class Shard
+	{
+		/** Guards the slots. */
+		private final ReentrantLock lock = new ReentrantLock();
+		
+		/** The slots of the sessions in this shard, by their identifier. */
+		private final Map<String, Slot> slots = new HashMap<>();
+		
+		/**
+		 * Returns the slot of the specified session.
+		 * @param id the session's identifier
+		 * @return the slot, or <code>null</code> if there is no such session
+		 */
+		Slot get(String id)
+		{
+			lock.lock();
+			try
+			{
+				return slots.get(id);
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+		
+		/**
+		 * Adds the slot of the specified session.
+		 * @param id the session's identifier
+		 * @param slot the slot
+		 */
+		void put(String id, Slot slot)
+		{
+			lock.lock();
+			try
+			{
+				slots.put(id, slot);
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+		
+		/**
+		 * Removes the slot of the specified session.
+		 * @param id the session's identifier
+		 * @return the removed slot, or <code>null</code> if there is no such session
+		 */
+		Slot remove(String id)
+		{
+			lock.lock();
+			try
+			{
+				return slots.remove(id);
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+		
+		/**
+		 * Returns a copy of the shard's slots, so that they can be visited without holding up the shard.
+		 * @return the slots by their identifier
+		 */
+		List<Map.Entry<String, Slot>> entries()
+		{
+			lock.lock();
+			try
+			{
+				List<Map.Entry<String, Slot>> entries = new ArrayList<>(slots.size());
+				for(Map.Entry<String, Slot> entry : slots.entrySet())
+				{
+					entries.add(Map.entry(entry.getKey(), entry.getValue()));
+				}
+				return entries;
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+	}
+}
\ No newline at end of file
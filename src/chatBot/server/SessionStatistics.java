@@ -0,0 +1,124 @@
+package chatBot.server;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The <code>SessionStatistics</code> class is an immutable snapshot of the counters of a {@link ChatServer}'s sessions.
+ * 
+ * @see {@link ChatServer}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class SessionStatistics
+{
+	/** The number of sessions whose chat bots are in memory. */
+	private final int residentCount;
+	
+	/** The number of sessions whose chat bots have been saved to disk and evicted from memory. */
+	private final int hibernatedCount;
+	
+	/** The number of times an idle session was hibernated. */
+	private final long hibernationCount;
+	
+	/** The number of times a hibernated session was loaded back into memory. */
+	private final long rehydrationCount;
+	
+	/** The number of hibernated sessions that were ended for staying idle too long. */
+	private final long expirationCount;
+	
+	/** The total time, in nanoseconds, spent loading hibernated sessions back into memory. */
+	private final long totalRehydrationNanos;
+	
+	/** The longest time, in nanoseconds, spent loading a hibernated session back into memory. */
+	private final long maxRehydrationNanos;
+	
+	/**
+	 * Constructs a new snapshot of session counters.
+	 * @param residentCount the number of sessions whose chat bots are in memory
+	 * @param hibernatedCount the number of sessions whose chat bots have been saved to disk
+	 * @param hibernationCount the number of times an idle session was hibernated
+	 * @param rehydrationCount the number of times a hibernated session was loaded back into memory
+	 * @param expirationCount the number of hibernated sessions that were ended
+	 * @param totalRehydrationNanos the total time, in nanoseconds, spent loading hibernated sessions
+	 * @param maxRehydrationNanos the longest time, in nanoseconds, spent loading a hibernated session
+	 */
+	public SessionStatistics(int residentCount, int hibernatedCount, long hibernationCount, long rehydrationCount, long expirationCount, long totalRehydrationNanos, long maxRehydrationNanos)
+	{
+		this.residentCount = residentCount;
+		this.hibernatedCount = hibernatedCount;
+		this.hibernationCount = hibernationCount;
+		this.rehydrationCount = rehydrationCount;
+		this.expirationCount = expirationCount;
+		this.totalRehydrationNanos = totalRehydrationNanos;
+		this.maxRehydrationNanos = maxRehydrationNanos;
+	}
+	
+	/**
+	 * Returns the number of sessions whose chat bots are in memory.
+	 * @return the number of resident sessions
+	 */
+	public int getResidentCount()
+	{
+		return residentCount;
+	}
+	
+	/**
+	 * Returns the number of sessions whose chat bots have been saved to disk and evicted from memory.
+	 * @return the number of hibernated sessions
+	 */
+	public int getHibernatedCount()
+	{
+		return hibernatedCount;
+	}
+	
+	/**
+	 * Returns the number of times an idle session was hibernated.
+	 * @return the number of hibernations
+	 */
+	public long getHibernationCount()
+	{
+		return hibernationCount;
+	}
+	
+	/**
+	 * Returns the number of times a hibernated session was loaded back into memory.
+	 * @return the number of rehydrations
+	 */
+	public long getRehydrationCount()
+	{
+		return rehydrationCount;
+	}
+	
+	/**
+	 * Returns the number of hibernated sessions that were ended for staying idle too long.
+	 * @return the number of expirations
+	 */
+	public long getExpirationCount()
+	{
+		return expirationCount;
+	}
+	
+	/**
+	 * Returns the average time spent loading a hibernated session back into memory.
+	 * @return the average rehydration latency in milliseconds, or 0 if no session was rehydrated
+	 */
+	public double getAverageRehydrationMillis()
+	{
+		return rehydrationCount == 0 ? 0 : (double) totalRehydrationNanos / rehydrationCount / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+	
+	/**
+	 * Returns the longest time spent loading a hibernated session back into memory.
+	 * @return the maximum rehydration latency in milliseconds
+	 */
+	public double getMaxRehydrationMillis()
+	{
+		return (double) maxRehydrationNanos / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("resident=%d hibernated=%d hibernations=%d rehydrations=%d expirations=%d averageRehydrationMillis=%.3f maxRehydrationMillis=%.3f",
+				residentCount, hibernatedCount, hibernationCount, rehydrationCount, expirationCount, getAverageRehydrationMillis(), getMaxRehydrationMillis());
+	}
+}
\ No newline at end of file
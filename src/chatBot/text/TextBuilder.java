@@ -0,0 +1,110 @@
+package chatBot.text;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The <code>TextBuilder</code> class builds a string into a buffer sized up front, for transforms that know the length of their output.
+ * 
+ * <p>
+ * Unlike a <code>StringBuilder</code> with its default capacity, the buffer never has to grow when its size is right,
+ * and appending copies characters in bulk. The buffer still grows if more is appended than was announced.
+ * </p>
+ * 
+ * @see {@link TokenSpans}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class TextBuilder
+{
+	/** The characters built so far, only the first {@link #length} of which are used. */
+	private char[] buffer;
+	
+	/** The number of characters built so far. */
+	private int length = 0;
+	
+	/**
+	 * Constructs an empty builder.
+	 * @param capacity the exact length of the text to be built
+	 */
+	public TextBuilder(int capacity)
+	{
+		// Validity checks
+		if(capacity < 0)
+		{
+			throw new IllegalArgumentException("Parameter 'capacity' cannot be negative.");
+		}
+		
+		buffer = new char[capacity];
+	}
+	
+	/**
+	 * Appends a character.
+	 * @param c the character to append
+	 * @return this builder
+	 */
+	public TextBuilder append(char c)
+	{
+		ensureCapacity(1);
+		buffer[length++] = c;
+		return this;
+	}
+	
+	/**
+	 * Appends a string.
+	 * @param text the string to append
+	 * @return this builder
+	 */
+	public TextBuilder append(String text)
+	{
+		return append(text, 0, text.length());
+	}
+	
+	/**
+	 * Appends a range of a string.
+	 * @param text the string to append from
+	 * @param start the offset of the first character to append
+	 * @param end the offset right after the last character to append
+	 * @return this builder
+	 */
+	public TextBuilder append(String text, int start, int end)
+	{
+		// Validity checks
+		Objects.requireNonNull(text, "Parameter 'text' cannot be null.");
+		Objects.checkFromToIndex(start, end, text.length());
+		
+		ensureCapacity(end - start);
+		text.getChars(start, end, buffer, length);
+		length += end - start;
+		return this;
+	}
+	
+	/**
+	 * Returns the number of characters built so far.
+	 * @return the length
+	 */
+	public int length()
+	{
+		return length;
+	}
+	
+	/**
+	 * Returns the built string.
+	 * @return the built string
+	 */
+	@Override
+	public String toString()
+	{
+		return new String(buffer, 0, length);
+	}
+	
+	/**
+	 * Grows the buffer if the given number of characters do not fit.
+	 * @param extra the number of characters about to be appended
+	 */
+	private void ensureCapacity(int extra)
+	{
+		if(length + extra > buffer.length)
+		{
+			buffer = Arrays.copyOf(buffer, Math.max(length + extra, buffer.length * 2));
+		}
+	}
+}
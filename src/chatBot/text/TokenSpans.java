@@ -0,0 +1,166 @@
+package chatBot.text;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+/**
+ * The <code>TokenSpans</code> class holds the tokens of a text as offsets into it, instead of as substrings.
+ * 
+ * <p>
+ * Each span is packed into a single <code>long</code>, its start offset in the high half and its end offset in the low half,
+ * so reordering the tokens only moves numbers around, and the text itself is copied once, when the spans are {@link #join(char) joined}.
+ * </p>
+ * 
+ * @see {@link Tokenizer}
+ * @see {@link TextBuilder}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class TokenSpans
+{
+	/** The text that the spans point into. */
+	private final String source;
+	
+	/** The packed spans, only the first {@link #size} of which are used. */
+	private long[] spans;
+	
+	/** The number of spans. */
+	private int size = 0;
+	
+	/**
+	 * Constructs an empty list of spans over the given text.
+	 * @param source the text that the spans point into
+	 * @param initialCapacity the number of spans to make room for
+	 */
+	TokenSpans(String source, int initialCapacity)
+	{
+		this.source = Objects.requireNonNull(source, "Parameter 'source' cannot be null.");
+		spans = new long[Math.max(initialCapacity, 4)];
+	}
+	
+	/**
+	 * Adds a span at the end of the list.
+	 * @param start the offset of the token's first character
+	 * @param end the offset right after the token's last character
+	 */
+	void add(int start, int end)
+	{
+		if(size == spans.length)
+		{
+			spans = Arrays.copyOf(spans, spans.length * 2);
+		}
+		spans[size++] = ((long) start << 32) | end;
+	}
+	
+	/**
+	 * Returns the text that the spans point into.
+	 * @return the source text
+	 */
+	public String getSource()
+	{
+		return source;
+	}
+	
+	/**
+	 * Returns the number of tokens.
+	 * @return the number of tokens
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Returns the offset of the first character of the specified token.
+	 * @param index the index of the token
+	 * @return the token's start offset
+	 */
+	public int start(int index)
+	{
+		Objects.checkIndex(index, size);
+		return (int) (spans[index] >>> 32);
+	}
+	
+	/**
+	 * Returns the offset right after the last character of the specified token.
+	 * @param index the index of the token
+	 * @return the token's end offset
+	 */
+	public int end(int index)
+	{
+		Objects.checkIndex(index, size);
+		return (int) spans[index];
+	}
+	
+	/**
+	 * Returns the specified token as a string. This allocates a substring, so prefer the offsets in loops.
+	 * @param index the index of the token
+	 * @return the token
+	 */
+	public String get(int index)
+	{
+		return source.substring(start(index), end(index));
+	}
+	
+	/**
+	 * Returns the total number of characters of every token, without any separators.
+	 * @return the number of characters
+	 */
+	public long characterCount()
+	{
+		long count = 0;
+		for(int i = 0; i < size; i++)
+		{
+			count += (int) spans[i] - (int) (spans[i] >>> 32);
+		}
+		return count;
+	}
+	
+	/**
+	 * Shuffles the order of the tokens in place, with the Fisher-Yates algorithm.
+	 * @param random the source of randomness
+	 */
+	public void shuffle(RandomGenerator random)
+	{
+		// Validity checks
+		Objects.requireNonNull(random, "Parameter 'random' cannot be null.");
+		
+		for(int i = size - 1; i > 0; i--)
+		{
+			int j = random.nextInt(i + 1);
+			long swapped = spans[i];
+			spans[i] = spans[j];
+			spans[j] = swapped;
+		}
+	}
+	
+	/**
+	 * Joins the tokens, in their current order, with the given separator between each two tokens.
+	 * The output is written into a single buffer of exactly the right size.
+	 * @param separator the separator between tokens
+	 * @return the joined tokens
+	 */
+	public String join(char separator)
+	{
+		if(size == 0)
+		{
+			return "";
+		}
+		
+		long length = characterCount() + size - 1;
+		if(length > Integer.MAX_VALUE)
+		{
+			throw new IllegalStateException("The joined tokens are too long for a string.");
+		}
+		
+		TextBuilder builder = new TextBuilder((int) length);
+		for(int i = 0; i < size; i++)
+		{
+			if(i > 0)
+			{
+				builder.append(separator);
+			}
+			builder.append(source, (int) (spans[i] >>> 32), (int) spans[i]);
+		}
+		return builder.toString();
+	}
+}
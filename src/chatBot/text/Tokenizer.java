@@ -0,0 +1,107 @@
+package chatBot.text;
+import java.util.Objects;
+
+/**
+ * The <code>Tokenizer</code> class splits texts into tokens, as {@link TokenSpans} over the text.
+ * 
+ * <p>
+ * The text is scanned once, without regular expressions and without creating substrings.
+ * </p>
+ * 
+ * @see {@link TokenSpans}
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class Tokenizer
+{
+	/** A guess of the average number of characters per word, including the space after it, used to size the spans up front. */
+	private static final int AVERAGE_WORD_LENGTH = 6;
+	
+	/** This class only contains static methods. */
+	private Tokenizer()
+	{
+	}
+	
+	/**
+	 * Splits the text into words, separated by runs of whitespace. Leading and trailing whitespace is ignored.
+	 * Whitespace is what the <code>\s</code> regular expression class matches: space, tab, line feed, vertical tab, form feed and carriage return.
+	 * @param text the text to split
+	 * @return the spans of the words
+	 */
+	public static TokenSpans splitWhitespace(String text)
+	{
+		// Validity checks
+		Objects.requireNonNull(text, "Parameter 'text' cannot be null.");
+		
+		int length = text.length();
+		TokenSpans spans = new TokenSpans(text, length / AVERAGE_WORD_LENGTH + 1);
+		
+		int start = -1;
+		for(int i = 0; i < length; i++)
+		{
+			if(isWhitespace(text.charAt(i)))
+			{
+				if(start >= 0)
+				{
+					spans.add(start, i);
+					start = -1;
+				}
+			}
+			else if(start < 0)
+			{
+				start = i;
+			}
+		}
+		if(start >= 0)
+		{
+			spans.add(start, length);
+		}
+		return spans;
+	}
+	
+	/**
+	 * Splits the text into words, the runs of letters and digits, ignoring whitespace and punctuation in between,
+	 * so that "Hello, world!" is split into "Hello" and "world".
+	 * @param text the text to split
+	 * @return the spans of the words
+	 */
+	public static TokenSpans splitWords(String text)
+	{
+		// Validity checks
+		Objects.requireNonNull(text, "Parameter 'text' cannot be null.");
+		
+		int length = text.length();
+		TokenSpans spans = new TokenSpans(text, length / AVERAGE_WORD_LENGTH + 1);
+		
+		int start = -1;
+		for(int i = 0; i < length; i++)
+		{
+			if(!Character.isLetterOrDigit(text.charAt(i)))
+			{
+				if(start >= 0)
+				{
+					spans.add(start, i);
+					start = -1;
+				}
+			}
+			else if(start < 0)
+			{
+				start = i;
+			}
+		}
+		if(start >= 0)
+		{
+			spans.add(start, length);
+		}
+		return spans;
+	}
+	
+	/**
+	 * Returns whether the character is whitespace, as matched by the <code>\s</code> regular expression class.
+	 * @param c the character
+	 * @return true if the character is whitespace, false otherwise
+	 */
+	public static boolean isWhitespace(char c)
+	{
+		return c == ' ' || (c >= '\t' && c <= '\r');
+	}
+}
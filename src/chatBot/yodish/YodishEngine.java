@@ -0,0 +1,258 @@
+package chatBot.yodish;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The <code>YodishEngine</code> class translates English into Yodish locally, with a handful of word order rules
+ * instead of a call to the <a href="https://github.com/richchurcher/yoda-api">Yoda API</a>.
+ * 
+ * <p>
+ * Each sentence is split into clauses, and each clause is rewritten by the first rule that matches it:
+ * <ul>
+ * <li><b>question</b> - "Are you ready?" becomes "Ready, are you?"</li>
+ * <li><b>auxiliary inversion</b> - "You must learn the ways of the force" becomes "Learn the ways of the force, you must."</li>
+ * <li><b>object-subject-verb</b> - "I sense fear" becomes "Fear, I sense."</li>
+ * </ul>
+ * A clause led by a subordinating conjunction keeps it in front and drops the comma, and so does the clause that follows it,
+ * as in "If hard you try, succeed you will."
+ * </p>
+ * 
+ * <p>
+ * The rules are compiled once into regular expressions when the class is loaded, so a translation only costs a few matches.
+ * </p>
+ * 
+ * @author Mohammad Alali (Sanavesa)
+ */
+public final class YodishEngine
+{
+	/** Subject pronouns, which are the only subjects the object-subject-verb rule trusts. */
+	private static final String PRONOUN = "(?:[Ii]|[Yy]ou|[Ww]e|[Tt]hey|[Hh]e|[Ss]he|[Ii]t)";
+	
+	/** A subject: a pronoun, a determiner followed by a noun, a demonstrative on its own, or a capitalized name. */
+	private static final String SUBJECT = "(?:" + PRONOUN + "|(?i:the|a|an|my|your|our|their|his|her|its|this|that|these|those)\\s+[\\w'-]+|(?i:this|that|there)|[A-Z][\\w'-]*)";
+	
+	/** An auxiliary or modal verb, optionally negated. */
+	private static final String AUXILIARY = "(?i:(?:am|is|are|was|were|will|would|can|could|shall|should|must|may|might|have|has|had|do|does|did)(?:\\s+not|n't)?|won't|cannot)";
+	
+	/** Matches a question that starts with an auxiliary verb. */
+	private static final Pattern QUESTION = Pattern.compile("^(?<auxiliary>" + AUXILIARY + ")\\s+(?<subject>" + SUBJECT + ")\\s+(?<rest>.+)$");
+	
+	/** Matches a clause whose subject is followed by an auxiliary verb. */
+	private static final Pattern AUXILIARY_INVERSION = Pattern.compile("^(?<subject>" + SUBJECT + ")\\s+(?<auxiliary>" + AUXILIARY + ")\\s+(?<rest>.+)$");
+	
+	/** Matches a clause whose pronoun subject is followed by a verb and its object. */
+	private static final Pattern OBJECT_SUBJECT_VERB = Pattern.compile("^(?<subject>" + PRONOUN + ")\\s+(?<verb>[\\w'-]+)\\s+(?<rest>.+)$");
+	
+	/** Matches a subordinating conjunction at the start of a clause. */
+	private static final Pattern SUBORDINATOR = Pattern.compile("^(?<conjunction>(?i:if|when|because|although|though|while|since|unless|until|before|after|once))\\s+(?<clause>.+)$");
+	
+	/** Matches the common contractions, which are expanded before the rules run. */
+	private static final Pattern CONTRACTION = Pattern.compile("\\b(?<word>[A-Za-z]+)'(?<suffix>m|re|s|ll|ve|d)\\b");
+	
+	/** Matches the words whose "'s" contraction stands for "is", rather than a possessive or "has". */
+	private static final Pattern IS_CONTRACTABLE = Pattern.compile("(?i:he|she|it|that|there|what|who)");
+	
+	/** Matches a pronoun whose "'d" contraction is expanded to "would". */
+	private static final Pattern PRONOUN_WORD = Pattern.compile(PRONOUN);
+	
+	/** Matches the end of a sentence. */
+	private static final Pattern SENTENCE = Pattern.compile("[^.!?]+[.!?]*");
+	
+	/** Matches a clause boundary: a comma or semicolon, or a coordinating conjunction that starts a new clause. */
+	private static final Pattern CLAUSE_BOUNDARY = Pattern.compile("\\s*[,;]\\s*|\\s+(?=(?i:but|because|so)\\s)");
+	
+	/** Words that are lower-cased when they move away from the start of a sentence. */
+	private static final Set<String> FUNCTION_WORDS = Set.of(
+			"you", "we", "they", "he", "she", "it",
+			"the", "a", "an", "my", "your", "our", "their", "his", "her", "its", "this", "that", "these", "those", "there",
+			"am", "is", "are", "was", "were", "will", "would", "can", "could", "shall", "should", "must", "may", "might",
+			"have", "has", "had", "do", "does", "did", "don't", "doesn't", "didn't", "won't", "can't", "cannot",
+			"if", "when", "because", "although", "though", "while", "since", "unless", "until", "before", "after", "once", "but", "so");
+	
+	/** This class only contains static methods. */
+	private YodishEngine()
+	{
+	}
+	
+	/**
+	 * Translates the given English text into Yodish.
+	 * @param text the text to translate
+	 * @return the translated text
+	 */
+	public static String translate(String text)
+	{
+		// Validity checks
+		Objects.requireNonNull(text, "Parameter 'text' cannot be null.");
+		
+		StringBuilder translation = new StringBuilder(text.length() + 16);
+		Matcher sentences = SENTENCE.matcher(expandContractions(text.strip()));
+		while(sentences.find())
+		{
+			String sentence = sentences.group().strip();
+			if(sentence.isEmpty())
+			{
+				continue;
+			}
+			
+			// Separate the sentence's terminating punctuation
+			int end = sentence.length();
+			while(end > 0 && ".!?".indexOf(sentence.charAt(end - 1)) >= 0)
+			{
+				end--;
+			}
+			String punctuation = end < sentence.length() ? sentence.substring(end) : ".";
+			
+			if(translation.length() > 0)
+			{
+				translation.append(' ');
+			}
+			translation.append(capitalize(translateSentence(sentence.substring(0, end), punctuation.startsWith("?")))).append(punctuation);
+		}
+		return translation.toString();
+	}
+	
+	/**
+	 * Translates a sentence, without its terminating punctuation, clause by clause.
+	 * @param sentence the sentence
+	 * @param isQuestion whether the sentence is a question
+	 * @return the translated sentence
+	 */
+	private static String translateSentence(String sentence, boolean isQuestion)
+	{
+		String[] clauses = CLAUSE_BOUNDARY.split(sentence);
+		StringBuilder translated = new StringBuilder(sentence.length() + 8);
+		boolean isAfterSubordinate = false;
+		for(int i = 0; i < clauses.length; i++)
+		{
+			String clause = clauses[i].strip();
+			if(clause.isEmpty())
+			{
+				continue;
+			}
+			
+			// Only the first word of the sentence was capitalized for being first
+			if(i == 0)
+			{
+				clause = decapitalizeFunctionWord(clause);
+			}
+			
+			if(translated.length() > 0)
+			{
+				translated.append(", ");
+			}
+			
+			// Keep a subordinating conjunction in front, and invert the rest without a comma, as well as the clause that follows
+			Matcher subordinate = SUBORDINATOR.matcher(clause);
+			if(subordinate.matches())
+			{
+				translated.append(subordinate.group("conjunction")).append(' ').append(invert(subordinate.group("clause"), false, " "));
+				isAfterSubordinate = true;
+			}
+			else
+			{
+				translated.append(invert(clause, isQuestion && i == clauses.length - 1, isAfterSubordinate ? " " : ", "));
+				isAfterSubordinate = false;
+			}
+		}
+		return translated.toString();
+	}
+	
+	/**
+	 * Moves the clause's predicate in front of its subject and verb.
+	 * @param clause the clause
+	 * @param isQuestion whether the clause ends a question
+	 * @param separator the separator between the moved predicate and the subject
+	 * @return the inverted clause, or the clause itself if no rule matches
+	 */
+	private static String invert(String clause, boolean isQuestion, String separator)
+	{
+		Matcher matcher;
+		if(isQuestion && (matcher = QUESTION.matcher(clause)).matches())
+		{
+			return matcher.group("rest") + separator + matcher.group("auxiliary").toLowerCase() + " " + matcher.group("subject");
+		}
+		if((matcher = AUXILIARY_INVERSION.matcher(clause)).matches())
+		{
+			return matcher.group("rest") + separator + matcher.group("subject") + " " + matcher.group("auxiliary");
+		}
+		if((matcher = OBJECT_SUBJECT_VERB.matcher(clause)).matches())
+		{
+			return matcher.group("rest") + separator + matcher.group("subject") + " " + matcher.group("verb");
+		}
+		return clause;
+	}
+	
+	/**
+	 * Expands contractions such as "I'm" and "you're", so that the rules see the auxiliary verb on its own.
+	 * The possessive and ambiguous "'s" and "'d" are only expanded after pronouns.
+	 * @param text the text
+	 * @return the text with its contractions expanded
+	 */
+	private static String expandContractions(String text)
+	{
+		if(text.indexOf('\'') < 0)
+		{
+			return text;
+		}
+		
+		Matcher matcher = CONTRACTION.matcher(text);
+		StringBuilder expanded = new StringBuilder(text.length() + 16);
+		while(matcher.find())
+		{
+			String word = matcher.group("word");
+			String expansion;
+			switch(matcher.group("suffix"))
+			{
+				case "m": expansion = " am"; break;
+				case "re": expansion = " are"; break;
+				case "ll": expansion = " will"; break;
+				case "ve": expansion = " have"; break;
+				case "s": expansion = IS_CONTRACTABLE.matcher(word).matches() ? " is" : null; break;
+				case "d": expansion = PRONOUN_WORD.matcher(word).matches() ? " would" : null; break;
+				default: expansion = null; break;
+			}
+			matcher.appendReplacement(expanded, Matcher.quoteReplacement(expansion != null ? word + expansion : matcher.group()));
+		}
+		matcher.appendTail(expanded);
+		return expanded.toString();
+	}
+	
+	/**
+	 * Lower-cases the first word of a clause if it is a function word, such as a pronoun or a determiner.
+	 * Names and "I" keep their capital letter.
+	 * @param clause the clause
+	 * @return the clause with its first word lower-cased if needed
+	 */
+	private static String decapitalizeFunctionWord(String clause)
+	{
+		int end = 0;
+		while(end < clause.length() && !Character.isWhitespace(clause.charAt(end)))
+		{
+			end++;
+		}
+		
+		String firstWord = clause.substring(0, end);
+		String lowered = firstWord.toLowerCase();
+		if(!firstWord.equals(lowered) && FUNCTION_WORDS.contains(lowered))
+		{
+			return lowered + clause.substring(end);
+		}
+		return clause;
+	}
+	
+	/**
+	 * Capitalizes the first letter of the given text.
+	 * @param text the text
+	 * @return the capitalized text
+	 */
+	private static String capitalize(String text)
+	{
+		if(text.isEmpty() || Character.isUpperCase(text.charAt(0)))
+		{
+			return text;
+		}
+		return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+	}
+}